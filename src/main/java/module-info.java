@@ -3,6 +3,7 @@ module org.cryptomator.cloudaccess {
 	exports org.cryptomator.cloudaccess.api;
 	exports org.cryptomator.cloudaccess.api.exceptions;
 	exports org.cryptomator.cloudaccess.requestdecorator;
+	exports org.cryptomator.cloudaccess.webdav;
 
 	requires java.xml;
 	requires com.google.common;
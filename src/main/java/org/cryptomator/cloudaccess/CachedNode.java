@@ -23,9 +23,10 @@ public class CachedNode {
 	private final String name;
 	private final CachedNode parent;
 	private final Map<String, CachedNode> children;
-	private boolean dirty;
-	private boolean childrenFetched;
-	private Cachable<?> data;
+	// volatile, as nodes are read and updated by several threads, e.g. while refreshing sibling folders concurrently
+	private volatile boolean dirty;
+	private volatile boolean childrenFetched;
+	private volatile Cachable<?> data;
 
 	@FunctionalInterface
 	public interface Cachable<T extends Cachable<T>> {
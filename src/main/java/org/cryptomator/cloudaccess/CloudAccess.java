@@ -17,6 +17,8 @@ import org.cryptomator.cloudaccess.requestdecorator.CloudProviderDecoratorFactor
 import org.cryptomator.cloudaccess.vaultformat8.VaultFormat8ProviderDecorator;
 import org.cryptomator.cloudaccess.webdav.WebDavCloudProvider;
 import org.cryptomator.cloudaccess.webdav.WebDavCredential;
+import org.cryptomator.cloudaccess.webdav.WebDavTransport;
+import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.CryptorProvider;
 import org.cryptomator.cryptolib.api.Masterkey;
 
@@ -26,6 +28,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
 
 public class CloudAccess {
 
@@ -51,6 +56,39 @@ public class CloudAccess {
 	 * @return A cleartext view on the given CloudProvider
 	 */
 	public static CloudProvider vaultFormat8GCMCloudAccess(CloudProvider cloudProvider, CloudPath pathToVault, byte[] rawKey) {
+		return vaultFormat8GCMCloudAccess(cloudProvider, pathToVault, rawKey, Runnable::run);
+	}
+
+	/**
+	 * Same as {@link #vaultFormat8GCMCloudAccess(CloudProvider, CloudPath, byte[])}, but performs the CPU-bound encryption and decryption of names and file headers
+	 * on the given <code>cryptoExecutor</code> instead of the thread completing the request to the underlying <code>cloudProvider</code>.
+	 *
+	 * @param cloudProvider  A CloudProvider providing access to a storage space on which to store ciphertext data
+	 * @param pathToVault    Path that can be used within the given <code>cloudProvider</code> leading to the vault's root
+	 * @param rawKey         512 bit key used for cryptographic operations
+	 * @param cryptoExecutor Executor used for cryptographic operations, which should be kept separate from any executor doing blocking I/O
+	 * @return A cleartext view on the given CloudProvider
+	 */
+	public static CloudProvider vaultFormat8GCMCloudAccess(CloudProvider cloudProvider, CloudPath pathToVault, byte[] rawKey, Executor cryptoExecutor) {
+		return vaultFormat8GCMCloudAccess(cloudProvider, pathToVault, rawKey, (decoratedCloudProvider, cryptor) -> new VaultFormat8ProviderDecorator(decoratedCloudProvider, pathToVault.resolve("d"), cryptor, cryptoExecutor));
+	}
+
+	/**
+	 * Same as {@link #vaultFormat8GCMCloudAccess(CloudProvider, CloudPath, byte[], Executor)}, but also performs the blocking transfers of file contents,
+	 * i.e. decrypting reads into local files and buffering parts of parallel reads, on the given <code>ioExecutor</code> instead of a thread pool shared by all vaults.
+	 *
+	 * @param cloudProvider  A CloudProvider providing access to a storage space on which to store ciphertext data
+	 * @param pathToVault    Path that can be used within the given <code>cloudProvider</code> leading to the vault's root
+	 * @param rawKey         512 bit key used for cryptographic operations
+	 * @param cryptoExecutor Executor used for cryptographic operations, which should be kept separate from any executor doing blocking I/O
+	 * @param ioExecutor     Executor used for blocking transfers of file contents, which must neither be <code>cryptoExecutor</code> nor complete requests to <code>cloudProvider</code>
+	 * @return A cleartext view on the given CloudProvider
+	 */
+	public static CloudProvider vaultFormat8GCMCloudAccess(CloudProvider cloudProvider, CloudPath pathToVault, byte[] rawKey, Executor cryptoExecutor, Executor ioExecutor) {
+		return vaultFormat8GCMCloudAccess(cloudProvider, pathToVault, rawKey, (decoratedCloudProvider, cryptor) -> new VaultFormat8ProviderDecorator(decoratedCloudProvider, pathToVault.resolve("d"), cryptor, cryptoExecutor, ioExecutor));
+	}
+
+	private static CloudProvider vaultFormat8GCMCloudAccess(CloudProvider cloudProvider, CloudPath pathToVault, byte[] rawKey, BiFunction<CloudProvider, Cryptor, VaultFormat8ProviderDecorator> decoratorFactory) {
 		Preconditions.checkArgument(rawKey.length == 64, "masterkey needs to be 512 bit");
 
 		try {
@@ -62,7 +100,7 @@ public class CloudAccess {
 
 			var decoratedCloudProvider = new CloudProviderDecoratorFactory().get(cloudProvider, cloudProvider.cachingCapability());
 
-			VaultFormat8ProviderDecorator vaultFormat8Provider = new VaultFormat8ProviderDecorator(decoratedCloudProvider, pathToVault.resolve("d"), cryptor);
+			VaultFormat8ProviderDecorator vaultFormat8Provider = decoratorFactory.apply(decoratedCloudProvider, cryptor);
 			vaultFormat8Provider.initialize();
 
 			return vaultFormat8Provider;
@@ -113,6 +151,32 @@ public class CloudAccess {
 		return WebDavCloudProvider.from(WebDavCredential.from(url, username, password.toString()));
 	}
 
+	/**
+	 * Creates a new CloudProvider which provides access to the given URL via WebDAV.
+	 *
+	 * @param url             Base URL leading to the root resource
+	 * @param username        Username used during basic or digest auth challenges
+	 * @param password        Password used during basic or digest auth challenges
+	 * @param executorService Executor running the HTTP calls and processing their responses, e.g. a virtual-thread-per-task executor
+	 * @return A cloud access provider that provides access to the given WebDAV URL
+	 */
+	public static CloudProvider toWebDAV(URL url, String username, CharSequence password, ExecutorService executorService) {
+		return WebDavCloudProvider.from(WebDavCredential.from(url, username, password.toString()), executorService);
+	}
+
+	/**
+	 * Creates a new CloudProvider which provides access to the given URL via WebDAV.
+	 *
+	 * @param url       Base URL leading to the root resource
+	 * @param username  Username used during basic or digest auth challenges
+	 * @param password  Password used during basic or digest auth challenges
+	 * @param transport Transport shared with other WebDAV providers, pooling connections, threads and TLS sessions
+	 * @return A cloud access provider that provides access to the given WebDAV URL
+	 */
+	public static CloudProvider toWebDAV(URL url, String username, CharSequence password, WebDavTransport transport) {
+		return WebDavCloudProvider.from(WebDavCredential.from(url, username, password.toString()), transport);
+	}
+
 	/**
 	 * Creates a new CloudProvider which provides access to the given <code>folder</code>. Mainly for test purposes.
 	 *
@@ -123,4 +187,15 @@ public class CloudAccess {
 		return new LocalFsCloudProvider(folder);
 	}
 
+	/**
+	 * Creates a new CloudProvider which provides access to the given <code>folder</code>. Mainly for test purposes.
+	 *
+	 * @param folder   An existing folder on the (local) default file system
+	 * @param executor Executor running the blocking file system operations
+	 * @return A cloud access provider that provides access to the given local directory
+	 */
+	public static CloudProvider toLocalFileSystem(Path folder, Executor executor) {
+		return new LocalFsCloudProvider(folder, executor);
+	}
+
 }
@@ -0,0 +1,38 @@
+package org.cryptomator.cloudaccess;
+
+import org.cryptomator.cloudaccess.api.ProgressListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sums up the progress of multiple parts transferred concurrently, each of which reports its own progress starting from zero.
+ */
+public class CombinedProgressListener {
+
+	private final ProgressListener delegate;
+	private final AtomicLong total = new AtomicLong();
+
+	/**
+	 * @param delegate The listener notified about the total progress of all parts. It may be called concurrently.
+	 */
+	public CombinedProgressListener(ProgressListener delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return A listener for a single part
+	 */
+	public ProgressListener forPart() {
+		return new ProgressListener() {
+
+			private long reported;
+
+			@Override
+			public void onProgress(long value) {
+				delegate.onProgress(total.addAndGet(value - reported));
+				reported = value;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,138 @@
+package org.cryptomator.cloudaccess;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+
+/**
+ * Concatenates parts of a file, which are loaded concurrently, in their original order.
+ * <p>
+ * Besides the part currently being read, at most <code>parallelism</code> parts are loaded ahead. Parts are expected to be held in memory,
+ * so the memory used by this stream is bounded by <code>parallelism + 1</code> times the part size.
+ */
+public class OrderedPartsInputStream extends InputStream {
+
+	private final int partCount;
+	private final IntFunction<CompletionStage<InputStream>> partLoader;
+	private final int parallelism;
+	private final Queue<CompletableFuture<InputStream>> pendingParts;
+	private int nextPart;
+	private InputStream currentPart;
+	private boolean closed;
+
+	/**
+	 * @param partCount   Number of parts
+	 * @param partLoader  Loads the part with the given index
+	 * @param parallelism Maximum number of parts loaded concurrently
+	 */
+	public OrderedPartsInputStream(int partCount, IntFunction<CompletionStage<InputStream>> partLoader, int parallelism) {
+		Preconditions.checkArgument(partCount >= 0, "partCount must not be negative");
+		Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+		this.partCount = partCount;
+		this.partLoader = partLoader;
+		this.parallelism = parallelism;
+		this.pendingParts = new ArrayDeque<>(parallelism);
+		loadAhead();
+	}
+
+	private void loadAhead() {
+		if (pendingParts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+			// reading will fail once it reaches the failed part, so loading further parts is futile
+			return;
+		}
+		while (pendingParts.size() < parallelism && nextPart < partCount) {
+			pendingParts.add(partLoader.apply(nextPart++).toCompletableFuture());
+		}
+	}
+
+	// returns false if all parts have been read
+	private boolean ensureCurrentPart() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+		if (currentPart != null) {
+			return true;
+		}
+		var part = pendingParts.poll();
+		if (part == null) {
+			return false;
+		}
+		try {
+			currentPart = part.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for part");
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to load part", e.getCause());
+		} finally {
+			loadAhead();
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (ensureCurrentPart()) {
+			int b = currentPart.read();
+			if (b != -1) {
+				return b;
+			}
+			closeCurrentPart();
+		}
+		return -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (ensureCurrentPart()) {
+			int read = currentPart.read(b, off, len);
+			if (read != -1) {
+				return read;
+			}
+			closeCurrentPart();
+		}
+		return -1;
+	}
+
+	private void closeCurrentPart() throws IOException {
+		var part = currentPart;
+		currentPart = null;
+		part.close();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		nextPart = partCount;
+		for (var part : pendingParts) {
+			// parts still loading are closed as soon as they have been loaded
+			part.thenAccept(in -> {
+				try {
+					in.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		pendingParts.clear();
+		if (currentPart != null) {
+			closeCurrentPart();
+		}
+	}
+
+}
@@ -4,11 +4,18 @@ import org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException;
 import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
 import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -35,6 +42,31 @@ public interface CloudProvider {
 	 */
 	CompletionStage<CloudItemMetadata> itemMetadata(CloudPath node);
 
+	/**
+	 * Fetches the metadata for several files or folders.
+	 * <p>
+	 * Providers may fetch the metadata of siblings, i.e. nodes within the same folder, at once. By default, each node is fetched using {@link #itemMetadata(CloudPath)}.
+	 * <p>
+	 * The returned CompletionStage might complete exceptionally with a {@link CloudProviderException} in case of generic I/O errors.
+	 *
+	 * @param nodes The remote paths of the files or folders, whose metadata to fetch.
+	 * @return CompletionStage with the metadata by path. Nodes that don't exist are missing from the map.
+	 */
+	default CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(Collection<CloudPath> nodes) {
+		var result = new ConcurrentHashMap<CloudPath, CloudItemMetadata>();
+		var futures = nodes.stream().distinct().map(node -> itemMetadata(node).handle((metadata, exception) -> {
+			if (metadata != null) {
+				result.put(node, metadata);
+				return CompletableFuture.<Void>completedFuture(null);
+			} else if (exception instanceof NotFoundException) {
+				return CompletableFuture.<Void>completedFuture(null);
+			} else {
+				return CompletableFuture.<Void>failedFuture(exception);
+			}
+		}).thenCompose(Function.identity()).toCompletableFuture()).toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(futures).thenApply(unused -> result);
+	}
+
 	/**
 	 * Convenience method to check whether the given node exists by attempting to fetch its metadata.
 	 * <p>
@@ -144,6 +176,31 @@ public interface CloudProvider {
 	 */
 	CompletionStage<InputStream> read(CloudPath file, long offset, long count, ProgressListener progressListener);
 
+	/**
+	 * Reads the given file into a local file.
+	 * <p>
+	 * Providers may transfer the contents more efficiently than by copying them from an InputStream, e.g. without intermediate buffers on the heap.
+	 * <p>
+	 * The returned CompletionStage might complete exceptionally with the same exceptions as specified in {@link #read(CloudPath, long, long, ProgressListener)}
+	 * and with a {@link CloudProviderException} if <code>target</code> can't be written.
+	 *
+	 * @param file             A remote path referencing a file
+	 * @param target           A local file, which will be created or replaced
+	 * @param progressListener Future use
+	 * @return CompletionStage that will be completed after writing all contents of <code>file</code> to <code>target</code>.
+	 * @see #read(CloudPath, ProgressListener)
+	 */
+	default CompletionStage<Void> readTo(CloudPath file, Path target, ProgressListener progressListener) {
+		return read(file, progressListener).thenAccept(data -> {
+			// FileChannel.transferFrom(...) would end silently if reading fails after some bytes have been transferred
+			try (data; var out = Files.newOutputStream(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				data.transferTo(out);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			}
+		});
+	}
+
 	/**
 	 * Writes to a given file, creating it if it doesn't exist yet. <code>lastModified</code> is applied with best-effort but without guarantee.
 	 * <p>
@@ -166,6 +223,41 @@ public interface CloudProvider {
 	 */
 	CompletionStage<Void> write(CloudPath file, boolean replace, InputStream data, long size, Optional<Instant> lastModified, ProgressListener progressListener);
 
+	/**
+	 * Writes the contents of a local file to a given file, creating it if it doesn't exist yet. <code>lastModified</code> is applied with best-effort but without guarantee.
+	 * <p>
+	 * Providers may transfer the contents more efficiently than from an InputStream, e.g. without copying them through intermediate buffers or by sending them again
+	 * if a request has to be repeated.
+	 * <p>
+	 * The returned CompletionStage might complete exceptionally with the same exceptions as specified in {@link #write(CloudPath, boolean, InputStream, long, Optional, ProgressListener)}
+	 * and with a {@link CloudProviderException} if <code>source</code> can't be read.
+	 *
+	 * @param file             A remote path referencing a file
+	 * @param replace          Flag indicating whether to overwrite the file if it already exists.
+	 * @param source           A local file from which to copy contents to the remote file
+	 * @param lastModified     The lastModified which should be provided to the server
+	 * @param progressListener Future use
+	 * @return CompletionStage that will be completed after writing all contents of <code>source</code>.
+	 * @see #write(CloudPath, boolean, InputStream, long, Optional, ProgressListener)
+	 */
+	default CompletionStage<Void> write(CloudPath file, boolean replace, Path source, Optional<Instant> lastModified, ProgressListener progressListener) {
+		final InputStream data;
+		final long size;
+		try {
+			size = Files.size(source);
+			data = Files.newInputStream(source);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(new CloudProviderException(e));
+		}
+		return write(file, replace, data, size, lastModified, progressListener).whenComplete((nullReturn, exception) -> {
+			try {
+				data.close();
+			} catch (IOException e) {
+				// ignore, all data has been read or the write failed anyway
+			}
+		});
+	}
+
 	/**
 	 * Create a folder. Does not create any potentially missing parent directories.
 	 * <p>
@@ -248,6 +340,65 @@ public interface CloudProvider {
 	 */
 	CompletionStage<CloudPath> move(CloudPath source, CloudPath target, boolean replace);
 
+	/**
+	 * Copy a file or folder to a different location. Folders are copied including their contents. If <code>replace</code> is set, an existing node at
+	 * <code>target</code> is replaced as a whole, i.e. folders are not merged.
+	 * <p>
+	 * Providers are expected to copy the contents within the cloud. By default, each file is downloaded to a temporary file and uploaded again.
+	 * <p>
+	 * The returned CompletionStage might complete exceptionally with one of the following exceptions:
+	 * <ul>
+	 *     <li>{@link org.cryptomator.cloudaccess.api.exceptions.NotFoundException} If no item exists for the given source path</li>
+	 *     <li>{@link org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException} If a node with the given target path already exists and <code>replace</code> is false</li>
+	 *     <li>{@link org.cryptomator.cloudaccess.api.exceptions.ParentFolderDoesNotExistException} If the parent folder of a node doesn't exists</li>
+	 *     <li>{@link CloudProviderException} in case of generic I/O errors</li>
+	 * </ul>
+	 *
+	 * @param source  The remote path of the file or folder to be copied.
+	 * @param target  The remote path of the copy.
+	 * @param replace Flag indicating whether to overwrite <code>target</code> if it already exists.
+	 * @return CompletionStage with the same path as {@code target} if node was copied successfully.
+	 */
+	default CompletionStage<CloudPath> copy(CloudPath source, CloudPath target, boolean replace) {
+		return itemMetadata(source).thenCompose(metadata -> {
+			if (metadata.getItemType() == CloudItemType.FOLDER) {
+				var futureTargetCleared = replace ? itemMetadata(target).handle((targetMetadata, exception) -> {
+					if (targetMetadata != null) {
+						return targetMetadata.getItemType() == CloudItemType.FOLDER ? deleteFolder(target) : deleteFile(target);
+					} else if (exception instanceof NotFoundException) {
+						return CompletableFuture.<Void>completedFuture(null);
+					} else {
+						return CompletableFuture.<Void>failedFuture(exception);
+					}
+				}).thenCompose(Function.identity()) : CompletableFuture.<Void>completedFuture(null);
+				return futureTargetCleared //
+						.thenCompose(unused -> createFolder(target)) //
+						.thenCompose(unused -> listExhaustively(source)) //
+						.thenCompose(children -> CompletableFuture.allOf(children.getItems().stream() //
+								.map(child -> copy(child.getPath(), target.resolve(child.getName()), false).toCompletableFuture()) //
+								.toArray(CompletableFuture[]::new))) //
+						.thenApply(unused -> target);
+			} else {
+				final Path tmpFile;
+				try {
+					tmpFile = Files.createTempFile("cloudaccess-copy", ".tmp");
+				} catch (IOException e) {
+					return CompletableFuture.failedFuture(new CloudProviderException(e));
+				}
+				return readTo(source, tmpFile, ProgressListener.NO_PROGRESS_AWARE) //
+						.thenCompose(unused -> write(target, replace, tmpFile, metadata.getLastModifiedDate(), ProgressListener.NO_PROGRESS_AWARE)) //
+						.thenApply(unused -> target) //
+						.whenComplete((path, exception) -> {
+							try {
+								Files.deleteIfExists(tmpFile);
+							} catch (IOException e) {
+								// ignore, the copy succeeded or failed already
+							}
+						});
+			}
+		});
+	}
+
 	/**
 	 * Check if caching is possible and implemented
 	 * @return true if the implementation can and do cache requests itself
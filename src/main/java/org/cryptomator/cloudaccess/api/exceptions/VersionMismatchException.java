@@ -0,0 +1,11 @@
+package org.cryptomator.cloudaccess.api.exceptions;
+
+/**
+ * Thrown if an item has been changed remotely since the version a conditional operation was based on.
+ */
+public class VersionMismatchException extends CloudProviderException {
+
+    public VersionMismatchException(String name) {
+        super(name);
+    }
+}
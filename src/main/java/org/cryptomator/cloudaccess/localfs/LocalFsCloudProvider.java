@@ -15,6 +15,7 @@ import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
 import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.cryptomator.cloudaccess.api.exceptions.TypeMismatchException;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
@@ -35,11 +36,17 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -50,6 +57,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * This class is mainly for testing purposes and therefore aims for correctness, not performance.
  * All filesystem altering operations (create, delete, move and write) will be executed exclusively and blocking,
  * while all fs quering operations are performed simultanously.
+ * <p>
+ * Operations are run on the given executor. If none is provided, they are performed on the caller's thread.
  */
 public class LocalFsCloudProvider implements CloudProvider {
 
@@ -62,9 +71,20 @@ public class LocalFsCloudProvider implements CloudProvider {
 	 */
 	private final ReadWriteLock lock;
 
+	private final Executor executor;
+
 	public LocalFsCloudProvider(Path root) {
+		this(root, Runnable::run);
+	}
+
+	/**
+	 * @param root     The folder to mirror
+	 * @param executor Executor running the blocking filesystem operations
+	 */
+	public LocalFsCloudProvider(Path root, Executor executor) {
 		this.root = root;
 		this.lock = new ReentrantReadWriteLock();
+		this.executor = executor;
 	}
 
 	private Path resolve(CloudPath cloudPath) {
@@ -72,6 +92,19 @@ public class LocalFsCloudProvider implements CloudProvider {
 		return root.resolve(relPath);
 	}
 
+	// copies all of src to dst, failing instead of waiting if src gets truncated meanwhile
+	static void transferFully(FileChannel src, FileChannel dst) throws IOException {
+		var size = src.size();
+		var position = 0L;
+		while (position < size) {
+			var transferred = src.transferTo(position, size - position, dst);
+			if (transferred == 0 && position >= src.size()) {
+				throw new EOFException("Source ended after " + position + " of " + size + " bytes");
+			}
+			position += transferred;
+		}
+	}
+
 	private CloudItemMetadata createMetadata(Path fullPath, BasicFileAttributes attr) {
 		var relPath = root.relativize(fullPath);
 		var type = attr.isDirectory() ? CloudItemType.FOLDER : attr.isRegularFile() ? CloudItemType.FILE : CloudItemType.UNKNOWN;
@@ -82,171 +115,328 @@ public class LocalFsCloudProvider implements CloudProvider {
 
 	@Override
 	public CompletionStage<CloudItemMetadata> itemMetadata(CloudPath node) {
-		Path path = resolve(node);
-		Lock l = lock.readLock();
-		l.lock();
-		try {
-			var attr = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
-			var metadata = createMetadata(path, attr);
-			return CompletableFuture.completedFuture(metadata);
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path path = resolve(node);
+			Lock l = lock.readLock();
+			l.lock();
+			try {
+				var attr = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+				var metadata = createMetadata(path, attr);
+				return metadata;
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
+	}
+
+	@Override
+	public CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(Collection<CloudPath> nodes) {
+		return CompletableFuture.supplyAsync(() -> {
+			var result = new HashMap<CloudPath, CloudItemMetadata>();
+			var siblingsByParent = new HashMap<CloudPath, Set<CloudPath>>();
+			Lock l = lock.readLock();
+			l.lock();
+			try {
+				for (var node : nodes) {
+					if (node.getParent() != null) {
+						siblingsByParent.computeIfAbsent(node.getParent(), parent -> new HashSet<>()).add(node);
+					} else {
+						var path = resolve(node);
+						if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+							result.put(node, createMetadata(path, Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)));
+						}
+					}
+				}
+				// scan each parent once instead of querying every sibling
+				for (var entry : siblingsByParent.entrySet()) {
+					var parent = entry.getKey();
+					var siblings = entry.getValue();
+					var folderPath = resolve(parent);
+					if (!Files.isDirectory(folderPath, LinkOption.NOFOLLOW_LINKS)) {
+						continue;
+					}
+					Files.walkFileTree(folderPath, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+						@Override
+						public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+							var node = parent.resolve(file.getFileName().toString());
+							if (siblings.contains(node)) {
+								result.put(node, createMetadata(file, attrs));
+							}
+							return FileVisitResult.CONTINUE;
+						}
+					});
+				}
+				return result;
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<Quota> quota(CloudPath folder) {
-		var file = resolve(folder).toFile();
-		var availableBytes = file.getFreeSpace();
-		var totalBytes = file.getTotalSpace();
-		return CompletableFuture.completedFuture(new Quota(availableBytes, Optional.of(totalBytes), Optional.empty()));
+		return CompletableFuture.supplyAsync(() -> {
+			var file = resolve(folder).toFile();
+			var availableBytes = file.getFreeSpace();
+			var totalBytes = file.getTotalSpace();
+			return new Quota(availableBytes, Optional.of(totalBytes), Optional.empty());
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<CloudItemList> list(CloudPath folder, Optional<String> pageToken) {
-		Path folderPath = resolve(folder);
-		Lock l = lock.readLock();
-		l.lock();
-		try {
-			List<CloudItemMetadata> items = new ArrayList<>();
-			Files.walkFileTree(folderPath, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
-				@Override
-				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-					items.add(createMetadata(file, attrs));
-					return FileVisitResult.CONTINUE;
-				}
-			});
-			return CompletableFuture.completedFuture(new CloudItemList(items, Optional.empty()));
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (NotDirectoryException e) {
-			return CompletableFuture.failedFuture(new TypeMismatchException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path folderPath = resolve(folder);
+			Lock l = lock.readLock();
+			l.lock();
+			try {
+				List<CloudItemMetadata> items = new ArrayList<>();
+				Files.walkFileTree(folderPath, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+						items.add(createMetadata(file, attrs));
+						return FileVisitResult.CONTINUE;
+					}
+				});
+				return new CloudItemList(items, Optional.empty());
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (NotDirectoryException e) {
+				throw new TypeMismatchException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<InputStream> read(CloudPath file, long offset, long count, ProgressListener progressListener) {
-		Path filePath = resolve(file);
-		Lock l = lock.readLock();
-		l.lock();
-		try {
-			var ch = Files.newByteChannel(filePath, StandardOpenOption.READ);
-			ch.position(offset);
-			return CompletableFuture.completedFuture(ByteStreams.limit(Channels.newInputStream(ch), count));
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path filePath = resolve(file);
+			Lock l = lock.readLock();
+			l.lock();
+			try {
+				var ch = Files.newByteChannel(filePath, StandardOpenOption.READ);
+				ch.position(offset);
+				return ByteStreams.limit(Channels.newInputStream(ch), count);
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
+	}
+
+	@Override
+	public CompletionStage<Void> readTo(CloudPath file, Path target, ProgressListener progressListener) {
+		return CompletableFuture.supplyAsync(() -> {
+			Path filePath = resolve(file);
+			Lock l = lock.readLock();
+			l.lock();
+			try (var src = FileChannel.open(filePath, StandardOpenOption.READ); var ch = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				transferFully(src, ch);
+				return null;
+			} catch (NoSuchFileException e) {
+				throw filePath.toString().equals(e.getFile()) ? new NotFoundException(e) : new CloudProviderException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<Void> write(CloudPath file, boolean replace, InputStream data, long size, Optional<Instant> lastModified, ProgressListener progressListener) {
-		Path filePath = resolve(file);
-		var options = replace
-				? EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
-				: EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+		return CompletableFuture.supplyAsync(() -> {
+			Path filePath = resolve(file);
+			var options = replace
+					? EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
+					: EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
 
-		Lock l = lock.writeLock();
-		l.lock();
-		try (var ch = FileChannel.open(filePath, options)) {
-			var written = ch.transferFrom(Channels.newChannel(data), 0, Long.MAX_VALUE);
-			assert size == written : "Written bytes should be equal to provided size";
-			if (lastModified.isPresent()) {
-				Files.setLastModifiedTime(filePath, FileTime.from(lastModified.get()));
+			Lock l = lock.writeLock();
+			l.lock();
+			try (var ch = FileChannel.open(filePath, options)) {
+				var written = ch.transferFrom(Channels.newChannel(data), 0, Long.MAX_VALUE);
+				assert size == written : "Written bytes should be equal to provided size";
+				if (lastModified.isPresent()) {
+					Files.setLastModifiedTime(filePath, FileTime.from(lastModified.get()));
+				}
+				return null;
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (FileAlreadyExistsException e) {
+				throw new AlreadyExistsException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
 			}
-			return CompletableFuture.completedFuture(null);
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (FileAlreadyExistsException e) {
-			return CompletableFuture.failedFuture(new AlreadyExistsException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		}, executor);
+	}
+
+	@Override
+	public CompletionStage<Void> write(CloudPath file, boolean replace, Path source, Optional<Instant> lastModified, ProgressListener progressListener) {
+		return CompletableFuture.supplyAsync(() -> {
+			Path filePath = resolve(file);
+			var options = replace
+					? EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
+					: EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+
+			Lock l = lock.writeLock();
+			l.lock();
+			try (var src = FileChannel.open(source, StandardOpenOption.READ); var ch = FileChannel.open(filePath, options)) {
+				transferFully(src, ch);
+				if (lastModified.isPresent()) {
+					Files.setLastModifiedTime(filePath, FileTime.from(lastModified.get()));
+				}
+				return null;
+			} catch (NoSuchFileException e) {
+				throw source.toString().equals(e.getFile()) ? new CloudProviderException(e) : new NotFoundException(e);
+			} catch (FileAlreadyExistsException e) {
+				throw new AlreadyExistsException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<CloudPath> createFolder(CloudPath folder) {
-		Path folderPath = resolve(folder);
-		Lock l = lock.writeLock();
-		l.lock();
-		try {
-			Files.createDirectory(folderPath);
-			return CompletableFuture.completedFuture(folder);
-		} catch (FileAlreadyExistsException e) {
-			return CompletableFuture.failedFuture(new AlreadyExistsException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path folderPath = resolve(folder);
+			Lock l = lock.writeLock();
+			l.lock();
+			try {
+				Files.createDirectory(folderPath);
+				return folder;
+			} catch (FileAlreadyExistsException e) {
+				throw new AlreadyExistsException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<Void> deleteFile(CloudPath file) {
-		Path path = resolve(file);
-		Lock l = lock.writeLock();
-		l.lock();
-		try {
-			Files.delete(path);
-			return CompletableFuture.completedFuture(null);
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path path = resolve(file);
+			Lock l = lock.writeLock();
+			l.lock();
+			try {
+				Files.delete(path);
+				return null;
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<Void> deleteFolder(CloudPath folder) {
-		Path path = resolve(folder);
-		Lock l = lock.writeLock();
-		l.lock();
-		try {
-			MoreFiles.deleteRecursively(path, RecursiveDeleteOption.ALLOW_INSECURE);
-			return CompletableFuture.completedFuture(null);
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path path = resolve(folder);
+			Lock l = lock.writeLock();
+			l.lock();
+			try {
+				MoreFiles.deleteRecursively(path, RecursiveDeleteOption.ALLOW_INSECURE);
+				return null;
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
 	public CompletionStage<CloudPath> move(CloudPath source, CloudPath target, boolean replace) {
-		Path src = resolve(source);
-		Path dst = resolve(target);
-		Lock l = lock.writeLock();
-		l.lock();
-		try {
-			var options = replace ? EnumSet.of(StandardCopyOption.REPLACE_EXISTING) : EnumSet.noneOf(StandardCopyOption.class);
-			Files.move(src, dst, options.toArray(CopyOption[]::new));
-			return CompletableFuture.completedFuture(target);
-		} catch (NoSuchFileException e) {
-			return CompletableFuture.failedFuture(new NotFoundException(e));
-		} catch (FileAlreadyExistsException e) {
-			return CompletableFuture.failedFuture(new AlreadyExistsException(e));
-		} catch (IOException e) {
-			return CompletableFuture.failedFuture(new CloudProviderException(e));
-		} finally {
-			l.unlock();
-		}
+		return CompletableFuture.supplyAsync(() -> {
+			Path src = resolve(source);
+			Path dst = resolve(target);
+			Lock l = lock.writeLock();
+			l.lock();
+			try {
+				var options = replace ? EnumSet.of(StandardCopyOption.REPLACE_EXISTING) : EnumSet.noneOf(StandardCopyOption.class);
+				Files.move(src, dst, options.toArray(CopyOption[]::new));
+				return target;
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (FileAlreadyExistsException e) {
+				throw new AlreadyExistsException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
+	}
+
+	@Override
+	public CompletionStage<CloudPath> copy(CloudPath source, CloudPath target, boolean replace) {
+		return CompletableFuture.supplyAsync(() -> {
+			Path src = resolve(source);
+			Path dst = resolve(target);
+			Lock l = lock.writeLock();
+			l.lock();
+			try {
+				if (!Files.exists(src, LinkOption.NOFOLLOW_LINKS)) {
+					throw new NoSuchFileException(src.toString());
+				} else if (dst.startsWith(src)) {
+					// copying a folder into itself would never end
+					throw new CloudProviderException("Can't copy " + source + " to itself or one of its descendants " + target);
+				} else if (Files.exists(dst, LinkOption.NOFOLLOW_LINKS)) {
+					if (!replace) {
+						throw new FileAlreadyExistsException(dst.toString());
+					}
+					MoreFiles.deleteRecursively(dst, RecursiveDeleteOption.ALLOW_INSECURE);
+				}
+				// files are copied byte by byte, cloning them (e.g. using reflinks on Btrfs, XFS or APFS) would be a possible optimization not offered by Files.copy
+				Files.walkFileTree(src, new SimpleFileVisitor<>() {
+					@Override
+					public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+						Files.createDirectory(dst.resolve(src.relativize(dir).toString()));
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+						Files.copy(file, dst.resolve(src.relativize(file).toString()), StandardCopyOption.COPY_ATTRIBUTES);
+						return FileVisitResult.CONTINUE;
+					}
+				});
+				return target;
+			} catch (NoSuchFileException e) {
+				throw new NotFoundException(e);
+			} catch (FileAlreadyExistsException e) {
+				throw new AlreadyExistsException(e);
+			} catch (IOException e) {
+				throw new CloudProviderException(e);
+			} finally {
+				l.unlock();
+			}
+		}, executor);
 	}
 
 	@Override
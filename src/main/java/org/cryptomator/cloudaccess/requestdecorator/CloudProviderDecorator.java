@@ -8,7 +8,10 @@ import org.cryptomator.cloudaccess.api.ProgressListener;
 import org.cryptomator.cloudaccess.api.Quota;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 
@@ -21,6 +24,11 @@ interface CloudProviderDecorator extends CloudProvider {
 		return delegate().itemMetadata(node);
 	}
 
+	@Override
+	default CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(Collection<CloudPath> nodes) {
+		return delegate().itemMetadata(nodes);
+	}
+
 	@Override
 	default CompletionStage<Quota> quota(CloudPath folder) {
 		return delegate().quota(folder);
@@ -36,11 +44,21 @@ interface CloudProviderDecorator extends CloudProvider {
 		return delegate().read(file, offset, count, progressListener);
 	}
 
+	@Override
+	default CompletionStage<Void> readTo(CloudPath file, Path target, ProgressListener progressListener) {
+		return delegate().readTo(file, target, progressListener);
+	}
+
 	@Override
 	default CompletionStage<Void> write(CloudPath file, boolean replace, InputStream data, long size, Optional<Instant> lastModified, ProgressListener progressListener) {
 		return delegate().write(file, replace, data, size, lastModified, progressListener);
 	}
 
+	@Override
+	default CompletionStage<Void> write(CloudPath file, boolean replace, Path source, Optional<Instant> lastModified, ProgressListener progressListener) {
+		return delegate().write(file, replace, source, lastModified, progressListener);
+	}
+
 	@Override
 	default CompletionStage<CloudPath> createFolder(CloudPath folder) {
 		return delegate().createFolder(folder);
@@ -61,6 +79,11 @@ interface CloudProviderDecorator extends CloudProvider {
 		return delegate().move(source, target, replace);
 	}
 
+	@Override
+	default CompletionStage<CloudPath> copy(CloudPath source, CloudPath target, boolean replace) {
+		return delegate().copy(source, target, replace);
+	}
+
 	@Override
 	default boolean cachingCapability() {
 		return delegate().cachingCapability();
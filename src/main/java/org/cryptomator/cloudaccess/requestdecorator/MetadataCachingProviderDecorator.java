@@ -12,13 +12,21 @@ import org.cryptomator.cloudaccess.api.Quota;
 import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.cryptomator.cloudaccess.api.exceptions.QuotaNotAvailableException;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 class MetadataCachingProviderDecorator implements CloudProvider {
 
@@ -70,6 +78,42 @@ class MetadataCachingProviderDecorator implements CloudProvider {
 		}
 	}
 
+	@Override
+	public CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(Collection<CloudPath> nodes) {
+		var result = new ConcurrentHashMap<CloudPath, CloudItemMetadata>();
+		var futures = new ArrayList<CompletableFuture<?>>();
+		var uncachedNodes = new ArrayList<CloudPath>();
+		nodes.stream().distinct().forEach(node -> {
+			var cached = cachedItemMetadataRequests.getIfPresent(node);
+			if (cached == null) {
+				uncachedNodes.add(node);
+			} else {
+				futures.add(cached.handle((metadata, exception) -> {
+					if (metadata != null) {
+						result.put(node, metadata);
+						return CompletableFuture.<Void>completedFuture(null);
+					} else if (exception instanceof NotFoundException) {
+						return CompletableFuture.<Void>completedFuture(null);
+					} else {
+						return CompletableFuture.<Void>failedFuture(exception);
+					}
+				}).thenCompose(Function.identity()).toCompletableFuture());
+			}
+		});
+		if (!uncachedNodes.isEmpty()) {
+			futures.add(delegate.itemMetadata(uncachedNodes).whenComplete((metadata, exception) -> {
+				if (exception != null) {
+					uncachedNodes.forEach(this::evictFromItemAndItemListCache);
+				} else if (!delegate.cachingCapability()) {
+					uncachedNodes.forEach(node -> cachedItemMetadataRequests.put(node, Optional.ofNullable(metadata.get(node)) //
+							.map(CompletableFuture::completedFuture) //
+							.orElseGet(() -> CompletableFuture.failedFuture(new NotFoundException(node.toString())))));
+				}
+			}).thenAccept(result::putAll).toCompletableFuture());
+		}
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(unused -> result);
+	}
+
 	@Override
 	public CompletionStage<Quota> quota(CloudPath folder) {
 		try {
@@ -122,6 +166,15 @@ class MetadataCachingProviderDecorator implements CloudProvider {
 		});
 	}
 
+	@Override
+	public CompletionStage<Void> readTo(CloudPath file, Path target, ProgressListener progressListener) {
+		return delegate.readTo(file, target, progressListener).whenComplete((nullReturn, exception) -> {
+			if (exception != null) {
+				evictFromItemAndItemListCache(file);
+			}
+		});
+	}
+
 	@Override
 	public CompletionStage<Void> write(CloudPath file, boolean replace, InputStream data, long size, Optional<Instant> lastModified, ProgressListener progressListener) {
 		return delegate.write(file, replace, data, size, lastModified, progressListener).whenComplete((nullReturn, exception) -> {
@@ -133,6 +186,25 @@ class MetadataCachingProviderDecorator implements CloudProvider {
 		});
 	}
 
+	@Override
+	public CompletionStage<Void> write(CloudPath file, boolean replace, Path source, Optional<Instant> lastModified, ProgressListener progressListener) {
+		return delegate.write(file, replace, source, lastModified, progressListener).whenComplete((nullReturn, exception) -> {
+			if (exception != null) {
+				evictFromItemAndItemListCache(file);
+			} else if (!delegate.cachingCapability()) {
+				cachedItemMetadataRequests.put(file, CompletableFuture.completedFuture(new CloudItemMetadata(file.getFileName().toString(), file, CloudItemType.FILE, lastModified, sizeOf(source))));
+			}
+		});
+	}
+
+	private static Optional<Long> sizeOf(Path file) {
+		try {
+			return Optional.of(Files.size(file));
+		} catch (IOException e) {
+			return Optional.empty();
+		}
+	}
+
 	@Override
 	public CompletionStage<CloudPath> createFolder(CloudPath folder) {
 		return delegate.createFolder(folder).whenComplete((metadata, exception) -> evictFromItemAndItemListCache(folder));
@@ -168,6 +240,13 @@ class MetadataCachingProviderDecorator implements CloudProvider {
 		});
 	}
 
+	@Override
+	public CompletionStage<CloudPath> copy(CloudPath source, CloudPath target, boolean replace) {
+		return delegate.copy(source, target, replace).whenComplete((path, exception) -> {
+			evictFromItemAndItemListCacheIncludingDescendants(target);
+		});
+	}
+
 	@Override
 	public boolean cachingCapability() {
 		return delegate.cachingCapability();
@@ -3,11 +3,17 @@ package org.cryptomator.cloudaccess.vaultformat8;
 public class VaultFormat8ProviderConfig {
 
 	private static final int DEFAULT_FILEHEADER_TIMEOUT = 5000;
+	private static final int DEFAULT_PARALLEL_READ_PARTS = 1;
+	private static final int DEFAULT_CHUNKS_PER_READ_PART = 256;
 
 	private final int fileHeaderCacheTimeoutMillis;
+	private final int parallelReadParts;
+	private final int chunksPerReadPart;
 
 	private VaultFormat8ProviderConfig(){
 		this.fileHeaderCacheTimeoutMillis = Integer.getInteger("org.cryptomator.cloudaccess.vaultformat8.fileheadertimeoutMillis", DEFAULT_FILEHEADER_TIMEOUT);
+		this.parallelReadParts = Integer.getInteger("org.cryptomator.cloudaccess.vaultformat8.parallelReadParts", DEFAULT_PARALLEL_READ_PARTS);
+		this.chunksPerReadPart = Integer.getInteger("org.cryptomator.cloudaccess.vaultformat8.chunksPerReadPart", DEFAULT_CHUNKS_PER_READ_PART);
 	}
 
 	public static VaultFormat8ProviderConfig createFromSystemProperties(){
@@ -17,4 +23,12 @@ public class VaultFormat8ProviderConfig {
 	int getFileHeaderCacheTimeoutMillis() {
 		return fileHeaderCacheTimeoutMillis;
 	}
+
+	int getParallelReadParts() {
+		return parallelReadParts;
+	}
+
+	int getChunksPerReadPart() {
+		return chunksPerReadPart;
+	}
 }
@@ -7,6 +7,10 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
 import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.cryptomator.cloudaccess.CombinedProgressListener;
+import org.cryptomator.cloudaccess.OrderedPartsInputStream;
 import org.cryptomator.cloudaccess.api.CloudItemList;
 import org.cryptomator.cloudaccess.api.CloudItemMetadata;
 import org.cryptomator.cloudaccess.api.CloudItemType;
@@ -15,6 +19,7 @@ import org.cryptomator.cloudaccess.api.CloudProvider;
 import org.cryptomator.cloudaccess.api.ProgressListener;
 import org.cryptomator.cloudaccess.api.Quota;
 import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
+import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.cryptomator.cryptolib.api.AuthenticationFailedException;
 import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
@@ -26,16 +31,27 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -44,6 +60,7 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 	private static final Logger LOG = LoggerFactory.getLogger(VaultFormat8ProviderDecorator.class);
 	private static final String CIPHERTEXT_FILE_SUFFIX = ".c9r";
 	private static final String DIR_FILE_NAME = "dir.c9r";
+	private static final Executor DEFAULT_IO_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("vaultformat8-io-%d").setDaemon(true).build());
 
 	private final CloudProvider delegate;
 	private final CloudPath dataDir;
@@ -51,11 +68,36 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 	private final DirectoryIdCache dirIdCache;
 	private final LoadingCache<CloudPath, CompletionStage<FileHeader>> fileHeaderCache;
 	private final VaultFormat8ProviderConfig config;
+	private final Executor cryptoExecutor;
+	private final Executor ioExecutor;
 
 	public VaultFormat8ProviderDecorator(CloudProvider delegate, CloudPath dataDir, Cryptor cryptor) {
+		this(delegate, dataDir, cryptor, Runnable::run);
+	}
+
+	/**
+	 * @param delegate       The provider holding the ciphertext
+	 * @param dataDir        The vault's <code>d</code> directory within <code>delegate</code>
+	 * @param cryptor        The cryptor used to encrypt and decrypt names and file headers
+	 * @param cryptoExecutor Executor used for CPU-bound name and header cryptography instead of the thread completing the delegate's future
+	 */
+	public VaultFormat8ProviderDecorator(CloudProvider delegate, CloudPath dataDir, Cryptor cryptor, Executor cryptoExecutor) {
+		this(delegate, dataDir, cryptor, cryptoExecutor, DEFAULT_IO_EXECUTOR);
+	}
+
+	/**
+	 * @param delegate       The provider holding the ciphertext
+	 * @param dataDir        The vault's <code>d</code> directory within <code>delegate</code>
+	 * @param cryptor        The cryptor used to encrypt and decrypt names and file headers
+	 * @param cryptoExecutor Executor used for CPU-bound name and header cryptography instead of the thread completing the delegate's future
+	 * @param ioExecutor     Executor used for blocking transfers of file contents, which must neither run on the thread completing the delegate's future nor on <code>cryptoExecutor</code>
+	 */
+	public VaultFormat8ProviderDecorator(CloudProvider delegate, CloudPath dataDir, Cryptor cryptor, Executor cryptoExecutor, Executor ioExecutor) {
 		this.delegate = delegate;
 		this.dataDir = dataDir;
 		this.cryptor = cryptor;
+		this.cryptoExecutor = cryptoExecutor;
+		this.ioExecutor = ioExecutor;
 		this.config = VaultFormat8ProviderConfig.createFromSystemProperties();
 		this.dirIdCache = new DirectoryIdCache();
 		this.fileHeaderCache = CacheBuilder.newBuilder() //
@@ -84,11 +126,41 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 		} else {
 			var futureParentDirId = getDirId(node.getParent());
 			var cleartextName = node.getFileName().toString();
-			var futureCiphertextMetadata = futureParentDirId.thenApply(parentDirId -> getC9rPath(parentDirId, cleartextName)).thenCompose(delegate::itemMetadata);
-			return futureCiphertextMetadata.thenCombine(futureParentDirId, (ciphertextMetadata, parentDirId) -> toCleartextMetadata(ciphertextMetadata, node.getParent(), parentDirId));
+			var futureCiphertextMetadata = futureParentDirId.thenApplyAsync(parentDirId -> getC9rPath(parentDirId, cleartextName), cryptoExecutor).thenCompose(delegate::itemMetadata);
+			return futureCiphertextMetadata.thenCombineAsync(futureParentDirId, (ciphertextMetadata, parentDirId) -> toCleartextMetadata(ciphertextMetadata, node.getParent(), parentDirId), cryptoExecutor);
 		}
 	}
 
+	@Override
+	public CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(Collection<CloudPath> nodes) {
+		// siblings share their parent's dir id, so the delegate can fetch them together
+		var cleartextByCiphertextPath = new ConcurrentHashMap<CloudPath, CloudPath>();
+		var result = new ConcurrentHashMap<CloudPath, CloudItemMetadata>();
+		var futureCiphertextPaths = nodes.stream().distinct().map(node -> {
+			if (node.getNameCount() == 0) {
+				// ROOT
+				result.put(node, new CloudItemMetadata("", node, CloudItemType.FOLDER, Optional.empty(), Optional.empty()));
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+			var cleartextName = node.getFileName().toString();
+			return getDirId(node.getParent()).thenAcceptAsync(parentDirId -> cleartextByCiphertextPath.put(getC9rPath(parentDirId, cleartextName), node), cryptoExecutor).exceptionally(e -> {
+				if (e instanceof NotFoundException || e.getCause() instanceof NotFoundException) {
+					return null; // parent doesn't exist
+				}
+				throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+			}).toCompletableFuture();
+		}).toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(futureCiphertextPaths) //
+				.thenCompose(unused -> delegate.itemMetadata(cleartextByCiphertextPath.keySet())) //
+				.thenApplyAsync(ciphertextMetadata -> {
+					ciphertextMetadata.forEach((ciphertextPath, metadata) -> {
+						var node = cleartextByCiphertextPath.get(ciphertextPath);
+						result.put(node, toCleartextMetadata(metadata, node.getParent(), node.getFileName().toString()));
+					});
+					return result;
+				}, cryptoExecutor);
+	}
+
 	@Override
 	public CompletionStage<Quota> quota(CloudPath folder) {
 		if (folder.getNameCount() == 0) {
@@ -102,7 +174,7 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 	@Override
 	public CompletionStage<CloudItemList> list(CloudPath folder, Optional<String> pageToken) {
 		var ciphertextItemList = getDirPathFromClearTextDir(folder).thenCompose(ciphertextPath -> delegate.list(ciphertextPath, pageToken));
-		return getDirId(folder).thenCombine(ciphertextItemList, (dirId, itemList) -> toCleartextItemList(itemList, folder, dirId));
+		return getDirId(folder).thenCombineAsync(ciphertextItemList, (dirId, itemList) -> toCleartextItemList(itemList, folder, dirId), cryptoExecutor);
 	}
 
 	@Override
@@ -112,21 +184,19 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 
 		// byte range math:
 		long firstChunk = offset / cryptor.fileContentCryptor().cleartextChunkSize(); // int-truncate!
-		int headerSize = cryptor.fileHeaderCryptor().headerSize();
-		long firstByte = headerSize + firstChunk * cryptor.fileContentCryptor().ciphertextChunkSize();
 		long lastByte = checkedAdd(offset, count, Long.MAX_VALUE);
 		long lastChunk = lastByte / cryptor.fileContentCryptor().cleartextChunkSize(); // int-truncate!
 		long numChunks = lastChunk - firstChunk + 1;
-		long numBytes = checkedMultiply(numChunks, cryptor.fileContentCryptor().ciphertextChunkSize(), Long.MAX_VALUE);
 
 		// loading of relevant parts from ciphertext file:
 		var futureCiphertextPath = getC9rPath(file);
 		var futureHeader = futureCiphertextPath.thenCompose(ciphertextPath -> fileHeaderCache.getUnchecked(ciphertextPath));
-		var futureCiphertext = futureCiphertextPath.thenCompose(ciphertextPath -> delegate.read(ciphertextPath, firstByte, numBytes, progressListener));
-		var futureCleartextStream = futureHeader.thenCombine(futureCiphertext, (header, ciphertext) -> {
-			var ciphertextChannel = Channels.newChannel(ciphertext);
-			var cleartextChannel = new DecryptingReadableByteChannel(ciphertextChannel, cryptor, true, header, firstChunk);
-			return Channels.newInputStream(cleartextChannel);
+		var futureCleartextStream = futureCiphertextPath.thenCompose(ciphertextPath -> {
+			if (config.getParallelReadParts() > 1 && numChunks > config.getChunksPerReadPart()) {
+				return readChunksInParts(ciphertextPath, futureHeader, firstChunk, numChunks, progressListener);
+			} else {
+				return readChunks(ciphertextPath, futureHeader, firstChunk, numChunks, progressListener);
+			}
 		});
 
 		// adjust range:
@@ -137,6 +207,80 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 		});
 	}
 
+	private CompletionStage<InputStream> readChunks(CloudPath ciphertextPath, CompletionStage<FileHeader> futureHeader, long firstChunk, long numChunks, ProgressListener progressListener) {
+		int headerSize = cryptor.fileHeaderCryptor().headerSize();
+		long firstByte = headerSize + firstChunk * cryptor.fileContentCryptor().ciphertextChunkSize();
+		long numBytes = checkedMultiply(numChunks, cryptor.fileContentCryptor().ciphertextChunkSize(), Long.MAX_VALUE);
+		var futureCiphertext = delegate.read(ciphertextPath, firstByte, numBytes, progressListener);
+		return futureHeader.thenCombine(futureCiphertext, (header, ciphertext) -> {
+			var ciphertextChannel = Channels.newChannel(ciphertext);
+			var cleartextChannel = new DecryptingReadableByteChannel(ciphertextChannel, cryptor, true, header, firstChunk);
+			return Channels.newInputStream(cleartextChannel);
+		});
+	}
+
+	/**
+	 * Reads the chunks in parts of <code>chunksPerReadPart</code> chunks, up to <code>parallelReadParts</code> of which are loaded concurrently.
+	 * As the parts are aligned to chunk boundaries, each part is decrypted independently and held in memory until it is read.
+	 * Parts are buffered on the I/O executor, as blocking the thread completing the delegate's future would hold the connection slot needed by other parts.
+	 */
+	private CompletionStage<InputStream> readChunksInParts(CloudPath ciphertextPath, CompletionStage<FileHeader> futureHeader, long firstChunk, long numChunks, ProgressListener progressListener) {
+		return delegate.itemMetadata(ciphertextPath).thenCompose(metadata -> {
+			if (metadata.getSize().isEmpty()) {
+				return readChunks(ciphertextPath, futureHeader, firstChunk, numChunks, progressListener);
+			}
+			int headerSize = cryptor.fileHeaderCryptor().headerSize();
+			int chunksPerPart = config.getChunksPerReadPart();
+			long totalChunks = LongMath.divide(Math.max(0, metadata.getSize().get() - headerSize), cryptor.fileContentCryptor().ciphertextChunkSize(), RoundingMode.CEILING);
+			long availableChunks = Math.max(0, Math.min(numChunks, totalChunks - firstChunk));
+			int partCount = Ints.checkedCast(LongMath.divide(availableChunks, chunksPerPart, RoundingMode.CEILING));
+			var progress = new CombinedProgressListener(progressListener);
+			InputStream in = new OrderedPartsInputStream(partCount, part -> {
+				long partFirstChunk = firstChunk + (long) part * chunksPerPart;
+				long partNumChunks = Math.min(chunksPerPart, firstChunk + availableChunks - partFirstChunk);
+				return readChunks(ciphertextPath, futureHeader, partFirstChunk, partNumChunks, progress.forPart()).thenApplyAsync(this::readFully, ioExecutor);
+			}, config.getParallelReadParts());
+			return CompletableFuture.completedFuture(in);
+		});
+	}
+
+	private InputStream readFully(InputStream in) {
+		try (in) {
+			return new ByteArrayInputStream(in.readAllBytes());
+		} catch (IOException e) {
+			throw new CloudProviderException(e);
+		}
+	}
+
+	@Override
+	public CompletionStage<Void> readTo(CloudPath file, Path target, ProgressListener progressListener) {
+		int headerSize = cryptor.fileHeaderCryptor().headerSize();
+		var futureCiphertextPath = getC9rPath(file);
+		var futureHeader = futureCiphertextPath.thenCompose(ciphertextPath -> fileHeaderCache.getUnchecked(ciphertextPath));
+		var futureCiphertext = futureCiphertextPath.thenCompose(ciphertextPath -> delegate.read(ciphertextPath, headerSize, Long.MAX_VALUE, progressListener));
+		// the transfer blocks on the ciphertext stream, so it must neither hold the thread completing the delegate's future nor a crypto thread
+		return futureHeader.thenCombineAsync(futureCiphertext, (header, ciphertext) -> {
+			try (var ciphertextChannel = Channels.newChannel(ciphertext); //
+				 var cleartext = Channels.newInputStream(new DecryptingReadableByteChannel(ciphertextChannel, cryptor, true, header, 0)); //
+				 var out = Files.newOutputStream(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				// unlike FileChannel.transferFrom(...), which ends silently if reading fails after some bytes have been transferred, this passes on unauthentic chunks
+				cleartext.transferTo(out);
+				return null;
+			} catch (IOException | RuntimeException e) {
+				deletePartiallyWritten(target, e);
+				throw e instanceof IOException ? new CloudProviderException(e) : (RuntimeException) e;
+			}
+		}, ioExecutor);
+	}
+
+	private void deletePartiallyWritten(Path target, Exception cause) {
+		try {
+			Files.deleteIfExists(target);
+		} catch (IOException e) {
+			cause.addSuppressed(e);
+		}
+	}
+
 	private long checkedMultiply(long a, long b, long onOverflow) {
 		try {
 			return LongMath.checkedMultiply(a, b);
@@ -222,6 +366,43 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 		});
 	}
 
+	@Override
+	public CompletionStage<CloudPath> copy(CloudPath source, CloudPath target, boolean replace) {
+		return itemMetadata(source).thenCompose(metadata -> {
+			if (metadata.getItemType() == CloudItemType.FOLDER) {
+				// the copy needs a dir id of its own, hence the children are re-encrypted with their new parent's dir id
+				var futureTargetCleared = replace ? deleteIfExisting(target) : CompletableFuture.<Void>completedFuture(null);
+				return futureTargetCleared //
+						.thenCompose(unused -> createFolder(target)) //
+						.thenCompose(unused -> listExhaustively(source)) //
+						.thenCompose(children -> CompletableFuture.allOf(children.getItems().stream() //
+								.map(child -> copy(child.getPath(), target.resolve(child.getName()), false).toCompletableFuture()) //
+								.toArray(CompletableFuture[]::new))) //
+						.thenApply(unused -> target);
+			} else {
+				// file contents don't depend on the path, so the ciphertext can be copied as is
+				return getC9rPath(source).thenCombine(getC9rPath(target), (sourceC9rPath, targetC9rPath) -> delegate.copy(sourceC9rPath, targetC9rPath, replace)) //
+						.thenCompose(Function.identity()) //
+						.thenApply(targetC9rPath -> {
+							fileHeaderCache.invalidate(targetC9rPath);
+							return target;
+						});
+			}
+		});
+	}
+
+	private CompletionStage<Void> deleteIfExisting(CloudPath node) {
+		return itemMetadata(node).handle((metadata, exception) -> {
+			if (metadata != null) {
+				return metadata.getItemType() == CloudItemType.FOLDER ? deleteFolder(node) : deleteFile(node);
+			} else if (exception instanceof NotFoundException) {
+				return CompletableFuture.<Void>completedFuture(null);
+			} else {
+				return CompletableFuture.<Void>failedFuture(exception);
+			}
+		}).thenCompose(Function.identity());
+	}
+
 	@Override
 	public boolean cachingCapability() {
 		return delegate.cachingCapability();
@@ -286,7 +467,7 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 		var headerCryptor = cryptor.fileHeaderCryptor();
 		return delegate.read(ciphertextPath, 0, headerCryptor.headerSize(), ProgressListener.NO_PROGRESS_AWARE) //
 				.thenCompose(this::readAllBytes) //
-				.thenApply(bytes -> headerCryptor.decryptHeader(ByteBuffer.wrap(bytes)));
+				.thenApplyAsync(bytes -> headerCryptor.decryptHeader(ByteBuffer.wrap(bytes)), cryptoExecutor);
 	}
 
 	private CompletionStage<byte[]> readAllBytes(InputStream inputStream) {
@@ -298,7 +479,7 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 	}
 
 	private CompletionStage<CloudPath> getDirPathFromClearTextDir(CloudPath cleartextDir) {
-		return getDirId(cleartextDir).thenApply(this::getDirPathWithId);
+		return getDirId(cleartextDir).thenApplyAsync(this::getDirPathWithId, cryptoExecutor);
 	}
 
 	private CompletionStage<CloudPath> getDirPathFromC9rDir(CloudPath dirC9rPath) {
@@ -322,7 +503,7 @@ public class VaultFormat8ProviderDecorator implements CloudProvider {
 		Preconditions.checkArgument(cleartextPath.getNameCount() > 0, "No c9r path for root.");
 		var cleartextParent = cleartextPath.getNameCount() == 1 ? CloudPath.of("") : cleartextPath.getParent();
 		var cleartextName = cleartextPath.getFileName().toString();
-		return getDirId(cleartextParent).thenApply(parentDirId -> getC9rPath(parentDirId, cleartextName));
+		return getDirId(cleartextParent).thenApplyAsync(parentDirId -> getC9rPath(parentDirId, cleartextName), cryptoExecutor);
 	}
 
 }
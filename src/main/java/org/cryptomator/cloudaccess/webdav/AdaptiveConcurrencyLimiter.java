@@ -0,0 +1,216 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Limits the number of requests in flight to a single host, adapting the limit to what the server sustains (AIMD).
+ * <p>
+ * The limit grows additively while requests complete quickly and the limit is actually used. It shrinks multiplicatively, if the latency rises well above
+ * the lowest latency observed recently, and halves if the server signals overload (429, 503) or requests time out. Requests exceeding the limit are queued
+ * and started as soon as a request completes, without blocking any thread.
+ * <p>
+ * Only requests started after the last decrease can decrease the limit again. Thus a burst of requests failing together, e.g. all requests in flight
+ * receiving 503 at once, decreases the limit only once, as they all reflect the same overload.
+ * <p>
+ * Requests with a body are not used as latency samples, as their latency depends on the size of the body. PROPFINDs are sampled nevertheless, as their body
+ * is small and fixed, unless they request a whole subtree (Depth: infinity), whose latency depends on the size of the subtree.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+	private static final double LATENCY_BACKOFF_RATIO = 0.9;
+	private static final double OVERLOAD_BACKOFF_RATIO = 0.5;
+	private static final double LATENCY_TOLERANCE = 2.0;
+	private static final long MIN_LATENCY_INCREASE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+	private static final int MIN_LATENCY_WINDOW = 500;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final Queue<CompletableFuture<Void>> queue = new ArrayDeque<>();
+	private double limit;
+	private int inFlight;
+	private long minLatencyNanos = Long.MAX_VALUE;
+	private int samplesSinceMinLatencyReset;
+	private long decreases;
+
+	AdaptiveConcurrencyLimiter(final int minLimit, final int maxLimit) {
+		this(minLimit, maxLimit, maxLimit);
+	}
+
+	/**
+	 * @param minLimit     The limit never falls below
+	 * @param initialLimit The limit to start with, from which the limit grows towards <code>maxLimit</code> while the server keeps up
+	 * @param maxLimit     The limit never exceeds
+	 */
+	AdaptiveConcurrencyLimiter(final int minLimit, final int initialLimit, final int maxLimit) {
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+	}
+
+	/**
+	 * @return The number of requests currently allowed to be in flight
+	 */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * @return The number of requests currently in flight
+	 */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * @return The number of requests waiting for a request in flight to complete
+	 */
+	public synchronized int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * Executes the request once the limit permits it.
+	 *
+	 * @param request  The request to execute
+	 * @param delegate Executes the request
+	 * @return The result of <code>delegate</code>
+	 */
+	CompletableFuture<Response> execute(final Request request, final Function<Request, CompletableFuture<Response>> delegate) {
+		return acquire().thenCompose(ignored -> {
+			final var decreasesAtStart = getDecreases();
+			final var start = System.nanoTime();
+			final CompletableFuture<Response> response;
+			try {
+				response = delegate.apply(request);
+			} catch (RuntimeException e) {
+				release(Outcome.IGNORED, 0, decreasesAtStart);
+				throw e;
+			}
+			return response.whenComplete((r, e) -> release(outcomeOf(request, r, e), System.nanoTime() - start, decreasesAtStart));
+		});
+	}
+
+	private static Outcome outcomeOf(final Request request, final Response response, final Throwable exception) {
+		final var cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+		if (cause instanceof InterruptedIOException) {
+			return Outcome.OVERLOAD;
+		} else if (cause != null) {
+			return Outcome.IGNORED;
+		} else if (response.code() == HTTP_TOO_MANY_REQUESTS || response.code() == HttpURLConnection.HTTP_UNAVAILABLE) {
+			return Outcome.OVERLOAD;
+		} else if (isLatencySample(request)) {
+			return Outcome.SAMPLE;
+		} else {
+			return Outcome.IGNORED;
+		}
+	}
+
+	private static boolean isLatencySample(final Request request) {
+		if ("PROPFIND".equals(request.method())) {
+			return !"infinity".equalsIgnoreCase(request.header("Depth"));
+		}
+		return request.body() == null;
+	}
+
+	// visible for testing
+	CompletableFuture<Void> acquire() {
+		synchronized (this) {
+			if (inFlight < (int) limit) {
+				inFlight++;
+				return CompletableFuture.completedFuture(null);
+			}
+			final var permit = new CompletableFuture<Void>();
+			queue.add(permit);
+			return permit;
+		}
+	}
+
+	// visible for testing, releases a request started after the last decrease
+	void release(final Outcome outcome, final long latencyNanos) {
+		release(outcome, latencyNanos, getDecreases());
+	}
+
+	private void release(final Outcome outcome, final long latencyNanos, final long decreasesAtStart) {
+		final List<CompletableFuture<Void>> granted = new ArrayList<>();
+		synchronized (this) {
+			adjustLimit(outcome, latencyNanos, decreasesAtStart);
+			inFlight--;
+			while (inFlight < (int) limit && !queue.isEmpty()) {
+				granted.add(queue.poll());
+				inFlight++;
+			}
+		}
+		granted.forEach(permit -> permit.complete(null));
+	}
+
+	private void adjustLimit(final Outcome outcome, final long latencyNanos, final long decreasesAtStart) {
+		switch (outcome) {
+			case OVERLOAD:
+				decrease(OVERLOAD_BACKOFF_RATIO, decreasesAtStart);
+				break;
+			case SAMPLE:
+				if (++samplesSinceMinLatencyReset > MIN_LATENCY_WINDOW) {
+					// forget outdated minimum, e.g. after the server has been under load from other clients
+					minLatencyNanos = Long.MAX_VALUE;
+					samplesSinceMinLatencyReset = 0;
+				}
+				minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+				if (latencyNanos > minLatencyNanos * LATENCY_TOLERANCE && latencyNanos - minLatencyNanos > MIN_LATENCY_INCREASE_NANOS) {
+					decrease(LATENCY_BACKOFF_RATIO, decreasesAtStart);
+				} else if (inFlight * 2 >= limit) {
+					limit = Math.min(maxLimit, limit + 1.0 / Math.floor(limit));
+				}
+				break;
+			case IGNORED:
+				break;
+		}
+	}
+
+	private synchronized long getDecreases() {
+		return decreases;
+	}
+
+	private void decrease(final double ratio, final long decreasesAtStart) {
+		// requests started before the last decrease reflect the load which caused it
+		if (decreasesAtStart == decreases) {
+			limit = Math.max(minLimit, limit * ratio);
+			decreases++;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "AdaptiveConcurrencyLimiter{limit=" + (int) limit + ", inFlight=" + inFlight + ", queueDepth=" + queue.size() + "}";
+	}
+
+	enum Outcome {
+		/**
+		 * The server is overloaded
+		 */
+		OVERLOAD,
+
+		/**
+		 * The request completed and its latency reflects the load of the server
+		 */
+		SAMPLE,
+
+		/**
+		 * The request completed without any hint on the load of the server
+		 */
+		IGNORED
+	}
+
+}
@@ -0,0 +1,111 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import com.google.common.base.Preconditions;
+
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of transferred bytes using a token bucket, which holds up to {@value #BURST_MILLIS} ms worth of tokens.
+ * <p>
+ * Transfers take tokens in small portions and wait while the bucket is in debt. As every transfer adds to the debt before waiting,
+ * concurrent transfers are served in turns and share the bandwidth evenly. The rate can be changed at any time and applies to running transfers immediately.
+ * <p>
+ * Only file contents are subject to bandwidth limits. As they are transferred using a dispatcher of their own (see {@link WebDavTransport}),
+ * metadata requests are never held back by throttled transfers.
+ */
+public class BandwidthLimiter {
+
+	/**
+	 * Rate disabling the limit
+	 */
+	public static final long UNLIMITED = 0;
+
+	static final int QUANTUM = 8192;
+	private static final long BURST_MILLIS = 100;
+	private static final BandwidthLimiter GLOBAL_UPLOADS = new BandwidthLimiter(UNLIMITED);
+	private static final BandwidthLimiter GLOBAL_DOWNLOADS = new BandwidthLimiter(UNLIMITED);
+
+	private long bytesPerSecond;
+	private double tokens;
+	private long lastRefill = System.nanoTime();
+
+	BandwidthLimiter(long bytesPerSecond) {
+		setBytesPerSecond(bytesPerSecond);
+		this.tokens = capacity();
+	}
+
+	/**
+	 * @return The limiter applied to uploads of all providers in addition to their own limit
+	 */
+	public static BandwidthLimiter globalUploads() {
+		return GLOBAL_UPLOADS;
+	}
+
+	/**
+	 * @return The limiter applied to downloads of all providers in addition to their own limit
+	 */
+	public static BandwidthLimiter globalDownloads() {
+		return GLOBAL_DOWNLOADS;
+	}
+
+	/**
+	 * @param bytesPerSecond The maximum rate or {@link #UNLIMITED}
+	 */
+	public synchronized void setBytesPerSecond(long bytesPerSecond) {
+		Preconditions.checkArgument(bytesPerSecond >= 0, "bytesPerSecond must not be negative");
+		refill(System.nanoTime());
+		this.bytesPerSecond = bytesPerSecond;
+		this.tokens = Math.min(tokens, capacity());
+	}
+
+	/**
+	 * @return The maximum rate or {@link #UNLIMITED}
+	 */
+	public synchronized long getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * Takes tokens for <code>bytes</code> from all <code>limiters</code> and waits until each of them is out of debt.
+	 *
+	 * @param bytes    Number of bytes transferred
+	 * @param limiters The limits to obey
+	 * @throws InterruptedIOException If the thread has been interrupted while waiting
+	 */
+	static void acquire(long bytes, List<BandwidthLimiter> limiters) throws InterruptedIOException {
+		long waitNanos = 0;
+		for (var limiter : limiters) {
+			waitNanos = Math.max(waitNanos, limiter.reserve(bytes));
+		}
+		if (waitNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for bandwidth");
+			}
+		}
+	}
+
+	// visible for testing
+	synchronized long reserve(long bytes) {
+		if (bytesPerSecond == UNLIMITED) {
+			return 0;
+		}
+		refill(System.nanoTime());
+		tokens -= bytes;
+		return tokens >= 0 ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+	}
+
+	private void refill(long now) {
+		tokens = Math.min(capacity(), tokens + (double) (now - lastRefill) * bytesPerSecond / TimeUnit.SECONDS.toNanos(1));
+		lastRefill = now;
+	}
+
+	private double capacity() {
+		return Math.max(QUANTUM, (double) bytesPerSecond * BURST_MILLIS / 1000);
+	}
+
+}
@@ -4,15 +4,20 @@ import com.google.common.base.Preconditions;
 import org.cryptomator.cloudaccess.CachedNode;
 import org.cryptomator.cloudaccess.NodeCache;
 import org.cryptomator.cloudaccess.api.CloudPath;
-import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
 import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -22,14 +27,26 @@ class CachedPropfindEntryProvider {
 
 	private final NodeCache cache;
 
-	private Function<CloudPath, PropfindEntryItemData> rootPoller;
-	private Function<CloudPath, List<PropfindEntryItemData>> cacheUpdater;
+	private Function<CloudPath, CompletionStage<PropfindEntryItemData>> rootPoller;
+	private Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> cacheUpdater;
+	private Optional<SyncCollectionReporter> syncCollectionReporter = Optional.empty();
+	private int pollParallelism = 1;
+	private volatile Optional<String> syncToken = Optional.empty();
+	private volatile Optional<PollStats> lastPollStats = Optional.empty();
 
-	CachedPropfindEntryProvider(Function<CloudPath, PropfindEntryItemData> rootPoller, Function<CloudPath, List<PropfindEntryItemData>> cacheUpdater) {
+	/**
+	 * @param rootPoller             Loads the entry of the given path itself
+	 * @param cacheUpdater           Loads the Depth-1 listing of the given path, starting with the entry of the path itself
+	 * @param syncCollectionReporter If present, remote changes are polled using sync-collection REPORTs rather than comparing ETags
+	 * @param pollParallelism        Maximum number of Depth-1 listings in flight while comparing ETags
+	 */
+	CachedPropfindEntryProvider(Function<CloudPath, CompletionStage<PropfindEntryItemData>> rootPoller, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> cacheUpdater, Optional<SyncCollectionReporter> syncCollectionReporter, int pollParallelism) {
 		this(new NodeCache());
 
 		this.rootPoller = rootPoller;
 		this.cacheUpdater = cacheUpdater;
+		this.syncCollectionReporter = syncCollectionReporter;
+		this.pollParallelism = pollParallelism;
 	}
 
 	// visible for testing
@@ -37,14 +54,14 @@ class CachedPropfindEntryProvider {
 		this.cache = cache;
 	}
 
-	public PropfindEntryItemData itemMetadata(CloudPath path, Function<CloudPath, List<PropfindEntryItemData>> parentLoader, Function<CloudPath, List<PropfindEntryItemData>> pathLoader) {
+	public CompletionStage<PropfindEntryItemData> itemMetadata(CloudPath path, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> parentLoader, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> pathLoader) {
 		var cachedNode = cache.getCachedNode(path);
 		Optional<CachedNode> cachedParent = Optional.ofNullable(path.getParent()).flatMap(cache::getCachedNode);
 		if (cachedNode.isPresent() && !cachedNode.get().isDirty()) {
-			return cachedNode.get().getData(PropfindEntryItemData.class);
+			return CompletableFuture.completedFuture(cachedNode.get().getData(PropfindEntryItemData.class));
 		} else if (cachedNode.isEmpty() && cachedParent.isPresent() && !cachedParent.get().isDirty() && cachedParent.get().isChildrenFetched()) {
 			// node is not found, despite parent being up-to-date -> node does not exist
-			throw new NotFoundException(path.toString());
+			return CompletableFuture.failedFuture(new NotFoundException(path.toString()));
 		} else if (path.getParent() == null || (cachedParent.isPresent() && !cachedParent.get().isDirty() && cachedParent.get().isChildrenFetched())) {
 			// parent is available, request path
 			return loadPath(path, pathLoader);
@@ -55,64 +72,97 @@ class CachedPropfindEntryProvider {
 		}
 	}
 
-	private PropfindEntryItemData loadPath(CloudPath path, Function<CloudPath, List<PropfindEntryItemData>> pathLoader) {
-		try {
-			var entries = getPropfindEntryItemData(path, pathLoader);
+	private CompletionStage<PropfindEntryItemData> loadPath(CloudPath path, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> pathLoader) {
+		return getPropfindEntryItemData(path, pathLoader).thenApply(entries -> {
 			Preconditions.checkArgument(entries.size() >= 1, "got not more than one item");
 			return entries.get(0);
-		} catch (NotFoundException e) {
-			cache.deleteAndMarkDirtyIfPresent(path);
-			throw e;
-		}
+		}).whenComplete((unused, exception) -> deleteFromCacheIfNotFound(path, exception));
 	}
 
-	private PropfindEntryItemData loadParent(CloudPath path, Function<CloudPath, List<PropfindEntryItemData>> parentLoader) {
-		try {
-			var parentPath = path.getParent() != null ? path.getParent() : CloudPath.of("/");
-			var entries = getPropfindEntryItemData(parentPath, parentLoader);
+	private CompletionStage<PropfindEntryItemData> loadParent(CloudPath path, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> parentLoader) {
+		var parentPath = path.getParent() != null ? path.getParent() : CloudPath.of("/");
+		return getPropfindEntryItemData(parentPath, parentLoader).thenApply(entries -> {
 			var actualQueriedNode = entries.stream().filter(entry -> entry.getName().equals(path.getFileName().toString())).collect(Collectors.toList());
 			if (actualQueriedNode.isEmpty()) {
 				throw new NotFoundException(path.toString());
 			}
 			return actualQueriedNode.get(0);
-		} catch (NotFoundException e) {
+		}).whenComplete((unused, exception) -> deleteFromCacheIfNotFound(path, exception));
+	}
+
+	private void deleteFromCacheIfNotFound(CloudPath path, Throwable exception) {
+		if (exception instanceof NotFoundException) {
 			cache.deleteAndMarkDirtyIfPresent(path);
-			throw e;
 		}
 	}
 
-	public List<PropfindEntryItemData> list(CloudPath path, Function<CloudPath, List<PropfindEntryItemData>> loader) throws CloudProviderException {
+	public CompletionStage<List<PropfindEntryItemData>> list(CloudPath path, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> loader) {
 		var cachedNode = cache.getCachedNode(path);
 		Optional<CachedNode> cachedParent = Optional.ofNullable(path.getParent()).flatMap(cache::getCachedNode);
 		if (cachedNode.isPresent() && !cachedNode.get().isDirty() && cachedNode.get().isChildrenFetched()) {
-			return cachedNode.get()
+			return CompletableFuture.completedFuture(cachedNode.get()
 					.getChildren()
 					.stream()
 					.map(c -> c.getData(PropfindEntryItemData.class))
-					.collect(Collectors.toList());
+					.collect(Collectors.toList()));
 		} else if (cachedNode.isEmpty() && cachedParent.isPresent() && !cachedParent.get().isDirty() && cachedParent.get().isChildrenFetched()) {
 			// node is not found, despite parent being up-to-date -> node does not exist
-			throw new NotFoundException(path.toString());
+			return CompletableFuture.failedFuture(new NotFoundException(path.toString()));
 		} else {
 			// skip(1) to remove the parent from the list
-			return getPropfindEntryItemData(path, loader).stream().skip(1).collect(Collectors.toList());
+			return getPropfindEntryItemData(path, loader).thenApply(loaded -> loaded.stream().skip(1).collect(Collectors.toList()));
 		}
 	}
 
-	private List<PropfindEntryItemData> getPropfindEntryItemData(CloudPath path, Function<CloudPath, List<PropfindEntryItemData>> loader) {
-		var loaded = loader.apply(path);
-		loaded.sort(new PropfindEntryItemData.AscendingByDepthComparator());
-		if (loaded.size() > 0) {
-			var parent = loaded.get(0);
-			cache.getOrCreateCachedNode(path).update(parent);
-			cache.getOrCreateCachedNode(path).setChildrenFetched();
-		}
-		var children = loaded.stream().skip(1).collect(Collectors.toList());
-		for (var data : children) {
-			var p = path.resolve(data.getName());
-			cache.getOrCreateCachedNode(p).update(data);
-		}
-		return loaded;
+	private CompletionStage<List<PropfindEntryItemData>> getPropfindEntryItemData(CloudPath path, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> loader) {
+		return loader.apply(path).thenApply(loaded -> {
+			if (loaded.size() > 0) {
+				var parent = loaded.get(0);
+				cache.getOrCreateCachedNode(path).update(parent);
+				cache.getOrCreateCachedNode(path).setChildrenFetched();
+			}
+			var children = loaded.stream().skip(1).collect(Collectors.toList());
+			for (var data : children) {
+				var p = path.resolve(data.getName());
+				cache.getOrCreateCachedNode(p).update(data);
+			}
+			return loaded;
+		});
+	}
+
+	/**
+	 * Starts recording the entries of a Depth-infinity listing of <code>path</code> into the cache.
+	 *
+	 * @param path The root of the prefetched subtree
+	 * @return A recorder to be fed with each entry and completed once all entries have been received
+	 */
+	public SubtreePrefetch beginPrefetch(CloudPath path) {
+		return new SubtreePrefetch(path);
+	}
+
+	/**
+	 * Populates the cache below <code>path</code> by loading the Depth-1 listing of every folder, visiting at most <code>parallelism</code> folders at a time.
+	 *
+	 * @param path        The root of the subtree
+	 * @param loader      Loads the Depth-1 listing of a folder
+	 * @param parallelism Maximum number of listings in flight
+	 * @return CompletionStage completed once every folder of the subtree is cached with its children
+	 */
+	public CompletionStage<Void> crawl(CloudPath path, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> loader, int parallelism) {
+		return SubtreeCrawler.crawl(path, folder -> getPropfindEntryItemData(folder, loader).thenApply(loaded -> loaded.stream() //
+				.skip(1) //
+				.filter(PropfindEntryItemData::isCollection) //
+				.map(child -> folder.resolve(child.getName())) //
+				.collect(Collectors.toList())), parallelism);
+	}
+
+	/**
+	 * Evicts a replaced node at <code>to</code> and marks its ancestors dirty, as the ETags of the copy are unknown.
+	 *
+	 * @param to The path of the copy
+	 */
+	public void copy(CloudPath to) {
+		cache.delete(to);
 	}
 
 	public void move(CloudPath from, CloudPath to) {
@@ -124,6 +174,17 @@ class CachedPropfindEntryProvider {
 		});
 	}
 
+	/**
+	 * @param path The path of a file
+	 * @return The ETag of the file, if cached and not known to be outdated
+	 */
+	public Optional<String> cachedETag(CloudPath path) {
+		return cache.getCachedNode(path) //
+				.filter(node -> !node.isDirty()) //
+				.map(node -> node.getData(PropfindEntryItemData.class)) //
+				.map(PropfindEntryItemData::getETag);
+	}
+
 	public void write(CloudPath path, long size, Optional<Instant> lastModified, Optional<String> eTag) {
 		if (eTag.isPresent()) {
 			var data = new PropfindEntryItemData.Builder()
@@ -148,29 +209,122 @@ class CachedPropfindEntryProvider {
 		cache.delete(path);
 	}
 
-	public void pollRemoteChanges() {
+	/**
+	 * Updates the cached tree with remote changes. If a {@link SyncCollectionReporter} is present and a sync-token has been obtained by a previous poll,
+	 * the changes are queried using a single sync-collection REPORT. Otherwise, or if the token has been rejected, every subtree whose ETag changed is walked
+	 * breadth-first, refreshing up to <code>pollParallelism</code> folders at a time. The statistics of the poll are available from {@link #lastPollStats()} afterwards.
+	 *
+	 * @return CompletionStage completed once the cache reflects the remote state
+	 */
+	public CompletionStage<Void> pollRemoteChanges() {
 		LOG.trace("polling remote changes");
 		var rootPath = CloudPath.of("/");
 		var root = cache.getCachedNode(rootPath);
-		if (root.isPresent()) {
-			var rootItemData = rootPoller.apply(rootPath);
-			var localData = root.get().getData(PropfindEntryItemData.class);
+		if (root.isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		var recorder = new PollRecorder();
+		return pollRemoteChanges(root.get(), recorder).whenComplete((unused, exception) -> {
+			var stats = recorder.finish();
+			LOG.debug("polled remote changes: {}", stats);
+			lastPollStats = Optional.of(stats);
+		});
+	}
+
+	private CompletionStage<Void> pollRemoteChanges(CachedNode root, PollRecorder recorder) {
+		var reporter = syncCollectionReporter.filter(SyncCollectionReporter::isSupported);
+		if (reporter.isEmpty()) {
+			return pollRemoteChangesUsingETags(root, recorder);
+		}
+		var currentSyncToken = syncToken;
+		recorder.requests.incrementAndGet();
+		if (currentSyncToken.isEmpty()) {
+			// obtain the token before walking the tree, so changes made meanwhile are reported by the next poll
+			return reporter.get().currentSyncToken().thenCompose(newSyncToken -> {
+				syncToken = newSyncToken;
+				return pollRemoteChangesUsingETags(root, recorder);
+			});
+		}
+		return reporter.get().changesSince(currentSyncToken.get()).thenCompose(changes -> {
+			if (changes.isEmpty()) {
+				LOG.debug("sync-collection not available, comparing ETags instead");
+				syncToken = Optional.empty();
+				return pollRemoteChanges(root, recorder);
+			}
+			applyChanges(changes.get());
+			syncToken = changes.get().syncToken();
+			if (changes.get().truncated() && syncToken.isPresent()) {
+				return pollRemoteChanges(root, recorder);
+			} else if (!changes.get().changed().isEmpty() || !changes.get().removed().isEmpty()) {
+				// the ETag of the root has changed as well, keep it up to date so that comparing ETags after a rejected sync-token doesn't walk the whole tree
+				// changes made after the REPORT might be included already, but they are reported using the new sync-token nevertheless
+				recorder.requests.incrementAndGet();
+				return rootPoller.apply(CloudPath.of("/")).thenAccept(root::update);
+			} else {
+				return CompletableFuture.completedFuture(null);
+			}
+		});
+	}
+
+	private CompletionStage<Void> pollRemoteChangesUsingETags(CachedNode root, PollRecorder recorder) {
+		var rootPath = CloudPath.of("/");
+		recorder.requests.incrementAndGet();
+		return rootPoller.apply(rootPath).thenCompose(rootItemData -> {
+			var localData = root.getData(PropfindEntryItemData.class);
 			if (localData == null || !rootItemData.isSameVersion(localData)) {
-				root.get().update(rootItemData);
-				updateChildren(rootPath);
+				root.update(rootItemData);
+				// sibling subtrees are disjoint, so the children of a folder are only added or replaced by the visit of this folder,
+				// while concurrent visits of its descendants may still mark it dirty when removing nodes
+				return SubtreeCrawler.crawl(rootPath, folder -> updateChildren(folder, recorder), pollParallelism);
+			} else {
+				return CompletableFuture.completedFuture(null);
+			}
+		});
+	}
+
+	/**
+	 * @return The statistics of the most recently completed poll
+	 */
+	public Optional<PollStats> lastPollStats() {
+		return lastPollStats;
+	}
+
+	/**
+	 * Applies the changes reported by a sync-collection REPORT. Cached nodes are updated or removed, removing a node marks its ancestors dirty.
+	 * New nodes are only added to folders whose children are cached, as the cache never holds a partial listing.
+	 */
+	private void applyChanges(SyncCollectionReporter.Changes changes) {
+		for (var path : changes.removed()) {
+			if (path.getParent() != null) {
+				cache.delete(path);
 			}
 		}
+		changes.changed().forEach((path, data) -> {
+			var cachedNode = cache.getCachedNode(path);
+			var cachedParent = Optional.ofNullable(path.getParent()).flatMap(cache::getCachedNode);
+			if (cachedNode.isPresent()) {
+				cachedNode.get().update(data);
+			} else if (cachedParent.isPresent() && cachedParent.get().isChildrenFetched()) {
+				cache.getOrCreateCachedNode(path).update(data);
+			}
+		});
 	}
 
-	private void updateChildren(CloudPath node) {
+	/**
+	 * Reconciles the cached children of <code>node</code> with its Depth-1 listing.
+	 *
+	 * @return The paths of the child folders whose sub-trees need to be updated as well
+	 */
+	private CompletionStage<List<CloudPath>> updateChildren(CloudPath node, PollRecorder recorder) {
 		LOG.trace("updateChildren {}", node);
 		var cacheNode = cache.getCachedNode(node);
-		if (cacheNode.isPresent()) {
-			var localChildren = cacheNode.get().getChildren();
-			var remoteChildren = cacheUpdater.apply(node);
-
+		if (cacheNode.isEmpty()) {
+			return CompletableFuture.completedFuture(List.of());
+		}
+		recorder.directoriesVisited.incrementAndGet();
+		recorder.requests.incrementAndGet();
+		return cacheUpdater.apply(node).thenApply(remoteChildren -> {
 			// delete parent
-			remoteChildren.sort(new PropfindEntryItemData.AscendingByDepthComparator());
 			if (remoteChildren.size() > 0) {
 				remoteChildren.remove(0);
 			}
@@ -180,48 +334,83 @@ class CachedPropfindEntryProvider {
 			// if local exists and same ETAG --> ignore further sub-tree ✓
 			// if remote exists but not local --> create ✓
 
-			for (CachedNode localChild : localChildren) {
-				var remoteItemMetadata = remoteChildren.stream().filter(remote -> remote.getName().equals(localChild.getName())).findAny();
-				if (remoteItemMetadata.isPresent()) {
-					var localData = localChild.getData(PropfindEntryItemData.class);
-					if (localData != null) {
-						updateSubTreeIfVersionChanged(node, localData, remoteItemMetadata, localChild);
-					} else {
-						updateSubTreeIfNoDataCachedButIsFolder(node, localChild, remoteItemMetadata);
-					}
-				} else {
-					cache.delete(node.resolve(localChild.getName()));
+			var diff = ChildrenDiff.compute(List.copyOf(cacheNode.get().getChildren()), remoteChildren);
+			for (var removed : diff.removed()) {
+				cache.delete(node.resolve(removed.getName()));
+			}
+			var changedSubTrees = new ArrayList<CloudPath>();
+			for (var changed : diff.changed()) {
+				var localData = changed.local().getData(PropfindEntryItemData.class);
+				changed.local().update(changed.remote());
+				// descend into cached folders and into folders whose data has not been cached yet
+				if (localData != null ? localData.isCollection() : changed.remote().isCollection()) {
+					changedSubTrees.add(node.resolve(changed.local().getName()));
 				}
 			}
-
-			addRemoteNodesIfNotYetCached(node, localChildren, remoteChildren);
+			for (var added : diff.added()) {
+				cacheNode.get().addChild(CachedNode.detached(added.getName())).update(added);
+			}
 
 			cacheNode.get().setChildrenFetched();
+			return changedSubTrees;
+		});
+	}
+
+	/**
+	 * Counts the work of a single poll, which may be done by several threads at a time.
+	 */
+	private static class PollRecorder {
+
+		private final long start = System.nanoTime();
+		private final AtomicInteger directoriesVisited = new AtomicInteger();
+		private final AtomicInteger requests = new AtomicInteger();
+
+		PollStats finish() {
+			return new PollStats(directoriesVisited.get(), requests.get(), Duration.ofNanos(System.nanoTime() - start));
 		}
 	}
 
-	private void updateSubTreeIfVersionChanged(CloudPath node, PropfindEntryItemData localData, Optional<PropfindEntryItemData> remoteItemMetadata, CachedNode localChild) {
-		if (!localData.isSameVersion(remoteItemMetadata.get())) {
-			cache.getCachedNode(node.resolve(localChild.getName())).get().update(remoteItemMetadata.get());
-			if (localData.isCollection()) {
-				updateChildren(node.resolve(localChild.getName()));
+	class SubtreePrefetch {
+
+		private final CloudPath root;
+		private final Set<CloudPath> received = new HashSet<>();
+
+		private SubtreePrefetch(CloudPath root) {
+			this.root = root;
+		}
+
+		/**
+		 * @param path Path of the entry, relative to the cloud root
+		 * @param data The entry
+		 */
+		void add(CloudPath path, PropfindEntryItemData data) {
+			if (path.startsWith(root)) {
+				cache.getOrCreateCachedNode(path).update(data);
+				received.add(path);
 			}
-		} // else branch does nothing, even if a subtree exists but ETag of the parent didn't change
-	}
+		}
 
-	private void updateSubTreeIfNoDataCachedButIsFolder(CloudPath node, CachedNode localChild, Optional<PropfindEntryItemData> remoteItemMetadata) {
-		cache.getCachedNode(node.resolve(localChild.getName())).get().update(remoteItemMetadata.get());
-		if (remoteItemMetadata.get().isCollection()) {
-			updateChildren(node.resolve(localChild.getName()));
+		/**
+		 * Drops cached nodes of the subtree that are no longer present and marks all folders as having their children fetched.
+		 */
+		void complete() {
+			cache.getCachedNode(root).ifPresent(node -> complete(root, node));
 		}
-	}
 
-	private void addRemoteNodesIfNotYetCached(CloudPath node, Collection<CachedNode> localChildren, List<PropfindEntryItemData> remoteChildren) {
-		for (PropfindEntryItemData remoteChild : remoteChildren) {
-			var localNode = localChildren.stream().filter(local -> local.getName().equals(remoteChild.getName())).findAny();
-			if (localNode.isEmpty()) {
-				cache.getOrCreateCachedNode(node.resolve(remoteChild.getName())).update(remoteChild);
+		private void complete(CloudPath path, CachedNode node) {
+			var data = node.getData(PropfindEntryItemData.class);
+			if (data == null || !data.isCollection()) {
+				return;
+			}
+			for (var child : List.copyOf(node.getChildren())) {
+				var childPath = path.resolve(child.getName());
+				if (received.contains(childPath)) {
+					complete(childPath, child);
+				} else {
+					node.deleteChild(child.getName());
+				}
 			}
+			node.setChildrenFetched();
 		}
 	}
 }
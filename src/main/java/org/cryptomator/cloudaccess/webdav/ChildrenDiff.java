@@ -0,0 +1,54 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.cryptomator.cloudaccess.CachedNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Differences between the cached children of a folder and its current Depth-1 listing.
+ * Children are matched by name using a hash map, so computing the diff takes a single pass over each side.
+ *
+ * @param added   Remote children not cached yet
+ * @param removed Cached children no longer present remotely
+ * @param changed Cached children whose data is missing or outdated, along with their remote entry
+ */
+record ChildrenDiff(List<PropfindEntryItemData> added, List<CachedNode> removed, List<Changed> changed) {
+
+	/**
+	 * @param localChildren  The cached children
+	 * @param remoteChildren The listed children, not including the folder itself
+	 * @return The diff turning <code>localChildren</code> into <code>remoteChildren</code>
+	 */
+	static ChildrenDiff compute(Collection<CachedNode> localChildren, Collection<PropfindEntryItemData> remoteChildren) {
+		var remoteByName = new LinkedHashMap<String, PropfindEntryItemData>((int) (remoteChildren.size() / 0.75f) + 1);
+		for (var remoteChild : remoteChildren) {
+			remoteByName.put(remoteChild.getName(), remoteChild);
+		}
+		var removed = new ArrayList<CachedNode>();
+		var changed = new ArrayList<Changed>();
+		for (var localChild : localChildren) {
+			var remoteChild = remoteByName.remove(localChild.getName());
+			if (remoteChild == null) {
+				removed.add(localChild);
+			} else {
+				var localData = localChild.getData(PropfindEntryItemData.class);
+				if (localData == null || !localData.isSameVersion(remoteChild)) {
+					changed.add(new Changed(localChild, remoteChild));
+				}
+			}
+		}
+		// whatever remains has not been matched by a cached child
+		return new ChildrenDiff(List.copyOf(remoteByName.values()), removed, changed);
+	}
+
+	/**
+	 * @param local  The cached child
+	 * @param remote The current entry of the child
+	 */
+	record Changed(CachedNode local, PropfindEntryItemData remote) {
+	}
+
+}
@@ -0,0 +1,94 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Parses dates as sent in <code>getlastmodified</code> properties and HTTP headers.
+ * <p>
+ * The fixed-length form <code>Sun, 06 Nov 1994 08:49:37 GMT</code> is parsed directly from its character positions, everything else falls back to {@link DateTimeFormatter#RFC_1123_DATE_TIME}.
+ */
+final class HttpDates {
+
+	private static final int FIXED_LENGTH = "Sun, 06 Nov 1994 08:49:37 GMT".length();
+	private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+	private static final String[] DAYS_OF_WEEK = new String[7];
+
+	static {
+		for (var day : DayOfWeek.values()) {
+			DAYS_OF_WEEK[day.ordinal()] = day.getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
+		}
+	}
+
+	private HttpDates() {
+	}
+
+	static Optional<Instant> parse(final String text) {
+		if (text == null) {
+			return Optional.empty();
+		}
+		var fastResult = parseFixedLength(text);
+		if (fastResult != null) {
+			return Optional.of(fastResult);
+		}
+		try {
+			return Optional.of(Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(text)));
+		} catch (DateTimeException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return The parsed instant or <code>null</code> if <code>text</code> is not in fixed-length form
+	 */
+	private static Instant parseFixedLength(final String text) {
+		if (text.length() != FIXED_LENGTH //
+				|| text.charAt(3) != ',' || text.charAt(4) != ' ' || text.charAt(7) != ' ' || text.charAt(11) != ' ' || text.charAt(16) != ' ' //
+				|| text.charAt(19) != ':' || text.charAt(22) != ':' || !text.endsWith(" GMT")) {
+			return null;
+		}
+		var day = twoDigits(text, 5);
+		var month = month(text, 8);
+		var year = twoDigits(text, 12) * 100 + twoDigits(text, 14);
+		var hour = twoDigits(text, 17);
+		var minute = twoDigits(text, 20);
+		var second = twoDigits(text, 23);
+		if (day < 0 || month < 0 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+			return null;
+		}
+		try {
+			var date = LocalDate.of(year, month, day);
+			if (!text.regionMatches(0, DAYS_OF_WEEK[date.getDayOfWeek().ordinal()], 0, 3)) {
+				return null;
+			}
+			return Instant.ofEpochSecond(date.toEpochDay() * 86400 + hour * 3600L + minute * 60L + second);
+		} catch (DateTimeException e) {
+			return null;
+		}
+	}
+
+	private static int twoDigits(final String text, final int index) {
+		var high = text.charAt(index) - '0';
+		var low = text.charAt(index + 1) - '0';
+		if (high < 0 || high > 9 || low < 0 || low > 9) {
+			return -1;
+		}
+		return high * 10 + low;
+	}
+
+	private static int month(final String text, final int index) {
+		for (int i = 0; i < MONTHS.length; i++) {
+			if (text.regionMatches(index, MONTHS[i], 0, 3)) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+}
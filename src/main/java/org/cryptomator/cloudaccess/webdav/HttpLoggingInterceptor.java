@@ -7,11 +7,12 @@ import okhttp3.Request;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.util.function.BooleanSupplier;
 
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
-public final class HttpLoggingInterceptor implements Interceptor {
+final class HttpLoggingInterceptor implements Interceptor {
 
 	private static final HeaderNames EXCLUDED_HEADERS = new HeaderNames(//
 			// headers excluded because they are logged separately:
@@ -23,13 +24,26 @@ public final class HttpLoggingInterceptor implements Interceptor {
 			"Set-Cookie" //
 	);
 	private final Logger logger;
+	private final BooleanSupplier loggingEnabled;
 
 	public HttpLoggingInterceptor(final Logger logger) {
+		this(logger, () -> true);
+	}
+
+	/**
+	 * @param logger         Receives the log messages
+	 * @param loggingEnabled Checked for each request, if <code>false</code> the request is passed on without formatting any log message
+	 */
+	public HttpLoggingInterceptor(final Logger logger, final BooleanSupplier loggingEnabled) {
 		this.logger = logger;
+		this.loggingEnabled = loggingEnabled;
 	}
 
 	@Override
 	public Response intercept(final Chain chain) throws IOException {
+		if (!loggingEnabled.getAsBoolean()) {
+			return chain.proceed(chain.request());
+		}
 		return proceedWithLogging(chain);
 	}
 
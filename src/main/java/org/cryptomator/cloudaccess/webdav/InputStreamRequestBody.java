@@ -9,7 +9,7 @@ import okio.Okio;
 import java.io.IOException;
 import java.io.InputStream;
 
-public class InputStreamRequestBody extends RequestBody {
+class InputStreamRequestBody extends RequestBody {
 	private final InputStream inputStream;
 	private final long size;
 
@@ -34,6 +34,11 @@ public class InputStreamRequestBody extends RequestBody {
 		return size;
 	}
 
+	@Override
+	public boolean isOneShot() {
+		return true;
+	}
+
 	@Override
 	public void writeTo(final BufferedSink sink) throws IOException {
 		try (final var source = Okio.source(inputStream)) {
@@ -0,0 +1,141 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * Measures the phases of a single call and records them in {@link NetworkTimings} once the call has ended.
+ * <p>
+ * OkHttp calls the methods of a listener sequentially for a call, therefore no synchronization is needed.
+ */
+class NetworkTimingListener extends EventListener {
+
+	private static final long NOT_STARTED = -1;
+
+	private final NetworkTimings.MethodAccumulator timings;
+	private long callStart = NOT_STARTED;
+	private long dnsStart = NOT_STARTED;
+	private long connectStart = NOT_STARTED;
+	private long secureConnectStart = NOT_STARTED;
+	private long requestStart = NOT_STARTED;
+	private long requestEnd = NOT_STARTED;
+	private long responseBodyStart = NOT_STARTED;
+	private boolean connecting;
+	private boolean reusedConnection;
+
+	private NetworkTimingListener(final NetworkTimings.MethodAccumulator timings) {
+		this.timings = timings;
+	}
+
+	static EventListener.Factory factory(final NetworkTimings timings) {
+		return call -> new NetworkTimingListener(timings.forMethod(call.request().method()));
+	}
+
+	@Override
+	public void callStart(final Call call) {
+		callStart = System.nanoTime();
+	}
+
+	@Override
+	public void dnsStart(final Call call, final String domainName) {
+		dnsStart = System.nanoTime();
+	}
+
+	@Override
+	public void dnsEnd(final Call call, final String domainName, final List<InetAddress> inetAddressList) {
+		timings.dns.record(elapsedSince(dnsStart));
+	}
+
+	@Override
+	public void connectStart(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy) {
+		connectStart = System.nanoTime();
+		connecting = true;
+	}
+
+	@Override
+	public void secureConnectStart(final Call call) {
+		secureConnectStart = System.nanoTime();
+	}
+
+	@Override
+	public void secureConnectEnd(final Call call, final Handshake handshake) {
+		timings.tls.record(elapsedSince(secureConnectStart));
+	}
+
+	@Override
+	public void connectEnd(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol) {
+		timings.connect.record(elapsedSince(connectStart));
+	}
+
+	@Override
+	public void connectFailed(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol, final IOException ioe) {
+		timings.connect.record(elapsedSince(connectStart));
+	}
+
+	@Override
+	public void connectionAcquired(final Call call, final Connection connection) {
+		// calls failing before a connection has been acquired neither connected nor reused a connection
+		reusedConnection = !connecting;
+		connecting = false;
+	}
+
+	@Override
+	public void requestHeadersStart(final Call call) {
+		requestStart = System.nanoTime();
+	}
+
+	@Override
+	public void requestHeadersEnd(final Call call, final Request request) {
+		requestEnd = System.nanoTime();
+	}
+
+	@Override
+	public void requestBodyEnd(final Call call, final long byteCount) {
+		requestEnd = System.nanoTime();
+	}
+
+	@Override
+	public void responseHeadersStart(final Call call) {
+		if (requestStart != NOT_STARTED) {
+			timings.request.record(requestEnd - requestStart);
+			timings.timeToFirstByte.record(elapsedSince(requestEnd));
+			requestStart = NOT_STARTED;
+		}
+	}
+
+	@Override
+	public void responseHeadersEnd(final Call call, final Response response) {
+		responseBodyStart = System.nanoTime();
+	}
+
+	@Override
+	public void responseBodyEnd(final Call call, final long byteCount) {
+		timings.responseBody.record(elapsedSince(responseBodyStart));
+	}
+
+	@Override
+	public void callEnd(final Call call) {
+		timings.recordCall(false, reusedConnection, elapsedSince(callStart));
+	}
+
+	@Override
+	public void callFailed(final Call call, final IOException ioe) {
+		timings.recordCall(true, reusedConnection, elapsedSince(callStart));
+	}
+
+	private static long elapsedSince(final long start) {
+		return start == NOT_STARTED ? 0 : System.nanoTime() - start;
+	}
+
+}
@@ -0,0 +1,118 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Network timings of the HTTP calls made through a {@link WebDavTransport}, aggregated per HTTP method.
+ * <p>
+ * A call comprises all attempts OkHttp makes internally to get a response, but not the redirects and retries done by the providers, which are separate calls.
+ * Each call is recorded once its response body has been consumed or it failed.
+ */
+public class NetworkTimings {
+
+	private final Map<String, MethodAccumulator> methods = new ConcurrentHashMap<>();
+
+	NetworkTimings() {
+	}
+
+	/**
+	 * @return An immutable view of the timings recorded so far, by HTTP method in alphabetical order
+	 */
+	public Map<String, MethodTimings> snapshot() {
+		final var snapshot = new TreeMap<String, MethodTimings>();
+		methods.forEach((method, accumulator) -> snapshot.put(method, accumulator.snapshot()));
+		return Collections.unmodifiableSortedMap(snapshot);
+	}
+
+	MethodAccumulator forMethod(final String method) {
+		return methods.computeIfAbsent(method, m -> new MethodAccumulator());
+	}
+
+	/**
+	 * Timings of all calls with the same HTTP method.
+	 *
+	 * @param calls              Number of completed calls
+	 * @param failedCalls        Number of calls which failed with an I/O error
+	 * @param reusedConnections  Number of calls which didn't have to connect, as they reused a pooled connection
+	 * @param dns                DNS lookups
+	 * @param connect            Connection establishment, including TLS handshakes
+	 * @param tls                TLS handshakes
+	 * @param request            Sending request headers and body
+	 * @param timeToFirstByte    From the end of the request until the response headers start to arrive
+	 * @param responseBody       Receiving the response body
+	 * @param total              Entire calls
+	 */
+	public record MethodTimings(long calls, long failedCalls, long reusedConnections, Phase dns, Phase connect, Phase tls, Phase request, Phase timeToFirstByte, Phase responseBody, Phase total) {
+
+	}
+
+	/**
+	 * Timings of one phase of the calls.
+	 *
+	 * @param count Number of times the phase has been run through
+	 * @param total Time spent in the phase summed up
+	 * @param max   Longest time spent in the phase
+	 */
+	public record Phase(long count, Duration total, Duration max) {
+
+		/**
+		 * @return Average time spent in the phase or {@link Duration#ZERO} if the phase has not been run through yet
+		 */
+		public Duration average() {
+			return count == 0 ? Duration.ZERO : total.dividedBy(count);
+		}
+	}
+
+	static class MethodAccumulator {
+
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failedCalls = new LongAdder();
+		private final LongAdder reusedConnections = new LongAdder();
+		final PhaseAccumulator dns = new PhaseAccumulator();
+		final PhaseAccumulator connect = new PhaseAccumulator();
+		final PhaseAccumulator tls = new PhaseAccumulator();
+		final PhaseAccumulator request = new PhaseAccumulator();
+		final PhaseAccumulator timeToFirstByte = new PhaseAccumulator();
+		final PhaseAccumulator responseBody = new PhaseAccumulator();
+		final PhaseAccumulator total = new PhaseAccumulator();
+
+		void recordCall(final boolean failed, final boolean reusedConnection, final long durationNanos) {
+			calls.increment();
+			if (failed) {
+				failedCalls.increment();
+			}
+			if (reusedConnection) {
+				reusedConnections.increment();
+			}
+			total.record(durationNanos);
+		}
+
+		private MethodTimings snapshot() {
+			return new MethodTimings(calls.sum(), failedCalls.sum(), reusedConnections.sum(), dns.snapshot(), connect.snapshot(), tls.snapshot(), request.snapshot(), timeToFirstByte.snapshot(), responseBody.snapshot(), total.snapshot());
+		}
+	}
+
+	static class PhaseAccumulator {
+
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		void record(final long durationNanos) {
+			count.increment();
+			totalNanos.add(durationNanos);
+			maxNanos.accumulate(durationNanos);
+		}
+
+		private Phase snapshot() {
+			return new Phase(count.sum(), Duration.ofNanos(totalNanos.sum()), Duration.ofNanos(maxNanos.get()));
+		}
+	}
+
+}
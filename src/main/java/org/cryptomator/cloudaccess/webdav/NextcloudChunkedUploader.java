@@ -0,0 +1,459 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import com.google.common.math.LongMath;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import org.cryptomator.cloudaccess.CombinedProgressListener;
+import org.cryptomator.cloudaccess.api.ProgressListener;
+import org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException;
+import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
+import org.cryptomator.cloudaccess.api.exceptions.InsufficientStorageException;
+import org.cryptomator.cloudaccess.api.exceptions.ParentFolderDoesNotExistException;
+import org.cryptomator.cloudaccess.api.exceptions.TypeMismatchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.RoundingMode;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Uploads large files in chunks using the chunked upload API (v2) of Nextcloud:
+ * <ol>
+ *     <li><code>MKCOL</code> creates an upload directory below <code>remote.php/dav/uploads/&lt;user&gt;</code></li>
+ *     <li>the chunks are <code>PUT</code> into this directory as numbered files, several of them at a time</li>
+ *     <li><code>MOVE</code> of the upload directory's virtual <code>.file</code> assembles the chunks at the destination</li>
+ * </ol>
+ * If the upload directory exists already, chunks uploaded by a previous attempt of the same transfer are not uploaded again.
+ * The upload directory of a failed upload which can't be resumed is deleted.
+ *
+ * @see <a href="https://docs.nextcloud.com/server/latest/developer_manual/client_apis/WebDAV/chunking.html">Chunked file upload</a>
+ */
+class NextcloudChunkedUploader {
+
+	private static final Logger LOG = LoggerFactory.getLogger(NextcloudChunkedUploader.class);
+	private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+	private static final int HTTP_INSUFFICIENT_STORAGE = 507;
+	private static final int MAX_CHUNKS = 10000;
+	private static final String PROPFIND_BODY = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" //
+			+ "<d:propfind xmlns:d=\"DAV:\">\n" //
+			+ "<d:prop>\n" //
+			+ "<d:resourcetype />\n" //
+			+ "<d:getcontentlength />\n" //
+			+ "</d:prop>\n" //
+			+ "</d:propfind>";
+
+	private final WebDavCompatibleHttpClient httpClient;
+	private final HttpUrl uploadsUrl;
+	private final int chunkSize;
+	private final int parallelism;
+	private final List<BandwidthLimiter> uploadLimiters;
+	private final Executor readExecutor;
+	private final PropfindResponseParser propfindResponseParser = new PropfindResponseParser();
+	private final AtomicBoolean supported = new AtomicBoolean(true);
+
+	/**
+	 * @param httpClient  The client used to send the requests
+	 * @param uploadsUrl  The URL of the user's uploads collection, see {@link #uploadsUrl(URL)}
+	 * @param chunkSize   Size of the chunks in bytes. Only the last chunk may be smaller.
+	 * @param parallelism Maximum number of chunks uploaded concurrently
+	 * @param uploadLimiters Bandwidth limits applied to the chunks
+	 * @param readExecutor Executor reading the data of the chunks, which may block
+	 */
+	NextcloudChunkedUploader(WebDavCompatibleHttpClient httpClient, HttpUrl uploadsUrl, int chunkSize, int parallelism, List<BandwidthLimiter> uploadLimiters, Executor readExecutor) {
+		this.httpClient = httpClient;
+		this.uploadsUrl = uploadsUrl;
+		this.chunkSize = chunkSize;
+		this.parallelism = parallelism;
+		this.uploadLimiters = uploadLimiters;
+		this.readExecutor = readExecutor;
+	}
+
+	/**
+	 * @param baseUrl The WebDAV base URL
+	 * @return The URL of the uploads collection, if <code>baseUrl</code> points into Nextcloud's files collection <code>remote.php/dav/files/&lt;user&gt;</code>
+	 */
+	static Optional<HttpUrl> uploadsUrl(URL baseUrl) {
+		var url = HttpUrl.get(baseUrl.toString());
+		var segments = url.pathSegments();
+		for (int i = 0; i + 3 < segments.size(); i++) {
+			if ("remote.php".equals(segments.get(i)) && "dav".equals(segments.get(i + 1)) && "files".equals(segments.get(i + 2)) && !segments.get(i + 3).isEmpty()) {
+				var uploadsUrl = url.newBuilder().encodedPath("/");
+				segments.subList(0, i).forEach(uploadsUrl::addPathSegment);
+				return Optional.of(uploadsUrl //
+						.addPathSegment("remote.php") //
+						.addPathSegment("dav") //
+						.addPathSegment("uploads") //
+						.addPathSegment(segments.get(i + 3)) //
+						.build());
+			}
+		}
+		return Optional.empty();
+	}
+
+	int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return <code>false</code> if the server answered creating an upload directory with 404 or 501 before, i.e. doesn't offer chunked uploads
+	 */
+	boolean isSupported() {
+		return supported.get();
+	}
+
+	/**
+	 * Uploads the data in chunks, unless the server doesn't support chunked uploads.
+	 *
+	 * @param transferId       Name of the upload directory. Using the same id for another attempt of the same upload resumes it.
+	 * @param resumable        Whether another attempt may resume the upload, otherwise the upload directory is deleted if the upload fails
+	 * @param destination      The URL of the file to be written
+	 * @param data             The data to be uploaded
+	 * @param size             The size of the data in bytes
+	 * @param replace          Whether to replace an existing file
+	 * @param lastModified     The modification date to be set on the file
+	 * @param progressListener Notified about the number of bytes uploaded
+	 * @return The uploaded file or empty if the server doesn't support chunked uploads and nothing has been uploaded
+	 */
+	CompletionStage<Optional<UploadedFile>> upload(String transferId, boolean resumable, HttpUrl destination, ChunkReader data, long size, boolean replace, Optional<Instant> lastModified, ProgressListener progressListener) {
+		var uploadDir = uploadsUrl.newBuilder().addPathSegment(transferId).build();
+		return createUploadDir(uploadDir, destination).thenCompose(uploadedChunks -> {
+			if (uploadedChunks.isEmpty()) {
+				return CompletableFuture.completedFuture(Optional.empty());
+			}
+			var chunks = new ChunkQueue(data, size, uploadedChunks.get());
+			var progress = new CombinedProgressListener(progressListener);
+			var lanes = new CompletableFuture<?>[parallelism];
+			for (int i = 0; i < lanes.length; i++) {
+				lanes[i] = uploadRemainingChunks(uploadDir, destination, size, chunks, progress).toCompletableFuture();
+			}
+			return CompletableFuture.allOf(lanes) //
+					.thenCompose(unused -> assemble(uploadDir, destination, size, replace, lastModified)) //
+					.thenApply(eTag -> Optional.of(new UploadedFile(eTag))) //
+					.whenComplete((uploadedFile, e) -> {
+						if (e != null && (!resumable || isFinal(e))) {
+							delete(uploadDir);
+						}
+					});
+		});
+	}
+
+	// whether another attempt of the upload would fail the same way
+	private static boolean isFinal(Throwable e) {
+		var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		return cause instanceof TypeMismatchException || cause instanceof ParentFolderDoesNotExistException || cause instanceof AlreadyExistsException;
+	}
+
+	// returns the names and sizes of the chunks uploaded before or empty if chunked uploads aren't supported
+	private CompletionStage<Optional<Map<String, Long>>> createUploadDir(HttpUrl uploadDir, HttpUrl destination) {
+		var mkcolRequest = new Request.Builder() //
+				.method("MKCOL", null) //
+				.url(uploadDir) //
+				.header("Destination", destination.toString());
+		return execute(mkcolRequest, response -> {
+			try (response) {
+				switch (response.code()) {
+					case HttpURLConnection.HTTP_CREATED:
+						return UploadDirState.CREATED;
+					case HttpURLConnection.HTTP_BAD_METHOD:
+						// upload directory exists, i.e. this is another attempt of a previous upload
+						return UploadDirState.EXISTS;
+					case HttpURLConnection.HTTP_UNAUTHORIZED:
+						throw new UnauthorizedException();
+					case HttpURLConnection.HTTP_FORBIDDEN:
+						throw new ForbiddenException();
+					case HttpURLConnection.HTTP_NOT_FOUND: // fall through
+					case HttpURLConnection.HTTP_NOT_IMPLEMENTED:
+						LOG.info("Creating upload directory {} failed with status {}, not using chunked uploads any longer.", uploadDir, response.code());
+						supported.set(false);
+						return UploadDirState.UNSUPPORTED;
+					case HTTP_INSUFFICIENT_STORAGE:
+						throw new InsufficientStorageException();
+					default:
+						// possibly transient, so this upload fails but later ones try again
+						throw new CloudProviderException("Creating upload directory failed with status " + response.code());
+				}
+			}
+		}).thenCompose(state -> {
+			if (state == UploadDirState.EXISTS) {
+				return listChunks(uploadDir).thenApply(Optional::of);
+			} else if (state == UploadDirState.CREATED) {
+				return CompletableFuture.completedFuture(Optional.of(Map.<String, Long>of()));
+			} else {
+				return CompletableFuture.completedFuture(Optional.<Map<String, Long>>empty());
+			}
+		});
+	}
+
+	private CompletionStage<Map<String, Long>> listChunks(HttpUrl uploadDir) {
+		var propfindRequest = new Request.Builder() //
+				.method("PROPFIND", RequestBody.create(PROPFIND_BODY, MediaType.parse("text/xml"))) //
+				.url(uploadDir) //
+				.header("Depth", "1");
+		return execute(propfindRequest, response -> {
+			try (response) {
+				if (response.code() != 207) {
+					throw new CloudProviderException("Listing uploaded chunks failed with status " + response.code());
+				}
+				return propfindResponseParser.parseItemData(response.body().byteStream()).stream() //
+						.filter(entry -> !entry.isCollection() && entry.getSize().isPresent()) //
+						.collect(Collectors.toMap(PropfindEntryItemData::getName, entry -> entry.getSize().get()));
+			}
+		});
+	}
+
+	private CompletionStage<Void> uploadRemainingChunks(HttpUrl uploadDir, HttpUrl destination, long size, ChunkQueue chunks, CombinedProgressListener progress) {
+		return chunks.next().thenCompose(chunk -> {
+			if (chunk.isEmpty()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return putChunk(uploadDir, destination, size, chunk.get(), progress.forPart()) //
+					.thenCompose(unused -> uploadRemainingChunks(uploadDir, destination, size, chunks, progress));
+		}).whenComplete((unused, e) -> {
+			if (e != null) {
+				chunks.abort();
+			}
+		});
+	}
+
+	private CompletionStage<Void> putChunk(HttpUrl uploadDir, HttpUrl destination, long size, Chunk chunk, ProgressListener progressListener) {
+		var putRequest = new Request.Builder() //
+				.url(uploadDir.newBuilder().addPathSegment(chunk.name).build()) //
+				.put(new ProgressRequestWrapper(chunk.body, progressListener, uploadLimiters)) //
+				.header("Destination", destination.toString()) //
+				.header("OC-Total-Length", String.valueOf(size));
+		return execute(putRequest, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					return null;
+				}
+				switch (response.code()) {
+					case HttpURLConnection.HTTP_UNAUTHORIZED:
+						throw new UnauthorizedException();
+					case HttpURLConnection.HTTP_FORBIDDEN:
+						throw new ForbiddenException();
+					case HTTP_INSUFFICIENT_STORAGE:
+						throw new InsufficientStorageException();
+					default:
+						throw new CloudProviderException("Uploading chunk " + chunk.name + " failed with status " + response.code());
+				}
+			}
+		});
+	}
+
+	private CompletionStage<Optional<String>> assemble(HttpUrl uploadDir, HttpUrl destination, long size, boolean replace, Optional<Instant> lastModified) {
+		var moveRequest = new Request.Builder() //
+				.method("MOVE", null) //
+				.url(uploadDir.newBuilder().addPathSegment(".file").build()) //
+				.header("Destination", destination.toString()) //
+				.header("OC-Total-Length", String.valueOf(size)) //
+				.header("Overwrite", replace ? "T" : "F");
+		lastModified.ifPresent(instant -> moveRequest.header("X-OC-Mtime", String.valueOf(instant.getEpochSecond())));
+		return execute(moveRequest, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					return Optional.ofNullable(response.header("ETag"));
+				}
+				switch (response.code()) {
+					case HttpURLConnection.HTTP_UNAUTHORIZED:
+						throw new UnauthorizedException();
+					case HttpURLConnection.HTTP_FORBIDDEN:
+						throw new ForbiddenException();
+					case HttpURLConnection.HTTP_BAD_METHOD:
+						throw new TypeMismatchException();
+					case HttpURLConnection.HTTP_CONFLICT: // fall through
+					case HttpURLConnection.HTTP_NOT_FOUND:
+						throw new ParentFolderDoesNotExistException();
+					case HttpURLConnection.HTTP_PRECON_FAILED:
+						throw new AlreadyExistsException("CloudNode already exists and replace is false");
+					case HTTP_INSUFFICIENT_STORAGE:
+						throw new InsufficientStorageException();
+					default:
+						throw new CloudProviderException("Assembling chunks failed with status " + response.code());
+				}
+			}
+		});
+	}
+
+	// discards the chunks of an upload which won't be resumed
+	private void delete(HttpUrl uploadDir) {
+		httpClient.executeAsync(new Request.Builder().delete().url(uploadDir)).whenComplete((response, e) -> {
+			if (response != null) {
+				response.close();
+			} else {
+				LOG.debug("Deleting upload directory {} failed.", uploadDir, e);
+			}
+		});
+	}
+
+	private <T> CompletionStage<T> execute(Request.Builder requestBuilder, ResponseHandler<T> responseHandler) {
+		return httpClient.executeAsync(requestBuilder).thenApply(response -> {
+			try {
+				return responseHandler.handle(response);
+			} catch (IOException | SAXException e) {
+				throw WebDavClient.toCloudProviderException(e);
+			}
+		}).exceptionally(e -> {
+			throw WebDavClient.toCloudProviderException(e);
+		});
+	}
+
+	private enum UploadDirState {
+		CREATED, EXISTS, UNSUPPORTED
+	}
+
+	record UploadedFile(Optional<String> eTag) {
+
+	}
+
+	/**
+	 * Reads the data of the chunks. Chunks are read one at a time and in ascending order, on a thread which may block.
+	 */
+	@FunctionalInterface
+	interface ChunkReader {
+
+		/**
+		 * @param offset Position of the chunk within the data
+		 * @param length Size of the chunk in bytes
+		 * @return The data of the chunk
+		 * @throws IOException If reading the data fails
+		 */
+		RequestBody read(long offset, long length) throws IOException;
+
+		/**
+		 * Reads each chunk when it is sent, so the data doesn't need to be held in memory and failed chunks can be sent again.
+		 */
+		static ChunkReader of(Path file) {
+			return (offset, length) -> new RequestBody() {
+				@Override
+				public MediaType contentType() {
+					return OCTET_STREAM;
+				}
+
+				@Override
+				public long contentLength() {
+					return length;
+				}
+
+				@Override
+				public void writeTo(BufferedSink sink) throws IOException {
+					try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+						channel.position(offset);
+						sink.write(Okio.source(Channels.newInputStream(channel)), length);
+					}
+				}
+			};
+		}
+
+		/**
+		 * Copies each chunk into memory, so it can be sent again if needed. Data of chunks which don't need to be uploaded is skipped.
+		 */
+		static ChunkReader of(InputStream in) {
+			return new ChunkReader() {
+				private long position;
+
+				@Override
+				public RequestBody read(long offset, long length) throws IOException {
+					in.skipNBytes(offset - position);
+					var chunk = in.readNBytes((int) length);
+					position = offset + chunk.length;
+					if (chunk.length < length) {
+						throw new IOException("Data ended before " + (offset + length) + " bytes were read");
+					}
+					return RequestBody.create(chunk, OCTET_STREAM);
+				}
+			};
+		}
+	}
+
+	private record Chunk(String name, RequestBody body) {
+
+	}
+
+	/**
+	 * Hands out the chunks still to be uploaded. Chunks are reserved under a lock, but read on the {@link #readExecutor}, each one after the previous one.
+	 */
+	private class ChunkQueue {
+
+		private final ChunkReader data;
+		private final long size;
+		private final long effectiveChunkSize;
+		private final long chunkCount;
+		private final Map<String, Long> uploadedChunks;
+		private long nextChunk = 1;
+		private CompletableFuture<?> previousRead = CompletableFuture.completedFuture(null);
+		private volatile boolean aborted;
+
+		ChunkQueue(ChunkReader data, long size, Map<String, Long> uploadedChunks) {
+			this.data = data;
+			this.size = size;
+			// the number of chunks per upload is limited
+			this.effectiveChunkSize = Math.max(chunkSize, LongMath.divide(size, MAX_CHUNKS, RoundingMode.CEILING));
+			this.chunkCount = LongMath.divide(size, effectiveChunkSize, RoundingMode.CEILING);
+			this.uploadedChunks = uploadedChunks;
+		}
+
+		synchronized CompletableFuture<Optional<Chunk>> next() {
+			while (!aborted && nextChunk <= chunkCount) {
+				var name = String.format("%05d", nextChunk);
+				var offset = (nextChunk - 1) * effectiveChunkSize;
+				var length = Math.min(effectiveChunkSize, size - offset);
+				nextChunk++;
+				if (uploadedChunks.getOrDefault(name, -1L) == length) {
+					LOG.trace("Chunk {} has been uploaded before", name);
+					continue;
+				}
+				var read = previousRead.handleAsync((unused, e) -> read(name, offset, length), readExecutor);
+				previousRead = read;
+				return read;
+			}
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+
+		private Optional<Chunk> read(String name, long offset, long length) {
+			if (aborted) {
+				return Optional.empty();
+			}
+			try {
+				return Optional.of(new Chunk(name, data.read(offset, length)));
+			} catch (IOException e) {
+				aborted = true;
+				throw new CloudProviderException(e);
+			}
+		}
+
+		void abort() {
+			aborted = true;
+		}
+	}
+
+	@FunctionalInterface
+	private interface ResponseHandler<T> {
+
+		T handle(Response response) throws IOException, SAXException;
+
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import okhttp3.HttpUrl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Remembers permanent redirects (301, 308) by URL prefix, so that later requests to the same location or below can be sent to the final location directly.
+ * <p>
+ * If a collection has been redirected, the prefix is derived from the path segments both URLs have in common at their end, e.g. a redirect of
+ * <code>http://example.com/webdav/foo/</code> to <code>https://example.com/dav/foo/</code> is applied to every URL below <code>http://example.com/webdav</code>.
+ * A redirect of any other resource is applied to the very same URL only, as it doesn't tell anything about its siblings.
+ */
+class PermanentRedirectCache {
+
+	private static final int MAX_CACHED_REDIRECTS = 64;
+
+	private final Cache<Prefix, Prefix> redirects = Caffeine.newBuilder() //
+			.maximumSize(MAX_CACHED_REDIRECTS) //
+			.build();
+
+	/**
+	 * @param from       The URL which has been redirected permanently
+	 * @param to         The location the URL has been redirected to
+	 * @param collection Whether <code>from</code> denotes a collection, whose members are assumed to have moved along with it
+	 */
+	void put(final HttpUrl from, final HttpUrl to, final boolean collection) {
+		if (from.equals(to) || !Objects.equals(from.encodedQuery(), to.encodedQuery())) {
+			return;
+		}
+		final var fromSegments = from.encodedPathSegments();
+		final var toSegments = to.encodedPathSegments();
+		var commonSuffix = 0;
+		while (collection && commonSuffix < fromSegments.size() && commonSuffix < toSegments.size() //
+				&& fromSegments.get(fromSegments.size() - 1 - commonSuffix).equals(toSegments.get(toSegments.size() - 1 - commonSuffix))) {
+			commonSuffix++;
+		}
+		final var fromPrefix = new Prefix(from.scheme(), from.host(), from.port(), List.copyOf(fromSegments.subList(0, fromSegments.size() - commonSuffix)), collection);
+		final var toPrefix = new Prefix(to.scheme(), to.host(), to.port(), List.copyOf(toSegments.subList(0, toSegments.size() - commonSuffix)), collection);
+		redirects.put(fromPrefix, toPrefix);
+	}
+
+	/**
+	 * @param url The URL to be requested
+	 * @return The location <code>url</code> is known to be redirected to, if any
+	 */
+	Optional<Redirect> lookup(final HttpUrl url) {
+		Prefix longestMatch = null;
+		for (var prefix : redirects.asMap().keySet()) {
+			if (prefix.matches(url) && (longestMatch == null || prefix.segments.size() > longestMatch.segments.size())) {
+				longestMatch = prefix;
+			}
+		}
+		if (longestMatch == null) {
+			return Optional.empty();
+		}
+		final var target = redirects.getIfPresent(longestMatch);
+		if (target == null) {
+			return Optional.empty();
+		}
+		final var location = longestMatch.rewrite(url, target);
+		return location.equals(url) ? Optional.empty() : Optional.of(new Redirect(longestMatch, location));
+	}
+
+	void invalidate(final Redirect redirect) {
+		redirects.invalidate(redirect.prefix);
+	}
+
+	record Redirect(Prefix prefix, HttpUrl location) {
+
+	}
+
+	/**
+	 * @param descendants Whether URLs below the prefix match as well or only the prefix itself
+	 */
+	private record Prefix(String scheme, String host, int port, List<String> segments, boolean descendants) {
+
+		boolean matches(final HttpUrl url) {
+			if (!scheme.equals(url.scheme()) || !host.equals(url.host()) || port != url.port()) {
+				return false;
+			}
+			final var urlSegments = url.encodedPathSegments();
+			if (!descendants) {
+				return urlSegments.equals(segments);
+			}
+			return urlSegments.size() >= segments.size() && urlSegments.subList(0, segments.size()).equals(segments);
+		}
+
+		HttpUrl rewrite(final HttpUrl url, final Prefix target) {
+			final var urlSegments = url.encodedPathSegments();
+			final var remainingSegments = urlSegments.subList(segments.size(), urlSegments.size());
+			final var rewrittenSegments = new ArrayList<>(target.segments);
+			if (!remainingSegments.isEmpty() && !rewrittenSegments.isEmpty() && rewrittenSegments.get(rewrittenSegments.size() - 1).isEmpty()) {
+				// target prefix ends with a slash, which is already part of the remaining path
+				rewrittenSegments.remove(rewrittenSegments.size() - 1);
+			}
+			rewrittenSegments.addAll(remainingSegments);
+			return url.newBuilder() //
+					.scheme(target.scheme) //
+					.host(target.host) //
+					.port(target.port) //
+					.encodedPath("/" + String.join("/", rewrittenSegments)) //
+					.build();
+		}
+	}
+
+}
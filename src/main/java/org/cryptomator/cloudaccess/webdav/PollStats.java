@@ -0,0 +1,14 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import java.time.Duration;
+
+/**
+ * Statistics of a single {@link WebDavCloudProvider#pollRemoteChanges() poll of remote changes}.
+ *
+ * @param directoriesVisited Number of folders whose Depth-1 listing has been reconciled with the cache
+ * @param requests           Number of requests issued, including those to query the root's ETag or sync-collection changes
+ * @param wallTime           Time from the start of the poll until it completed or failed
+ */
+public record PollStats(int directoriesVisited, int requests, Duration wallTime) {
+
+}
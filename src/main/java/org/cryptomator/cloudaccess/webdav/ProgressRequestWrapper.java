@@ -10,15 +10,22 @@ import okio.Sink;
 import org.cryptomator.cloudaccess.api.ProgressListener;
 
 import java.io.IOException;
+import java.util.List;
 
-public class ProgressRequestWrapper extends RequestBody {
+class ProgressRequestWrapper extends RequestBody {
 
 	protected RequestBody delegate;
 	protected ProgressListener listener;
+	private final List<BandwidthLimiter> limiters;
 
 	public ProgressRequestWrapper(final RequestBody delegate, final ProgressListener listener) {
+		this(delegate, listener, List.of());
+	}
+
+	ProgressRequestWrapper(final RequestBody delegate, final ProgressListener listener, final List<BandwidthLimiter> limiters) {
 		this.delegate = delegate;
 		this.listener = listener;
+		this.limiters = limiters;
 	}
 
 	@Override
@@ -31,6 +38,11 @@ public class ProgressRequestWrapper extends RequestBody {
 		return delegate.contentLength();
 	}
 
+	@Override
+	public boolean isOneShot() {
+		return delegate.isOneShot();
+	}
+
 	@Override
 	public void writeTo(final BufferedSink sink) throws IOException {
 		final var countingSink = new CountingSink(sink);
@@ -52,7 +64,17 @@ public class ProgressRequestWrapper extends RequestBody {
 
 		@Override
 		public void write(final Buffer source, final long byteCount) throws IOException {
-			super.write(source, byteCount);
+			if (limiters.isEmpty()) {
+				super.write(source, byteCount);
+			} else {
+				// write in small portions, so that concurrent transfers take turns
+				for (long remaining = byteCount; remaining > 0; ) {
+					final var portion = Math.min(remaining, BandwidthLimiter.QUANTUM);
+					BandwidthLimiter.acquire(portion, limiters);
+					super.write(source, portion);
+					remaining -= portion;
+				}
+			}
 
 			bytesWritten += byteCount;
 			listener.onProgress(bytesWritten);
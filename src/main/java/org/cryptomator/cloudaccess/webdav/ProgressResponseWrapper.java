@@ -10,17 +10,24 @@ import okio.Source;
 import org.cryptomator.cloudaccess.api.ProgressListener;
 
 import java.io.IOException;
+import java.util.List;
 
 class ProgressResponseWrapper extends ResponseBody {
 
 	private final ResponseBody delegate;
 	private final ProgressListener progressListener;
+	private final List<BandwidthLimiter> limiters;
 	private final int EOF = -1;
 	private BufferedSource bufferedSource;
 
 	ProgressResponseWrapper(final ResponseBody delegate, final ProgressListener progressListener) {
+		this(delegate, progressListener, List.of());
+	}
+
+	ProgressResponseWrapper(final ResponseBody delegate, final ProgressListener progressListener, final List<BandwidthLimiter> limiters) {
 		this.delegate = delegate;
 		this.progressListener = progressListener;
+		this.limiters = limiters;
 	}
 
 	@Override
@@ -47,9 +54,11 @@ class ProgressResponseWrapper extends ResponseBody {
 
 			@Override
 			public long read(final Buffer sink, final long byteCount) throws IOException {
-				final var bytesRead = super.read(sink, byteCount);
+				// read in small portions, so that concurrent transfers take turns
+				final var bytesRead = super.read(sink, limiters.isEmpty() ? byteCount : Math.min(byteCount, BandwidthLimiter.QUANTUM));
 				totalBytesRead += bytesRead != EOF ? bytesRead : 0;
 				if (bytesRead != EOF) {
+					BandwidthLimiter.acquire(bytesRead, limiters);
 					progressListener.onProgress(totalBytesRead);
 				}
 				return bytesRead;
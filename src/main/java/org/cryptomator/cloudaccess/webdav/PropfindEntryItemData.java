@@ -7,7 +7,6 @@ import org.cryptomator.cloudaccess.CachedNode;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -107,7 +106,7 @@ class PropfindEntryItemData implements CachedNode.Cachable<PropfindEntryItemData
 			return this;
 		}
 
-		private String extractPath(final String pathOrUri) {
+		static String extractPath(final String pathOrUri) {
 			final var matcher = URI_PATTERN.matcher(pathOrUri);
 			if (matcher.matches()) {
 				return urlDecode(matcher.group(1));
@@ -118,7 +117,7 @@ class PropfindEntryItemData implements CachedNode.Cachable<PropfindEntryItemData
 			}
 		}
 
-		private String urlDecode(final String value) {
+		private static String urlDecode(final String value) {
 			return URLDecoder.decode(value, StandardCharsets.UTF_8);
 		}
 
@@ -141,11 +140,4 @@ class PropfindEntryItemData implements CachedNode.Cachable<PropfindEntryItemData
 			return new PropfindEntryItemData(this);
 		}
 	}
-
-	static class AscendingByDepthComparator implements Comparator<PropfindEntryItemData> {
-		@Override
-		public int compare(PropfindEntryItemData p1, PropfindEntryItemData p2) {
-			return (int) (p1.getDepth() - p2.getDepth());
-		}
-	}
 }
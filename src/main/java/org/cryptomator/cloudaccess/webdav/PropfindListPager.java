@@ -0,0 +1,130 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.exceptions.InvalidPageTokenException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Splits Depth-1 PROPFIND listings into pages of bounded size.
+ * <p>
+ * The first page requests the whole listing once. If it doesn't fit into a single page, the remaining entries are retained for a while and the following pages
+ * are taken from them without any further request. Thus listing a folder exhaustively costs a single PROPFIND regardless of the page size, and all pages
+ * stem from the same consistent listing, so no entry is skipped or repeated if the folder changes meanwhile.
+ */
+class PropfindListPager {
+
+	private static final Duration DEFAULT_LISTING_EXPIRY = Duration.ofMinutes(1);
+	private static final long MAX_RETAINED_ENTRIES = 250_000;
+
+	private final int pageSize;
+	private final Cache<String, Listing> listings;
+
+	/**
+	 * @param pageSize The maximum number of entries per page
+	 */
+	PropfindListPager(int pageSize) {
+		this(pageSize, DEFAULT_LISTING_EXPIRY);
+	}
+
+	/**
+	 * @param pageSize      The maximum number of entries per page
+	 * @param listingExpiry How long the entries of a listing are retained after a page of it has been requested last
+	 */
+	PropfindListPager(int pageSize, Duration listingExpiry) {
+		this.pageSize = pageSize;
+		this.listings = Caffeine.newBuilder() //
+				.expireAfterAccess(listingExpiry) //
+				.maximumWeight(MAX_RETAINED_ENTRIES) //
+				.weigher((String id, Listing listing) -> listing.entries().size()) //
+				.build();
+	}
+
+	/**
+	 * Returns the requested page of the children of <code>folder</code>.
+	 *
+	 * @param folder        The folder to list
+	 * @param pageToken     Empty for the first page, otherwise the token returned with the previous page
+	 * @param listingLoader Loads all children of a folder (excluding the folder itself), only invoked for the first page
+	 * @return The page of entries and, if there are more entries, the token of the next page
+	 */
+	CompletionStage<Page> page(CloudPath folder, Optional<String> pageToken, Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> listingLoader) {
+		if (pageToken.isEmpty()) {
+			return listingLoader.apply(folder).thenApply(entries -> firstPage(folder, entries));
+		}
+		try {
+			return CompletableFuture.completedFuture(nextPage(folder, pageToken.get()));
+		} catch (InvalidPageTokenException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private Page firstPage(CloudPath folder, List<PropfindEntryItemData> entries) {
+		if (entries.size() <= pageSize) {
+			return new Page(List.copyOf(entries), Optional.empty());
+		}
+		var listingId = UUID.randomUUID().toString();
+		listings.put(listingId, new Listing(folder, List.copyOf(entries)));
+		return new Page(List.copyOf(entries.subList(0, pageSize)), Optional.of(new PageToken(listingId, pageSize).toString()));
+	}
+
+	private Page nextPage(CloudPath folder, String pageToken) {
+		var token = PageToken.parse(pageToken);
+		var listing = listings.getIfPresent(token.listingId());
+		if (listing == null) {
+			throw new InvalidPageTokenException("Listing of page token expired: " + pageToken);
+		} else if (!listing.folder().equals(folder) || token.offset() > listing.entries().size()) {
+			throw new InvalidPageTokenException("Page token doesn't belong to listing of " + folder + ": " + pageToken);
+		}
+		var end = (int) Math.min((long) token.offset() + pageSize, listing.entries().size());
+		if (end < listing.entries().size()) {
+			return new Page(listing.entries().subList(token.offset(), end), Optional.of(new PageToken(token.listingId(), end).toString()));
+		} else {
+			// the last page has been requested, which usually concludes the listing
+			listings.invalidate(token.listingId());
+			return new Page(listing.entries().subList(token.offset(), end), Optional.empty());
+		}
+	}
+
+	record Page(List<PropfindEntryItemData> entries, Optional<String> nextPageToken) {
+
+	}
+
+	private record Listing(CloudPath folder, List<PropfindEntryItemData> entries) {
+
+	}
+
+	private record PageToken(String listingId, int offset) {
+
+		static PageToken parse(String token) {
+			var separator = token.lastIndexOf(':');
+			if (separator <= 0) {
+				throw new InvalidPageTokenException("Invalid page token: " + token);
+			}
+			final int offset;
+			try {
+				offset = Integer.parseInt(token.substring(separator + 1));
+			} catch (NumberFormatException e) {
+				throw new InvalidPageTokenException("Invalid page token: " + token, e);
+			}
+			if (offset < 0) {
+				throw new InvalidPageTokenException("Invalid page token: " + token);
+			}
+			return new PageToken(token.substring(0, separator), offset);
+		}
+
+		@Override
+		public String toString() {
+			return listingId + ':' + offset;
+		}
+	}
+
+}
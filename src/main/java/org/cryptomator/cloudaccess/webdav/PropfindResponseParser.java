@@ -13,51 +13,91 @@ import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
-import java.time.DateTimeException;
 import java.time.Instant;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 class PropfindResponseParser {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PropfindResponseParser.class);
 
 	private static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
-	private static final String TAG_RESPONSE = "response";
-	private static final String TAG_HREF = "href";
-	private static final String TAG_COLLECTION = "collection";
-	private static final String TAG_ETAG = "getetag";
-	private static final String TAG_LAST_MODIFIED = "getlastmodified";
-	private static final String TAG_CONTENT_LENGTH = "getcontentlength";
-	private static final String TAG_QUOTA_AVAILABLE = "quota-available-bytes";
-	private static final String TAG_QUOTA_USED = "quota-used-bytes";
-	private static final String TAG_PROPSTAT = "propstat";
-	private static final String TAG_STATUS = "status";
+	private static final ThreadLocal<SAXParser> IDLE_PARSER = new ThreadLocal<>();
 	private static final String STATUS_OK = "200";
+	private static final String STATUS_NOT_FOUND = "404";
+	private static final String STATUS_INSUFFICIENT_STORAGE = "507";
 
 	static {
 		PARSER_FACTORY.setNamespaceAware(true);
 	}
 
-	private final SAXParser parser;
+	/**
+	 * Parses using a thread-confined {@link SAXParser}, which is reset and kept for the next parse on the same thread.
+	 * A nested parse on the same thread gets a parser of its own.
+	 */
+	private static void parse(final InputStream responseBody, final DefaultHandler handler) throws SAXException, IOException {
+		var parser = Optional.ofNullable(IDLE_PARSER.get()).orElseGet(PropfindResponseParser::newParser);
+		IDLE_PARSER.remove();
+		try {
+			parser.parse(responseBody, handler);
+		} finally {
+			parser.reset();
+			IDLE_PARSER.set(parser);
+		}
+	}
 
-	PropfindResponseParser() {
+	private static SAXParser newParser() {
 		try {
-			this.parser = PARSER_FACTORY.newSAXParser();
+			return PARSER_FACTORY.newSAXParser();
 		} catch (ParserConfigurationException | SAXException e) {
 			throw new IllegalStateException(e);
 		}
 	}
 
 	public List<PropfindEntryItemData> parseItemData(final InputStream responseBody) throws SAXException, IOException {
+		var entries = new ArrayList<PropfindEntryItemData>();
+		parseItemData(responseBody, entries::add);
+		return entries;
+	}
+
+	/**
+	 * Parses the given response body and hands each entry to the <code>consumer</code> as soon as its <code>response</code> element is closed.
+	 *
+	 * @param responseBody The PROPFIND response body
+	 * @param consumer     Receives the entries in document order
+	 * @throws SAXException If the response is malformed
+	 * @throws IOException  If reading the response fails
+	 */
+	public void parseItemData(final InputStream responseBody, final Consumer<PropfindEntryItemData> consumer) throws SAXException, IOException {
+		parseItemDataWhile(responseBody, entry -> {
+			consumer.accept(entry);
+			return true;
+		});
+	}
+
+	/**
+	 * Parses the given response body like {@link #parseItemData(InputStream, Consumer)}, but stops as soon as the <code>consumer</code> returns <code>false</code>.
+	 * The remainder of the response body is left unread.
+	 *
+	 * @param responseBody The PROPFIND response body
+	 * @param consumer     Receives the entries in document order and returns whether to continue parsing
+	 * @throws SAXException If the response is malformed
+	 * @throws IOException  If reading the response fails
+	 */
+	public void parseItemDataWhile(final InputStream responseBody, final Predicate<PropfindEntryItemData> consumer) throws SAXException, IOException {
 		if (responseBody == null) {
-			return List.of();
+			return;
+		}
+		try {
+			parse(responseBody, new ParseItemMetadataHandler(consumer));
+		} catch (ParsingStoppedException e) {
+			// consumer does not need further entries
 		}
-		var parseHandler = new ParseItemMetadataHandler();
-		parser.parse(responseBody, parseHandler);
-		return parseHandler.entries;
 	}
 
 	public Quota parseQuta(final InputStream responseBody) throws SAXException, IOException {
@@ -65,16 +105,37 @@ class PropfindResponseParser {
 			return null;
 		}
 		var parseHandler = new ParseQuotaHandler();
-		parser.parse(responseBody, parseHandler);
+		parse(responseBody, parseHandler);
 		return parseHandler.quota;
 	}
 
-	private Optional<Instant> parseDate(final String text) {
-		try {
-			return Optional.of(Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(text)));
-		} catch (DateTimeException e) {
-			return Optional.empty();
+	/**
+	 * Parses the multistatus response of a <code>sync-collection</code> REPORT (RFC 6578). Also reads the <code>sync-token</code> property of a PROPFIND response.
+	 *
+	 * @param responseBody The REPORT or PROPFIND response body
+	 * @return The changed and removed members along with the new sync-token
+	 * @throws SAXException If the response is malformed
+	 * @throws IOException  If reading the response fails
+	 */
+	public SyncCollection parseSyncCollection(final InputStream responseBody) throws SAXException, IOException {
+		var parseHandler = new ParseSyncCollectionHandler();
+		if (responseBody != null) {
+			parse(responseBody, parseHandler);
 		}
+		return new SyncCollection(parseHandler.changed, parseHandler.removed, Optional.ofNullable(parseHandler.syncToken), parseHandler.truncated);
+	}
+
+	/**
+	 * @param changed   Entries of members that have been created or modified
+	 * @param removed   Hrefs of members that have been removed
+	 * @param syncToken The token representing the state after these changes, if provided by the server
+	 * @param truncated Whether the server has not reported all changes, which requires another request using the new token
+	 */
+	record SyncCollection(List<PropfindEntryItemData> changed, List<String> removed, Optional<String> syncToken, boolean truncated) {
+	}
+
+	private Optional<Instant> parseDate(final String text) {
+		return HttpDates.parse(text);
 	}
 
 	private Optional<Long> parseLong(final String text) {
@@ -87,93 +148,256 @@ class PropfindResponseParser {
 
 	private class ParseItemMetadataHandler extends DefaultHandler {
 
-		public final List<PropfindEntryItemData> entries = new ArrayList<>();
-		private StringBuilder textBuffer;
+		private final ItemDataAssembler assembler = new ItemDataAssembler();
+		private final Predicate<PropfindEntryItemData> consumer;
+
+		private ParseItemMetadataHandler(Predicate<PropfindEntryItemData> consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			assembler.startElement(localName);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			assembler.characters(ch, start, length);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			var entry = assembler.endElement(localName);
+			if (entry.isPresent() && !consumer.test(entry.get())) {
+				throw new ParsingStoppedException();
+			}
+		}
+
+	}
+
+	/**
+	 * Aborts parsing on behalf of a consumer that does not need further entries.
+	 */
+	private static class ParsingStoppedException extends SAXException {
+	}
+
+	/**
+	 * Collects the properties of a single <code>response</code> element. Only properties of <code>propstat</code> elements with a 200 status are taken into account.
+	 */
+	private class ItemDataAssembler {
+
+		private final StringBuilder textBuffer = new StringBuilder();
+		private boolean collectText;
 		private String href;
+		private boolean hasSuccessfulPropstat;
 		private String lastModified;
 		private String contentLength;
-		private String status;
 		private boolean isCollection;
 		private String etag;
-
-		@Override
-		public void startElement(String uri, String localName, String qName, Attributes attributes) {
-			switch (localName.toLowerCase()) {
-				case TAG_RESPONSE:
+		private String propstatLastModified;
+		private String propstatContentLength;
+		private boolean propstatIsCollection;
+		private String propstatEtag;
+		private String propstatStatus;
+
+		void startElement(String localName) {
+			switch (Tag.of(localName)) {
+				case RESPONSE:
 					href = null;
+					hasSuccessfulPropstat = false;
 					lastModified = null;
 					contentLength = null;
-					status = null;
 					isCollection = false;
+					etag = null;
 					break;
-				case TAG_HREF:
-				case TAG_LAST_MODIFIED:
-				case TAG_CONTENT_LENGTH:
-				case TAG_ETAG:
-				case TAG_STATUS:
-					textBuffer = new StringBuilder();
+				case PROPSTAT:
+					propstatLastModified = null;
+					propstatContentLength = null;
+					propstatIsCollection = false;
+					propstatEtag = null;
+					propstatStatus = null;
 					break;
-				case TAG_COLLECTION:
-					isCollection = true;
+				case HREF:
+				case LAST_MODIFIED:
+				case CONTENT_LENGTH:
+				case ETAG:
+				case STATUS:
+					textBuffer.setLength(0);
+					collectText = true;
+					break;
+				case COLLECTION:
+					propstatIsCollection = true;
 					break;
 				default:
 					// no-op
 			}
 		}
 
-		@Override
-		public void characters(char[] ch, int start, int length) {
-			if (textBuffer != null) {
+		void characters(char[] ch, int start, int length) {
+			if (collectText) {
 				textBuffer.append(ch, start, length);
 			}
 		}
 
-		@Override
-		public void endElement(String uri, String localName, String qName) {
-			switch (localName.toLowerCase()) {
-				case TAG_PROPSTAT:
-					assembleEntry();
+		Optional<PropfindEntryItemData> endElement(String localName) {
+			collectText = false;
+			switch (Tag.of(localName)) {
+				case RESPONSE:
+					return assembleEntry();
+				case PROPSTAT:
+					commitPropstat();
 					break;
-				case TAG_HREF:
+				case HREF:
 					href = textBuffer.toString();
 					break;
-				case TAG_LAST_MODIFIED:
-					lastModified = textBuffer.toString();
+				case LAST_MODIFIED:
+					propstatLastModified = textBuffer.toString();
 					break;
-				case TAG_CONTENT_LENGTH:
-					contentLength = textBuffer.toString();
+				case CONTENT_LENGTH:
+					propstatContentLength = textBuffer.toString();
 					break;
-				case TAG_ETAG:
-					etag = textBuffer.toString();
+				case ETAG:
+					propstatEtag = textBuffer.toString();
 					break;
-				case TAG_STATUS:
-					status = textBuffer.toString();
+				case STATUS:
+					propstatStatus = textBuffer.toString();
 					break;
 				default:
 					// no-op
 			}
+			return Optional.empty();
 		}
 
-		private void assembleEntry() {
-			if (!status.contains(STATUS_OK)) {
+		private void commitPropstat() {
+			if (propstatStatus == null || !propstatStatus.contains(STATUS_OK)) {
+				return;
+			}
+			hasSuccessfulPropstat = true;
+			lastModified = propstatLastModified != null ? propstatLastModified : lastModified;
+			contentLength = propstatContentLength != null ? propstatContentLength : contentLength;
+			isCollection |= propstatIsCollection;
+			etag = propstatEtag != null ? propstatEtag : etag;
+		}
+
+		private Optional<PropfindEntryItemData> assembleEntry() {
+			if (!hasSuccessfulPropstat) {
 				LOG.trace("No propstat element with 200 status in response element. Entry ignored.");
-				return; // no-op
+				return Optional.empty();
 			}
 
 			if (href == null) {
 				LOG.trace("Missing href in response element. Entry ignored.");
-				return; // no-op
+				return Optional.empty();
 			}
 
-			var entry = new PropfindEntryItemData.Builder()
+			return Optional.of(new PropfindEntryItemData.Builder()
 					.withPath(href)
 					.withCollection(isCollection)
 					.withLastModified(parseDate(lastModified))
 					.withSize(parseLong(contentLength))
 					.withEtag(etag)
-					.build();
+					.build());
+		}
+
+	}
+
+	/**
+	 * Besides the entries collected by an {@link ItemDataAssembler}, picks up the status of <code>response</code> elements without <code>propstat</code>,
+	 * which reports removed members, and the <code>sync-token</code>, either as child of <code>multistatus</code> or as property with a 200 status.
+	 */
+	private class ParseSyncCollectionHandler extends DefaultHandler {
+
+		private final ItemDataAssembler assembler = new ItemDataAssembler();
+		private final List<PropfindEntryItemData> changed = new ArrayList<>();
+		private final List<String> removed = new ArrayList<>();
+		private final StringBuilder textBuffer = new StringBuilder();
+		private boolean collectText;
+		private boolean inPropstat;
+		private String href;
+		private String responseStatus;
+		private String propstatStatus;
+		private String propstatSyncToken;
+		private String syncToken;
+		private boolean truncated;
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			assembler.startElement(localName);
+			switch (Tag.of(localName)) {
+				case RESPONSE:
+					href = null;
+					responseStatus = null;
+					break;
+				case PROPSTAT:
+					inPropstat = true;
+					propstatStatus = null;
+					propstatSyncToken = null;
+					break;
+				case HREF:
+				case STATUS:
+				case SYNC_TOKEN:
+					textBuffer.setLength(0);
+					collectText = true;
+					break;
+				default:
+					// no-op
+			}
+		}
 
-			entries.add(entry);
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			assembler.characters(ch, start, length);
+			if (collectText) {
+				textBuffer.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			collectText = false;
+			var entry = assembler.endElement(localName);
+			switch (Tag.of(localName)) {
+				case RESPONSE:
+					commitResponse(entry);
+					break;
+				case PROPSTAT:
+					inPropstat = false;
+					if (propstatSyncToken != null && propstatStatus != null && propstatStatus.contains(STATUS_OK)) {
+						syncToken = propstatSyncToken;
+					}
+					break;
+				case HREF:
+					href = textBuffer.toString();
+					break;
+				case STATUS:
+					if (inPropstat) {
+						propstatStatus = textBuffer.toString();
+					} else {
+						responseStatus = textBuffer.toString();
+					}
+					break;
+				case SYNC_TOKEN:
+					if (inPropstat) {
+						propstatSyncToken = textBuffer.toString().trim();
+					} else {
+						syncToken = textBuffer.toString().trim();
+					}
+					break;
+				default:
+					// no-op
+			}
+		}
+
+		private void commitResponse(Optional<PropfindEntryItemData> entry) {
+			if (responseStatus == null) {
+				entry.ifPresent(changed::add);
+			} else if (responseStatus.contains(STATUS_NOT_FOUND) && href != null) {
+				removed.add(href);
+			} else if (responseStatus.contains(STATUS_INSUFFICIENT_STORAGE)) {
+				truncated = true;
+			} else {
+				LOG.trace("Unexpected status {} of response element. Entry ignored.", responseStatus);
+			}
 		}
 
 	}
@@ -181,21 +405,23 @@ class PropfindResponseParser {
 	private class ParseQuotaHandler extends DefaultHandler {
 
 		public Quota quota;
-		private StringBuilder textBuffer;
+		private final StringBuilder textBuffer = new StringBuilder();
+		private boolean collectText;
 		private String quotaAvailable;
 		private String quotaUsed;
 		private String status;
 
 		@Override
 		public void startElement(String uri, String localName, String qName, Attributes attributes) {
-			switch (localName.toLowerCase()) {
-				case TAG_RESPONSE:
+			switch (Tag.of(localName)) {
+				case RESPONSE:
 					status = null;
 					break;
-				case TAG_QUOTA_AVAILABLE:
-				case TAG_QUOTA_USED:
-				case TAG_STATUS:
-					textBuffer = new StringBuilder();
+				case QUOTA_AVAILABLE:
+				case QUOTA_USED:
+				case STATUS:
+					textBuffer.setLength(0);
+					collectText = true;
 					break;
 				default:
 					// no-op
@@ -204,24 +430,25 @@ class PropfindResponseParser {
 
 		@Override
 		public void characters(char[] ch, int start, int length) {
-			if (textBuffer != null) {
+			if (collectText) {
 				textBuffer.append(ch, start, length);
 			}
 		}
 
 		@Override
 		public void endElement(String uri, String localName, String qName) {
-			switch (localName.toLowerCase()) {
-				case TAG_PROPSTAT:
+			collectText = false;
+			switch (Tag.of(localName)) {
+				case PROPSTAT:
 					assembleEntry();
 					break;
-				case TAG_QUOTA_AVAILABLE:
+				case QUOTA_AVAILABLE:
 					quotaAvailable = textBuffer.toString();
 					break;
-				case TAG_QUOTA_USED:
+				case QUOTA_USED:
 					quotaUsed = textBuffer.toString();
 					break;
-				case TAG_STATUS:
+				case STATUS:
 					status = textBuffer.toString();
 					break;
 				default:
@@ -249,5 +476,40 @@ class PropfindResponseParser {
 
 	}
 
+	/**
+	 * Element names of interest, looked up case-insensitively without allocating a lower case copy of each name.
+	 */
+	private enum Tag {
+		RESPONSE("response"),
+		HREF("href"),
+		COLLECTION("collection"),
+		ETAG("getetag"),
+		LAST_MODIFIED("getlastmodified"),
+		CONTENT_LENGTH("getcontentlength"),
+		QUOTA_AVAILABLE("quota-available-bytes"),
+		QUOTA_USED("quota-used-bytes"),
+		PROPSTAT("propstat"),
+		STATUS("status"),
+		SYNC_TOKEN("sync-token"),
+		OTHER("");
+
+		private static final Map<String, Tag> BY_NAME = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		static {
+			for (var tag : values()) {
+				BY_NAME.put(tag.localName, tag);
+			}
+		}
+
+		private final String localName;
+
+		Tag(String localName) {
+			this.localName = localName;
+		}
+
+		static Tag of(String localName) {
+			return BY_NAME.getOrDefault(localName, OTHER);
+		}
+	}
 
 }
@@ -0,0 +1,55 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the redirects followed and avoided by the providers using a {@link WebDavTransport}.
+ */
+public class RedirectStatistics {
+
+	private final LongAdder redirectsFollowed = new LongAdder();
+	private final LongAdder redirectsAvoided = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	RedirectStatistics() {
+	}
+
+	/**
+	 * @return Number of redirect responses received and followed
+	 */
+	public long getRedirectsFollowed() {
+		return redirectsFollowed.sum();
+	}
+
+	/**
+	 * @return Number of requests sent to the final location directly, because a permanent redirect of their URL was known
+	 */
+	public long getRedirectsAvoided() {
+		return redirectsAvoided.sum();
+	}
+
+	/**
+	 * @return Number of known permanent redirects discarded, because requests sent to their location failed
+	 */
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	void recordRedirectFollowed() {
+		redirectsFollowed.increment();
+	}
+
+	void recordRedirectAvoided() {
+		redirectsAvoided.increment();
+	}
+
+	void recordInvalidation() {
+		invalidations.increment();
+	}
+
+	@Override
+	public String toString() {
+		return "RedirectStatistics{followed=" + getRedirectsFollowed() + ", avoided=" + getRedirectsAvoided() + ", invalidations=" + getInvalidations() + "}";
+	}
+
+}
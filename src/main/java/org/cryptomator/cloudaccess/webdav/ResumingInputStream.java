@@ -0,0 +1,113 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Continues reading a download from where it stopped, if reading the response body fails.
+ * <p>
+ * The remaining bytes are requested by a {@link Resumer}, which must fail if the file has changed in between.
+ * Failures of the {@link Resumer} itself are not retried.
+ * <p>
+ * Resuming blocks the reading thread until the new request has been answered. Thus this stream must not be read on a thread running an OkHttp callback:
+ * The callback's call keeps holding its request slot until the callback returns, so the new request may never start if the per-host limit is reached.
+ */
+class ResumingInputStream extends InputStream {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ResumingInputStream.class);
+
+	private final Resumer resumer;
+	private final int maxResumes;
+	private InputStream in;
+	private long position;
+	private int resumes;
+
+	/**
+	 * @param in         The body of the initial response
+	 * @param start      The position of the first byte of <code>in</code> within the file
+	 * @param resumer    Requests the file from a given position
+	 * @param maxResumes How often reading may be resumed at most
+	 */
+	ResumingInputStream(InputStream in, long start, Resumer resumer, int maxResumes) {
+		this.in = in;
+		this.position = start;
+		this.resumer = resumer;
+		this.maxResumes = maxResumes;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (true) {
+			try {
+				int b = in.read();
+				if (b != -1) {
+					position++;
+				}
+				return b;
+			} catch (IOException e) {
+				resume(e);
+			}
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		while (true) {
+			try {
+				int read = in.read(b, off, len);
+				if (read > 0) {
+					position += read;
+				}
+				return read;
+			} catch (IOException e) {
+				resume(e);
+			}
+		}
+	}
+
+	// rethrows the exception if reading can't be resumed
+	private void resume(IOException e) throws IOException {
+		if (resumes >= maxResumes || Thread.currentThread().isInterrupted()) {
+			throw e;
+		}
+		resumes++;
+		LOG.debug("Reading failed at byte {}, resuming (attempt {} of {}).", position, resumes, maxResumes, e);
+		try {
+			in.close();
+		} catch (IOException closeException) {
+			e.addSuppressed(closeException);
+		}
+		try {
+			in = resumer.resumeAt(position);
+		} catch (IOException resumeException) {
+			resumeException.addSuppressed(e);
+			throw resumeException;
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return in.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	@FunctionalInterface
+	interface Resumer {
+
+		/**
+		 * @param position The position of the next byte to be read within the file
+		 * @return The remainder of the file starting at <code>position</code>
+		 * @throws IOException If the remainder can't be read, e.g. because the file has changed
+		 */
+		InputStream resumeAt(long position) throws IOException;
+
+	}
+
+}
@@ -0,0 +1,67 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the requests retried by a {@link WebDavTransport} after transient failures.
+ */
+public class RetryStatistics {
+
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder recoveredRequests = new LongAdder();
+	private final LongAdder exhaustedRequests = new LongAdder();
+	private final LongAdder budgetExceededRequests = new LongAdder();
+
+	RetryStatistics() {
+	}
+
+	/**
+	 * @return Number of repeated attempts, i.e. not counting the first attempt of each request
+	 */
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	/**
+	 * @return Number of requests which failed transiently but completed after being retried
+	 */
+	public long getRecoveredRequests() {
+		return recoveredRequests.sum();
+	}
+
+	/**
+	 * @return Number of requests which still failed transiently after the maximum number of retries
+	 */
+	public long getExhaustedRequests() {
+		return exhaustedRequests.sum();
+	}
+
+	/**
+	 * @return Number of requests which were not retried again because the next attempt would have exceeded the time budget
+	 */
+	public long getBudgetExceededRequests() {
+		return budgetExceededRequests.sum();
+	}
+
+	void recordRetry() {
+		retries.increment();
+	}
+
+	void recordRecovered() {
+		recoveredRequests.increment();
+	}
+
+	void recordExhausted() {
+		exhaustedRequests.increment();
+	}
+
+	void recordBudgetExceeded() {
+		budgetExceededRequests.increment();
+	}
+
+	@Override
+	public String toString() {
+		return "RetryStatistics{retries=" + getRetries() + ", recovered=" + getRecoveredRequests() + ", exhausted=" + getExhaustedRequests() + ", budgetExceeded=" + getBudgetExceededRequests() + "}";
+	}
+
+}
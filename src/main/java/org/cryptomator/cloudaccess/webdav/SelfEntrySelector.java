@@ -0,0 +1,69 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Separates the entry describing the requested folder itself from its children while the entries of a Depth-1 response are streamed.
+ * <p>
+ * The self entry is the one whose href equals the requested path. If a proxy rewrites the hrefs, no entry matches and exactly one entry is taken instead:
+ * the shallowest one, i.e. the first entry of minimal depth. Until it is known to be a child, this candidate is withheld, which requires no lookahead
+ * for servers listing the folder itself first.
+ */
+class SelfEntrySelector {
+
+	private final Predicate<PropfindEntryItemData> hrefMatcher;
+	private PropfindEntryItemData selfEntry;
+	private PropfindEntryItemData candidate;
+	private long candidateDepth;
+
+	/**
+	 * @param hrefMatcher Matches the entry whose href equals the requested path
+	 */
+	SelfEntrySelector(Predicate<PropfindEntryItemData> hrefMatcher) {
+		this.hrefMatcher = hrefMatcher;
+	}
+
+	/**
+	 * @param entry The next entry of the response
+	 * @return The entry now known to be a child, which is either <code>entry</code> or a previously withheld entry, or an empty Optional if none is known yet
+	 */
+	Optional<PropfindEntryItemData> offer(PropfindEntryItemData entry) {
+		if (selfEntry != null) {
+			return Optional.of(entry);
+		} else if (hrefMatcher.test(entry)) {
+			selfEntry = entry;
+			return releaseCandidate();
+		} else if (candidate == null) {
+			candidate = entry;
+			candidateDepth = entry.getDepth();
+			return Optional.empty();
+		} else {
+			var depth = entry.getDepth();
+			if (depth < candidateDepth) {
+				var child = releaseCandidate();
+				candidate = entry;
+				candidateDepth = depth;
+				return child;
+			} else {
+				return Optional.of(entry);
+			}
+		}
+	}
+
+	/**
+	 * To be called once the response has been read completely.
+	 *
+	 * @return The entry of the folder itself or an empty Optional if the response was empty
+	 */
+	Optional<PropfindEntryItemData> selfEntry() {
+		return Optional.ofNullable(selfEntry != null ? selfEntry : candidate);
+	}
+
+	private Optional<PropfindEntryItemData> releaseCandidate() {
+		var child = Optional.ofNullable(candidate);
+		candidate = null;
+		return child;
+	}
+
+}
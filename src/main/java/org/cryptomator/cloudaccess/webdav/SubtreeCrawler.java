@@ -0,0 +1,79 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.cryptomator.cloudaccess.api.CloudPath;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Traverses a folder hierarchy breadth-first with at most <code>parallelism</code> visits in flight at any time.
+ * Visiting a folder yields the sub folders to be visited next. The traversal fails with the first failing visit.
+ */
+class SubtreeCrawler {
+
+	private final Function<CloudPath, CompletionStage<? extends Collection<CloudPath>>> visitor;
+	private final int parallelism;
+	private final Queue<CloudPath> pending = new ArrayDeque<>();
+	private final CompletableFuture<Void> result = new CompletableFuture<>();
+	private int inFlight;
+
+	private SubtreeCrawler(Function<CloudPath, CompletionStage<? extends Collection<CloudPath>>> visitor, int parallelism) {
+		this.visitor = visitor;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	static CompletionStage<Void> crawl(CloudPath root, Function<CloudPath, CompletionStage<? extends Collection<CloudPath>>> visitor, int parallelism) {
+		var crawler = new SubtreeCrawler(visitor, parallelism);
+		synchronized (crawler) {
+			crawler.pending.add(root);
+		}
+		crawler.visitPending();
+		return crawler.result;
+	}
+
+	private void visitPending() {
+		List<CloudPath> toVisit = new ArrayList<>();
+		synchronized (this) {
+			while (inFlight < parallelism && !pending.isEmpty() && !result.isDone()) {
+				toVisit.add(pending.poll());
+				inFlight++;
+			}
+		}
+		for (var folder : toVisit) {
+			CompletionStage<? extends Collection<CloudPath>> visit;
+			try {
+				visit = visitor.apply(folder);
+			} catch (RuntimeException e) {
+				visit = CompletableFuture.failedFuture(e);
+			}
+			visit.whenComplete((subFolders, exception) -> visited(subFolders, exception));
+		}
+	}
+
+	private void visited(Collection<CloudPath> subFolders, Throwable exception) {
+		boolean finished;
+		synchronized (this) {
+			inFlight--;
+			if (exception != null) {
+				pending.clear();
+			} else {
+				pending.addAll(subFolders);
+			}
+			finished = inFlight == 0 && pending.isEmpty();
+		}
+		if (exception != null) {
+			result.completeExceptionally(exception);
+		} else if (finished) {
+			result.complete(null);
+		} else {
+			visitPending();
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import com.google.common.xml.XmlEscapers;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queries the changes of the whole tree below the base URL since a previous state using the <code>sync-collection</code> REPORT:
+ * <ol>
+ *     <li>a <code>PROPFIND</code> of the <code>sync-token</code> property yields a token identifying the current state</li>
+ *     <li>a <code>REPORT</code> with this token yields all members created, modified or removed since then, along with a new token</li>
+ * </ol>
+ * If the server does not provide a sync-token or does not support the REPORT, no further requests are sent.
+ *
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc6578">RFC 6578: Collection Synchronization for WebDAV</a>
+ */
+class SyncCollectionReporter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SyncCollectionReporter.class);
+	private static final int HTTP_MULTI_STATUS = 207;
+	private static final String PROPFIND_BODY = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" //
+			+ "<d:propfind xmlns:d=\"DAV:\">\n" //
+			+ "<d:prop>\n" //
+			+ "<d:sync-token />\n" //
+			+ "</d:prop>\n" //
+			+ "</d:propfind>";
+
+	private final WebDavCompatibleHttpClient httpClient;
+	private final URL baseUrl;
+	private final String basePath;
+	private final PropfindResponseParser propfindResponseParser = new PropfindResponseParser();
+	private final AtomicBoolean supported = new AtomicBoolean(true);
+
+	/**
+	 * @param httpClient The client used to send the requests
+	 * @param baseUrl    The URL of the synchronized collection
+	 */
+	SyncCollectionReporter(WebDavCompatibleHttpClient httpClient, URL baseUrl) {
+		this.httpClient = httpClient;
+		this.baseUrl = baseUrl;
+		this.basePath = withoutTrailingSlash(URLDecoder.decode(baseUrl.getPath(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return <code>false</code> if the server turned out not to support sync-collection
+	 */
+	boolean isSupported() {
+		return supported.get();
+	}
+
+	/**
+	 * @return The token identifying the current state or an empty Optional if sync-collection is not supported
+	 */
+	CompletionStage<Optional<String>> currentSyncToken() {
+		if (!supported.get()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		var propfindRequest = new Request.Builder() //
+				.method("PROPFIND", RequestBody.create(PROPFIND_BODY, MediaType.parse(PROPFIND_BODY))) //
+				.url(baseUrl) //
+				.header("Depth", "0") //
+				.header("Content-Type", "text/xml");
+		return execute(propfindRequest, response -> {
+			try (response) {
+				checkNotUnauthorized(response);
+				if (!response.isSuccessful()) {
+					throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+				}
+				try (final var responseBody = response.body()) {
+					var syncToken = propfindResponseParser.parseSyncCollection(responseBody.byteStream()).syncToken();
+					if (syncToken.isEmpty()) {
+						LOG.info("{} does not provide a sync-token, not using sync-collection any longer.", baseUrl);
+						supported.set(false);
+					}
+					return syncToken;
+				}
+			}
+		});
+	}
+
+	/**
+	 * @param syncToken A token previously returned by {@link #currentSyncToken()} or a previous call of this method
+	 * @return The changes since the state identified by <code>syncToken</code> or an empty Optional if the token is no longer valid or sync-collection is not supported
+	 */
+	CompletionStage<Optional<Changes>> changesSince(String syncToken) {
+		if (!supported.get()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		final var body = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" //
+				+ "<d:sync-collection xmlns:d=\"DAV:\">\n" //
+				+ "<d:sync-token>" + XmlEscapers.xmlContentEscaper().escape(syncToken) + "</d:sync-token>\n" //
+				+ "<d:sync-level>infinite</d:sync-level>\n" //
+				+ "<d:prop>\n" //
+				+ "<d:resourcetype />\n" //
+				+ "<d:getcontentlength />\n" //
+				+ "<d:getlastmodified />\n" //
+				+ "<d:getetag />\n" //
+				+ "</d:prop>\n" //
+				+ "</d:sync-collection>";
+
+		var reportRequest = new Request.Builder() //
+				.method("REPORT", RequestBody.create(body, MediaType.parse(body))) //
+				.url(baseUrl) //
+				.header("Depth", "0") //
+				.header("Content-Type", "text/xml");
+		return execute(reportRequest, response -> {
+			try (response) {
+				checkNotUnauthorized(response);
+				switch (response.code()) {
+					case HTTP_MULTI_STATUS:
+						try (final var responseBody = response.body()) {
+							return Optional.of(toChanges(propfindResponseParser.parseSyncCollection(responseBody.byteStream())));
+						}
+					case HttpURLConnection.HTTP_FORBIDDEN: // fall through
+					case HttpURLConnection.HTTP_CONFLICT: // fall through
+					case HttpURLConnection.HTTP_PRECON_FAILED:
+						// DAV:valid-sync-token precondition failed, the token has expired or is unknown to the server
+						LOG.debug("sync-token {} rejected with status {}", syncToken, response.code());
+						return Optional.empty();
+					case HttpURLConnection.HTTP_BAD_REQUEST: // fall through
+					case HttpURLConnection.HTTP_BAD_METHOD: // fall through
+					case HttpURLConnection.HTTP_UNSUPPORTED_TYPE: // fall through
+					case HttpURLConnection.HTTP_NOT_IMPLEMENTED:
+						LOG.info("sync-collection REPORT of {} failed with status {}, not using sync-collection any longer.", baseUrl, response.code());
+						supported.set(false);
+						return Optional.empty();
+					default:
+						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+				}
+			}
+		});
+	}
+
+	private Changes toChanges(PropfindResponseParser.SyncCollection syncCollection) {
+		var changed = new LinkedHashMap<CloudPath, PropfindEntryItemData>();
+		for (var entry : syncCollection.changed()) {
+			toCloudPath(entry.getPath()).ifPresent(path -> changed.put(path, entry));
+		}
+		var removed = new ArrayList<CloudPath>();
+		for (var href : syncCollection.removed()) {
+			toCloudPath(PropfindEntryItemData.Builder.extractPath(href)).ifPresent(removed::add);
+		}
+		return new Changes(changed, removed, syncCollection.syncToken(), syncCollection.truncated());
+	}
+
+	private Optional<CloudPath> toCloudPath(String entryPath) {
+		var path = withoutTrailingSlash(entryPath);
+		if (path.equals(basePath) || path.startsWith(basePath + "/")) {
+			return Optional.of(CloudPath.of("/" + path.substring(basePath.length())).normalize());
+		} else {
+			LOG.trace("Ignoring {} outside of {}", entryPath, basePath);
+			return Optional.empty();
+		}
+	}
+
+	private static String withoutTrailingSlash(String path) {
+		return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+	}
+
+	private void checkNotUnauthorized(Response response) {
+		if (response.code() == HttpURLConnection.HTTP_UNAUTHORIZED) {
+			throw new UnauthorizedException();
+		}
+	}
+
+	private <T> CompletionStage<T> execute(Request.Builder requestBuilder, ResponseHandler<T> responseHandler) {
+		return httpClient.executeAsync(requestBuilder).thenApply(response -> {
+			try {
+				return responseHandler.handle(response);
+			} catch (IOException | SAXException e) {
+				throw WebDavClient.toCloudProviderException(e);
+			}
+		}).exceptionally(e -> {
+			throw WebDavClient.toCloudProviderException(e);
+		});
+	}
+
+	/**
+	 * @param changed   Entries of members created or modified, keyed by their path relative to the base URL
+	 * @param removed   Paths of members removed, relative to the base URL
+	 * @param syncToken The token identifying the state after these changes, if provided by the server
+	 * @param truncated Whether more changes are to be queried using the new token
+	 */
+	record Changes(Map<CloudPath, PropfindEntryItemData> changed, List<CloudPath> removed, Optional<String> syncToken, boolean truncated) {
+	}
+
+	@FunctionalInterface
+	private interface ResponseHandler<T> {
+
+		T handle(Response response) throws IOException, SAXException;
+
+	}
+
+}
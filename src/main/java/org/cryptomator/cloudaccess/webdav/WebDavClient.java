@@ -1,10 +1,20 @@
 package org.cryptomator.cloudaccess.webdav;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSource;
+import okio.Okio;
+import org.cryptomator.cloudaccess.CombinedProgressListener;
+import org.cryptomator.cloudaccess.OrderedPartsInputStream;
 import org.cryptomator.cloudaccess.api.CloudItemList;
 import org.cryptomator.cloudaccess.api.CloudItemMetadata;
 import org.cryptomator.cloudaccess.api.CloudItemType;
@@ -18,44 +28,101 @@ import org.cryptomator.cloudaccess.api.exceptions.InsufficientStorageException;
 import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.cryptomator.cloudaccess.api.exceptions.ParentFolderDoesNotExistException;
 import org.cryptomator.cloudaccess.api.exceptions.TypeMismatchException;
+import org.cryptomator.cloudaccess.api.exceptions.VersionMismatchException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLDecoder;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class WebDavClient {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WebDavClient.class);
+	private static final int PART_BUFFER_SIZE = 64 * 1024;
+	private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
 	private final WebDavCompatibleHttpClient httpClient;
 	private final URL baseUrl;
 	private final int HTTP_INSUFFICIENT_STORAGE = 507;
 	private final Optional<CachedPropfindEntryProvider> cachedPropfindEntryProvider;
+	private final PropfindListPager listPager;
+	private final PropfindResponseParser propfindResponseParser = new PropfindResponseParser();
+	private final int crawlParallelism;
+	private final boolean conditionalReplace;
+	private final int parallelDownloadParts;
+	private final int parallelDownloadPartSize;
+	private final Optional<NextcloudChunkedUploader> chunkedUploader;
+	private final int maxDownloadResumes;
+	private final BandwidthLimiter uploadLimiter;
+	private final BandwidthLimiter downloadLimiter;
+	private final List<BandwidthLimiter> uploadLimiters;
+	private final List<BandwidthLimiter> downloadLimiters;
+
+	WebDavClient(final WebDavTransport transport, final WebDavCredential webDavCredential) {
+		this(new WebDavCompatibleHttpClient(webDavCredential, transport), webDavCredential, transport.getConfig());
+	}
 
-	WebDavClient(WebDavProviderConfig config, final WebDavCredential webDavCredential) {
-		this.httpClient = new WebDavCompatibleHttpClient(webDavCredential, config);
+	private WebDavClient(final WebDavCompatibleHttpClient httpClient, final WebDavCredential webDavCredential, final WebDavProviderConfig config) {
+		this.httpClient = httpClient;
 		this.baseUrl = webDavCredential.getBaseUrl();
+		this.listPager = new PropfindListPager(config.getListPageSize());
+		this.crawlParallelism = config.getCrawlParallelism();
+		this.conditionalReplace = config.isConditionalReplace();
+		this.parallelDownloadParts = config.getParallelDownloadParts();
+		this.parallelDownloadPartSize = config.getParallelDownloadPartSize();
+		this.maxDownloadResumes = config.getMaxDownloadResumes();
+		this.uploadLimiter = new BandwidthLimiter(config.getUploadBytesPerSecond());
+		this.downloadLimiter = new BandwidthLimiter(config.getDownloadBytesPerSecond());
+		this.uploadLimiters = List.of(uploadLimiter, BandwidthLimiter.globalUploads());
+		this.downloadLimiters = List.of(downloadLimiter, BandwidthLimiter.globalDownloads());
+		this.chunkedUploader = createChunkedUploader(httpClient, baseUrl, config, uploadLimiters);
 
 		checkServerCompatibility();
 
 		var propfindEntryItemData = checkAuthenticationUsingLoadPropfindItem();
 
 		if (propfindEntryItemData.getETag() != null) {
-			Function<CloudPath, PropfindEntryItemData> rootPoller = this::loadPropfindItem;
-			Function<CloudPath, List<PropfindEntryItemData>> cacheUpdater = this::loadPropfindItems;
-			cachedPropfindEntryProvider = Optional.of(new CachedPropfindEntryProvider(rootPoller, cacheUpdater));
+			Function<CloudPath, CompletionStage<PropfindEntryItemData>> rootPoller = this::loadPropfindItem;
+			Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> cacheUpdater = this::loadPropfindItems;
+			Optional<SyncCollectionReporter> syncCollectionReporter = config.isSyncCollection() ? Optional.of(new SyncCollectionReporter(httpClient, baseUrl)) : Optional.empty();
+			cachedPropfindEntryProvider = Optional.of(new CachedPropfindEntryProvider(rootPoller, cacheUpdater, syncCollectionReporter, crawlParallelism));
 		} else {
 			cachedPropfindEntryProvider = Optional.empty();
 		}
@@ -66,9 +133,32 @@ public class WebDavClient {
 		this.httpClient = httpClient;
 		this.baseUrl = webDavCredential.getBaseUrl();
 		this.cachedPropfindEntryProvider = cachedPropfindEntryProvider;
+		var config = WebDavProviderConfig.createFromSystemPropertiesOrDefaults();
+		this.listPager = new PropfindListPager(config.getListPageSize());
+		this.crawlParallelism = config.getCrawlParallelism();
+		this.conditionalReplace = config.isConditionalReplace();
+		this.parallelDownloadParts = config.getParallelDownloadParts();
+		this.parallelDownloadPartSize = config.getParallelDownloadPartSize();
+		this.maxDownloadResumes = config.getMaxDownloadResumes();
+		this.uploadLimiter = new BandwidthLimiter(config.getUploadBytesPerSecond());
+		this.downloadLimiter = new BandwidthLimiter(config.getDownloadBytesPerSecond());
+		this.uploadLimiters = List.of(uploadLimiter, BandwidthLimiter.globalUploads());
+		this.downloadLimiters = List.of(downloadLimiter, BandwidthLimiter.globalDownloads());
+		this.chunkedUploader = createChunkedUploader(httpClient, baseUrl, config, uploadLimiters);
+	}
+
+	private static Optional<NextcloudChunkedUploader> createChunkedUploader(final WebDavCompatibleHttpClient httpClient, final URL baseUrl, final WebDavProviderConfig config, final List<BandwidthLimiter> uploadLimiters) {
+		if (!config.isChunkedUpload()) {
+			return Optional.empty();
+		}
+		final var uploadsUrl = NextcloudChunkedUploader.uploadsUrl(baseUrl);
+		if (uploadsUrl.isEmpty()) {
+			LOG.info("Chunked uploads require a base URL within remote.php/dav/files/<user>, but got {}.", baseUrl);
+		}
+		return uploadsUrl.map(url -> new NextcloudChunkedUploader(httpClient, url, config.getChunkedUploadChunkSize(), config.getChunkedUploadParallelism(), uploadLimiters, httpClient.transferExecutor()));
 	}
 
-	Quota quota(final CloudPath folder) throws CloudProviderException {
+	CompletionStage<Quota> quota(final CloudPath folder) {
 		LOG.trace("quota {}", folder);
 		final var body = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" //
 				+ "<d:propfind xmlns:d=\"DAV:\">\n" //
@@ -84,63 +174,156 @@ public class WebDavClient {
 				.header("Depth", PropfindDepth.ZERO.value) //
 				.header("Content-Type", "text/xml");
 
-		try (final var response = httpClient.execute(quotaRequest)) {
-			checkPropfindExecutionSucceeded(response.code());
+		return execute(quotaRequest, response -> {
+			try (response) {
+				checkPropfindExecutionSucceeded(response.code());
 
-			try (final var responseBody = response.body()) {
-				return new PropfindResponseParser().parseQuta(responseBody.byteStream());
+				try (final var responseBody = response.body()) {
+					return propfindResponseParser.parseQuta(responseBody.byteStream());
+				}
 			}
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException | SAXException e) {
-			throw new CloudProviderException(e);
-		}
+		});
 	}
 
-	CloudItemMetadata itemMetadata(CloudPath path) throws CloudProviderException {
+	CompletionStage<CloudItemMetadata> itemMetadata(CloudPath path) {
 		LOG.trace("itemMetadata {}", path);
 		var parentPath = path.getParent() != null ? path.getParent() : CloudPath.of("/");
 		var propfindEntryItemData = cachedPropfindEntryProvider
 				.map(cachedProvider -> cachedProvider.itemMetadata(path, unused -> loadPropfindItems(parentPath), this::loadPropfindItems))
 				.orElseGet(() -> loadPropfindItem(path));
-		return toCloudItem(propfindEntryItemData, parentPath);
+		return propfindEntryItemData.thenApply(data -> toCloudItem(data, parentPath));
 	}
 
-	private PropfindEntryItemData loadPropfindItem(CloudPath path) {
-		try (final var response = executePropfindRequest(path, PropfindDepth.ZERO)) {
-			checkPropfindExecutionSucceeded(response.code());
+	/**
+	 * Paths sharing the same parent are answered from a single Depth-1 listing of the parent, or from the cache if it holds the parent's children.
+	 */
+	CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(final Collection<CloudPath> paths) {
+		LOG.trace("itemMetadata {}", paths);
+		final var siblingsByParent = new HashMap<CloudPath, Set<CloudPath>>();
+		final var result = new ConcurrentHashMap<CloudPath, CloudItemMetadata>();
+		final var futures = new ArrayList<CompletableFuture<?>>();
+		for (var path : paths) {
+			if (path.getParent() == null) {
+				futures.add(itemMetadataIfExists(path, result));
+			} else {
+				siblingsByParent.computeIfAbsent(path.getParent(), parent -> new HashSet<>()).add(path);
+			}
+		}
+		siblingsByParent.forEach((parent, siblings) -> {
+			if (siblings.size() == 1) {
+				// a Depth-0 request is cheaper than listing the parent
+				futures.add(itemMetadataIfExists(siblings.iterator().next(), result));
+			} else {
+				futures.add(loadChildren(parent).thenAccept(children -> {
+					for (var child : children) {
+						var path = parent.resolve(child.getName());
+						if (siblings.contains(path)) {
+							result.put(path, toCloudItem(child, parent));
+						}
+					}
+				}).exceptionally(e -> {
+					final var exception = toCloudProviderException(e);
+					if (exception instanceof NotFoundException) {
+						return null; // none of the siblings exists
+					}
+					throw exception;
+				}).toCompletableFuture());
+			}
+		});
+		return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(unused -> result);
+	}
+
+	private CompletableFuture<Void> itemMetadataIfExists(final CloudPath path, final Map<CloudPath, CloudItemMetadata> result) {
+		return itemMetadata(path).thenAccept(metadata -> result.put(path, metadata)).exceptionally(e -> {
+			final var exception = toCloudProviderException(e);
+			if (exception instanceof NotFoundException) {
+				return null;
+			}
+			throw exception;
+		}).toCompletableFuture();
+	}
+
+	private CompletionStage<List<PropfindEntryItemData>> loadChildren(final CloudPath folder) {
+		return cachedPropfindEntryProvider
+				.map(cachedProvider -> cachedProvider.list(folder, this::loadPropfindItems))
+				.orElseGet(() -> loadPropfindItems(folder).thenApply(entries -> entries.stream().skip(1).collect(Collectors.toList())));
+	}
+
+	private CompletionStage<PropfindEntryItemData> loadPropfindItem(CloudPath path) {
+		return executePropfindRequest(path, PropfindDepth.ZERO, response -> {
 			var entries = getEntriesFromResponse(response);
 			Preconditions.checkArgument(entries.size() == 1, "got not exactally one item");
 			return entries.get(0);
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException | SAXException e) {
-			throw new CloudProviderException(e);
-		}
+		});
 	}
 
-	CloudItemList list(final CloudPath folder) throws CloudProviderException {
-		LOG.trace("list {}", folder);
-		var propfindEntryItemDataList = cachedPropfindEntryProvider
-				.map(cachedProvider -> cachedProvider.list(folder, this::loadPropfindItems))
-				.orElseGet(() -> {
-					var loaded = loadPropfindItems(folder);
-					// skip parent folder as it is in the result as well
-					loaded.sort(new PropfindEntryItemData.AscendingByDepthComparator());
-					return loaded.stream().skip(1).collect(Collectors.toList());
-				});
-		return new CloudItemList(propfindEntryItemDataList.stream().map(node -> toCloudItem(node, folder)).collect(Collectors.toList()));
+	CompletionStage<CloudItemList> list(final CloudPath folder, final Optional<String> pageToken) {
+		LOG.trace("list {} (pageToken: {})", folder, pageToken);
+		return listPager.page(folder, pageToken, this::loadChildren).thenApply(p -> new CloudItemList(p.entries().stream().map(node -> toCloudItem(node, folder)).collect(Collectors.toList()), p.nextPageToken())).exceptionally(e -> {
+			throw toCloudProviderException(e);
+		});
 	}
 
-	private List<PropfindEntryItemData> loadPropfindItems(CloudPath path) {
-		try (final var response = executePropfindRequest(path, PropfindDepth.ONE)) {
-			checkPropfindExecutionSucceeded(response.code());
-			return getEntriesFromResponse(response);
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException | SAXException e) {
-			throw new CloudProviderException(e);
-		}
+	/**
+	 * Matches the entry describing <code>folder</code> itself in a Depth-1 response by comparing its href with the requested path.
+	 * If a proxy rewrites the hrefs, no entry matches and the {@link SelfEntrySelector} takes the shallowest entry instead.
+	 */
+	private Predicate<PropfindEntryItemData> selfEntryMatcher(CloudPath folder) {
+		var normalizedFolderPath = withoutTrailingSlash(absoluteURLFrom(folder).getPath());
+		return entry -> withoutTrailingSlash(entry.getPath()).equals(normalizedFolderPath);
+	}
+
+	private String withoutTrailingSlash(String path) {
+		return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+	}
+
+	/**
+	 * Loads the Depth-1 listing of <code>path</code>, streaming the entries into a list that starts with the entry of <code>path</code> itself.
+	 */
+	private CompletionStage<List<PropfindEntryItemData>> loadPropfindItems(CloudPath path) {
+		return executePropfindRequest(path, PropfindDepth.ONE, response -> {
+			var selfEntrySelector = new SelfEntrySelector(selfEntryMatcher(path));
+			var entries = new ArrayList<PropfindEntryItemData>();
+			try (final var responseBody = response.body()) {
+				propfindResponseParser.parseItemData(responseBody.byteStream(), entry -> selfEntrySelector.offer(entry).ifPresent(entries::add));
+			}
+			selfEntrySelector.selfEntry().ifPresent(selfEntry -> entries.add(0, selfEntry));
+			return entries;
+		});
+	}
+
+	/**
+	 * Warms the node cache with the whole subtree below <code>folder</code> using a single Depth-infinity PROPFIND.
+	 * If the server refuses Depth-infinity requests, the subtree is crawled using Depth-1 requests instead.
+	 * Does nothing if the node cache is not in use.
+	 */
+	CompletionStage<Void> prefetch(final CloudPath folder) {
+		LOG.trace("prefetch {}", folder);
+		return cachedPropfindEntryProvider.map(cachedProvider -> prefetchUsingDepthInfinity(folder, cachedProvider).exceptionallyCompose(e -> {
+			if (e instanceof ForbiddenException || e.getCause() instanceof ForbiddenException) {
+				LOG.debug("Depth-infinity PROPFIND of {} refused, crawling using Depth-1 requests", folder);
+				return cachedProvider.crawl(folder, this::loadPropfindItems, crawlParallelism);
+			} else {
+				return CompletableFuture.failedFuture(e);
+			}
+		})).orElseGet(() -> CompletableFuture.completedFuture(null));
+	}
+
+	private CompletionStage<Void> prefetchUsingDepthInfinity(final CloudPath folder, final CachedPropfindEntryProvider cachedProvider) {
+		final var basePath = withoutTrailingSlash(URLDecoder.decode(baseUrl.getPath(), StandardCharsets.UTF_8));
+		return executePropfindRequest(folder, PropfindDepth.INFINITY, response -> {
+			var prefetch = cachedProvider.beginPrefetch(folder);
+			try (final var responseBody = response.body()) {
+				propfindResponseParser.parseItemData(responseBody.byteStream(), entry -> {
+					var entryPath = withoutTrailingSlash(entry.getPath());
+					if (entryPath.equals(basePath) || entryPath.startsWith(basePath + "/")) {
+						prefetch.add(CloudPath.of("/" + entryPath.substring(basePath.length())).normalize(), entry);
+					}
+				});
+			}
+			prefetch.complete();
+			return null;
+		});
 	}
 
 	private void checkPropfindExecutionSucceeded(int responseCode) {
@@ -158,7 +341,16 @@ public class WebDavClient {
 		}
 	}
 
-	private Response executePropfindRequest(final CloudPath path, final PropfindDepth propfindDepth) throws IOException {
+	private <T> CompletionStage<T> executePropfindRequest(final CloudPath path, final PropfindDepth propfindDepth, final ResponseHandler<T> responseHandler) {
+		return execute(propfindRequest(path, propfindDepth), response -> {
+			try (response) {
+				checkPropfindExecutionSucceeded(response.code());
+				return responseHandler.handle(response);
+			}
+		});
+	}
+
+	private Request.Builder propfindRequest(final CloudPath path, final PropfindDepth propfindDepth) {
 		final var body = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" //
 				+ "<d:propfind xmlns:d=\"DAV:\">\n" //
 				+ "<d:prop>\n" //
@@ -169,18 +361,16 @@ public class WebDavClient {
 				+ "</d:prop>\n" //
 				+ "</d:propfind>";
 
-		final var propfindRequest = new Request.Builder() //
+		return new Request.Builder() //
 				.method("PROPFIND", RequestBody.create(body, MediaType.parse(body))) //
 				.url(absoluteURLFrom(path)) //
 				.header("Depth", propfindDepth.value) //
 				.header("Content-Type", "text/xml");
-
-		return httpClient.execute(propfindRequest);
 	}
 
 	private List<PropfindEntryItemData> getEntriesFromResponse(final Response response) throws IOException, SAXException {
 		try (final var responseBody = response.body()) {
-			return new PropfindResponseParser().parseItemData(responseBody.byteStream());
+			return propfindResponseParser.parseItemData(responseBody.byteStream());
 		}
 	}
 
@@ -192,207 +382,507 @@ public class WebDavClient {
 		}
 	}
 
-	CloudPath move(final CloudPath from, final CloudPath to, boolean replace) throws CloudProviderException {
+	CompletionStage<CloudPath> move(final CloudPath from, final CloudPath to, boolean replace) {
 		LOG.trace("move {} to {} (replace: {})", from, to, replace ? "true" : "false");
-		final var moveRequest = new Request.Builder() //
-				.method("MOVE", null) //
+		return moveOrCopy("MOVE", from, to, replace).thenApply(path -> {
+			cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.move(from, to));
+			return path;
+		});
+	}
+
+	/**
+	 * Copies within the server, so the contents aren't transferred.
+	 */
+	CompletionStage<CloudPath> copy(final CloudPath from, final CloudPath to, boolean replace) {
+		LOG.trace("copy {} to {} (replace: {})", from, to, replace ? "true" : "false");
+		return moveOrCopy("COPY", from, to, replace).thenApply(path -> {
+			cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.copy(to));
+			return path;
+		});
+	}
+
+	private CompletionStage<CloudPath> moveOrCopy(final String method, final CloudPath from, final CloudPath to, boolean replace) {
+		final var request = new Request.Builder() //
+				.method(method, null) //
 				.url(absoluteURLFrom(from)) //
 				.header("Destination", absoluteURLFrom(to).toExternalForm()) //
 				.header("Content-Type", "text/xml") //
 				.header("Depth", "infinity");
 
 		if (!replace) {
-			moveRequest.header("Overwrite", "F");
+			request.header("Overwrite", "F");
 		}
 
-		try (final var response = httpClient.execute(moveRequest)) {
-			if (response.isSuccessful()) {
-				cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.move(from, to));
-				return to;
-			} else {
-				switch (response.code()) {
-					case HttpURLConnection.HTTP_UNAUTHORIZED:
-						throw new UnauthorizedException();
-					case HttpURLConnection.HTTP_FORBIDDEN:
-						throw new ForbiddenException();
-					case HttpURLConnection.HTTP_NOT_FOUND:
-						throw new NotFoundException();
-					case HttpURLConnection.HTTP_CONFLICT:
-						throw new ParentFolderDoesNotExistException();
-					case HttpURLConnection.HTTP_PRECON_FAILED:
-						throw new AlreadyExistsException(absoluteURLFrom(to).toExternalForm());
-					case HTTP_INSUFFICIENT_STORAGE:
-						throw new InsufficientStorageException();
-					default:
-						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+		return execute(request, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					return to;
+				} else {
+					switch (response.code()) {
+						case HttpURLConnection.HTTP_UNAUTHORIZED:
+							throw new UnauthorizedException();
+						case HttpURLConnection.HTTP_FORBIDDEN:
+							throw new ForbiddenException();
+						case HttpURLConnection.HTTP_NOT_FOUND:
+							throw new NotFoundException();
+						case HttpURLConnection.HTTP_CONFLICT:
+							throw new ParentFolderDoesNotExistException();
+						case HttpURLConnection.HTTP_PRECON_FAILED:
+							throw new AlreadyExistsException(absoluteURLFrom(to).toExternalForm());
+						case HTTP_INSUFFICIENT_STORAGE:
+							throw new InsufficientStorageException();
+						default:
+							throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+					}
 				}
 			}
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException e) {
-			throw new CloudProviderException(e);
-		}
+		});
 	}
 
-	InputStream read(final CloudPath path, final ProgressListener progressListener) throws CloudProviderException {
+	CompletionStage<InputStream> read(final CloudPath path, final ProgressListener progressListener) {
 		LOG.trace("read {}", path);
 		final var getRequest = new Request.Builder() //
 				.get() //
 				.url(absoluteURLFrom(path));
+		if (parallelDownloadParts > 1) {
+			return readInParts(path, 0, Long.MAX_VALUE, getRequest, progressListener);
+		}
 		return read(getRequest, progressListener);
 	}
 
-	InputStream read(final CloudPath path, final long offset, final long count, final ProgressListener progressListener) throws CloudProviderException {
+	CompletionStage<InputStream> read(final CloudPath path, final long offset, final long count, final ProgressListener progressListener) {
 		LOG.trace("read {} (offset: {}, count: {})", path, offset, count);
-		final var getRequest = new Request.Builder() //
-				.header("Range", String.format("bytes=%d-%d", offset, offset + count - 1)) //
+		final var getRequest = rangeRequest(path, offset, count);
+		if (parallelDownloadParts > 1 && count > parallelDownloadPartSize) {
+			return readInParts(path, offset, count, getRequest, progressListener);
+		}
+		return read(getRequest, progressListener);
+	}
+
+	private Request.Builder rangeRequest(final CloudPath path, final long offset, final long count) {
+		// a range ending beyond Long.MAX_VALUE, e.g. to read till EOF, requests the rest of the file
+		final var range = count > Long.MAX_VALUE - offset ? String.format("bytes=%d-", offset) : String.format("bytes=%d-%d", offset, offset + count - 1);
+		return new Request.Builder() //
+				.header("Range", range) //
 				.get() //
 				.url(absoluteURLFrom(path));
-		return read(getRequest, progressListener);
 	}
 
-	private InputStream read(final Request.Builder getRequest, final ProgressListener progressListener) throws CloudProviderException {
-		Response response = null;
+	/**
+	 * Wraps the body, so reading continues where it stopped if the connection fails, as long as the file's (strong) ETag doesn't change.
+	 */
+	private InputStream resumable(final Response response, final InputStream body, final CombinedProgressListener progress) {
+		final var eTag = response.header("ETag");
+		if (maxDownloadResumes <= 0 || eTag == null || eTag.startsWith("W/")) {
+			return body;
+		}
+		final long start;
+		final Optional<Long> end;
+		if (response.code() == HttpURLConnection.HTTP_PARTIAL) {
+			final var contentRange = CONTENT_RANGE_PATTERN.matcher(Strings.nullToEmpty(response.header("Content-Range")));
+			if (!contentRange.matches()) {
+				return body;
+			}
+			start = Long.parseLong(contentRange.group(1));
+			end = Optional.of(Long.parseLong(contentRange.group(2)));
+		} else {
+			start = 0;
+			end = Optional.empty();
+		}
+		final var url = response.request().url();
+		return new ResumingInputStream(body, start, position -> resumeRead(url, eTag, position, end, progress.forPart()), maxDownloadResumes);
+	}
+
+	// blocks the thread reading the stream until the response headers have been received, see ResumingInputStream
+	private InputStream resumeRead(final HttpUrl url, final String eTag, final long position, final Optional<Long> end, final ProgressListener progressListener) throws IOException {
+		LOG.trace("resume read {} at {} (ETag: {})", url, position, eTag);
+		final var resumeRequest = new Request.Builder() //
+				.get() //
+				.url(url) //
+				.header("Range", "bytes=" + position + "-" + end.map(String::valueOf).orElse("")) //
+				.header("If-Range", eTag);
+		final Response response;
+		try {
+			response = httpClient.executeAsync(resumeRequest).toCompletableFuture().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while resuming download");
+		} catch (ExecutionException e) {
+			throw new IOException("Resuming download failed", e.getCause());
+		}
 		boolean success = false;
 		try {
-			response = httpClient.execute(getRequest);
-			final var countingBody = new ProgressResponseWrapper(response.body(), progressListener);
-			if (response.isSuccessful()) {
+			final var body = new ProgressResponseWrapper(response.body(), progressListener, downloadLimiters);
+			if (response.code() == HttpURLConnection.HTTP_PARTIAL) {
+				// If-Range guarantees that the file is unchanged
+				final var contentRange = CONTENT_RANGE_PATTERN.matcher(Strings.nullToEmpty(response.header("Content-Range")));
+				if (!contentRange.matches() || Long.parseLong(contentRange.group(1)) != position) {
+					throw new IOException("Unexpected range when resuming download: " + response.header("Content-Range"));
+				}
 				success = true;
-				return countingBody.byteStream();
-			} else {
-				switch (response.code()) {
-					case HttpURLConnection.HTTP_UNAUTHORIZED:
-						throw new UnauthorizedException();
-					case HttpURLConnection.HTTP_FORBIDDEN:
-						throw new ForbiddenException();
-					case HttpURLConnection.HTTP_NOT_FOUND:
-						throw new NotFoundException();
-					case 416: // UNSATISFIABLE_RANGE
-						return new ByteArrayInputStream(new byte[0]);
-					default:
-						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+				return body.byteStream();
+			} else if (response.code() == HttpURLConnection.HTTP_OK) {
+				if (!eTag.equals(response.header("ETag"))) {
+					throw new IOException(String.format("%s changed while being downloaded, expected ETag %s but got %s", url, eTag, response.header("ETag")));
 				}
+				// file is unchanged, but the server ignored the range
+				body.source().skip(position);
+				success = true;
+				return end.isPresent() ? ByteStreams.limit(body.byteStream(), end.get() - position + 1) : body.byteStream();
+			} else {
+				throw new IOException("Resuming download failed with status " + response.code());
 			}
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException e) {
-			throw new CloudProviderException(e);
 		} finally {
-			if (response != null && !success) {
+			if (!success) {
 				response.close();
 			}
 		}
 	}
 
-	void write(final CloudPath file, final boolean replace, final InputStream data, final long size, final Optional<Instant> lastModified, final ProgressListener progressListener) throws CloudProviderException {
-		LOG.trace("write {} (size: {}, lastModified: {}, replace: {})", file, size, lastModified, replace ? "true" : "false");
-		if (!replace && exists(file)) {
-			throw new AlreadyExistsException("CloudNode already exists and replace is false");
+	/**
+	 * Splits the range into parts of <code>parallelDownloadPartSize</code> bytes, which are downloaded by up to <code>parallelDownloadParts</code> concurrent range requests.
+	 * If the range doesn't exceed a single part or the size of the file is unknown, <code>singleRequest</code> is sent instead.
+	 */
+	private CompletionStage<InputStream> readInParts(final CloudPath path, final long offset, final long count, final Request.Builder singleRequest, final ProgressListener progressListener) {
+		return itemMetadata(path).thenCompose(metadata -> {
+			final var parts = metadata.getSize().map(size -> new Parts(offset, Math.min(size, LongMath.saturatedAdd(offset, count)), parallelDownloadPartSize));
+			if (parts.isEmpty() || parts.get().count() <= 1) {
+				return read(singleRequest, progressListener);
+			}
+			LOG.trace("read {} in {} parts", path, parts.get().count());
+			final var progress = new CombinedProgressListener(progressListener);
+			final InputStream in = new OrderedPartsInputStream(parts.get().count(), part -> readPart(path, parts.get().offset(part), parts.get().length(part), progress.forPart()), parallelDownloadParts);
+			return CompletableFuture.completedFuture(in);
+		});
+	}
+
+	private CompletionStage<InputStream> readPart(final CloudPath path, final long offset, final long length, final ProgressListener progressListener) {
+		return execute(rangeRequest(path, offset, length), response -> {
+			try (response) {
+				checkReadSucceeded(response.code());
+				final var source = partSource(response, offset, progressListener);
+				return new ByteArrayInputStream(source.readByteArray(length));
+			}
+		});
+	}
+
+	private BufferedSource partSource(final Response response, final long offset, final ProgressListener progressListener) throws IOException {
+		final var source = new ProgressResponseWrapper(response.body(), progressListener, downloadLimiters).source();
+		if (response.code() != HttpURLConnection.HTTP_PARTIAL) {
+			// server ignored the range header and sends the whole file
+			source.skip(offset);
 		}
+		return source;
+	}
 
-		final var countingBody = new ProgressRequestWrapper(InputStreamRequestBody.from(data, size), progressListener);
-		final var writeRequest = new Request.Builder() //
-				.url(absoluteURLFrom(file)) //
-				.put(countingBody);
+	private void checkReadSucceeded(final int responseCode) {
+		if (responseCode >= 200 && responseCode < 300) {
+			return;
+		}
+		switch (responseCode) {
+			case HttpURLConnection.HTTP_UNAUTHORIZED:
+				throw new UnauthorizedException();
+			case HttpURLConnection.HTTP_FORBIDDEN:
+				throw new ForbiddenException();
+			case HttpURLConnection.HTTP_NOT_FOUND:
+				throw new NotFoundException();
+			default:
+				throw new CloudProviderException("Response code isn't between 200 and 300: " + responseCode);
+		}
+	}
 
-		lastModified.ifPresent(instant -> writeRequest.addHeader("X-OC-Mtime", String.valueOf(instant.getEpochSecond())));
+	/**
+	 * Completes with the body of the response on the transfer executor, so stages consuming the body don't run within the dispatcher's callback,
+	 * where resuming the download would wait for a request slot held by that very callback.
+	 */
+	private CompletionStage<InputStream> read(final Request.Builder getRequest, final ProgressListener progressListener) {
+		return execute(getRequest, response -> {
+			boolean success = false;
+			try {
+				final var progress = new CombinedProgressListener(progressListener);
+				final var countingBody = new ProgressResponseWrapper(response.body(), progress.forPart(), downloadLimiters);
+				if (response.isSuccessful()) {
+					success = true;
+					return resumable(response, countingBody.byteStream(), progress);
+				} else {
+					switch (response.code()) {
+						case HttpURLConnection.HTTP_UNAUTHORIZED:
+							throw new UnauthorizedException();
+						case HttpURLConnection.HTTP_FORBIDDEN:
+							throw new ForbiddenException();
+						case HttpURLConnection.HTTP_NOT_FOUND:
+							throw new NotFoundException();
+						case 416: // UNSATISFIABLE_RANGE
+							return new ByteArrayInputStream(new byte[0]);
+						default:
+							throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+					}
+				}
+			} finally {
+				if (!success) {
+					response.close();
+				}
+			}
+		}).thenApplyAsync(Function.identity(), httpClient.transferExecutor());
+	}
 
-		try (final var response = httpClient.execute(writeRequest)) {
-			if (response.isSuccessful()) {
-				var eTag = Optional.ofNullable(response.header("ETag"));
-				cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.write(file, size, lastModified, eTag));
-			} else {
-				switch (response.code()) {
-					case HttpURLConnection.HTTP_UNAUTHORIZED:
-						throw new UnauthorizedException();
-					case HttpURLConnection.HTTP_FORBIDDEN:
-						throw new ForbiddenException();
-					case HttpURLConnection.HTTP_BAD_METHOD:
-						throw new TypeMismatchException();
-					case HttpURLConnection.HTTP_CONFLICT: // fall through
-					case HttpURLConnection.HTTP_NOT_FOUND: // necessary due to a bug in Nextcloud, see https://github.com/nextcloud/server/issues/23519
-						throw new ParentFolderDoesNotExistException();
-					case HTTP_INSUFFICIENT_STORAGE:
-						throw new InsufficientStorageException();
-					default:
-						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+	CompletionStage<Void> readTo(final CloudPath path, final Path target, final ProgressListener progressListener) {
+		LOG.trace("readTo {} (target: {})", path, target);
+		if (parallelDownloadParts > 1) {
+			return itemMetadata(path).thenCompose(metadata -> {
+				final var parts = metadata.getSize().map(size -> new Parts(0, size, parallelDownloadPartSize));
+				if (parts.isEmpty() || parts.get().count() <= 1) {
+					return readToUsingSingleRequest(path, target, progressListener);
 				}
+				return readToInParts(path, target, parts.get(), progressListener);
+			});
+		}
+		return readToUsingSingleRequest(path, target, progressListener);
+	}
+
+	private CompletionStage<Void> readToUsingSingleRequest(final CloudPath path, final Path target, final ProgressListener progressListener) {
+		final var getRequest = new Request.Builder() //
+				.get() //
+				.url(absoluteURLFrom(path));
+		return execute(getRequest, response -> {
+			try (response) {
+				checkReadSucceeded(response.code());
+				// segments are handed from the response source to the file without copying them into an intermediate buffer
+				try (final var sink = Okio.sink(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					new ProgressResponseWrapper(response.body(), progressListener, downloadLimiters).source().readAll(sink);
+				}
+				return null;
 			}
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
+		});
+	}
+
+	/**
+	 * Downloads the parts concurrently and writes each of them directly to its position within <code>target</code>.
+	 */
+	private CompletionStage<Void> readToInParts(final CloudPath path, final Path target, final Parts parts, final ProgressListener progressListener) {
+		LOG.trace("readTo {} in {} parts", path, parts.count());
+		final FileChannel out;
+		try {
+			out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 		} catch (IOException e) {
-			throw new CloudProviderException(e);
+			return CompletableFuture.failedFuture(new CloudProviderException(e));
+		}
+		final var progress = new CombinedProgressListener(progressListener);
+		// once a lane fails, the other lanes stop after the buffer they are currently writing instead of downloading the remaining parts
+		final var failure = new AtomicReference<Throwable>();
+		final BooleanSupplier aborted = () -> failure.get() != null;
+		// each lane downloads every n-th part one after another, so no more than n parts are downloaded at the same time
+		final var lanes = new CompletableFuture<?>[Math.min(parallelDownloadParts, parts.count())];
+		for (int lane = 0; lane < lanes.length; lane++) {
+			CompletionStage<Void> future = CompletableFuture.completedFuture(null);
+			for (int part = lane; part < parts.count(); part += lanes.length) {
+				final var offset = parts.offset(part);
+				final var length = parts.length(part);
+				future = future.thenCompose(unused -> aborted.getAsBoolean() ? CompletableFuture.completedFuture(null) : readPartTo(path, out, offset, length, progress.forPart(), aborted));
+			}
+			lanes[lane] = future.toCompletableFuture().whenComplete((unused, exception) -> {
+				if (exception != null) {
+					failure.compareAndSet(null, exception);
+				}
+			});
 		}
+		return CompletableFuture.allOf(lanes).handle((unused, exception) -> {
+			try {
+				out.close();
+			} catch (IOException e) {
+				LOG.warn("Failed to close {}", target, e);
+			}
+			if (failure.get() != null) {
+				throw toCloudProviderException(failure.get());
+			}
+			return null;
+		});
+	}
+
+	private CompletionStage<Void> readPartTo(final CloudPath path, final FileChannel out, final long offset, final long length, final ProgressListener progressListener, final BooleanSupplier aborted) {
+		return execute(rangeRequest(path, offset, length), response -> {
+			try (response) {
+				checkReadSucceeded(response.code());
+				final var source = partSource(response, offset, progressListener);
+				final var buffer = ByteBuffer.allocate(PART_BUFFER_SIZE);
+				final var end = offset + length;
+				var position = offset;
+				while (position < end && !aborted.getAsBoolean()) {
+					buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+					if (source.read(buffer) == -1) {
+						throw new EOFException(String.format("Response ended before byte %d of %s", position, path));
+					}
+					buffer.flip();
+					while (buffer.hasRemaining()) {
+						position += out.write(buffer, position);
+					}
+				}
+				return null;
+			}
+		});
 	}
 
-	private boolean exists(CloudPath path) throws CloudProviderException {
+	CompletionStage<Void> write(final CloudPath file, final boolean replace, final InputStream data, final long size, final Optional<Instant> lastModified, final ProgressListener progressListener) {
+		LOG.trace("write {} (size: {}, lastModified: {}, replace: {})", file, size, lastModified, replace ? "true" : "false");
+		if (isChunkedUploadApplicable(replace, size)) {
+			// the data can't be identified, so the upload can't be resumed by later attempts
+			final var transferId = UUID.randomUUID().toString();
+			return writeInChunks(file, replace, transferId, false, NextcloudChunkedUploader.ChunkReader.of(data), size, lastModified, progressListener, () -> InputStreamRequestBody.from(data, size));
+		}
+		return write(file, replace, InputStreamRequestBody.from(data, size), size, lastModified, progressListener);
+	}
+
+	CompletionStage<Void> write(final CloudPath file, final boolean replace, final Path source, final Optional<Instant> lastModified, final ProgressListener progressListener) {
+		final long size;
+		final long sourceLastModified;
 		try {
-			return itemMetadata(path) != null;
-		} catch (NotFoundException e) {
-			return false;
+			size = Files.size(source);
+			sourceLastModified = Files.getLastModifiedTime(source).toMillis();
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(new CloudProviderException(e));
+		}
+		LOG.trace("write {} from {} (size: {}, lastModified: {}, replace: {})", file, source, size, lastModified, replace ? "true" : "false");
+		// unlike a stream, the file can be sent again if the request needs to be repeated
+		final Supplier<RequestBody> body = () -> RequestBody.create(source.toFile(), MediaType.parse("application/octet-stream"));
+		if (isChunkedUploadApplicable(replace, size)) {
+			// another attempt to upload the unchanged file uses the same upload directory and therefore skips the chunks uploaded already
+			final var transferId = Hashing.sha256().hashString(absoluteURLFrom(file) + "|" + size + "|" + sourceLastModified, StandardCharsets.UTF_8).toString();
+			return writeInChunks(file, replace, transferId, true, NextcloudChunkedUploader.ChunkReader.of(source), size, lastModified, progressListener, body);
+		}
+		return write(file, replace, body.get(), size, lastModified, progressListener);
+	}
+
+	private boolean isChunkedUploadApplicable(final boolean replace, final long size) {
+		// the ETag expected by a conditional replacement can't be checked when the chunks are assembled
+		return chunkedUploader.map(uploader -> uploader.isSupported() && size > uploader.getChunkSize()).orElse(false) //
+				&& !(replace && conditionalReplace);
+	}
+
+	/**
+	 * Uploads the data in chunks or, if the server doesn't support chunked uploads, using a single request with the body supplied by <code>fallbackBody</code>.
+	 */
+	private CompletionStage<Void> writeInChunks(final CloudPath file, final boolean replace, final String transferId, final boolean resumable, final NextcloudChunkedUploader.ChunkReader data, final long size, final Optional<Instant> lastModified, final ProgressListener progressListener, final Supplier<RequestBody> fallbackBody) {
+		final var destination = HttpUrl.get(absoluteURLFrom(file).toString());
+		return chunkedUploader.get().upload(transferId, resumable, destination, data, size, replace, lastModified, progressListener).thenCompose(uploadedFile -> {
+			if (uploadedFile.isEmpty()) {
+				return write(file, replace, fallbackBody.get(), size, lastModified, progressListener);
+			}
+			cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.write(file, size, lastModified, uploadedFile.get().eTag()));
+			return CompletableFuture.completedFuture(null);
+		});
+	}
+
+	private CompletionStage<Void> write(final CloudPath file, final boolean replace, final RequestBody body, final long size, final Optional<Instant> lastModified, final ProgressListener progressListener) {
+		final var countingBody = new ProgressRequestWrapper(body, progressListener, uploadLimiters);
+		final var writeRequest = new Request.Builder() //
+				.url(absoluteURLFrom(file)) //
+				.put(countingBody);
+
+		final Optional<String> expectedETag;
+		if (!replace) {
+			// let the server reject the upload atomically instead of checking for existence beforehand
+			writeRequest.header("If-None-Match", "*");
+			expectedETag = Optional.empty();
+		} else if (conditionalReplace) {
+			expectedETag = cachedPropfindEntryProvider.flatMap(cachedProvider -> cachedProvider.cachedETag(file));
+			expectedETag.ifPresent(eTag -> writeRequest.header("If-Match", eTag));
+		} else {
+			expectedETag = Optional.empty();
 		}
+
+		lastModified.ifPresent(instant -> writeRequest.addHeader("X-OC-Mtime", String.valueOf(instant.getEpochSecond())));
+
+		return execute(writeRequest, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					var eTag = Optional.ofNullable(response.header("ETag"));
+					cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.write(file, size, lastModified, eTag));
+					return null;
+				} else {
+					switch (response.code()) {
+						case HttpURLConnection.HTTP_UNAUTHORIZED:
+							throw new UnauthorizedException();
+						case HttpURLConnection.HTTP_FORBIDDEN:
+							throw new ForbiddenException();
+						case HttpURLConnection.HTTP_BAD_METHOD:
+							throw new TypeMismatchException();
+						case HttpURLConnection.HTTP_CONFLICT: // fall through
+						case HttpURLConnection.HTTP_NOT_FOUND: // necessary due to a bug in Nextcloud, see https://github.com/nextcloud/server/issues/23519
+							throw new ParentFolderDoesNotExistException();
+						case HttpURLConnection.HTTP_PRECON_FAILED:
+							if (expectedETag.isPresent()) {
+								// cached version is outdated
+								cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.write(file, size, lastModified, Optional.empty()));
+								throw new VersionMismatchException(file.toString());
+							} else {
+								throw new AlreadyExistsException("CloudNode already exists and replace is false");
+							}
+						case HTTP_INSUFFICIENT_STORAGE:
+							throw new InsufficientStorageException();
+						default:
+							throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+					}
+				}
+			}
+		});
 	}
 
-	CloudPath createFolder(final CloudPath path) throws CloudProviderException {
+	CompletionStage<CloudPath> createFolder(final CloudPath path) {
 		LOG.trace("createFolder {}", path);
 		final var createFolderRequest = new Request.Builder() //
 				.method("MKCOL", null) //
 				.url(absoluteURLFrom(path));
 
-		try (final var response = httpClient.execute(createFolderRequest)) {
-			if (response.isSuccessful()) {
-				cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.createFolder(path));
-				return path;
-			} else {
-				switch (response.code()) {
-					case HttpURLConnection.HTTP_UNAUTHORIZED:
-						throw new UnauthorizedException();
-					case HttpURLConnection.HTTP_FORBIDDEN:
-						throw new ForbiddenException();
-					case HttpURLConnection.HTTP_BAD_METHOD:
-						throw new AlreadyExistsException(String.format("Folder %s already exists", path));
-					case HttpURLConnection.HTTP_CONFLICT:
-						throw new ParentFolderDoesNotExistException();
-					case HTTP_INSUFFICIENT_STORAGE:
-						throw new InsufficientStorageException();
-					default:
-						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+		return execute(createFolderRequest, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.createFolder(path));
+					return path;
+				} else {
+					switch (response.code()) {
+						case HttpURLConnection.HTTP_UNAUTHORIZED:
+							throw new UnauthorizedException();
+						case HttpURLConnection.HTTP_FORBIDDEN:
+							throw new ForbiddenException();
+						case HttpURLConnection.HTTP_BAD_METHOD:
+							throw new AlreadyExistsException(String.format("Folder %s already exists", path));
+						case HttpURLConnection.HTTP_CONFLICT:
+							throw new ParentFolderDoesNotExistException();
+						case HTTP_INSUFFICIENT_STORAGE:
+							throw new InsufficientStorageException();
+						default:
+							throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+					}
 				}
 			}
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException e) {
-			throw new CloudProviderException(e);
-		}
+		});
 	}
 
-	void delete(final CloudPath path) throws CloudProviderException {
+	CompletionStage<Void> delete(final CloudPath path) {
 		LOG.trace("delete {}", path);
 		final var deleteRequest = new Request.Builder() //
 				.delete() //
 				.url(absoluteURLFrom(path));
 
-		try (final var response = httpClient.execute(deleteRequest)) {
-			if (response.isSuccessful()) {
-				cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.delete(path));
-			} else {
-				switch (response.code()) {
-					case HttpURLConnection.HTTP_UNAUTHORIZED:
-						throw new UnauthorizedException();
-					case HttpURLConnection.HTTP_FORBIDDEN:
-						throw new ForbiddenException();
-					case HttpURLConnection.HTTP_NOT_FOUND:
-						throw new NotFoundException(String.format("Node %s doesn't exists", path.toString()));
-					default:
-						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+		return execute(deleteRequest, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					cachedPropfindEntryProvider.ifPresent(cachedProvider -> cachedProvider.delete(path));
+					return null;
+				} else {
+					switch (response.code()) {
+						case HttpURLConnection.HTTP_UNAUTHORIZED:
+							throw new UnauthorizedException();
+						case HttpURLConnection.HTTP_FORBIDDEN:
+							throw new ForbiddenException();
+						case HttpURLConnection.HTTP_NOT_FOUND:
+							throw new NotFoundException(String.format("Node %s doesn't exists", path.toString()));
+						default:
+							throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+					}
 				}
 			}
-		} catch (InterruptedIOException e) {
-			throw new CloudTimeoutException(e);
-		} catch (IOException e) {
-			throw new CloudProviderException(e);
-		}
+		});
 	}
 
 	void checkServerCompatibility() throws ServerNotWebdavCompatibleException {
@@ -401,30 +891,60 @@ public class WebDavClient {
 				.method("OPTIONS", null) //
 				.url(baseUrl);
 
-		try (final var response = httpClient.execute(optionsRequest)) {
-			if (response.isSuccessful()) {
-				final var containsDavHeader = response.headers().names().contains("DAV");
-				if (!containsDavHeader) {
-					throw new ServerNotWebdavCompatibleException();
-				}
-			} else {
-				switch (response.code()) {
-					case HttpURLConnection.HTTP_UNAUTHORIZED:
-						throw new UnauthorizedException();
-					case HttpURLConnection.HTTP_FORBIDDEN:
-						throw new ForbiddenException();
-					default:
-						throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+		execute(optionsRequest, response -> {
+			try (response) {
+				if (response.isSuccessful()) {
+					final var containsDavHeader = response.headers().names().contains("DAV");
+					if (!containsDavHeader) {
+						throw new ServerNotWebdavCompatibleException();
+					}
+					return null;
+				} else {
+					switch (response.code()) {
+						case HttpURLConnection.HTTP_UNAUTHORIZED:
+							throw new UnauthorizedException();
+						case HttpURLConnection.HTTP_FORBIDDEN:
+							throw new ForbiddenException();
+						default:
+							throw new CloudProviderException("Response code isn't between 200 and 300: " + response.code());
+					}
 				}
 			}
-		} catch (IOException e) {
-			throw new CloudProviderException(e);
-		}
+		}).toCompletableFuture().join();
 	}
 
 	PropfindEntryItemData checkAuthenticationUsingLoadPropfindItem() throws UnauthorizedException {
 		LOG.trace("tryAuthenticatedRequest");
-		return loadPropfindItem(CloudPath.of("/"));
+		return loadPropfindItem(CloudPath.of("/")).toCompletableFuture().join();
+	}
+
+	/**
+	 * Enqueues the request and applies the <code>responseHandler</code> within OkHttp's response callback.
+	 * Any failure is mapped to a {@link CloudProviderException}, which is passed through unwrapped as it is a {@link CompletionException} itself.
+	 */
+	private <T> CompletionStage<T> execute(final Request.Builder requestBuilder, final ResponseHandler<T> responseHandler) {
+		return httpClient.executeAsync(requestBuilder).thenApply(response -> {
+			try {
+				return responseHandler.handle(response);
+			} catch (IOException | SAXException e) {
+				throw toCloudProviderException(e);
+			}
+		}).exceptionally(e -> {
+			throw toCloudProviderException(e);
+		});
+	}
+
+	static CloudProviderException toCloudProviderException(Throwable e) {
+		if (e instanceof CompletionException && !(e instanceof CloudProviderException) && e.getCause() != null) {
+			e = e.getCause();
+		}
+		if (e instanceof CloudProviderException) {
+			return (CloudProviderException) e;
+		} else if (e instanceof InterruptedIOException) {
+			return new CloudTimeoutException(e);
+		} else {
+			return new CloudProviderException(e);
+		}
 	}
 
 	// visible for testing
@@ -438,14 +958,26 @@ public class WebDavClient {
 		}
 	}
 
-	void pollRemoteChanges() {
-		cachedPropfindEntryProvider.ifPresent(CachedPropfindEntryProvider::pollRemoteChanges);
+	CompletionStage<Void> pollRemoteChanges() {
+		return cachedPropfindEntryProvider.map(CachedPropfindEntryProvider::pollRemoteChanges).orElseGet(() -> CompletableFuture.completedFuture(null));
+	}
+
+	Optional<PollStats> lastPollStats() {
+		return cachedPropfindEntryProvider.flatMap(CachedPropfindEntryProvider::lastPollStats);
 	}
 
 	boolean cachingCapability() {
 		return cachedPropfindEntryProvider.isPresent();
 	}
 
+	BandwidthLimiter getUploadLimiter() {
+		return uploadLimiter;
+	}
+
+	BandwidthLimiter getDownloadLimiter() {
+		return downloadLimiter;
+	}
+
 	private enum PropfindDepth {
 		ZERO("0"), //
 		ONE("1"), //
@@ -457,4 +989,29 @@ public class WebDavClient {
 			this.value = value;
 		}
 	}
+
+	/**
+	 * The byte range from <code>start</code> (inclusive) to <code>end</code> (exclusive) split into parts of <code>partSize</code> bytes. Only the last part may be smaller.
+	 */
+	private record Parts(long start, long end, long partSize) {
+
+		int count() {
+			return Ints.checkedCast(LongMath.divide(Math.max(0, end - start), partSize, RoundingMode.CEILING));
+		}
+
+		long offset(int part) {
+			return start + part * partSize;
+		}
+
+		long length(int part) {
+			return Math.min(partSize, end - offset(part));
+		}
+	}
+
+	@FunctionalInterface
+	private interface ResponseHandler<T> {
+
+		T handle(Response response) throws IOException, SAXException;
+
+	}
 }
\ No newline at end of file
@@ -8,72 +8,127 @@ import org.cryptomator.cloudaccess.api.ProgressListener;
 import org.cryptomator.cloudaccess.api.Quota;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
 
 public class WebDavCloudProvider implements CloudProvider {
 
 	private final WebDavClient webDavClient;
 
-	private WebDavCloudProvider(final WebDavCredential webDavCredential) {
-		var config = WebDavProviderConfig.createFromSystemPropertiesOrDefaults();
-		webDavClient = new WebDavClient(config, webDavCredential);
+	private WebDavCloudProvider(final WebDavClient webDavClient) {
+		this.webDavClient = webDavClient;
 	}
 
 	public static WebDavCloudProvider from(final WebDavCredential webDavCredential) throws UnauthorizedException, ServerNotWebdavCompatibleException {
-		return new WebDavCloudProvider(webDavCredential);
+		return from(webDavCredential, WebDavTransport.create());
+	}
+
+	/**
+	 * Creates a provider whose HTTP calls are executed and completed on the given <code>executorService</code> instead of OkHttp's default thread pool.
+	 *
+	 * @param webDavCredential The credentials and base URL
+	 * @param executorService  The executor running network calls and response processing
+	 * @return A new WebDAV provider
+	 */
+	public static WebDavCloudProvider from(final WebDavCredential webDavCredential, final ExecutorService executorService) throws UnauthorizedException, ServerNotWebdavCompatibleException {
+		return from(webDavCredential, WebDavTransport.create(executorService));
+	}
+
+	/**
+	 * Creates a provider using the given <code>transport</code>, which may be shared with other providers, e.g. for different accounts on the same host.
+	 *
+	 * @param webDavCredential The credentials and base URL
+	 * @param transport        The transport providing connection pool, dispatcher and TLS session cache
+	 * @return A new WebDAV provider
+	 */
+	public static WebDavCloudProvider from(final WebDavCredential webDavCredential, final WebDavTransport transport) throws UnauthorizedException, ServerNotWebdavCompatibleException {
+		return new WebDavCloudProvider(new WebDavClient(transport, webDavCredential));
+	}
+
+	/**
+	 * Loads the metadata of all items below <code>folder</code> into the metadata cache at once, e.g. before opening a vault located in this folder.
+	 * Uses a single Depth-infinity PROPFIND if the server allows it and a crawl of Depth-1 PROPFINDs otherwise.
+	 *
+	 * @param folder The root of the subtree to prefetch
+	 * @return CompletionStage completed once the subtree has been cached. Completed immediately if the server does not support ETags, which are required for caching.
+	 */
+	public CompletionStage<Void> prefetch(CloudPath folder) {
+		return webDavClient.prefetch(folder);
 	}
 
 	@Override
 	public CompletionStage<CloudItemMetadata> itemMetadata(CloudPath node) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.itemMetadata(node));
+		return webDavClient.itemMetadata(node);
+	}
+
+	@Override
+	public CompletionStage<Map<CloudPath, CloudItemMetadata>> itemMetadata(Collection<CloudPath> nodes) {
+		return webDavClient.itemMetadata(nodes);
 	}
 
 	@Override
 	public CompletionStage<Quota> quota(CloudPath folder) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.quota(folder));
+		return webDavClient.quota(folder);
 	}
 
 	@Override
 	public CompletionStage<CloudItemList> list(CloudPath folder, Optional<String> pageToken) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.list(folder));
+		return webDavClient.list(folder, pageToken);
 	}
 
 	@Override
 	public CompletionStage<InputStream> read(CloudPath file, ProgressListener progressListener) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.read(file, progressListener));
+		return webDavClient.read(file, progressListener);
 	}
 
 	@Override
 	public CompletionStage<InputStream> read(CloudPath file, long offset, long count, ProgressListener progressListener) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.read(file, offset, count, progressListener));
+		return webDavClient.read(file, offset, count, progressListener);
+	}
+
+	@Override
+	public CompletionStage<Void> readTo(CloudPath file, Path target, ProgressListener progressListener) {
+		return webDavClient.readTo(file, target, progressListener);
 	}
 
 	@Override
 	public CompletionStage<Void> write(CloudPath file, boolean replace, InputStream data, long size, Optional<Instant> lastModified, ProgressListener progressListener) {
-		return CompletableFuture.runAsync(() -> webDavClient.write(file, replace, data, size, lastModified, progressListener));
+		return webDavClient.write(file, replace, data, size, lastModified, progressListener);
+	}
+
+	@Override
+	public CompletionStage<Void> write(CloudPath file, boolean replace, Path source, Optional<Instant> lastModified, ProgressListener progressListener) {
+		return webDavClient.write(file, replace, source, lastModified, progressListener);
 	}
 
 	@Override
 	public CompletionStage<CloudPath> createFolder(CloudPath folder) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.createFolder(folder));
+		return webDavClient.createFolder(folder);
 	}
 
 	@Override
 	public CompletionStage<Void> deleteFile(CloudPath file) {
-		return CompletableFuture.runAsync(() -> webDavClient.delete(file));
+		return webDavClient.delete(file);
 	}
 
 	@Override
 	public CompletionStage<Void> deleteFolder(CloudPath folder) {
-		return CompletableFuture.runAsync(() -> webDavClient.delete(folder));
+		return webDavClient.delete(folder);
 	}
 
 	@Override
 	public CompletionStage<CloudPath> move(CloudPath source, CloudPath target, boolean replace) {
-		return CompletableFuture.supplyAsync(() -> webDavClient.move(source, target, replace));
+		return webDavClient.move(source, target, replace);
+	}
+
+	@Override
+	public CompletionStage<CloudPath> copy(CloudPath source, CloudPath target, boolean replace) {
+		return webDavClient.copy(source, target, replace);
 	}
 
 	@Override
@@ -83,7 +138,36 @@ public class WebDavCloudProvider implements CloudProvider {
 
 	@Override
 	public CompletionStage<Void> pollRemoteChanges() {
-		return CompletableFuture.runAsync(webDavClient::pollRemoteChanges);
+		return webDavClient.pollRemoteChanges();
+	}
+
+	/**
+	 * @return The statistics of the most recently completed {@link #pollRemoteChanges() poll} or an empty Optional if no poll has completed yet or the server doesn't support caching
+	 */
+	public Optional<PollStats> getLastPollStats() {
+		return webDavClient.lastPollStats();
+	}
+
+	/**
+	 * The limit applies to uploads of this provider only and can be changed while transfers are running.
+	 * Initially, it is set to <code>org.cryptomator.cloudaccess.webdav.uploadBytesPerSecond</code>.
+	 *
+	 * @return The upload bandwidth limit of this provider
+	 * @see BandwidthLimiter#globalUploads()
+	 */
+	public BandwidthLimiter getUploadLimiter() {
+		return webDavClient.getUploadLimiter();
+	}
+
+	/**
+	 * The limit applies to downloads of this provider only and can be changed while transfers are running.
+	 * Initially, it is set to <code>org.cryptomator.cloudaccess.webdav.downloadBytesPerSecond</code>.
+	 *
+	 * @return The download bandwidth limit of this provider
+	 * @see BandwidthLimiter#globalDownloads()
+	 */
+	public BandwidthLimiter getDownloadLimiter() {
+		return webDavClient.getDownloadLimiter();
 	}
 
 }
@@ -14,31 +14,43 @@ import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
 
 class WebDavCompatibleHttpClient {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WebDavCompatibleHttpClient.class);
+	private static final Set<String> TRANSFER_METHODS = Set.of("GET", "PUT");
 
+	private final OkHttpClient httpClient;
+	private final OkHttpClient transferClient;
 	private final WebDavRedirectHandler webDavRedirectHandler;
+	private final WebDavRedirectHandler nonIdempotentRedirectHandler;
+	private final WebDavRedirectHandler transferRedirectHandler;
+	private final WebDavRedirectHandler nonIdempotentTransferRedirectHandler;
+	private final WebDavRetryHandler webDavRetryHandler;
 
-	WebDavCompatibleHttpClient(final WebDavCredential webDavCredential, WebDavProviderConfig config) {
-		this.webDavRedirectHandler = new WebDavRedirectHandler(httpClientFor(webDavCredential, config));
+	WebDavCompatibleHttpClient(final WebDavCredential webDavCredential, final WebDavTransport transport) {
+		final Map<String, CachingAuthenticator> authCache = new ConcurrentHashMap<>();
+		this.httpClient = httpClientFor(webDavCredential, transport.newClientBuilder(), authCache);
+		this.transferClient = httpClientFor(webDavCredential, transport.newTransferClientBuilder(), authCache);
+		// a redirect learned by any kind of request applies to all others
+		final var permanentRedirects = new PermanentRedirectCache();
+		this.webDavRedirectHandler = new WebDavRedirectHandler(httpClient, transport.getRedirectStatistics(), permanentRedirects);
+		this.transferRedirectHandler = new WebDavRedirectHandler(transferClient, transport.getRedirectStatistics(), permanentRedirects);
+		// OkHttp silently repeats requests failing on a pooled connection, even if the server might have processed them
+		this.nonIdempotentRedirectHandler = new WebDavRedirectHandler(httpClient.newBuilder().retryOnConnectionFailure(false).build(), transport.getRedirectStatistics(), permanentRedirects);
+		this.nonIdempotentTransferRedirectHandler = new WebDavRedirectHandler(transferClient.newBuilder().retryOnConnectionFailure(false).build(), transport.getRedirectStatistics(), permanentRedirects);
+		this.webDavRetryHandler = new WebDavRetryHandler(request -> executeLimited(transport, request), transport.getConfig(), transport.getRetryStatistics());
 	}
 
-	private static OkHttpClient httpClientFor(final WebDavCredential webDavCredential, WebDavProviderConfig config) {
-		final Map<String, CachingAuthenticator> authCache = new ConcurrentHashMap<>();
-		return new OkHttpClient()
-				.newBuilder()
-				.connectTimeout(config.getConnectionTimeoutSeconds(), TimeUnit.SECONDS)
-				.readTimeout(config.getReadTimeoutSeconds(), TimeUnit.SECONDS)
-				.writeTimeout(config.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
-				.followRedirects(false)
-				.addInterceptor(new HttpLoggingInterceptor(LOG::trace))
+	private static OkHttpClient httpClientFor(final WebDavCredential webDavCredential, final OkHttpClient.Builder clientBuilder, final Map<String, CachingAuthenticator> authCache) {
+		return clientBuilder
+				.addInterceptor(new HttpLoggingInterceptor(LOG::trace, LOG::isTraceEnabled))
 				.authenticator(httpAuthenticator(webDavCredential.getUsername(), webDavCredential.getPassword(), authCache))
 				.addInterceptor(new AuthenticationCacheInterceptor(authCache))
 				.build();
@@ -58,12 +70,34 @@ class WebDavCompatibleHttpClient {
 		return new CachingAuthenticatorDecorator(dispatchingAuthenticator, authCache);
 	}
 
-	Response execute(final Request.Builder requestBuilder) throws IOException {
-		return execute(requestBuilder.build());
+	/**
+	 * @return The executor of the dispatcher transferring file contents, suitable for blocking work preparing or consuming them
+	 */
+	Executor transferExecutor() {
+		return transferClient.dispatcher().executorService();
+	}
+
+	CompletableFuture<Response> executeAsync(final Request.Builder requestBuilder) {
+		return executeAsync(requestBuilder.build());
+	}
+
+	private CompletableFuture<Response> executeAsync(final Request request) {
+		return webDavRetryHandler.execute(request);
 	}
 
-	private Response execute(final Request request) throws IOException {
-		return webDavRedirectHandler.executeFollowingRedirects(request);
+	/**
+	 * Transfers of file contents are sent using a dispatcher of their own and don't take permits of the adaptive concurrency limiter,
+	 * as their duration depends on size and bandwidth limits rather than on the load of the server.
+	 */
+	private CompletableFuture<Response> executeLimited(final WebDavTransport transport, final Request request) {
+		final var idempotent = WebDavRetryHandler.isIdempotent(request);
+		if (TRANSFER_METHODS.contains(request.method())) {
+			return (idempotent ? transferRedirectHandler : nonIdempotentTransferRedirectHandler).executeFollowingRedirects(request);
+		}
+		final var redirectHandler = idempotent ? webDavRedirectHandler : nonIdempotentRedirectHandler;
+		return transport.concurrencyLimiterFor(request.url().host()) //
+				.map(limiter -> limiter.execute(request, redirectHandler::executeFollowingRedirects)) //
+				.orElseGet(() -> redirectHandler.executeFollowingRedirects(request));
 	}
 
 }
@@ -1,25 +1,110 @@
 package org.cryptomator.cloudaccess.webdav;
 
+import com.google.common.base.Splitter;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class WebDavProviderConfig {
 
 	private static final int DEFAULT_CONNECTION_TIMEOUT = 30;
 	private static final int DEFAULT_READ_TIMEOUT = 30;
 	private static final int DEFAULT_WRITE_TIMEOUT = 30;
+	private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+	private static final int DEFAULT_KEEP_ALIVE_DURATION = 300;
+	private static final int DEFAULT_MAX_REQUESTS = 64;
+	private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+	private static final String DEFAULT_PROTOCOLS = "h2,http/1.1";
+	private static final int DEFAULT_LIST_PAGE_SIZE = 1000;
+	private static final int DEFAULT_CRAWL_PARALLELISM = 4;
+	private static final int DEFAULT_MAX_RETRIES = 3;
+	private static final int DEFAULT_RETRY_BASE_DELAY = 250;
+	private static final int DEFAULT_RETRY_MAX_DELAY = 10000;
+	private static final int DEFAULT_RETRY_BUDGET = 60;
+	private static final int DEFAULT_MIN_CONCURRENCY = 1;
+	private static final int DEFAULT_MAX_CONCURRENCY = 16;
+	private static final int DEFAULT_PARALLEL_DOWNLOAD_PARTS = 1;
+	private static final int DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE = 8 * 1024 * 1024;
+	private static final int DEFAULT_CHUNKED_UPLOAD_CHUNK_SIZE = 10 * 1024 * 1024;
+	private static final int DEFAULT_CHUNKED_UPLOAD_PARALLELISM = 3;
+	private static final int DEFAULT_MAX_DOWNLOAD_RESUMES = 3;
+	private static final long DEFAULT_UPLOAD_BYTES_PER_SECOND = BandwidthLimiter.UNLIMITED;
+	private static final long DEFAULT_DOWNLOAD_BYTES_PER_SECOND = BandwidthLimiter.UNLIMITED;
 
 	private final int connectionTimeoutSeconds;
 	private final int readTimeoutSeconds;
 	private final int writeTimeoutSeconds;
+	private final int maxIdleConnections;
+	private final int keepAliveDurationSeconds;
+	private final int maxRequests;
+	private final int maxRequestsPerHost;
+	private final List<Protocol> protocols;
+	private final int listPageSize;
+	private final int crawlParallelism;
+	private final boolean conditionalReplace;
+	private final int maxRetries;
+	private final int retryBaseDelayMillis;
+	private final int retryMaxDelayMillis;
+	private final int retryBudgetSeconds;
+	private final boolean adaptiveConcurrency;
+	private final int minConcurrency;
+	private final int maxConcurrency;
+	private final int parallelDownloadParts;
+	private final int parallelDownloadPartSize;
+	private final boolean chunkedUpload;
+	private final int chunkedUploadChunkSize;
+	private final int chunkedUploadParallelism;
+	private final int maxDownloadResumes;
+	private final long uploadBytesPerSecond;
+	private final long downloadBytesPerSecond;
+	private final boolean syncCollection;
 
 	WebDavProviderConfig() {
 		this.connectionTimeoutSeconds = Integer.getInteger("org.cryptomator.cloudaccess.webdav.connectionTimeoutSeconds", DEFAULT_CONNECTION_TIMEOUT);
 		this.readTimeoutSeconds = Integer.getInteger("org.cryptomator.cloudaccess.webdav.readTimeoutSeconds", DEFAULT_READ_TIMEOUT);
 		this.writeTimeoutSeconds = Integer.getInteger("org.cryptomator.cloudaccess.webdav.writeTimeoutSeconds", DEFAULT_WRITE_TIMEOUT);
+		this.maxIdleConnections = Integer.getInteger("org.cryptomator.cloudaccess.webdav.maxIdleConnections", DEFAULT_MAX_IDLE_CONNECTIONS);
+		this.keepAliveDurationSeconds = Integer.getInteger("org.cryptomator.cloudaccess.webdav.keepAliveDurationSeconds", DEFAULT_KEEP_ALIVE_DURATION);
+		this.maxRequests = Integer.getInteger("org.cryptomator.cloudaccess.webdav.maxRequests", DEFAULT_MAX_REQUESTS);
+		this.maxRequestsPerHost = Integer.getInteger("org.cryptomator.cloudaccess.webdav.maxRequestsPerHost", DEFAULT_MAX_REQUESTS_PER_HOST);
+		this.protocols = parseProtocols(System.getProperty("org.cryptomator.cloudaccess.webdav.protocols", DEFAULT_PROTOCOLS));
+		this.listPageSize = Integer.getInteger("org.cryptomator.cloudaccess.webdav.listPageSize", DEFAULT_LIST_PAGE_SIZE);
+		this.crawlParallelism = Integer.getInteger("org.cryptomator.cloudaccess.webdav.crawlParallelism", DEFAULT_CRAWL_PARALLELISM);
+		this.conditionalReplace = Boolean.getBoolean("org.cryptomator.cloudaccess.webdav.conditionalReplace");
+		this.maxRetries = Integer.getInteger("org.cryptomator.cloudaccess.webdav.maxRetries", DEFAULT_MAX_RETRIES);
+		this.retryBaseDelayMillis = Integer.getInteger("org.cryptomator.cloudaccess.webdav.retryBaseDelayMillis", DEFAULT_RETRY_BASE_DELAY);
+		this.retryMaxDelayMillis = Integer.getInteger("org.cryptomator.cloudaccess.webdav.retryMaxDelayMillis", DEFAULT_RETRY_MAX_DELAY);
+		this.retryBudgetSeconds = Integer.getInteger("org.cryptomator.cloudaccess.webdav.retryBudgetSeconds", DEFAULT_RETRY_BUDGET);
+		this.adaptiveConcurrency = Boolean.getBoolean("org.cryptomator.cloudaccess.webdav.adaptiveConcurrency");
+		this.minConcurrency = Integer.getInteger("org.cryptomator.cloudaccess.webdav.minConcurrency", DEFAULT_MIN_CONCURRENCY);
+		this.maxConcurrency = Integer.getInteger("org.cryptomator.cloudaccess.webdav.maxConcurrency", DEFAULT_MAX_CONCURRENCY);
+		this.parallelDownloadParts = Integer.getInteger("org.cryptomator.cloudaccess.webdav.parallelDownloadParts", DEFAULT_PARALLEL_DOWNLOAD_PARTS);
+		this.parallelDownloadPartSize = Integer.getInteger("org.cryptomator.cloudaccess.webdav.parallelDownloadPartSize", DEFAULT_PARALLEL_DOWNLOAD_PART_SIZE);
+		this.chunkedUpload = Boolean.getBoolean("org.cryptomator.cloudaccess.webdav.chunkedUpload");
+		this.chunkedUploadChunkSize = Integer.getInteger("org.cryptomator.cloudaccess.webdav.chunkedUploadChunkSize", DEFAULT_CHUNKED_UPLOAD_CHUNK_SIZE);
+		this.chunkedUploadParallelism = Integer.getInteger("org.cryptomator.cloudaccess.webdav.chunkedUploadParallelism", DEFAULT_CHUNKED_UPLOAD_PARALLELISM);
+		this.maxDownloadResumes = Integer.getInteger("org.cryptomator.cloudaccess.webdav.maxDownloadResumes", DEFAULT_MAX_DOWNLOAD_RESUMES);
+		this.uploadBytesPerSecond = Long.getLong("org.cryptomator.cloudaccess.webdav.uploadBytesPerSecond", DEFAULT_UPLOAD_BYTES_PER_SECOND);
+		this.downloadBytesPerSecond = Long.getLong("org.cryptomator.cloudaccess.webdav.downloadBytesPerSecond", DEFAULT_DOWNLOAD_BYTES_PER_SECOND);
+		this.syncCollection = Boolean.getBoolean("org.cryptomator.cloudaccess.webdav.syncCollection");
 	}
 
 	public static WebDavProviderConfig createFromSystemPropertiesOrDefaults() {
 		return new WebDavProviderConfig();
 	}
 
+	private static List<Protocol> parseProtocols(String protocols) {
+		return Splitter.on(',').trimResults().omitEmptyStrings().splitToStream(protocols).map(protocol -> {
+			try {
+				return Protocol.get(protocol);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Unknown protocol: " + protocol, e);
+			}
+		}).collect(Collectors.toList());
+	}
+
 	int getConnectionTimeoutSeconds() {
 		return connectionTimeoutSeconds;
 	}
@@ -32,4 +117,100 @@ public class WebDavProviderConfig {
 		return writeTimeoutSeconds;
 	}
 
+	int getMaxIdleConnections() {
+		return maxIdleConnections;
+	}
+
+	int getKeepAliveDurationSeconds() {
+		return keepAliveDurationSeconds;
+	}
+
+	int getMaxRequests() {
+		return maxRequests;
+	}
+
+	int getMaxRequestsPerHost() {
+		return maxRequestsPerHost;
+	}
+
+	List<Protocol> getProtocols() {
+		return protocols;
+	}
+
+	int getListPageSize() {
+		return listPageSize;
+	}
+
+	int getCrawlParallelism() {
+		return crawlParallelism;
+	}
+
+	boolean isConditionalReplace() {
+		return conditionalReplace;
+	}
+
+	int getMaxRetries() {
+		return maxRetries;
+	}
+
+	int getRetryBaseDelayMillis() {
+		return retryBaseDelayMillis;
+	}
+
+	int getRetryMaxDelayMillis() {
+		return retryMaxDelayMillis;
+	}
+
+	int getRetryBudgetSeconds() {
+		return retryBudgetSeconds;
+	}
+
+	boolean isAdaptiveConcurrency() {
+		return adaptiveConcurrency;
+	}
+
+	int getMinConcurrency() {
+		return minConcurrency;
+	}
+
+	int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	int getParallelDownloadParts() {
+		return parallelDownloadParts;
+	}
+
+	int getParallelDownloadPartSize() {
+		return parallelDownloadPartSize;
+	}
+
+	boolean isChunkedUpload() {
+		return chunkedUpload;
+	}
+
+	int getChunkedUploadChunkSize() {
+		return chunkedUploadChunkSize;
+	}
+
+	int getChunkedUploadParallelism() {
+		return chunkedUploadParallelism;
+	}
+
+	int getMaxDownloadResumes() {
+		return maxDownloadResumes;
+	}
+
+	long getUploadBytesPerSecond() {
+		return uploadBytesPerSecond;
+	}
+
+	long getDownloadBytesPerSecond() {
+		return downloadBytesPerSecond;
+	}
+
+	boolean isSyncCollection() {
+		return syncCollection;
+	}
+
 }
@@ -1,37 +1,140 @@
 package org.cryptomator.cloudaccess.webdav;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.ProtocolException;
+import java.util.concurrent.CompletableFuture;
 
 class WebDavRedirectHandler {
 
 	private static final int MAX_REDIRECT_COUNT = 20;
 	private static final Request NO_REDIRECTED_REQUEST = null;
 	private static final HttpUrl NO_REDIRECT_URL = null;
+	private static final int HTTP_PERMANENT_REDIRECT = 308;
 
 	private final OkHttpClient httpClient;
+	private final RedirectStatistics statistics;
+	private final PermanentRedirectCache permanentRedirects;
 
+	// visible for testing
 	WebDavRedirectHandler(final OkHttpClient httpClient) {
+		this(httpClient, new RedirectStatistics(), new PermanentRedirectCache());
+	}
+
+	/**
+	 * @param httpClient         The client sending the requests
+	 * @param statistics         Records followed, avoided and invalidated redirects
+	 * @param permanentRedirects Permanent redirects known so far, which may be shared with handlers using other clients
+	 */
+	WebDavRedirectHandler(final OkHttpClient httpClient, final RedirectStatistics statistics, final PermanentRedirectCache permanentRedirects) {
 		this.httpClient = httpClient;
+		this.statistics = statistics;
+		this.permanentRedirects = permanentRedirects;
+	}
+
+	/**
+	 * Enqueues the request on OkHttp's dispatcher and follows redirects from within the response callbacks,
+	 * so no thread is blocked while the request is in flight.
+	 * <p>
+	 * If the URL of the request is known to be redirected permanently, the request is sent to the final location directly. Should this request fail
+	 * or respond with 404, the cached redirect is discarded and, unless the request body can't be sent again, the original request is sent instead.
+	 *
+	 * @param request The request to execute
+	 * @return CompletableFuture completed with the final (non-redirect) response or completed exceptionally with an {@link IOException}
+	 */
+	public CompletableFuture<Response> executeFollowingRedirects(final Request request) {
+		final var result = new CompletableFuture<Response>();
+		final var knownRedirect = permanentRedirects.lookup(request.url());
+		if (knownRedirect.isPresent()) {
+			statistics.recordRedirectAvoided();
+			enqueueKnownRedirect(request, knownRedirect.get(), result);
+		} else {
+			enqueueFollowingRedirects(request, 0, result);
+		}
+		return result;
+	}
+
+	private void enqueueKnownRedirect(final Request request, final PermanentRedirectCache.Redirect redirect, final CompletableFuture<Response> result) {
+		final var redirectedRequest = createRedirectedRequest(request, redirect.location());
+		httpClient.newCall(redirectedRequest).enqueue(new Callback() {
+			@Override
+			public void onFailure(final Call call, final IOException e) {
+				invalidate(redirect);
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(final Call call, final Response response) {
+				if (response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+					invalidate(redirect);
+					if (request.body() == null || !request.body().isOneShot()) {
+						response.close();
+						enqueueFollowingRedirects(request, 0, result);
+						return;
+					}
+				}
+				handleResponse(response, 0, result);
+			}
+		});
+	}
+
+	private void invalidate(final PermanentRedirectCache.Redirect redirect) {
+		permanentRedirects.invalidate(redirect);
+		statistics.recordInvalidation();
+	}
+
+	private void enqueueFollowingRedirects(final Request request, final int redirectCount, final CompletableFuture<Response> result) {
+		if (redirectCount > MAX_REDIRECT_COUNT) {
+			result.completeExceptionally(new ProtocolException("Too many redirects: " + redirectCount));
+			return;
+		}
+		httpClient.newCall(request).enqueue(new Callback() {
+			@Override
+			public void onFailure(final Call call, final IOException e) {
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(final Call call, final Response response) {
+				handleResponse(response, redirectCount, result);
+			}
+		});
 	}
 
-	public Response executeFollowingRedirects(Request request) throws IOException {
-		Response response;
-		var redirectCount = 0;
-		do {
-			if (redirectCount > MAX_REDIRECT_COUNT) {
-				throw new ProtocolException("Too many redirects: " + redirectCount);
+	private void handleResponse(final Response response, final int redirectCount, final CompletableFuture<Response> result) {
+		final var redirectedRequest = redirectedRequestFor(response);
+		if (redirectedRequest == NO_REDIRECTED_REQUEST) {
+			result.complete(response);
+		} else {
+			statistics.recordRedirectFollowed();
+			if (isPermanentRedirect(response)) {
+				permanentRedirects.put(response.request().url(), redirectedRequest.url(), isCollection(response.request()));
 			}
-			response = httpClient.newCall(request).execute();
-			request = redirectedRequestFor(response);
-			redirectCount++;
-		} while (request != NO_REDIRECTED_REQUEST);
-		return response;
+			response.close();
+			enqueueFollowingRedirects(redirectedRequest, redirectCount + 1, result);
+		}
+	}
+
+	private boolean isPermanentRedirect(final Response response) {
+		return response.code() == HttpURLConnection.HTTP_MOVED_PERM //
+				|| response.code() == HTTP_PERMANENT_REDIRECT;
+	}
+
+	/**
+	 * A request is known to address a collection if its path ends with a slash or it lists members using a PROPFIND of Depth 1 or infinity.
+	 */
+	private boolean isCollection(final Request request) {
+		final var segments = request.url().encodedPathSegments();
+		final var depth = request.header("Depth");
+		return segments.get(segments.size() - 1).isEmpty() //
+				|| ("PROPFIND".equals(request.method()) && ("1".equals(depth) || "infinity".equalsIgnoreCase(depth)));
 	}
 
 	private Request redirectedRequestFor(final Response response) {
@@ -67,6 +170,14 @@ class WebDavRedirectHandler {
 		return requestBuilder.build();
 	}
 
+	private Request createRedirectedRequest(final Request request, final HttpUrl url) {
+		final var requestBuilder = request.newBuilder().url(url);
+		if (!connectionMatches(request.url(), url)) {
+			requestBuilder.removeHeader("Authorization");
+		}
+		return requestBuilder.build();
+	}
+
 	private boolean methodShouldBeChangedToGet(final Response response) {
 		return response.code() == 300 //
 				|| response.code() == 303;
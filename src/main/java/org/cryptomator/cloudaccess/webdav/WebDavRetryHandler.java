@@ -0,0 +1,179 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Repeats requests which failed transiently, waiting with exponential backoff and jitter between the attempts.
+ * <p>
+ * Whether a request is repeated depends on its method and on how it failed:
+ * <ul>
+ *     <li>Requests with a one-shot body, e.g. uploads streamed from an {@link java.io.InputStream}, are never repeated</li>
+ *     <li>Requests which did not reach the server (connection refused, unknown host) or were declined by it (429, 503) are repeated regardless of the method</li>
+ *     <li>Requests which might have been processed (other I/O errors, 502, 504) are only repeated for idempotent methods</li>
+ *     <li>Conditional writes (<code>If-Match</code>, <code>If-None-Match</code>) are not repeated either in this case, as a processed first attempt lets the repetition fail with 412</li>
+ * </ul>
+ * A <code>Retry-After</code> header sent by the server extends the delay. All attempts of a request together must not exceed the time budget,
+ * if the next attempt would start after the budget elapsed, the last failure is passed on immediately.
+ */
+class WebDavRetryHandler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WebDavRetryHandler.class);
+	private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PROPFIND", "PUT", "DELETE");
+	private static final Set<String> WRITE_METHODS = Set.of("PUT", "DELETE");
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+	private static final int MAX_BACKOFF_EXPONENT = 30;
+
+	private final Function<Request, CompletableFuture<Response>> delegate;
+	private final int maxRetries;
+	private final long baseDelayMillis;
+	private final long maxDelayMillis;
+	private final Duration budget;
+	private final RetryStatistics statistics;
+
+	WebDavRetryHandler(final Function<Request, CompletableFuture<Response>> delegate, final WebDavProviderConfig config, final RetryStatistics statistics) {
+		this(delegate, config.getMaxRetries(), config.getRetryBaseDelayMillis(), config.getRetryMaxDelayMillis(), Duration.ofSeconds(config.getRetryBudgetSeconds()), statistics);
+	}
+
+	// visible for testing
+	WebDavRetryHandler(final Function<Request, CompletableFuture<Response>> delegate, final int maxRetries, final long baseDelayMillis, final long maxDelayMillis, final Duration budget, final RetryStatistics statistics) {
+		this.delegate = delegate;
+		this.maxRetries = maxRetries;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.budget = budget;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Executes the request, repeating it after transient failures without blocking any thread in between.
+	 *
+	 * @param request The request to execute
+	 * @return CompletableFuture completed with the response of the last attempt or completed exceptionally with the {@link IOException} of the last attempt
+	 */
+	CompletableFuture<Response> execute(final Request request) {
+		final var result = new CompletableFuture<Response>();
+		attempt(request, 0, System.nanoTime() + budget.toNanos(), result);
+		return result;
+	}
+
+	private void attempt(final Request request, final int retryCount, final long deadlineNanos, final CompletableFuture<Response> result) {
+		delegate.apply(request).whenComplete((response, exception) -> {
+			final var cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+			if (!isTransientFailure(request, response, cause)) {
+				if (retryCount > 0) {
+					statistics.recordRecovered();
+				}
+				complete(result, response, cause);
+				return;
+			}
+			if (retryCount >= maxRetries) {
+				if (maxRetries > 0) {
+					statistics.recordExhausted();
+				}
+				complete(result, response, cause);
+				return;
+			}
+			final var delayMillis = Math.max(backoffMillis(retryCount), retryAfterMillis(response));
+			if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis) - deadlineNanos > 0) {
+				statistics.recordBudgetExceeded();
+				complete(result, response, cause);
+				return;
+			}
+			if (response != null) {
+				response.close();
+			}
+			statistics.recordRetry();
+			LOG.debug("Retrying {} {} in {} ms after {}", request.method(), request.url(), delayMillis, response != null ? response.code() : cause.toString());
+			CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, Runnable::run).execute(() -> attempt(request, retryCount + 1, deadlineNanos, result));
+		});
+	}
+
+	private static void complete(final CompletableFuture<Response> result, final Response response, final Throwable exception) {
+		if (exception != null) {
+			result.completeExceptionally(exception);
+		} else {
+			result.complete(response);
+		}
+	}
+
+	private static boolean isTransientFailure(final Request request, final Response response, final Throwable exception) {
+		if (request.body() != null && request.body().isOneShot()) {
+			return false;
+		}
+		if (exception != null) {
+			return isTransientFailure(request, exception);
+		}
+		switch (response.code()) {
+			case HTTP_TOO_MANY_REQUESTS: // fall through
+			case HttpURLConnection.HTTP_UNAVAILABLE:
+				return true;
+			case HttpURLConnection.HTTP_BAD_GATEWAY: // fall through
+			case HttpURLConnection.HTTP_GATEWAY_TIMEOUT:
+				return isIdempotent(request);
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isTransientFailure(final Request request, final Throwable exception) {
+		if (exception instanceof ConnectException || exception instanceof UnknownHostException) {
+			return true;
+		} else if (exception instanceof ProtocolException || exception instanceof SSLHandshakeException) {
+			return false;
+		} else {
+			return exception instanceof IOException && isIdempotent(request);
+		}
+	}
+
+	/**
+	 * @param request A request
+	 * @return Whether the request may be repeated although a previous attempt might have been processed
+	 */
+	static boolean isIdempotent(final Request request) {
+		if (WRITE_METHODS.contains(request.method()) && (request.header("If-Match") != null || request.header("If-None-Match") != null)) {
+			// the precondition no longer holds if the first attempt has been processed, like COPY or MOVE with "Overwrite: F"
+			return false;
+		}
+		return IDEMPOTENT_METHODS.contains(request.method());
+	}
+
+	private long backoffMillis(final int retryCount) {
+		final var ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retryCount, MAX_BACKOFF_EXPONENT));
+		final var half = ceiling / 2;
+		return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+	}
+
+	// visible for testing
+	static long retryAfterMillis(final Response response) {
+		final var retryAfter = response != null ? response.header("Retry-After") : null;
+		if (retryAfter == null) {
+			return 0;
+		}
+		try {
+			return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(retryAfter.trim())));
+		} catch (NumberFormatException e) {
+			return HttpDates.parse(retryAfter) //
+					.map(date -> Math.max(0, Duration.between(Instant.now(), date).toMillis())) //
+					.orElse(0L);
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP transport which can be shared by many {@link WebDavCloudProvider WebDavCloudProviders}, e.g. when serving many accounts from a single process.
+ * <p>
+ * Connection pool, dispatcher threads and TLS session cache are shared, while credentials and authentication state remain per provider.
+ * <p>
+ * File contents are transferred by a separate dispatcher, which has limits of its own. As transfers may be throttled by a {@link BandwidthLimiter},
+ * they can occupy their slots for a long time, which must not hold back metadata requests.
+ */
+public class WebDavTransport {
+
+	private final WebDavProviderConfig config;
+	private final OkHttpClient baseClient;
+	private final OkHttpClient transferClient;
+	private final RetryStatistics retryStatistics = new RetryStatistics();
+	private final RedirectStatistics redirectStatistics = new RedirectStatistics();
+	private final NetworkTimings networkTimings = new NetworkTimings();
+	private final Map<String, AdaptiveConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+
+	private WebDavTransport(final WebDavProviderConfig config, final Dispatcher dispatcher) {
+		this.config = config;
+		this.baseClient = baseClientFor(config, dispatcher, networkTimings);
+		this.transferClient = transferClientFor(config, baseClient);
+	}
+
+	/**
+	 * Creates a transport configured from system properties, executing HTTP calls on OkHttp's default thread pool.
+	 *
+	 * @return A new transport
+	 */
+	public static WebDavTransport create() {
+		return new WebDavTransport(WebDavProviderConfig.createFromSystemPropertiesOrDefaults(), new Dispatcher());
+	}
+
+	/**
+	 * Creates a transport configured from system properties, executing HTTP calls on the given <code>executorService</code>.
+	 *
+	 * @param executorService The executor running network calls and response processing
+	 * @return A new transport
+	 */
+	public static WebDavTransport create(final ExecutorService executorService) {
+		return new WebDavTransport(WebDavProviderConfig.createFromSystemPropertiesOrDefaults(), new Dispatcher(executorService));
+	}
+
+	private static OkHttpClient baseClientFor(final WebDavProviderConfig config, final Dispatcher dispatcher, final NetworkTimings networkTimings) {
+		dispatcher.setMaxRequests(config.getMaxRequests());
+		// with adaptive concurrency the limiter governs the requests per host, the dispatcher must not prevent it from probing beyond maxRequestsPerHost
+		dispatcher.setMaxRequestsPerHost(config.isAdaptiveConcurrency() ? Math.max(config.getMaxRequestsPerHost(), config.getMaxConcurrency()) : config.getMaxRequestsPerHost());
+		return new OkHttpClient()
+				.newBuilder()
+				.dispatcher(dispatcher)
+				.connectionPool(new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveDurationSeconds(), TimeUnit.SECONDS))
+				.protocols(config.getProtocols())
+				.connectTimeout(config.getConnectionTimeoutSeconds(), TimeUnit.SECONDS)
+				.readTimeout(config.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+				.writeTimeout(config.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+				.followRedirects(false)
+				.eventListenerFactory(NetworkTimingListener.factory(networkTimings))
+				.build();
+	}
+
+	private static OkHttpClient transferClientFor(final WebDavProviderConfig config, final OkHttpClient baseClient) {
+		final var dispatcher = new Dispatcher(baseClient.dispatcher().executorService());
+		dispatcher.setMaxRequests(config.getMaxRequests());
+		dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+		return baseClient.newBuilder().dispatcher(dispatcher).build();
+	}
+
+	/**
+	 * @return A builder sharing connection pool, dispatcher and TLS socket factory with all other clients of this transport
+	 */
+	OkHttpClient.Builder newClientBuilder() {
+		return baseClient.newBuilder();
+	}
+
+	/**
+	 * @return A builder like {@link #newClientBuilder()}, but using the dispatcher reserved for transfers of file contents
+	 */
+	OkHttpClient.Builder newTransferClientBuilder() {
+		return transferClient.newBuilder();
+	}
+
+	WebDavProviderConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * @return Counters of the requests retried after transient failures, summed up over all providers using this transport
+	 */
+	public RetryStatistics getRetryStatistics() {
+		return retryStatistics;
+	}
+
+	/**
+	 * @return Counters of the redirects followed and avoided, summed up over all providers using this transport
+	 */
+	public RedirectStatistics getRedirectStatistics() {
+		return redirectStatistics;
+	}
+
+	/**
+	 * @return DNS, connect, TLS, request, time-to-first-byte and response body timings of all calls made through this transport
+	 */
+	public NetworkTimings getNetworkTimings() {
+		return networkTimings;
+	}
+
+	/**
+	 * @param host The host requests are sent to
+	 * @return The limiter shared by all requests to <code>host</code> or empty if adaptive concurrency is disabled
+	 */
+	Optional<AdaptiveConcurrencyLimiter> concurrencyLimiterFor(final String host) {
+		if (!config.isAdaptiveConcurrency()) {
+			return Optional.empty();
+		}
+		return Optional.of(concurrencyLimiters.computeIfAbsent(host, h -> new AdaptiveConcurrencyLimiter(config.getMinConcurrency(), config.getMaxRequestsPerHost(), config.getMaxConcurrency())));
+	}
+
+	/**
+	 * @return The concurrency limiters of all hosts contacted so far, by host name
+	 */
+	public Map<String, AdaptiveConcurrencyLimiter> getConcurrencyLimiters() {
+		return Collections.unmodifiableMap(concurrencyLimiters);
+	}
+
+}
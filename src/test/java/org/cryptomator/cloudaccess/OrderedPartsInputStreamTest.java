@@ -0,0 +1,108 @@
+package org.cryptomator.cloudaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class OrderedPartsInputStreamTest {
+
+	private final List<CompletableFuture<InputStream>> parts = new ArrayList<>();
+
+	private CompletableFuture<InputStream> loadPart(int part) {
+		Assertions.assertEquals(parts.size(), part);
+		var future = new CompletableFuture<InputStream>();
+		parts.add(future);
+		return future;
+	}
+
+	private static InputStream content(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	@DisplayName("parts completing out of order are read in order")
+	public void testReadInOrder() throws IOException {
+		var in = new OrderedPartsInputStream(3, this::loadPart, 3);
+		parts.get(2).complete(content("baz"));
+		parts.get(1).complete(content("bar"));
+		parts.get(0).complete(content("foo"));
+
+		Assertions.assertEquals("foobarbaz", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	@DisplayName("no more than parallelism parts are loaded ahead")
+	public void testLoadAheadIsBounded() throws IOException {
+		var in = new OrderedPartsInputStream(5, this::loadPart, 2);
+		Assertions.assertEquals(2, parts.size());
+
+		parts.get(0).complete(content("a"));
+		Assertions.assertEquals('a', in.read());
+		Assertions.assertEquals(3, parts.size());
+
+		parts.get(1).complete(content("b"));
+		parts.get(2).complete(content("c"));
+		Assertions.assertEquals('b', in.read());
+		Assertions.assertEquals(4, parts.size());
+	}
+
+	@Test
+	@DisplayName("a failed part fails reading with an IOException")
+	public void testFailedPart() throws IOException {
+		var in = new OrderedPartsInputStream(2, this::loadPart, 2);
+		parts.get(0).complete(content("a"));
+		parts.get(1).completeExceptionally(new IOException("boom"));
+
+		Assertions.assertEquals('a', in.read());
+		var e = Assertions.assertThrows(IOException.class, in::read);
+		Assertions.assertEquals("boom", e.getCause().getMessage());
+	}
+
+	@Test
+	@DisplayName("no further parts are loaded once a part failed")
+	public void testNoLoadAheadAfterFailedPart() throws IOException {
+		var in = new OrderedPartsInputStream(5, this::loadPart, 2);
+		parts.get(0).complete(content("a"));
+		parts.get(1).completeExceptionally(new IOException("boom"));
+
+		Assertions.assertEquals('a', in.read());
+		Assertions.assertEquals(2, parts.size());
+	}
+
+	@Test
+	@DisplayName("parts loaded after closing the stream are closed")
+	public void testCloseClosesPendingParts() throws IOException {
+		var in = new OrderedPartsInputStream(2, this::loadPart, 2);
+		var closed = new CompletableFuture<Void>();
+		var late = new ByteArrayInputStream(new byte[1]) {
+			@Override
+			public void close() {
+				closed.complete(null);
+			}
+		};
+
+		in.close();
+		parts.get(1).complete(late);
+
+		Assertions.assertTrue(closed.isDone());
+		Assertions.assertThrows(IOException.class, in::read);
+	}
+
+	@Test
+	@DisplayName("zero parts make an empty stream")
+	public void testNoParts() throws IOException {
+		var in = new OrderedPartsInputStream(0, this::loadPart, 2);
+
+		Assertions.assertEquals(-1, in.read());
+		Assertions.assertTrue(parts.isEmpty());
+	}
+
+}
@@ -11,6 +11,7 @@ import org.mockito.Mockito;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -42,6 +43,23 @@ public class CloudProviderTest {
 		MatcherAssert.assertThat(itemList.getItems(), CoreMatchers.hasItems(item1, item2, item3, item4, item5, item6));
 	}
 
+	@Test
+	@DisplayName("itemMetadata() of several nodes omits missing nodes")
+	public void testItemMetadataOfSeveralNodes() {
+		CloudPath p1 = CloudPath.of("/p1");
+		CloudPath p2 = CloudPath.of("/p2");
+		CloudItemMetadata item1 = Mockito.mock(CloudItemMetadata.class, "item1");
+		CloudProvider provider = Mockito.mock(CloudProvider.class);
+		Mockito.when(provider.itemMetadata(List.of(p1, p2))).thenCallRealMethod();
+		Mockito.when(provider.itemMetadata(p1)).thenReturn(CompletableFuture.completedFuture(item1));
+		Mockito.when(provider.itemMetadata(p2)).thenReturn(CompletableFuture.failedFuture(new NotFoundException()));
+
+		var result = provider.itemMetadata(List.of(p1, p2));
+		var metadata = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals(Map.of(p1, item1), metadata);
+	}
+
 	@Test
 	public void testRead() {
 		CloudPath p = Mockito.mock(CloudPath.class, "path");
@@ -6,6 +6,8 @@ import org.cryptomator.cloudaccess.api.CloudPath;
 import org.cryptomator.cloudaccess.api.CloudProvider;
 import org.cryptomator.cloudaccess.api.ProgressListener;
 import org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException;
+import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
+import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.Assertions;
@@ -13,16 +15,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class LocalFsCloudProviderTest {
@@ -53,6 +62,22 @@ public class LocalFsCloudProviderTest {
 		Assertions.assertEquals(Files.getLastModifiedTime(root.resolve("file")).toInstant(), metaData.getLastModifiedDate().get());
 	}
 
+	@Test
+	@DisplayName("get metadata of /file, /dir/file and missing nodes at once")
+	public void testItemMetadataOfSeveralNodes() throws IOException {
+		Files.write(root.resolve("file"), "hello world".getBytes());
+		Files.createDirectory(root.resolve("dir"));
+		Files.write(root.resolve("dir/file"), "hello".getBytes());
+
+		var result = provider.itemMetadata(List.of(CloudPath.of("/file"), CloudPath.of("/dir/file"), CloudPath.of("/dir/missing"), CloudPath.of("/missing/file"), CloudPath.of("/file/file")));
+		var metadata = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals(Set.of(CloudPath.of("/file"), CloudPath.of("/dir/file")), metadata.keySet());
+		Assertions.assertEquals(11, metadata.get(CloudPath.of("/file")).getSize().get());
+		Assertions.assertEquals(CloudPath.of("/dir/file"), metadata.get(CloudPath.of("/dir/file")).getPath());
+		Assertions.assertEquals(5, metadata.get(CloudPath.of("/dir/file")).getSize().get());
+	}
+
 	@Test
 	@DisplayName("quota /")
 	public void testQuota() throws IOException {
@@ -152,6 +177,64 @@ public class LocalFsCloudProviderTest {
 	}
 
 
+	@Test
+	@DisplayName("read /file to local file")
+	public void testReadToPath(@TempDir Path targetDir) throws IOException {
+		Files.write(root.resolve("file"), "hello world".getBytes());
+		var target = Files.write(targetDir.resolve("target"), "previous content which is longer".getBytes());
+
+		var result = provider.readTo(CloudPath.of("/file"), target, ProgressListener.NO_PROGRESS_AWARE);
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals("hello world", Files.readString(target));
+	}
+
+	@Test
+	@DisplayName("read non-existing /file to local file")
+	public void testReadToPathFromMissingFile(@TempDir Path targetDir) {
+		var result = provider.readTo(CloudPath.of("/file"), targetDir.resolve("target"), ProgressListener.NO_PROGRESS_AWARE);
+
+		Assertions.assertThrows(NotFoundException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+	}
+
+	@Test
+	@DisplayName("write local file to /file (non-existing)")
+	public void testWriteFromPathToNewFile(@TempDir Path sourceDir) throws IOException {
+		var source = Files.write(sourceDir.resolve("source"), "hallo welt".getBytes());
+
+		var result = provider.write(CloudPath.of("/file"), false, source, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals("hallo welt", Files.readString(root.resolve("file")));
+	}
+
+	@Test
+	@DisplayName("write local file to /file (already existing)")
+	public void testWriteFromPathToExistingFile(@TempDir Path sourceDir) throws IOException {
+		Files.write(root.resolve("file"), "hello world".getBytes());
+		var source = Files.write(sourceDir.resolve("source"), "hallo welt".getBytes());
+
+		var result = provider.write(CloudPath.of("/file"), false, source, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+
+		Assertions.assertThrows(AlreadyExistsException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+		Assertions.assertEquals("hello world", Files.readString(root.resolve("file")));
+	}
+
+	@Test
+	@DisplayName("write missing local file to /file")
+	public void testWriteFromMissingPath(@TempDir Path sourceDir) {
+		var result = provider.write(CloudPath.of("/file"), false, sourceDir.resolve("missing"), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+
+		var exception = Assertions.assertThrows(CloudProviderException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+		Assertions.assertFalse(exception instanceof NotFoundException);
+	}
+
 	@Test
 	@DisplayName("write to /file (non-existing) update modification date")
 	public void testWriteToNewFileUpdateModificationDate() throws IOException {
@@ -245,4 +328,113 @@ public class LocalFsCloudProviderTest {
 		Assertions.assertTrue(Files.notExists(root.resolve("foo")));
 		Assertions.assertTrue(Files.exists(root.resolve("bar")));
 	}
+
+	@Test
+	@DisplayName("copy /foo -> /bar (non-existing)")
+	public void testCopyFileToNonExisting() throws IOException {
+		Files.write(root.resolve("foo"), "hello world".getBytes());
+
+		var result = provider.copy(CloudPath.of("/foo"), CloudPath.of("/bar"), false);
+		var copied = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals(CloudPath.of("/bar"), copied);
+		Assertions.assertEquals("hello world", Files.readString(root.resolve("foo")));
+		Assertions.assertEquals("hello world", Files.readString(root.resolve("bar")));
+	}
+
+	@Test
+	@DisplayName("copy /foo -> /bar (already exists)")
+	public void testCopyToExisting() throws IOException {
+		Files.createFile(root.resolve("foo"));
+		Files.createFile(root.resolve("bar"));
+
+		var result = provider.copy(CloudPath.of("/foo"), CloudPath.of("/bar"), false);
+		Assertions.assertThrows(AlreadyExistsException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+	}
+
+	@Test
+	@DisplayName("copy folder /foo -> /bar (replace existing)")
+	public void testCopyFolderToAndReplaceExisting() throws IOException {
+		Files.createDirectories(root.resolve("foo/sub"));
+		Files.write(root.resolve("foo/sub/file"), "hello world".getBytes());
+		Files.createDirectory(root.resolve("bar"));
+		Files.createFile(root.resolve("bar/stale"));
+
+		var result = provider.copy(CloudPath.of("/foo"), CloudPath.of("/bar"), true);
+		var copied = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals(CloudPath.of("/bar"), copied);
+		Assertions.assertEquals("hello world", Files.readString(root.resolve("foo/sub/file")));
+		Assertions.assertEquals("hello world", Files.readString(root.resolve("bar/sub/file")));
+		Assertions.assertTrue(Files.notExists(root.resolve("bar/stale")));
+	}
+
+	@Test
+	@DisplayName("copy folder /foo -> /foo/bar (descendant of source)")
+	public void testCopyFolderIntoItself() throws IOException {
+		Files.createDirectory(root.resolve("foo"));
+		Files.createFile(root.resolve("foo/file"));
+
+		var result = provider.copy(CloudPath.of("/foo"), CloudPath.of("/foo/bar"), false);
+		Assertions.assertThrows(CloudProviderException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+		Assertions.assertTrue(Files.notExists(root.resolve("foo/bar")));
+		Assertions.assertTrue(Files.exists(root.resolve("foo/file")));
+	}
+
+	@Test
+	@DisplayName("copy /foo -> /foo (replace existing)")
+	public void testCopyToItselfAndReplace() throws IOException {
+		Files.write(root.resolve("foo"), "hello world".getBytes());
+
+		var result = provider.copy(CloudPath.of("/foo"), CloudPath.of("/foo"), true);
+		Assertions.assertThrows(CloudProviderException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+		Assertions.assertEquals("hello world", Files.readString(root.resolve("foo")));
+	}
+
+	@Test
+	@DisplayName("copy /missing -> /bar")
+	public void testCopyMissing() {
+		var result = provider.copy(CloudPath.of("/missing"), CloudPath.of("/bar"), false);
+		Assertions.assertThrows(NotFoundException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().join());
+		});
+	}
+
+	@Test
+	@DisplayName("transfer of a source truncated meanwhile fails instead of spinning")
+	public void testTransferFullyFromTruncatedSource() throws IOException {
+		var src = Mockito.mock(FileChannel.class);
+		var dst = Mockito.mock(FileChannel.class);
+		Mockito.when(src.size()).thenReturn(100L, 40L);
+		Mockito.when(src.transferTo(Mockito.anyLong(), Mockito.anyLong(), Mockito.eq(dst))).thenReturn(40L, 0L);
+
+		var e = Assertions.assertThrows(EOFException.class, () -> {
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> LocalFsCloudProvider.transferFully(src, dst));
+		});
+		Assertions.assertEquals("Source ended after 40 of 100 bytes", e.getMessage());
+	}
+
+	@Test
+	@DisplayName("get metadata of /file on given executor")
+	public void testItemMetadataRunsOnExecutor() throws IOException {
+		Files.write(root.resolve("file"), "hello world".getBytes());
+		var submittedTasks = new AtomicInteger();
+		Executor executor = task -> {
+			submittedTasks.incrementAndGet();
+			task.run();
+		};
+		var providerWithExecutor = new LocalFsCloudProvider(root, executor);
+
+		var result = providerWithExecutor.itemMetadata(CloudPath.of("/file"));
+		var metaData = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> result.toCompletableFuture().get());
+
+		Assertions.assertEquals(CloudPath.of("/file"), metaData.getPath());
+		Assertions.assertEquals(1, submittedTasks.get());
+	}
 }
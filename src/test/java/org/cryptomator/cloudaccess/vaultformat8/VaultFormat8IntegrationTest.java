@@ -2,7 +2,14 @@ package org.cryptomator.cloudaccess.vaultformat8;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 import org.cryptomator.cloudaccess.CloudAccess;
+import org.cryptomator.cloudaccess.api.CloudItemMetadata;
+import org.cryptomator.cloudaccess.api.CloudItemType;
 import org.cryptomator.cloudaccess.api.CloudPath;
 import org.cryptomator.cloudaccess.api.CloudProvider;
 import org.cryptomator.cloudaccess.api.ProgressListener;
@@ -11,6 +18,7 @@ import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.cryptomator.cloudaccess.api.exceptions.VaultKeyVerificationFailedException;
 import org.cryptomator.cloudaccess.api.exceptions.VaultVerificationFailedException;
 import org.cryptomator.cloudaccess.api.exceptions.VaultVersionVerificationFailedException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,21 +30,30 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 public class VaultFormat8IntegrationTest {
 
 	private static final Duration TIMEOUT = Duration.ofMillis(100);
 
+	private Path tmpDir;
 	private CloudProvider localProvider;
 
 	@BeforeEach
 	public void setup(@TempDir Path tmpDir) throws IOException {
+		this.tmpDir = tmpDir;
 		this.localProvider = CloudAccess.toLocalFileSystem(tmpDir);
 	}
 
@@ -75,6 +92,223 @@ public class VaultFormat8IntegrationTest {
 			Assertions.assertArrayEquals(Arrays.copyOfRange(content, 2000, 17000), inputStream2.readAllBytes());
 		}
 
+		@Test
+		@DisplayName("write and read to local file through encryption decorator")
+		public void testWriteThenReadToFile(@TempDir Path targetDir) throws IOException {
+			var path = CloudPath.of("/file.txt");
+			var content = new byte[100_000];
+			new Random(42l).nextBytes(content);
+			var target = targetDir.resolve("file.txt");
+
+			var futureMetadata = encryptedProvider.write(path, true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureMetadata.toCompletableFuture().get());
+
+			var futureRead = encryptedProvider.readTo(path, target, ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> futureRead.toCompletableFuture().get());
+			Assertions.assertArrayEquals(content, Files.readAllBytes(target));
+		}
+
+		@Test
+		@DisplayName("read to local file through encryption decorator on given I/O executor")
+		public void testReadToFileOnIoExecutor(@TempDir Path targetDir) throws IOException {
+			var path = CloudPath.of("/file.txt");
+			var content = new byte[100_000];
+			new Random(42l).nextBytes(content);
+			var target = targetDir.resolve("file.txt");
+			var ioTasks = new AtomicInteger();
+			Executor ioExecutor = task -> {
+				ioTasks.incrementAndGet();
+				task.run();
+			};
+			var ioProvider = CloudAccess.vaultFormat8GCMCloudAccess(localProvider, CloudPath.of("/"), new byte[64], Runnable::run, ioExecutor);
+
+			var futureMetadata = ioProvider.write(path, true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureMetadata.toCompletableFuture().get());
+			var futureRead = ioProvider.readTo(path, target, ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> futureRead.toCompletableFuture().get());
+
+			Assertions.assertArrayEquals(content, Files.readAllBytes(target));
+			Assertions.assertEquals(1, ioTasks.get());
+		}
+
+		@Test
+		@DisplayName("read to local file fails and leaves no partially written file if the ciphertext has been tampered with")
+		public void testReadToFileWithTamperedCiphertext(@TempDir Path targetDir) throws IOException {
+			var path = CloudPath.of("/file.txt");
+			var content = new byte[100_000];
+			new Random(42l).nextBytes(content);
+			var target = targetDir.resolve("file.txt");
+			var futureMetadata = encryptedProvider.write(path, true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureMetadata.toCompletableFuture().get());
+			try (var files = Files.walk(tmpDir)) {
+				var ciphertextFile = files.filter(file -> file.getFileName().toString().endsWith(".c9r") && Files.isRegularFile(file)).findAny().orElseThrow();
+				var ciphertext = Files.readAllBytes(ciphertextFile);
+				ciphertext[ciphertext.length - 1] ^= 0x01; // last chunk
+				Files.write(ciphertextFile, ciphertext);
+			}
+
+			var futureRead = encryptedProvider.readTo(path, target, ProgressListener.NO_PROGRESS_AWARE);
+
+			Assertions.assertThrows(ExecutionException.class, () -> Assertions.assertTimeoutPreemptively(Duration.ofSeconds(1), () -> futureRead.toCompletableFuture().get()));
+			Assertions.assertTrue(Files.notExists(target));
+		}
+
+		@Test
+		@DisplayName("get metadata of several nodes through encryption decorator")
+		public void testItemMetadataOfSeveralNodes() {
+			var futureFolder = encryptedProvider.createFolder(CloudPath.of("/dir"));
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureFolder.toCompletableFuture().get());
+			var futureFile = encryptedProvider.write(CloudPath.of("/dir/file.txt"), true, new ByteArrayInputStream(new byte[42]), 42, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureFile.toCompletableFuture().get());
+
+			var futureMetadata = encryptedProvider.itemMetadata(List.of(CloudPath.of("/"), CloudPath.of("/dir"), CloudPath.of("/dir/file.txt"), CloudPath.of("/dir/missing.txt"), CloudPath.of("/missing/file.txt")));
+			var metadata = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureMetadata.toCompletableFuture().get());
+
+			Assertions.assertEquals(Set.of(CloudPath.of("/"), CloudPath.of("/dir"), CloudPath.of("/dir/file.txt")), metadata.keySet());
+			Assertions.assertEquals(CloudItemType.FOLDER, metadata.get(CloudPath.of("/dir")).getItemType());
+			Assertions.assertEquals("file.txt", metadata.get(CloudPath.of("/dir/file.txt")).getName());
+			Assertions.assertEquals(42, metadata.get(CloudPath.of("/dir/file.txt")).getSize().get());
+		}
+
+		@Test
+		@DisplayName("copy file and folder through encryption decorator")
+		public void testCopy() throws IOException {
+			var content = new byte[100_000];
+			new Random(42l).nextBytes(content);
+			var futureFolder = encryptedProvider.createFolder(CloudPath.of("/dir"));
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureFolder.toCompletableFuture().get());
+			var futureFile = encryptedProvider.write(CloudPath.of("/dir/file.txt"), true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureFile.toCompletableFuture().get());
+
+			var futureFileCopy = encryptedProvider.copy(CloudPath.of("/dir/file.txt"), CloudPath.of("/copy.txt"), false);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureFileCopy.toCompletableFuture().get());
+			var futureFolderCopy = encryptedProvider.copy(CloudPath.of("/dir"), CloudPath.of("/dir copy"), false);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureFolderCopy.toCompletableFuture().get());
+
+			for (var path : List.of(CloudPath.of("/dir/file.txt"), CloudPath.of("/copy.txt"), CloudPath.of("/dir copy/file.txt"))) {
+				var futureInputStream = encryptedProvider.read(path, ProgressListener.NO_PROGRESS_AWARE);
+				var inputStream = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureInputStream.toCompletableFuture().get());
+				Assertions.assertArrayEquals(content, inputStream.readAllBytes(), path.toString());
+			}
+
+			// the copied folder is independent of the original one
+			var futureDelete = encryptedProvider.deleteFolder(CloudPath.of("/dir"));
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureDelete.toCompletableFuture().get());
+			var futureList = encryptedProvider.listExhaustively(CloudPath.of("/dir copy"));
+			var list = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureList.toCompletableFuture().get());
+			Assertions.assertEquals(List.of(CloudPath.of("/dir copy/file.txt")), list.getItems().stream().map(CloudItemMetadata::getPath).toList());
+		}
+
+		@Test
+		@DisplayName("read through encryption decorator in parts of one chunk each")
+		public void testWriteThenReadFileInParts() throws IOException {
+			var path = CloudPath.of("/file.txt");
+			var content = new byte[100_000];
+			new Random(42l).nextBytes(content);
+			System.setProperty("org.cryptomator.cloudaccess.vaultformat8.parallelReadParts", "3");
+			System.setProperty("org.cryptomator.cloudaccess.vaultformat8.chunksPerReadPart", "1");
+			try {
+				var partsProvider = CloudAccess.vaultFormat8GCMCloudAccess(localProvider, CloudPath.of("/"), new byte[64]);
+
+				var futureMetadata = partsProvider.write(path, true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+				Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureMetadata.toCompletableFuture().get());
+
+				// read all bytes
+				var futureInputStream1 = partsProvider.read(path, ProgressListener.NO_PROGRESS_AWARE);
+				var inputStream1 = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureInputStream1.toCompletableFuture().get());
+				Assertions.assertArrayEquals(content, inputStream1.readAllBytes());
+
+				// read partially, spanning three chunks
+				var futureInputStream2 = partsProvider.read(path, 30000, 40000, ProgressListener.NO_PROGRESS_AWARE);
+				var inputStream2 = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureInputStream2.toCompletableFuture().get());
+				Assertions.assertArrayEquals(Arrays.copyOfRange(content, 30000, 70000), inputStream2.readAllBytes());
+			} finally {
+				System.clearProperty("org.cryptomator.cloudaccess.vaultformat8.parallelReadParts");
+				System.clearProperty("org.cryptomator.cloudaccess.vaultformat8.chunksPerReadPart");
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("with valid /vaultconfig.jwt served via WebDAV")
+	public class WithVaultServedViaWebDav {
+
+		private static final String ROOT_PROPFIND_RESPONSE = "<d:multistatus xmlns:d=\"DAV:\"><d:response><d:href>/dav/</d:href><d:propstat>" //
+				+ "<d:prop><d:resourcetype><d:collection/></d:resourcetype></d:prop><d:status>HTTP/1.1 200 OK</d:status>" //
+				+ "</d:propstat></d:response></d:multistatus>";
+
+		private final Pattern rangePattern = Pattern.compile("bytes=(\\d+)-(\\d*)");
+		private MockWebServer server;
+		private CloudProvider encryptedProvider;
+
+		@BeforeEach
+		public void setup() throws IOException {
+			var in = getClass().getResourceAsStream("/vaultconfig.jwt");
+			localProvider.write(CloudPath.of("/vaultconfig.jwt"), false, in, in.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
+			server = new MockWebServer();
+			server.setDispatcher(new Dispatcher() {
+				@Override
+				public MockResponse dispatch(RecordedRequest request) {
+					return serveFromTmpDir(request);
+				}
+			});
+			server.start();
+			var webDavProvider = CloudAccess.toWebDAV(server.url("/dav").url(), "foo", "bar");
+			this.encryptedProvider = CloudAccess.vaultFormat8GCMCloudAccess(webDavProvider, CloudPath.of("/"), new byte[64]);
+		}
+
+		@AfterEach
+		public void tearDown() throws IOException {
+			server.shutdown();
+		}
+
+		// serves the files of the local vault, ignoring malformed ranges like servers do
+		private MockResponse serveFromTmpDir(RecordedRequest request) {
+			if ("OPTIONS".equals(request.getMethod())) {
+				return new MockResponse().setResponseCode(200).setHeader("DAV", "1, 2");
+			} else if ("PROPFIND".equals(request.getMethod()) && "/dav".equals(request.getPath())) {
+				return new MockResponse().setResponseCode(207).setBody(ROOT_PROPFIND_RESPONSE);
+			} else if ("MKCOL".equals(request.getMethod())) {
+				return new MockResponse().setResponseCode(405); // the local vault's folders already exist
+			}
+			var file = tmpDir.resolve(request.getRequestUrl().encodedPath().replaceFirst("^/dav/?", ""));
+			if (!"GET".equals(request.getMethod()) || !Files.isRegularFile(file)) {
+				return new MockResponse().setResponseCode(404);
+			}
+			try {
+				var content = Files.readAllBytes(file);
+				var range = rangePattern.matcher(String.valueOf(request.getHeader("Range")));
+				if (!range.matches()) {
+					return new MockResponse().setResponseCode(200).setBody(new Buffer().write(content));
+				}
+				var first = Integer.parseInt(range.group(1));
+				var last = range.group(2).isEmpty() ? content.length - 1 : Math.min(content.length - 1, Integer.parseInt(range.group(2)));
+				return new MockResponse().setResponseCode(206) //
+						.setHeader("Content-Range", String.format("bytes %d-%d/%d", first, last, content.length)) //
+						.setBody(new Buffer().write(Arrays.copyOfRange(content, first, last + 1)));
+			} catch (IOException e) {
+				return new MockResponse().setResponseCode(500);
+			}
+		}
+
+		@Test
+		@DisplayName("read to local file through encryption decorator requests a valid range")
+		public void testReadToFile(@TempDir Path targetDir) throws IOException {
+			var path = CloudPath.of("/file.txt");
+			var content = new byte[100_000];
+			new Random(42l).nextBytes(content);
+			var target = targetDir.resolve("file.txt");
+			var localEncryptedProvider = CloudAccess.vaultFormat8GCMCloudAccess(localProvider, CloudPath.of("/"), new byte[64]);
+			var futureMetadata = localEncryptedProvider.write(path, true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> futureMetadata.toCompletableFuture().get());
+
+			var futureRead = encryptedProvider.readTo(path, target, ProgressListener.NO_PROGRESS_AWARE);
+			Assertions.assertTimeoutPreemptively(Duration.ofSeconds(2), () -> futureRead.toCompletableFuture().get());
+
+			Assertions.assertArrayEquals(content, Files.readAllBytes(target));
+		}
+
 	}
 
 	@Test
@@ -0,0 +1,200 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 4);
+
+	@Test
+	@DisplayName("requests exceeding the limit are queued until a request completes")
+	public void testQueueing() {
+		for (int i = 0; i < 4; i++) {
+			Assertions.assertTrue(limiter.acquire().isDone());
+		}
+		final var queued = limiter.acquire();
+
+		Assertions.assertFalse(queued.isDone());
+		Assertions.assertEquals(4, limiter.getInFlight());
+		Assertions.assertEquals(1, limiter.getQueueDepth());
+
+		limiter.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+
+		Assertions.assertTrue(queued.isDone());
+		Assertions.assertEquals(4, limiter.getInFlight());
+		Assertions.assertEquals(0, limiter.getQueueDepth());
+	}
+
+	@Test
+	@DisplayName("overload halves the limit down to the minimum")
+	public void testOverloadDecreasesLimit() {
+		limiter.acquire();
+		limiter.release(AdaptiveConcurrencyLimiter.Outcome.OVERLOAD, FAST);
+
+		Assertions.assertEquals(2, limiter.getLimit());
+
+		limiter.acquire();
+		limiter.release(AdaptiveConcurrencyLimiter.Outcome.OVERLOAD, FAST);
+		limiter.acquire();
+		limiter.release(AdaptiveConcurrencyLimiter.Outcome.OVERLOAD, FAST);
+
+		Assertions.assertEquals(1, limiter.getLimit());
+	}
+
+	@Test
+	@DisplayName("rising latency decreases the limit, fast requests at the limit increase it again")
+	public void testLatencyDrivesLimit() {
+		limiter.acquire();
+		limiter.release(AdaptiveConcurrencyLimiter.Outcome.SAMPLE, FAST);
+		Assertions.assertEquals(4, limiter.getLimit());
+
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire();
+			limiter.release(AdaptiveConcurrencyLimiter.Outcome.SAMPLE, SLOW);
+		}
+		final var decreasedLimit = limiter.getLimit();
+		Assertions.assertTrue(decreasedLimit < 4);
+
+		for (int i = 0; i < 20; i++) {
+			final var permits = limiter.getLimit();
+			for (int j = 0; j < permits; j++) {
+				limiter.acquire();
+			}
+			for (int j = 0; j < permits; j++) {
+				limiter.release(AdaptiveConcurrencyLimiter.Outcome.SAMPLE, FAST);
+			}
+		}
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	@DisplayName("limit grows from the initial limit up to the maximum while requests at the limit are fast")
+	public void testProbesBeyondInitialLimit() {
+		final var limiter = new AdaptiveConcurrencyLimiter(1, 4, 8);
+		Assertions.assertEquals(4, limiter.getLimit());
+
+		for (int i = 0; i < 50; i++) {
+			final var permits = limiter.getLimit();
+			for (int j = 0; j < permits; j++) {
+				limiter.acquire();
+			}
+			for (int j = 0; j < permits; j++) {
+				limiter.release(AdaptiveConcurrencyLimiter.Outcome.SAMPLE, FAST);
+			}
+		}
+
+		Assertions.assertEquals(8, limiter.getLimit());
+	}
+
+	@Test
+	@DisplayName("limit does not grow while it is not used")
+	public void testNoIncreaseWithoutDemand() {
+		final var limiter = new AdaptiveConcurrencyLimiter(1, 8);
+		limiter.acquire();
+		limiter.release(AdaptiveConcurrencyLimiter.Outcome.OVERLOAD, FAST);
+		Assertions.assertEquals(4, limiter.getLimit());
+
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire();
+			limiter.release(AdaptiveConcurrencyLimiter.Outcome.SAMPLE, FAST);
+		}
+
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	@DisplayName("503 and timeouts are treated as overload")
+	public void testExecuteDetectsOverload() {
+		final var request = new Request.Builder().url("https://www.nextcloud.com/cloud/remote.php/webdav").build();
+
+		limiter.execute(request, r -> CompletableFuture.completedFuture(response(r, 503))).join();
+		Assertions.assertEquals(2, limiter.getLimit());
+
+		final var timedOut = limiter.execute(request, r -> CompletableFuture.failedFuture(new SocketTimeoutException()));
+		Assertions.assertTrue(timedOut.isCompletedExceptionally());
+		Assertions.assertEquals(1, limiter.getLimit());
+		Assertions.assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	@DisplayName("several concurrent 503s halve the limit only once")
+	public void testConcurrentOverloadDecreasesLimitOnce() {
+		final var limiter = new AdaptiveConcurrencyLimiter(1, 16);
+		final var request = new Request.Builder().url("https://www.nextcloud.com/cloud/remote.php/webdav").build();
+		final var pending = new ArrayList<CompletableFuture<Response>>();
+		final var responses = new ArrayList<CompletableFuture<Response>>();
+		for (int i = 0; i < 8; i++) {
+			final var response = new CompletableFuture<Response>();
+			pending.add(response);
+			responses.add(limiter.execute(request, r -> response));
+		}
+
+		pending.forEach(response -> response.complete(response(request, 503)));
+		CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join();
+		Assertions.assertEquals(8, limiter.getLimit());
+		Assertions.assertEquals(0, limiter.getInFlight());
+
+		limiter.execute(request, r -> CompletableFuture.completedFuture(response(r, 503))).join();
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	@Test
+	@DisplayName("rising PROPFIND latency decreases the limit despite the request body")
+	public void testPropfindLatencyDrivesLimit() {
+		final var request = new Request.Builder() //
+				.url("https://www.nextcloud.com/cloud/remote.php/webdav") //
+				.method("PROPFIND", RequestBody.create("<d:propfind xmlns:d=\"DAV:\"><d:allprop/></d:propfind>", MediaType.parse("text/xml"))) //
+				.header("Depth", "1") //
+				.build();
+		limiter.execute(request, r -> CompletableFuture.completedFuture(response(r, 207))).join();
+		Assertions.assertEquals(4, limiter.getLimit());
+
+		final var delayed = CompletableFuture.delayedExecutor(SLOW, TimeUnit.NANOSECONDS);
+		limiter.execute(request, r -> CompletableFuture.supplyAsync(() -> response(r, 207), delayed)).join();
+
+		Assertions.assertTrue(limiter.getLimit() < 4);
+	}
+
+	@Test
+	@DisplayName("Depth-infinity PROPFIND latency does not change the limit")
+	public void testDepthInfinityPropfindIgnored() {
+		final var request = new Request.Builder() //
+				.url("https://www.nextcloud.com/cloud/remote.php/webdav") //
+				.method("PROPFIND", RequestBody.create("<d:propfind xmlns:d=\"DAV:\"><d:allprop/></d:propfind>", MediaType.parse("text/xml"))) //
+				.header("Depth", "infinity") //
+				.build();
+		limiter.execute(request, r -> CompletableFuture.completedFuture(response(r, 207))).join();
+
+		final var delayed = CompletableFuture.delayedExecutor(SLOW, TimeUnit.NANOSECONDS);
+		limiter.execute(request, r -> CompletableFuture.supplyAsync(() -> response(r, 207), delayed)).join();
+
+		Assertions.assertEquals(4, limiter.getLimit());
+	}
+
+	private Response response(Request request, int code) {
+		return new Response.Builder() //
+				.request(request) //
+				.protocol(Protocol.HTTP_1_1) //
+				.code(code) //
+				.message("") //
+				.body(ResponseBody.create("", MediaType.parse("text/plain"))) //
+				.build();
+	}
+
+}
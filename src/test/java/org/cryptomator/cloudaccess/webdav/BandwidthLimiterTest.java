@@ -0,0 +1,85 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BandwidthLimiterTest {
+
+	@Test
+	@DisplayName("unlimited limiter never waits")
+	public void testUnlimited() {
+		final var limiter = new BandwidthLimiter(BandwidthLimiter.UNLIMITED);
+
+		for (int i = 0; i < 100; i++) {
+			Assertions.assertEquals(0, limiter.reserve(1024 * 1024));
+		}
+	}
+
+	@Test
+	@DisplayName("bursts up to the capacity, then waits in proportion to the debt")
+	public void testDebt() {
+		final var limiter = new BandwidthLimiter(100_000);
+
+		Assertions.assertEquals(0, limiter.reserve(10_000));
+		final var wait = limiter.reserve(100_000);
+
+		Assertions.assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900), "wait was " + wait);
+		Assertions.assertTrue(wait <= TimeUnit.SECONDS.toNanos(1), "wait was " + wait);
+	}
+
+	@Test
+	@DisplayName("concurrent transfers queue up behind each other's debt")
+	public void testFairSharing() {
+		final var limiter = new BandwidthLimiter(10_000);
+		limiter.reserve(10_000);
+
+		final var first = limiter.reserve(10_000);
+		final var second = limiter.reserve(10_000);
+
+		Assertions.assertTrue(second > first, "second transfer must wait longer than the first");
+		Assertions.assertTrue(second - first > TimeUnit.MILLISECONDS.toNanos(900));
+	}
+
+	@Test
+	@DisplayName("changing the rate applies immediately")
+	public void testReconfiguration() {
+		final var limiter = new BandwidthLimiter(10_000);
+		limiter.reserve(10_000);
+		Assertions.assertTrue(limiter.reserve(10_000) > 0);
+
+		limiter.setBytesPerSecond(BandwidthLimiter.UNLIMITED);
+
+		Assertions.assertEquals(BandwidthLimiter.UNLIMITED, limiter.getBytesPerSecond());
+		Assertions.assertEquals(0, limiter.reserve(10_000));
+	}
+
+	@Test
+	@DisplayName("negative rates are rejected")
+	public void testNegativeRate() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new BandwidthLimiter(-1));
+	}
+
+	@Test
+	@DisplayName("reading a throttled response body takes as long as the rate demands")
+	public void testThrottledResponse() throws IOException {
+		final var limiter = new BandwidthLimiter(200_000);
+		final var responseBody = ResponseBody.create(new byte[100_000], MediaType.parse("application/octet-stream"));
+		final var wrapper = new ProgressResponseWrapper(responseBody, ignored -> {}, List.of(limiter, new BandwidthLimiter(BandwidthLimiter.UNLIMITED)));
+
+		final var start = System.nanoTime();
+		final var content = wrapper.byteStream().readAllBytes();
+		final var elapsed = System.nanoTime() - start;
+
+		Assertions.assertEquals(100_000, content.length);
+		// 100 kB at 200 kB/s minus the initial burst of 20 kB
+		Assertions.assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(350), "elapsed was " + elapsed);
+	}
+
+}
@@ -12,9 +12,12 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 
 public class CachedPropfindEntryProviderTest {
@@ -56,8 +59,8 @@ public class CachedPropfindEntryProviderTest {
 			.build();
 
 	private final NodeCache cache = Mockito.mock(NodeCache.class);
-	private final Function<CloudPath, List<PropfindEntryItemData>> itemLoader = Mockito.mock(Function.class);
-	private final Function<CloudPath, List<PropfindEntryItemData>> parentLoader = Mockito.mock(Function.class);
+	private final Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> itemLoader = Mockito.mock(Function.class);
+	private final Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> parentLoader = Mockito.mock(Function.class);
 	private CachedPropfindEntryProvider cachedPropfindEntryProvider;
 
 	@BeforeEach
@@ -73,7 +76,7 @@ public class CachedPropfindEntryProviderTest {
 
 		Mockito.when(cache.getCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Optional.of(manual));
 
-		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader);
+		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 	}
@@ -90,11 +93,11 @@ public class CachedPropfindEntryProviderTest {
 		Mockito.when(cache.getCachedNode(CloudPath.of("/"))).thenReturn(Optional.of(root));
 		Mockito.when(cache.getCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Optional.of(manual));
 
-		Mockito.when(itemLoader.apply(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Arrays.asList(testFileManual));
+		Mockito.when(itemLoader.apply(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFileManual)));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/"))).thenReturn(CachedNode.detached("/"));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CachedNode.detached("/Nextcloud Manual.pdf"));
 
-		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader);
+		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 
@@ -105,11 +108,11 @@ public class CachedPropfindEntryProviderTest {
 	@Test
 	@DisplayName("get metadata of /Nextcloud Manual.pdf from parent loader because not cached and parent not loaded")
 	public void testItemMetadataFromParentLoaderBecauseNotCachedAndParentNotLoaded() {
-		Mockito.when(parentLoader.apply(CloudPath.of("/"))).thenReturn(Arrays.asList(testFolderRoot, testFileManual));
+		Mockito.when(parentLoader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderRoot, testFileManual)));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/"))).thenReturn(CachedNode.detached("/"));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CachedNode.detached("/Nextcloud Manual.pdf"));
 
-		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader);
+		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 
@@ -132,10 +135,10 @@ public class CachedPropfindEntryProviderTest {
 		Mockito.when(cache.getCachedNode(CloudPath.of("/"))).thenReturn(Optional.of(root));
 		Mockito.when(cache.getCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Optional.of(manual));
 
-		Mockito.when(itemLoader.apply(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Arrays.asList(testFileManual));
+		Mockito.when(itemLoader.apply(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFileManual)));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CachedNode.detached("/Nextcloud Manual.pdf"));
 
-		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader);
+		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 
@@ -148,11 +151,11 @@ public class CachedPropfindEntryProviderTest {
 	public void testItemMetadataFromParentLoaderBecauseCachedButDirty() {
 		Mockito.when(cache.getCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Optional.of(CachedNode.detached("/Nextcloud Manual.pdf")));
 
-		Mockito.when(parentLoader.apply(CloudPath.of("/"))).thenReturn(Arrays.asList(testFolderRoot, testFileManual));
+		Mockito.when(parentLoader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderRoot, testFileManual)));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/"))).thenReturn(CachedNode.detached("/"));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CachedNode.detached("/Nextcloud Manual.pdf"));
 
-		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader);
+		final var itemMetadata = cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 
@@ -167,10 +170,10 @@ public class CachedPropfindEntryProviderTest {
 		Mockito.when(cache.getCachedNode(CloudPath.of("/"))).thenReturn(Optional.of(CachedNode.detached("/")));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/"))).thenReturn(CachedNode.detached("/"));
 		Mockito.when(cache.getCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(Optional.of(CachedNode.detached("/Nextcloud Manual.pdf")));
-		Mockito.when(parentLoader.apply(CloudPath.of("/"))).thenReturn(Arrays.asList(testFolderRoot));
+		Mockito.when(parentLoader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderRoot)));
 
 		Assertions.assertThrows(NotFoundException.class, () -> {
-			cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader);
+			cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"), parentLoader, itemLoader).toCompletableFuture().join();
 		});
 
 		Mockito.verify(parentLoader).apply(CloudPath.of("/"));
@@ -183,10 +186,10 @@ public class CachedPropfindEntryProviderTest {
 		Mockito.when(cache.getCachedNode(CloudPath.of("/"))).thenReturn(Optional.of(CachedNode.detached("/")));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/"))).thenReturn(CachedNode.detached("/"));
 
-		Mockito.when(itemLoader.apply(CloudPath.of("/"))).thenThrow(NotFoundException.class);
+		Mockito.when(itemLoader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.failedFuture(new NotFoundException()));
 
 		Assertions.assertThrows(NotFoundException.class, () -> {
-			cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/"), parentLoader, itemLoader);
+			cachedPropfindEntryProvider.itemMetadata(CloudPath.of("/"), parentLoader, itemLoader).toCompletableFuture().join();
 		});
 
 		Mockito.verify(itemLoader).apply(CloudPath.of("/"));
@@ -218,7 +221,7 @@ public class CachedPropfindEntryProviderTest {
 
 		Mockito.when(cache.getCachedNode(CloudPath.of("/"))).thenReturn(Optional.of(root));
 
-		final var itemsMetadata = cachedPropfindEntryProvider.list(CloudPath.of("/"), itemLoader);
+		final var itemsMetadata = cachedPropfindEntryProvider.list(CloudPath.of("/"), itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(List.of(testFileManual, testFolderDocuments, testFilePng, testFileIntro, testFolderPhotos), itemsMetadata);
 	}
@@ -226,7 +229,7 @@ public class CachedPropfindEntryProviderTest {
 	@Test
 	@DisplayName("list / from loader as not cached")
 	public void testListFromLoaderBecauseNotCached() {
-		Mockito.when(itemLoader.apply(CloudPath.of("/"))).thenReturn(Arrays.asList(testFolderRoot, testFolderDocuments, testFileManual, testFileIntro, testFilePng, testFolderPhotos));
+		Mockito.when(itemLoader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderRoot, testFolderDocuments, testFileManual, testFileIntro, testFilePng, testFolderPhotos)));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/"))).thenReturn(CachedNode.detached("/"));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Documents"))).thenReturn(CachedNode.detached("/Documents"));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Nextcloud Manual.pdf"))).thenReturn(CachedNode.detached("/Nextcloud Manual.pdf"));
@@ -234,7 +237,7 @@ public class CachedPropfindEntryProviderTest {
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Nextcloud.png"))).thenReturn(CachedNode.detached("/Nextcloud.png"));
 		Mockito.when(cache.getOrCreateCachedNode(CloudPath.of("/Photos"))).thenReturn(CachedNode.detached("/Photos"));
 
-		final var itemsMetadata = cachedPropfindEntryProvider.list(CloudPath.of("/"), itemLoader);
+		final var itemsMetadata = cachedPropfindEntryProvider.list(CloudPath.of("/"), itemLoader).toCompletableFuture().join();
 
 		Assertions.assertEquals(List.of(testFolderDocuments, testFileManual, testFileIntro, testFilePng, testFolderPhotos), itemsMetadata);
 
@@ -285,4 +288,110 @@ public class CachedPropfindEntryProviderTest {
 		cachedPropfindEntryProvider.move(CloudPath.of("/Nextcloud Manual.pdf"), CloudPath.of("/Nextcloud Manual 2.pdf"));
 		Mockito.verify(cache).move(CloudPath.of("/Nextcloud Manual.pdf"), CloudPath.of("/Nextcloud Manual 2.pdf"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	@DisplayName("prefetch caches received subtree, drops stale nodes and marks folders as fetched")
+	public void testPrefetch() {
+		var nodeCache = new NodeCache();
+		cachedPropfindEntryProvider = new CachedPropfindEntryProvider(nodeCache);
+		nodeCache.getOrCreateCachedNode(CloudPath.of("/Stale")).update(testFolderPhotos);
+		var testFileInDocuments = new PropfindEntryItemData.Builder().withPath("/Documents/Nextcloud.png").withCollection(false).build();
+
+		var prefetch = cachedPropfindEntryProvider.beginPrefetch(CloudPath.of("/"));
+		prefetch.add(CloudPath.of("/"), testFolderRoot);
+		prefetch.add(CloudPath.of("/Documents"), testFolderDocuments);
+		prefetch.add(CloudPath.of("/Documents/Nextcloud.png"), testFileInDocuments);
+		prefetch.complete();
+
+		Assertions.assertTrue(nodeCache.getCachedNode(CloudPath.of("/Stale")).isEmpty());
+		Assertions.assertTrue(nodeCache.getCachedNode(CloudPath.of("/")).get().isChildrenFetched());
+		Assertions.assertTrue(nodeCache.getCachedNode(CloudPath.of("/Documents")).get().isChildrenFetched());
+		Assertions.assertEquals(testFileInDocuments, nodeCache.getCachedNode(CloudPath.of("/Documents/Nextcloud.png")).get().getData(PropfindEntryItemData.class));
+	}
+
+	@Test
+	@DisplayName("crawl lists every folder of the subtree")
+	public void testCrawl() {
+		var nodeCache = new NodeCache();
+		cachedPropfindEntryProvider = new CachedPropfindEntryProvider(nodeCache);
+		Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> loader = Mockito.mock(Function.class);
+		Mockito.when(loader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderRoot, testFolderDocuments, testFileManual, testFolderPhotos)));
+		Mockito.when(loader.apply(CloudPath.of("/Documents"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderDocuments)));
+		Mockito.when(loader.apply(CloudPath.of("/Photos"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderPhotos)));
+
+		cachedPropfindEntryProvider.crawl(CloudPath.of("/"), loader, 2).toCompletableFuture().join();
+
+		Assertions.assertTrue(nodeCache.getCachedNode(CloudPath.of("/")).get().isChildrenFetched());
+		Assertions.assertTrue(nodeCache.getCachedNode(CloudPath.of("/Documents")).get().isChildrenFetched());
+		Assertions.assertTrue(nodeCache.getCachedNode(CloudPath.of("/Photos")).get().isChildrenFetched());
+		Mockito.verify(loader, Mockito.times(3)).apply(ArgumentMatchers.any());
+	}
+
+	@Test
+	@DisplayName("crawl fails if listing a folder fails")
+	public void testCrawlFails() {
+		var nodeCache = new NodeCache();
+		cachedPropfindEntryProvider = new CachedPropfindEntryProvider(nodeCache);
+		Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>> loader = Mockito.mock(Function.class);
+		Mockito.when(loader.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(Arrays.asList(testFolderRoot, testFolderDocuments)));
+		Mockito.when(loader.apply(CloudPath.of("/Documents"))).thenReturn(CompletableFuture.failedFuture(new NotFoundException()));
+
+		var result = cachedPropfindEntryProvider.crawl(CloudPath.of("/"), loader, 2).toCompletableFuture();
+
+		Assertions.assertThrows(NotFoundException.class, result::join);
+	}
+
+	@Test
+	@DisplayName("poll refreshes changed sibling folders concurrently and reports stats")
+	public void testPollRefreshesSiblingsConcurrently() {
+		var rootPoller = (Function<CloudPath, CompletionStage<PropfindEntryItemData>>) Mockito.mock(Function.class);
+		var cacheUpdater = (Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>>) Mockito.mock(Function.class);
+		cachedPropfindEntryProvider = new CachedPropfindEntryProvider(rootPoller, cacheUpdater, Optional.empty(), 2);
+		var documentsListing = new CompletableFuture<List<PropfindEntryItemData>>();
+		var photosListing = new CompletableFuture<List<PropfindEntryItemData>>();
+		Mockito.when(cacheUpdater.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(new ArrayList<>(List.of(folder("/", "r1"), folder("/Documents", "d1"), folder("/Photos", "p1")))));
+		Mockito.when(cacheUpdater.apply(CloudPath.of("/Documents"))).thenReturn(documentsListing);
+		Mockito.when(cacheUpdater.apply(CloudPath.of("/Photos"))).thenReturn(photosListing);
+		cachedPropfindEntryProvider.list(CloudPath.of("/"), cacheUpdater).toCompletableFuture().join();
+		Mockito.when(rootPoller.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(folder("/", "r2")));
+		Mockito.when(cacheUpdater.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(new ArrayList<>(List.of(folder("/", "r2"), folder("/Documents", "d2"), folder("/Photos", "p2")))));
+
+		var poll = cachedPropfindEntryProvider.pollRemoteChanges().toCompletableFuture();
+
+		Mockito.verify(cacheUpdater).apply(CloudPath.of("/Documents"));
+		Mockito.verify(cacheUpdater).apply(CloudPath.of("/Photos"));
+		Assertions.assertFalse(poll.isDone());
+		documentsListing.complete(new ArrayList<>(List.of(folder("/Documents", "d2"), testFileManual)));
+		photosListing.complete(new ArrayList<>(List.of(folder("/Photos", "p2"))));
+		poll.join();
+
+		var stats = cachedPropfindEntryProvider.lastPollStats().get();
+		Assertions.assertEquals(3, stats.directoriesVisited());
+		Assertions.assertEquals(4, stats.requests());
+		var cachedManual = cachedPropfindEntryProvider.list(CloudPath.of("/Documents"), cacheUpdater).toCompletableFuture().join();
+		Assertions.assertEquals(List.of(testFileManual), cachedManual);
+	}
+
+	@Test
+	@DisplayName("poll stops at folders with unchanged ETag")
+	public void testPollSkipsUnchangedSubtrees() {
+		var rootPoller = (Function<CloudPath, CompletionStage<PropfindEntryItemData>>) Mockito.mock(Function.class);
+		var cacheUpdater = (Function<CloudPath, CompletionStage<List<PropfindEntryItemData>>>) Mockito.mock(Function.class);
+		cachedPropfindEntryProvider = new CachedPropfindEntryProvider(rootPoller, cacheUpdater, Optional.empty(), 2);
+		Mockito.when(cacheUpdater.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(new ArrayList<>(List.of(folder("/", "r1"), folder("/Documents", "d1")))));
+		cachedPropfindEntryProvider.list(CloudPath.of("/"), cacheUpdater).toCompletableFuture().join();
+		Mockito.when(rootPoller.apply(CloudPath.of("/"))).thenReturn(CompletableFuture.completedFuture(folder("/", "r1")));
+
+		cachedPropfindEntryProvider.pollRemoteChanges().toCompletableFuture().join();
+
+		var stats = cachedPropfindEntryProvider.lastPollStats().get();
+		Assertions.assertEquals(0, stats.directoriesVisited());
+		Assertions.assertEquals(1, stats.requests());
+		Mockito.verify(cacheUpdater, Mockito.never()).apply(CloudPath.of("/Documents"));
+	}
+
+	private PropfindEntryItemData folder(String path, String eTag) {
+		return new PropfindEntryItemData.Builder().withPath(path).withCollection(true).withEtag(eTag).build();
+	}
+
+}
@@ -0,0 +1,92 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.cryptomator.cloudaccess.CachedNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ChildrenDiffTest {
+
+	@Test
+	@DisplayName("diff contains added, removed and changed children but no unchanged ones")
+	public void testDiff() {
+		var unchanged = cached("unchanged.txt", "1");
+		var changed = cached("changed.txt", "1");
+		var removed = cached("removed.txt", "1");
+		var withoutData = CachedNode.detached("withoutData");
+		var remoteChanged = entry("changed.txt", "2");
+		var remoteWithoutData = entry("withoutData", "1");
+		var remoteAdded = entry("added.txt", "1");
+
+		var diff = ChildrenDiff.compute(List.of(unchanged, changed, removed, withoutData), List.of(entry("unchanged.txt", "1"), remoteChanged, remoteWithoutData, remoteAdded));
+
+		Assertions.assertEquals(List.of(remoteAdded), diff.added());
+		Assertions.assertEquals(List.of(removed), diff.removed());
+		Assertions.assertEquals(List.of(new ChildrenDiff.Changed(changed, remoteChanged), new ChildrenDiff.Changed(withoutData, remoteWithoutData)), diff.changed());
+	}
+
+	@Test
+	@DisplayName("diff of a large directory visits each child only once")
+	public void testDiffOfLargeDirectory() {
+		var local = new CountingCollection<CachedNode>();
+		var remote = new CountingCollection<PropfindEntryItemData>();
+		for (int i = 0; i < 10_000; i++) {
+			local.elements.add(cached("file" + i, "1"));
+			remote.elements.add(entry("file" + (i + 1), i % 2 == 0 ? "1" : "2"));
+		}
+
+		var diff = ChildrenDiff.compute(local, remote);
+
+		Assertions.assertEquals(10_000, local.visited);
+		Assertions.assertEquals(10_000, remote.visited);
+		Assertions.assertEquals(List.of("file10000"), diff.added().stream().map(PropfindEntryItemData::getName).collect(Collectors.toList()));
+		Assertions.assertEquals(List.of(local.elements.get(0)), diff.removed());
+		Assertions.assertEquals(4_999, diff.changed().size());
+	}
+
+	private CachedNode cached(String name, String eTag) {
+		var node = CachedNode.detached(name);
+		node.update(entry(name, eTag));
+		return node;
+	}
+
+	private PropfindEntryItemData entry(String name, String eTag) {
+		return new PropfindEntryItemData.Builder().withPath("/folder/" + name).withCollection(false).withEtag(eTag).build();
+	}
+
+	// counts the elements visited by all iterations, which exceeds the size if the diff searches the collection repeatedly
+	private static class CountingCollection<T> extends AbstractCollection<T> {
+
+		private final List<T> elements = new ArrayList<>();
+		private int visited;
+
+		@Override
+		public Iterator<T> iterator() {
+			var iterator = elements.iterator();
+			return new Iterator<>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public T next() {
+					visited++;
+					return iterator.next();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return elements.size();
+		}
+	}
+
+}
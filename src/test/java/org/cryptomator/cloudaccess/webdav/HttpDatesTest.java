@@ -0,0 +1,37 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+public class HttpDatesTest {
+
+	@ParameterizedTest(name = "parse(\"{0}\")")
+	@DisplayName("parse(...) equals RFC 1123 formatter for valid dates")
+	@ValueSource(strings = {"Sun, 06 Nov 1994 08:49:37 GMT", "Wed, 19 Feb 2020 10:24:12 GMT", "Thu, 18 May 2017 9:49:41 GMT", "Thu, 1 Jan 1970 00:00:00 GMT", "Sat, 29 Feb 2020 23:59:59 GMT", "Wed, 19 Feb 2020 10:24:12 +0100"})
+	public void testParseValidDate(String text) {
+		var expected = Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(text));
+
+		Assertions.assertEquals(Optional.of(expected), HttpDates.parse(text));
+	}
+
+	@ParameterizedTest(name = "parse(\"{0}\")")
+	@DisplayName("parse(...) returns empty for invalid dates")
+	@ValueSource(strings = {"", "Mon, 06 Nov 1994 08:49:37 GMT", "Sun, 31 Nov 1994 08:49:37 GMT", "Sun, 06 Foo 1994 08:49:37 GMT", "Sun, 06 Nov 1994 24:49:37 GMT", "Sun, 06 Nov 19x4 08:49:37 GMT", "2020-02-19T10:24:12Z"})
+	public void testParseInvalidDate(String text) {
+		Assertions.assertEquals(Optional.empty(), HttpDates.parse(text));
+	}
+
+	@Test
+	@DisplayName("parse(null) returns empty")
+	public void testParseNull() {
+		Assertions.assertEquals(Optional.empty(), HttpDates.parse(null));
+	}
+
+}
@@ -6,6 +6,7 @@ import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
@@ -61,4 +62,20 @@ public class HttpLoggingInterceptorTest {
 		Mockito.verify(logger).log("<-- END HTTP");
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testNoLoggingIfDisabled() throws IOException {
+		final var httpLoggingInterceptor = new HttpLoggingInterceptor(logger, () -> false);
+
+		final var request = Mockito.mock(Request.class);
+		final var response = Mockito.mock(Response.class);
+
+		Mockito.when(chain.request()).thenReturn(request);
+		Mockito.when(chain.proceed(request)).thenReturn(response);
+
+		final var result = httpLoggingInterceptor.intercept(chain);
+
+		Assertions.assertSame(response, result);
+		Mockito.verifyNoInteractions(logger, request, response);
+	}
+
+}
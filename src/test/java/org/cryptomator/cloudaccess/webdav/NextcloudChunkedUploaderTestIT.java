@@ -0,0 +1,271 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.ProgressListener;
+import org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException;
+import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
+import org.cryptomator.cloudaccess.api.exceptions.InsufficientStorageException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class NextcloudChunkedUploaderTestIT {
+
+	private static final String CHUNKED_UPLOAD_PROPERTY = "org.cryptomator.cloudaccess.webdav.chunkedUpload";
+	private static final String CHUNK_SIZE_PROPERTY = "org.cryptomator.cloudaccess.webdav.chunkedUploadChunkSize";
+	private static final String UPLOADS_PATH = "/remote.php/dav/uploads/user/";
+	private static final String FILES_PATH = "/remote.php/dav/files/user/";
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+	private final byte[] content = new byte[100_000];
+	private final Map<String, Map<String, byte[]>> uploadDirs = new ConcurrentHashMap<>();
+	private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	private final AtomicBoolean failNextMove = new AtomicBoolean();
+	private volatile boolean chunkingSupported = true;
+	private volatile int mkcolFailureStatus;
+	private MockWebServer server;
+	private WebDavClient webDavClient;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		new Random(42l).nextBytes(content);
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				requests.add(request.getMethod() + " " + request.getPath());
+				return handle(request);
+			}
+		});
+		server.start();
+		System.setProperty(CHUNKED_UPLOAD_PROPERTY, "true");
+		System.setProperty(CHUNK_SIZE_PROPERTY, "16384");
+		var credential = WebDavCredential.from(new URL("http", server.getHostName(), server.getPort(), "/remote.php/dav/files/user"), "foo", "bar");
+		webDavClient = new WebDavClient(new WebDavCompatibleHttpClient(credential, WebDavTransport.create()), credential, Optional.empty());
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		System.clearProperty(CHUNKED_UPLOAD_PROPERTY);
+		System.clearProperty(CHUNK_SIZE_PROPERTY);
+		server.shutdown();
+	}
+
+	// emulates the chunked upload endpoints of Nextcloud
+	private MockResponse handle(RecordedRequest request) {
+		var path = request.getPath();
+		if (path.startsWith(UPLOADS_PATH)) {
+			var segments = path.substring(UPLOADS_PATH.length()).split("/");
+			var uploadDir = segments[0];
+			switch (request.getMethod()) {
+				case "MKCOL":
+					if (!chunkingSupported) {
+						return new MockResponse().setResponseCode(404);
+					} else if (mkcolFailureStatus != 0) {
+						return new MockResponse().setResponseCode(mkcolFailureStatus);
+					}
+					return new MockResponse().setResponseCode(uploadDirs.putIfAbsent(uploadDir, new ConcurrentHashMap<>()) == null ? 201 : 405);
+				case "PROPFIND":
+					return new MockResponse().setResponseCode(207).setBody(listing(path, uploadDirs.get(uploadDir)));
+				case "PUT":
+					Assertions.assertEquals(FILES_PATH + "foo.bin", HttpUrl.get(request.getHeader("Destination")).encodedPath());
+					Assertions.assertEquals(String.valueOf(content.length), request.getHeader("OC-Total-Length"));
+					uploadDirs.get(uploadDir).put(segments[1], request.getBody().readByteArray());
+					return new MockResponse().setResponseCode(201);
+				case "MOVE":
+					if (failNextMove.getAndSet(false)) {
+						return new MockResponse().setResponseCode(500);
+					}
+					var destination = HttpUrl.get(request.getHeader("Destination")).encodedPath();
+					if ("F".equals(request.getHeader("Overwrite")) && files.containsKey(destination)) {
+						return new MockResponse().setResponseCode(412);
+					}
+					var assembled = new ByteArrayOutputStream();
+					new TreeMap<>(uploadDirs.remove(uploadDir)).values().forEach(assembled::writeBytes);
+					Assertions.assertEquals(request.getHeader("OC-Total-Length"), String.valueOf(assembled.size()));
+					files.put(destination, assembled.toByteArray());
+					return new MockResponse().setResponseCode(201).setHeader("ETag", "\"assembled\"");
+				case "DELETE":
+					uploadDirs.remove(uploadDir);
+					return new MockResponse().setResponseCode(204);
+				default:
+					return new MockResponse().setResponseCode(405);
+			}
+		} else if ("PUT".equals(request.getMethod())) {
+			files.put(path, request.getBody().readByteArray());
+			return new MockResponse().setResponseCode(201);
+		} else {
+			return new MockResponse().setResponseCode(404);
+		}
+	}
+
+	private String listing(String href, Map<String, byte[]> chunks) {
+		var body = new StringBuilder("<?xml version=\"1.0\"?>\n<d:multistatus xmlns:d=\"DAV:\">\n");
+		body.append("<d:response><d:href>").append(href).append("</d:href><d:propstat><d:prop><d:resourcetype><d:collection/></d:resourcetype></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>\n");
+		chunks.forEach((name, data) -> body.append("<d:response><d:href>").append(href).append('/').append(name) //
+				.append("</d:href><d:propstat><d:prop><d:resourcetype/><d:getcontentlength>").append(data.length) //
+				.append("</d:getcontentlength></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>\n"));
+		return body.append("</d:multistatus>").toString();
+	}
+
+	private long countRequests(String method, String pathPrefix) {
+		return requests.stream().filter(request -> request.startsWith(method + " " + pathPrefix)).count();
+	}
+
+	@Test
+	@DisplayName("upload stream to /foo.bin in chunks")
+	public void testWriteStreamInChunks() {
+		var progress = new AtomicLong();
+
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.write(CloudPath.of("/foo.bin"), false, new ByteArrayInputStream(content), content.length, Optional.empty(), value -> progress.accumulateAndGet(value, Math::max)).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, files.get(FILES_PATH + "foo.bin"));
+		Assertions.assertEquals(1, countRequests("MKCOL", UPLOADS_PATH));
+		Assertions.assertEquals(7, countRequests("PUT", UPLOADS_PATH));
+		Assertions.assertEquals(1, countRequests("MOVE", UPLOADS_PATH));
+		Assertions.assertEquals(content.length, progress.get());
+		Assertions.assertTrue(uploadDirs.isEmpty());
+	}
+
+	@Test
+	@DisplayName("upload local file to /foo.bin in chunks, resuming after a failed attempt")
+	public void testResumeWriteFromPath(@TempDir Path tempDir) throws IOException {
+		var source = Files.write(tempDir.resolve("foo.bin"), content);
+		failNextMove.set(true);
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.write(CloudPath.of("/foo.bin"), false, source, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+		Assertions.assertInstanceOf(CloudProviderException.class, e);
+		Assertions.assertEquals(7, countRequests("PUT", UPLOADS_PATH));
+
+		// lose one of the chunks:
+		uploadDirs.values().iterator().next().remove("00003");
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.write(CloudPath.of("/foo.bin"), false, source, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, files.get(FILES_PATH + "foo.bin"));
+		Assertions.assertEquals(1, countRequests("PROPFIND", UPLOADS_PATH));
+		Assertions.assertEquals(8, countRequests("PUT", UPLOADS_PATH));
+		Assertions.assertEquals(2, requests.stream().filter(request -> request.startsWith("PUT " + UPLOADS_PATH) && request.endsWith("/00003")).count());
+	}
+
+	@Test
+	@DisplayName("failed upload of a stream to /foo.bin deletes its upload directory")
+	public void testFailedWriteStreamDeletesUploadDir() {
+		failNextMove.set(true);
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.write(CloudPath.of("/foo.bin"), false, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+		Assertions.assertInstanceOf(CloudProviderException.class, e);
+
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+			while (countRequests("DELETE", UPLOADS_PATH) == 0) {
+				Thread.sleep(10);
+			}
+		});
+		Assertions.assertEquals(7, countRequests("PUT", UPLOADS_PATH));
+		Assertions.assertTrue(uploadDirs.isEmpty());
+	}
+
+	@Test
+	@DisplayName("upload of a stream to /foo.bin ending prematurely fails and deletes its upload directory")
+	public void testWriteTruncatedStream() {
+		var truncated = new ByteArrayInputStream(content, 0, content.length / 2);
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.write(CloudPath.of("/foo.bin"), false, truncated, content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+		Assertions.assertInstanceOf(CloudProviderException.class, e);
+
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+			while (countRequests("DELETE", UPLOADS_PATH) == 0) {
+				Thread.sleep(10);
+			}
+		});
+		Assertions.assertEquals(0, countRequests("MOVE", UPLOADS_PATH));
+		Assertions.assertTrue(uploadDirs.isEmpty());
+	}
+
+	@Test
+	@DisplayName("chunked upload to existing /foo.bin fails without replace")
+	public void testWriteToExistingFile() {
+		files.put(FILES_PATH + "foo.bin", new byte[0]);
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.write(CloudPath.of("/foo.bin"), false, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertInstanceOf(AlreadyExistsException.class, e);
+	}
+
+	@Test
+	@DisplayName("upload to /foo.bin using a single PUT if chunked uploads aren't supported")
+	public void testFallbackToSinglePut() {
+		chunkingSupported = false;
+
+		for (int i = 0; i < 2; i++) {
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.write(CloudPath.of("/foo.bin"), true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+		}
+
+		Assertions.assertArrayEquals(content, files.get(FILES_PATH + "foo.bin"));
+		Assertions.assertEquals(1, countRequests("MKCOL", UPLOADS_PATH));
+		Assertions.assertEquals(2, countRequests("PUT", FILES_PATH));
+	}
+
+	@Test
+	@DisplayName("upload to /foo.bin fails without falling back if creating the upload directory fails temporarily")
+	public void testTemporaryFailureOfUploadDir() {
+		mkcolFailureStatus = 500;
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.write(CloudPath.of("/foo.bin"), true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+		Assertions.assertInstanceOf(CloudProviderException.class, e);
+		Assertions.assertEquals(0, countRequests("PUT", FILES_PATH));
+
+		mkcolFailureStatus = 0;
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.write(CloudPath.of("/foo.bin"), true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, files.get(FILES_PATH + "foo.bin"));
+		Assertions.assertEquals(7, countRequests("PUT", UPLOADS_PATH));
+		Assertions.assertEquals(0, countRequests("PUT", FILES_PATH));
+	}
+
+	@Test
+	@DisplayName("upload to /foo.bin fails with InsufficientStorageException if the upload directory can't be created for lack of space")
+	public void testInsufficientStorageForUploadDir() {
+		mkcolFailureStatus = 507;
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.write(CloudPath.of("/foo.bin"), true, new ByteArrayInputStream(content), content.length, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertInstanceOf(InsufficientStorageException.class, e);
+		Assertions.assertEquals(0, countRequests("PUT", FILES_PATH));
+	}
+
+	@Test
+	@DisplayName("uploads URL is derived from base URL within remote.php/dav/files/<user>")
+	public void testUploadsUrl() throws IOException {
+		Assertions.assertEquals(Optional.of(HttpUrl.get("https://example.com/nextcloud/remote.php/dav/uploads/jane%20doe")), NextcloudChunkedUploader.uploadsUrl(new URL("https://example.com/nextcloud/remote.php/dav/files/jane%20doe/Documents")));
+		Assertions.assertEquals(Optional.of(HttpUrl.get("https://example.com/remote.php/dav/uploads/jane")), NextcloudChunkedUploader.uploadsUrl(new URL("https://example.com/remote.php/dav/files/jane/")));
+		Assertions.assertEquals(Optional.empty(), NextcloudChunkedUploader.uploadsUrl(new URL("https://example.com/remote.php/webdav")));
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Optional;
+
+public class PermanentRedirectCacheTest {
+
+	private final PermanentRedirectCache cache = new PermanentRedirectCache();
+
+	@ParameterizedTest(name = "{0} -> {1}: {2} -> {3}")
+	@DisplayName("redirects of collections are applied to URLs below the redirected prefix")
+	@CsvSource({ //
+			"http://example.com/remote.php/webdav/, https://example.com/remote.php/webdav/, http://example.com/remote.php/webdav/foo/bar.txt, https://example.com/remote.php/webdav/foo/bar.txt", //
+			"http://example.com/remote.php/webdav/, https://example.com/remote.php/webdav/, http://example.com/other, https://example.com/other", //
+			"https://example.com/remote.php/webdav/, https://example.com/remote.php/dav/files/user/, https://example.com/remote.php/webdav/foo, https://example.com/remote.php/dav/files/user/foo", //
+			"https://example.com/remote.php/webdav, https://example.com/remote.php/webdav/, https://example.com/remote.php/webdav, https://example.com/remote.php/webdav/", //
+			"https://example.com/webdav/foo/, https://cloud.example.com/foo/, https://example.com/webdav/bar?x=1, https://cloud.example.com/bar?x=1", //
+	})
+	public void testLookup(String from, String to, String requested, String expected) {
+		cache.put(HttpUrl.get(from), HttpUrl.get(to), true);
+
+		final var redirect = cache.lookup(HttpUrl.get(requested));
+
+		Assertions.assertEquals(Optional.of(HttpUrl.get(expected)), redirect.map(PermanentRedirectCache.Redirect::location));
+	}
+
+	@ParameterizedTest(name = "{0} -> {1}: {2}")
+	@DisplayName("redirects are not applied to other URLs")
+	@CsvSource({ //
+			"https://example.com/remote.php/webdav/, https://example.com/remote.php/dav/, https://example.com/remote.php/webdavfoo", //
+			"https://example.com/remote.php/webdav/, https://example.com/remote.php/dav/, https://other.example.com/remote.php/webdav/foo", //
+			"https://example.com/remote.php/webdav/, https://example.com/remote.php/dav/, http://example.com/remote.php/webdav/foo", //
+			"https://example.com/remote.php/webdav, https://example.com/remote.php/webdav/, https://example.com/remote.php/webdav/foo", //
+	})
+	public void testLookupOfUnrelatedUrl(String from, String to, String requested) {
+		cache.put(HttpUrl.get(from), HttpUrl.get(to), true);
+
+		Assertions.assertEquals(Optional.empty(), cache.lookup(HttpUrl.get(requested)));
+	}
+
+	@Test
+	@DisplayName("redirects of single files are applied to the very same URL only")
+	public void testRedirectOfFile() {
+		cache.put(HttpUrl.get("https://example.com/a/x"), HttpUrl.get("https://example.com/b/x"), false);
+
+		Assertions.assertEquals(HttpUrl.get("https://example.com/b/x"), cache.lookup(HttpUrl.get("https://example.com/a/x")).get().location());
+		Assertions.assertEquals(Optional.empty(), cache.lookup(HttpUrl.get("https://example.com/a/y")));
+		Assertions.assertEquals(Optional.empty(), cache.lookup(HttpUrl.get("https://example.com/a/x/y")));
+	}
+
+	@Test
+	@DisplayName("longest matching prefix wins")
+	public void testLongestPrefix() {
+		cache.put(HttpUrl.get("http://example.com/"), HttpUrl.get("https://example.com/"), true);
+		cache.put(HttpUrl.get("http://example.com/webdav/"), HttpUrl.get("https://example.com/dav/"), true);
+
+		Assertions.assertEquals(HttpUrl.get("https://example.com/dav/foo"), cache.lookup(HttpUrl.get("http://example.com/webdav/foo")).get().location());
+		Assertions.assertEquals(HttpUrl.get("https://example.com/foo"), cache.lookup(HttpUrl.get("http://example.com/foo")).get().location());
+	}
+
+	@Test
+	@DisplayName("invalidated redirects are no longer applied")
+	public void testInvalidate() {
+		cache.put(HttpUrl.get("http://example.com/webdav/"), HttpUrl.get("https://example.com/webdav/"), true);
+		final var redirect = cache.lookup(HttpUrl.get("http://example.com/webdav/foo")).get();
+
+		cache.invalidate(redirect);
+
+		Assertions.assertEquals(Optional.empty(), cache.lookup(HttpUrl.get("http://example.com/webdav/foo")));
+	}
+
+	@Test
+	@DisplayName("redirects changing the query are not cached")
+	public void testRedirectChangingQuery() {
+		cache.put(HttpUrl.get("https://example.com/webdav/?a=1"), HttpUrl.get("https://example.com/dav/?a=2"), true);
+
+		Assertions.assertEquals(Optional.empty(), cache.lookup(HttpUrl.get("https://example.com/webdav/foo")));
+	}
+
+}
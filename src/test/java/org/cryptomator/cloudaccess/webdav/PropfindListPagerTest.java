@@ -0,0 +1,99 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.exceptions.InvalidPageTokenException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PropfindListPagerTest {
+
+	private static final CloudPath FOLDER = CloudPath.of("/folder");
+
+	private final AtomicInteger loadedListings = new AtomicInteger();
+	private final List<PropfindEntryItemData> entries = IntStream.range(0, 2500) //
+			.mapToObj(i -> new PropfindEntryItemData.Builder().withPath("/folder/" + i).build()) //
+			.collect(Collectors.toList());
+
+	private CompletionStage<List<PropfindEntryItemData>> loadListing(CloudPath folder) {
+		loadedListings.incrementAndGet();
+		return CompletableFuture.completedFuture(entries);
+	}
+
+	@Test
+	@DisplayName("listing all pages of 2500 entries loads the listing once")
+	public void testAllPagesLoadListingOnce() {
+		var pager = new PropfindListPager(1000);
+
+		var listed = new ArrayList<PropfindEntryItemData>();
+		var pageToken = Optional.<String>empty();
+		var pages = 0;
+		do {
+			var page = pager.page(FOLDER, pageToken, this::loadListing).toCompletableFuture().join();
+			listed.addAll(page.entries());
+			pageToken = page.nextPageToken();
+			pages++;
+		} while (pageToken.isPresent());
+
+		Assertions.assertEquals(3, pages);
+		Assertions.assertEquals(entries, listed);
+		Assertions.assertEquals(1, loadedListings.get());
+	}
+
+	@Test
+	@DisplayName("pages stem from the listing loaded for the first page, even if the folder changes meanwhile")
+	public void testPagesAreConsistent() {
+		var pager = new PropfindListPager(1000);
+
+		var firstPage = pager.page(FOLDER, Optional.empty(), this::loadListing).toCompletableFuture().join();
+		entries.remove(0);
+		var secondPage = pager.page(FOLDER, firstPage.nextPageToken(), this::loadListing).toCompletableFuture().join();
+
+		Assertions.assertEquals("/folder/1000", secondPage.entries().get(0).getPath());
+	}
+
+	@Test
+	@DisplayName("listing fitting into one page has no next page")
+	public void testSinglePage() {
+		var pager = new PropfindListPager(5000);
+
+		var page = pager.page(FOLDER, Optional.empty(), this::loadListing).toCompletableFuture().join();
+
+		Assertions.assertEquals(entries, page.entries());
+		Assertions.assertTrue(page.nextPageToken().isEmpty());
+	}
+
+	@Test
+	@DisplayName("page token is rejected for another folder")
+	public void testPageTokenOfOtherFolder() {
+		var pager = new PropfindListPager(1000);
+
+		var firstPage = pager.page(FOLDER, Optional.empty(), this::loadListing).toCompletableFuture().join();
+		var otherFolder = pager.page(CloudPath.of("/other"), firstPage.nextPageToken(), this::loadListing).toCompletableFuture();
+
+		Assertions.assertThrows(InvalidPageTokenException.class, otherFolder::join);
+	}
+
+	@Test
+	@DisplayName("page token is rejected once its listing expired")
+	public void testExpiredPageToken() {
+		var pager = new PropfindListPager(1000, Duration.ZERO);
+
+		var firstPage = pager.page(FOLDER, Optional.empty(), this::loadListing).toCompletableFuture().join();
+		var secondPage = pager.page(FOLDER, firstPage.nextPageToken(), this::loadListing).toCompletableFuture();
+
+		Assertions.assertThrows(InvalidPageTokenException.class, secondPage::join);
+		Assertions.assertEquals(1, loadedListings.get());
+	}
+
+}
@@ -27,8 +27,13 @@ public class PropfindResponseParserTest {
 	private static final String RESPONSE_MAL_FORMATTED_DATE = "malformatted-date-response";
 	private static final String RESPONSE_MAL_FORMATTED_NO_PATH = "directory-and-file-no-path";
 	private static final String RESPONSE_ONE_FILE_MULTI_STATUS = "file-multi-status";
+	private static final String RESPONSE_ONE_FILE_MULTI_PROPSTAT = "file-multi-propstat";
 	private static final String RESPONSE_QUOTA = "quota";
 	private static final String RESPONSE_QUOTA_NEGATIVE_AVAILABLE = "quota-negative-available";
+	private static final String RESPONSE_SYNC_COLLECTION = "sync-collection";
+	private static final String RESPONSE_SYNC_COLLECTION_TRUNCATED = "sync-collection-truncated";
+	private static final String RESPONSE_SYNC_TOKEN = "sync-token";
+	private static final String RESPONSE_SYNC_TOKEN_NOT_FOUND = "sync-token-not-found";
 
 	private static final CloudItemMetadata testFolder = new CloudItemMetadata("Gelöschte Dateien", CloudPath.of("/Gelöschte Dateien"), CloudItemType.FOLDER, Optional.empty(), Optional.empty());
 	private static final CloudItemMetadata testFile = new CloudItemMetadata("0.txt", CloudPath.of("/0.txt"), CloudItemType.FILE, Optional.of(TestUtil.toInstant("Thu, 18 May 2017 9:49:41 GMT")), Optional.of(54175L));
@@ -69,6 +74,36 @@ public class PropfindResponseParserTest {
 		Assertions.assertEquals(List.of(testFile, testFolder), cloudNodeItemList.getItems());
 	}
 
+	@Test
+	public void testConsumerReceivesEntriesInDocumentOrder() throws SAXException, IOException {
+		final var paths = new ArrayList<String>();
+		propfindResponseParser.parseItemData(load(RESPONSE_ONE_FILE_AND_FOLDERS), entry -> paths.add(entry.getPath()));
+
+		Assertions.assertEquals(List.of("/", "/0.txt", "/Gelöschte Dateien/"), paths);
+	}
+
+	@Test
+	public void testPropertiesOfFailedPropstatAreIgnored() throws SAXException, IOException {
+		final var propfindEntryList = propfindResponseParser.parseItemData(load(RESPONSE_ONE_FILE_MULTI_PROPSTAT));
+
+		Assertions.assertEquals(1, propfindEntryList.size());
+		Assertions.assertEquals(Optional.of(54175L), propfindEntryList.get(0).getSize());
+		Assertions.assertNull(propfindEntryList.get(0).getETag());
+	}
+
+	@Test
+	public void testParsingStopsOnceConsumerDeclinesFurtherEntries() throws SAXException, IOException {
+		final var propfindEntryList = propfindResponseParser.parseItemData(load(RESPONSE_ONE_FILE_AND_FOLDERS));
+		final var consumedEntryList = new ArrayList<PropfindEntryItemData>();
+		propfindResponseParser.parseItemDataWhile(load(RESPONSE_ONE_FILE_AND_FOLDERS), entry -> {
+			consumedEntryList.add(entry);
+			return consumedEntryList.size() < 2;
+		});
+
+		Assertions.assertTrue(propfindEntryList.size() > 2);
+		Assertions.assertEquals(propfindEntryList.subList(0, 2).stream().map(PropfindEntryItemData::getPath).toList(), consumedEntryList.stream().map(PropfindEntryItemData::getPath).toList());
+	}
+
 	@Test
 	public void testFileWithMalFormattedDateResponseLeadsToFileAndFoldersInCloudNodeListWithoutDate() throws SAXException, IOException {
 		final var propfindEntryList = propfindResponseParser.parseItemData(load(RESPONSE_MAL_FORMATTED_DATE));
@@ -110,6 +145,36 @@ public class PropfindResponseParserTest {
 		Assertions.assertThrows(QuotaNotAvailableException.class, () -> propfindResponseParser.parseQuta(load(RESPONSE_QUOTA_NEGATIVE_AVAILABLE)));
 	}
 
+	@Test
+	public void testSyncCollectionReportsChangedAndRemovedMembers() throws SAXException, IOException {
+		final var syncCollection = propfindResponseParser.parseSyncCollection(load(RESPONSE_SYNC_COLLECTION));
+
+		Assertions.assertEquals(2, syncCollection.changed().size());
+		Assertions.assertEquals("/remote.php/dav/files/user/Documents/", syncCollection.changed().get(0).getPath());
+		Assertions.assertTrue(syncCollection.changed().get(0).isCollection());
+		Assertions.assertEquals("/remote.php/dav/files/user/Documents/About this.txt", syncCollection.changed().get(1).getPath());
+		Assertions.assertEquals("\"8f3a1c07e4b2d\"", syncCollection.changed().get(1).getETag());
+		Assertions.assertEquals(List.of("/remote.php/dav/files/user/Photos/Old%20Photo.jpg"), syncCollection.removed());
+		Assertions.assertEquals(Optional.of("http://sabre.io/ns/sync/43"), syncCollection.syncToken());
+		Assertions.assertFalse(syncCollection.truncated());
+	}
+
+	@Test
+	public void testTruncatedSyncCollection() throws SAXException, IOException {
+		final var syncCollection = propfindResponseParser.parseSyncCollection(load(RESPONSE_SYNC_COLLECTION_TRUNCATED));
+
+		Assertions.assertTrue(syncCollection.changed().isEmpty());
+		Assertions.assertTrue(syncCollection.removed().isEmpty());
+		Assertions.assertEquals(Optional.of("http://sabre.io/ns/sync/44"), syncCollection.syncToken());
+		Assertions.assertTrue(syncCollection.truncated());
+	}
+
+	@Test
+	public void testSyncTokenProperty() throws SAXException, IOException {
+		Assertions.assertEquals(Optional.of("http://sabre.io/ns/sync/42"), propfindResponseParser.parseSyncCollection(load(RESPONSE_SYNC_TOKEN)).syncToken());
+		Assertions.assertEquals(Optional.empty(), propfindResponseParser.parseSyncCollection(load(RESPONSE_SYNC_TOKEN_NOT_FOUND)).syncToken());
+	}
+
 	private CloudItemList processDirList(final List<PropfindEntryItemData> entryData, final CloudPath folder) {
 		var result = new CloudItemList(new ArrayList<>());
 
@@ -0,0 +1,85 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResumingInputStreamTest {
+
+	private static final byte[] CONTENT = "hello world".getBytes(StandardCharsets.UTF_8);
+
+	private final List<Long> resumedAt = new ArrayList<>();
+
+	// delivers the content starting at position, but fails after failAfter bytes
+	private static InputStream interruptedStream(long position, int failAfter) {
+		var delegate = new ByteArrayInputStream(CONTENT, (int) position, CONTENT.length - (int) position);
+		return new InputStream() {
+			private int read;
+
+			@Override
+			public int read() throws IOException {
+				if (read++ >= failAfter) {
+					throw new IOException("connection reset");
+				}
+				return delegate.read();
+			}
+		};
+	}
+
+	@Test
+	@DisplayName("reading continues at the position where it failed")
+	public void testResume() throws IOException {
+		var in = new ResumingInputStream(interruptedStream(0, 4), 0, position -> {
+			resumedAt.add(position);
+			return interruptedStream(position, 3);
+		}, 5);
+
+		Assertions.assertArrayEquals(CONTENT, in.readAllBytes());
+		Assertions.assertEquals(List.of(4L, 7L, 10L), resumedAt);
+	}
+
+	@Test
+	@DisplayName("reading fails once the maximum number of resumes has been reached")
+	public void testMaxResumes() {
+		var in = new ResumingInputStream(interruptedStream(0, 4), 0, position -> {
+			resumedAt.add(position);
+			return interruptedStream(position, 1);
+		}, 2);
+
+		var e = Assertions.assertThrows(IOException.class, in::readAllBytes);
+		Assertions.assertEquals("connection reset", e.getMessage());
+		Assertions.assertEquals(List.of(4L, 5L), resumedAt);
+	}
+
+	@Test
+	@DisplayName("reading fails if resuming fails")
+	public void testResumeFails() {
+		var in = new ResumingInputStream(interruptedStream(0, 4), 0, position -> {
+			throw new IOException("changed");
+		}, 2);
+
+		var e = Assertions.assertThrows(IOException.class, in::readAllBytes);
+		Assertions.assertEquals("changed", e.getMessage());
+		Assertions.assertEquals("connection reset", e.getSuppressed()[0].getMessage());
+	}
+
+	@Test
+	@DisplayName("positions are relative to the start of the file")
+	public void testStartOffset() throws IOException {
+		var in = new ResumingInputStream(interruptedStream(6, 2), 6, position -> {
+			resumedAt.add(position);
+			return interruptedStream(position, 10);
+		}, 1);
+
+		Assertions.assertEquals("world", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		Assertions.assertEquals(List.of(8L), resumedAt);
+	}
+
+}
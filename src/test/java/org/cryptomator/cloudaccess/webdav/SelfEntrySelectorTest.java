@@ -0,0 +1,77 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class SelfEntrySelectorTest {
+
+	private static final String FOLDER = "/remote.php/webdav/folder";
+
+	@Test
+	@DisplayName("entry matching the requested path is the self entry")
+	public void testHrefMatch() {
+		var listing = select(FOLDER + "/", FOLDER + "/a", FOLDER + "/b");
+
+		Assertions.assertEquals(List.of(FOLDER + "/", FOLDER + "/a", FOLDER + "/b"), listing);
+	}
+
+	@Test
+	@DisplayName("entry matching the requested path is the self entry even if listed last")
+	public void testHrefMatchListedLast() {
+		var listing = select(FOLDER + "/a", FOLDER + "/b", FOLDER + "/");
+
+		Assertions.assertEquals(List.of(FOLDER + "/", FOLDER + "/b", FOLDER + "/a"), listing);
+	}
+
+	@Test
+	@DisplayName("shallowest entry is the self entry if a proxy strips a prefix")
+	public void testStrippedPrefix() {
+		var listing = select("/folder/", "/folder/a", "/folder/b");
+
+		Assertions.assertEquals(List.of("/folder/", "/folder/a", "/folder/b"), listing);
+	}
+
+	@Test
+	@DisplayName("shallowest entry is the self entry if a proxy adds a prefix")
+	public void testAddedPrefix() {
+		var listing = select("/proxy/a/" + FOLDER + "/x", "/proxy/a/" + FOLDER + "/", "/proxy/a/" + FOLDER + "/y");
+
+		Assertions.assertEquals(List.of("/proxy/a/" + FOLDER + "/", "/proxy/a/" + FOLDER + "/x", "/proxy/a/" + FOLDER + "/y"), listing);
+	}
+
+	@Test
+	@DisplayName("exactly one entry is the self entry if all entries are equally deep")
+	public void testSingleSelfEntry() {
+		var listing = select("/a", "/b", "/c");
+
+		Assertions.assertEquals(List.of("/a", "/b", "/c"), listing);
+	}
+
+	@Test
+	@DisplayName("empty response has no self entry")
+	public void testEmpty() {
+		var selector = new SelfEntrySelector(entry -> false);
+
+		Assertions.assertEquals(Optional.empty(), selector.selfEntry());
+	}
+
+	// returns the self entry followed by the children in the order they are released
+	private List<String> select(String... paths) {
+		var selector = new SelfEntrySelector(entry -> entry.getPath().replaceAll("/$", "").equals(FOLDER));
+		var children = new ArrayList<PropfindEntryItemData>();
+		for (var path : paths) {
+			selector.offer(new PropfindEntryItemData.Builder().withPath(path).build()).ifPresent(children::add);
+		}
+		var listing = new ArrayList<String>();
+		selector.selfEntry().map(PropfindEntryItemData::getPath).ifPresent(listing::add);
+		listing.addAll(children.stream().map(PropfindEntryItemData::getPath).collect(Collectors.toList()));
+		return listing;
+	}
+
+}
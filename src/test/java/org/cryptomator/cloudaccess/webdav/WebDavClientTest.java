@@ -5,13 +5,16 @@ import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.Okio;
 import org.cryptomator.cloudaccess.api.CloudItemMetadata;
 import org.cryptomator.cloudaccess.api.CloudItemType;
 import org.cryptomator.cloudaccess.api.CloudPath;
 import org.cryptomator.cloudaccess.api.ProgressListener;
 import org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException;
+import org.cryptomator.cloudaccess.api.exceptions.InvalidPageTokenException;
 import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
 import org.cryptomator.cloudaccess.api.exceptions.QuotaNotAvailableException;
+import org.cryptomator.cloudaccess.api.exceptions.VersionMismatchException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +25,7 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -30,7 +34,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 public class WebDavClientTest {
@@ -51,6 +58,7 @@ public class WebDavClientTest {
 
 	@BeforeEach
 	public void setup() throws MalformedURLException {
+		Mockito.when(webDavCompatibleHttpClient.transferExecutor()).thenReturn(Runnable::run);
 		webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.empty());
 	}
 
@@ -72,9 +80,9 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("get metadata of /Nextcloud Manual.pdf")
 	public void testItemMetadata() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "item-meta-data-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-meta-data-response.xml")));
 
-		final var itemMetadata = webDavClient.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"));
+		final var itemMetadata = webDavClient.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf")).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 	}
@@ -85,14 +93,14 @@ public class WebDavClientTest {
 		webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.of(cachedPropfindEntryProvider));
 
 		Mockito.when(cachedPropfindEntryProvider.itemMetadata(ArgumentMatchers.eq(CloudPath.of("/Nextcloud Manual.pdf")), ArgumentMatchers.any(), ArgumentMatchers.any()))
-				.thenReturn(new PropfindEntryItemData.Builder()
+				.thenReturn(CompletableFuture.completedFuture(new PropfindEntryItemData.Builder()
 						.withPath(testFileManual.getPath().toString())
 						.withLastModified(testFileManual.getLastModifiedDate())
 						.withSize(testFileManual.getSize())
 						.withCollection(false)
-						.build());
+						.build()));
 
-		final var itemMetadata = webDavClient.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"));
+		final var itemMetadata = webDavClient.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf")).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 
@@ -106,21 +114,33 @@ public class WebDavClientTest {
 
 		Mockito.when(cachedPropfindEntryProvider.itemMetadata(ArgumentMatchers.eq(CloudPath.of("/Nextcloud Manual.pdf")), ArgumentMatchers.any(), ArgumentMatchers.any()))
 				.thenReturn(null);
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "item-meta-data-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-meta-data-response.xml")));
 
-		final var itemMetadata = webDavClient.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf"));
+		final var itemMetadata = webDavClient.itemMetadata(CloudPath.of("/Nextcloud Manual.pdf")).toCompletableFuture().join();
 
 		Assertions.assertEquals(testFileManual, itemMetadata);
 
 		Mockito.verify(cachedPropfindEntryProvider).itemMetadata(ArgumentMatchers.eq(CloudPath.of("/Nextcloud Manual.pdf")), ArgumentMatchers.any(), ArgumentMatchers.any());
 	}
 
+	@Test
+	@DisplayName("get metadata of several siblings using a single listing")
+	public void testItemMetadataOfSiblings() throws IOException {
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "directory-list-response.xml")));
+
+		final var paths = List.of(CloudPath.of("/Nextcloud Manual.pdf"), CloudPath.of("/Nextcloud.png"), CloudPath.of("/missing.txt"));
+		final var itemMetadata = webDavClient.itemMetadata(paths).toCompletableFuture().join();
+
+		Assertions.assertEquals(Map.of(CloudPath.of("/Nextcloud Manual.pdf"), testFileManual, CloudPath.of("/Nextcloud.png"), testFilePng), itemMetadata);
+		Mockito.verify(webDavCompatibleHttpClient, Mockito.times(1)).executeAsync(ArgumentMatchers.any());
+	}
+
 	@Test
 	@DisplayName("get quota of /")
 	public void testQuota() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "quota.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "quota.xml")));
 
-		final var quota = webDavClient.quota(CloudPath.of("/"));
+		final var quota = webDavClient.quota(CloudPath.of("/")).toCompletableFuture().join();
 
 		Assertions.assertEquals(10699503366L, quota.getAvailableBytes());
 		Assertions.assertEquals(37914874L, quota.getUsedBytes().get());
@@ -130,17 +150,17 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("get quota of / with negative available")
 	public void testQuotaWithNegativeAvailable() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "quota-negative-available.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "quota-negative-available.xml")));
 
-		Assertions.assertThrows(QuotaNotAvailableException.class, () -> webDavClient.quota(CloudPath.of("/")));
+		Assertions.assertThrows(QuotaNotAvailableException.class, () -> webDavClient.quota(CloudPath.of("/")).toCompletableFuture().join());
 	}
 
 	@Test
 	@DisplayName("list /")
 	public void testList() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "directory-list-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "directory-list-response.xml")));
 
-		final var nodeList = webDavClient.list(CloudPath.of("/"));
+		final var nodeList = webDavClient.list(CloudPath.of("/"), Optional.empty()).toCompletableFuture().join();
 
 		final var expectedList = List.of(testFolderDocuments, testFileManual, testFileIntro, testFilePng, testFolderPhotos);
 
@@ -149,13 +169,124 @@ public class WebDavClientTest {
 		Assertions.assertTrue(nodeList.getNextPageToken().isEmpty());
 	}
 
+	@Test
+	@DisplayName("list / in pages of two entries")
+	public void testListInPages() {
+		System.setProperty("org.cryptomator.cloudaccess.webdav.listPageSize", "2");
+		try {
+			webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.empty());
+		} finally {
+			System.clearProperty("org.cryptomator.cloudaccess.webdav.listPageSize");
+		}
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenAnswer(invocation -> CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "directory-list-response.xml")));
+
+		final var firstPage = webDavClient.list(CloudPath.of("/"), Optional.empty()).toCompletableFuture().join();
+		final var secondPage = webDavClient.list(CloudPath.of("/"), firstPage.getNextPageToken()).toCompletableFuture().join();
+		final var lastPage = webDavClient.list(CloudPath.of("/"), secondPage.getNextPageToken()).toCompletableFuture().join();
+
+		Assertions.assertEquals(List.of(testFolderDocuments, testFileManual), firstPage.getItems());
+		Assertions.assertEquals(List.of(testFileIntro, testFilePng), secondPage.getItems());
+		Assertions.assertEquals(List.of(testFolderPhotos), lastPage.getItems());
+		Assertions.assertTrue(lastPage.getNextPageToken().isEmpty());
+		Mockito.verify(webDavCompatibleHttpClient, Mockito.times(1)).executeAsync(ArgumentMatchers.any());
+	}
+
+	@Test
+	@DisplayName("list / with the same page token twice returns the same page")
+	public void testListWithRepeatedPageToken() {
+		System.setProperty("org.cryptomator.cloudaccess.webdav.listPageSize", "2");
+		try {
+			webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.empty());
+		} finally {
+			System.clearProperty("org.cryptomator.cloudaccess.webdav.listPageSize");
+		}
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenAnswer(invocation -> CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "directory-list-response.xml")));
+
+		final var firstPage = webDavClient.list(CloudPath.of("/"), Optional.empty()).toCompletableFuture().join();
+		webDavClient.list(CloudPath.of("/"), firstPage.getNextPageToken()).toCompletableFuture().join();
+		final var repeatedSecondPage = webDavClient.list(CloudPath.of("/"), firstPage.getNextPageToken()).toCompletableFuture().join();
+
+		Assertions.assertEquals(List.of(testFileIntro, testFilePng), repeatedSecondPage.getItems());
+		Assertions.assertTrue(repeatedSecondPage.getNextPageToken().isPresent());
+	}
+
+	@Test
+	@DisplayName("list / with malformed page token")
+	public void testListWithInvalidPageToken() {
+		Assertions.assertThrows(InvalidPageTokenException.class, () -> webDavClient.list(CloudPath.of("/"), Optional.of("foo")).toCompletableFuture().join());
+	}
+
+	@Test
+	@DisplayName("list / with page token with negative offset")
+	public void testListWithNegativePageTokenOffset() {
+		webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.of(cachedPropfindEntryProvider));
+		Mockito.when(cachedPropfindEntryProvider.list(ArgumentMatchers.eq(CloudPath.of("/")), ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+		Assertions.assertThrows(InvalidPageTokenException.class, () -> webDavClient.list(CloudPath.of("/"), Optional.of("foo:-5")).toCompletableFuture().join());
+	}
+
+	@Test
+	@DisplayName("list / in pages closes the response of the listing")
+	public void testListInPagesClosesResponse() {
+		System.setProperty("org.cryptomator.cloudaccess.webdav.listPageSize", "2");
+		try {
+			webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.empty());
+		} finally {
+			System.clearProperty("org.cryptomator.cloudaccess.webdav.listPageSize");
+		}
+		var closed = new AtomicBoolean();
+		var body = new ByteArrayInputStream(load("directory-list-response.xml").getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		};
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, body)));
+
+		final var firstPage = webDavClient.list(CloudPath.of("/"), Optional.empty()).toCompletableFuture().join();
+
+		Assertions.assertEquals(List.of(testFolderDocuments, testFileManual), firstPage.getItems());
+		Assertions.assertTrue(firstPage.getNextPageToken().isPresent());
+		Assertions.assertTrue(closed.get());
+	}
+
+	@Test
+	@DisplayName("prefetch / using Depth-infinity")
+	public void testPrefetch() {
+		webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.of(cachedPropfindEntryProvider));
+		var prefetch = Mockito.mock(CachedPropfindEntryProvider.SubtreePrefetch.class);
+		Mockito.when(cachedPropfindEntryProvider.beginPrefetch(CloudPath.of("/"))).thenReturn(prefetch);
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "directory-list-response.xml")));
+
+		webDavClient.prefetch(CloudPath.of("/")).toCompletableFuture().join();
+
+		Mockito.verify(webDavCompatibleHttpClient).executeAsync(ArgumentMatchers.argThat(request -> "infinity".equals(request.build().header("Depth"))));
+		Mockito.verify(prefetch).add(ArgumentMatchers.eq(CloudPath.of("/")), ArgumentMatchers.any());
+		Mockito.verify(prefetch).add(ArgumentMatchers.eq(CloudPath.of("/Documents")), ArgumentMatchers.any());
+		Mockito.verify(prefetch).add(ArgumentMatchers.eq(CloudPath.of("/Nextcloud Manual.pdf")), ArgumentMatchers.any());
+		Mockito.verify(prefetch).complete();
+		Mockito.verify(cachedPropfindEntryProvider, Mockito.never()).crawl(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.anyInt());
+	}
+
+	@Test
+	@DisplayName("prefetch / falls back to crawling if Depth-infinity is forbidden")
+	public void testPrefetchFallsBackToCrawl() {
+		webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.of(cachedPropfindEntryProvider));
+		Mockito.when(cachedPropfindEntryProvider.crawl(ArgumentMatchers.eq(CloudPath.of("/")), ArgumentMatchers.any(), ArgumentMatchers.anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, HttpURLConnection.HTTP_FORBIDDEN, "")));
+
+		webDavClient.prefetch(CloudPath.of("/")).toCompletableFuture().join();
+
+		Mockito.verify(cachedPropfindEntryProvider).crawl(ArgumentMatchers.eq(CloudPath.of("/")), ArgumentMatchers.any(), ArgumentMatchers.anyInt());
+	}
+
 	@Test
 	@DisplayName("list / from cache")
 	public void testListFromCache() {
 		webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.of(cachedPropfindEntryProvider));
 
 		Mockito.when(cachedPropfindEntryProvider.list(ArgumentMatchers.eq(CloudPath.of("/")), ArgumentMatchers.any()))
-				.thenReturn(List.of(new PropfindEntryItemData.Builder()
+				.thenReturn(CompletableFuture.completedFuture(List.of(new PropfindEntryItemData.Builder()
 								.withPath(testFolderDocuments.getPath().toString())
 								.withLastModified(testFolderDocuments.getLastModifiedDate())
 								.withSize(testFolderDocuments.getSize())
@@ -184,9 +315,9 @@ public class WebDavClientTest {
 								.withLastModified(testFolderPhotos.getLastModifiedDate())
 								.withSize(testFolderPhotos.getSize())
 								.withCollection(true)
-								.build()));
+								.build())));
 
-		final var nodeList = webDavClient.list(CloudPath.of("/"));
+		final var nodeList = webDavClient.list(CloudPath.of("/"), Optional.empty()).toCompletableFuture().join();
 
 		final var expectedList = List.of(testFolderDocuments, testFileManual, testFileIntro, testFilePng, testFolderPhotos);
 
@@ -201,11 +332,11 @@ public class WebDavClientTest {
 	@DisplayName("read /Documents/About.txt (Error 404)")
 	public void testReadNotFound() throws IOException {
 		var response = Mockito.mock(Response.class);
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(response);
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(response));
 		Mockito.when(response.code()).thenReturn(HttpURLConnection.HTTP_NOT_FOUND);
 
 		Assertions.assertThrows(NotFoundException.class, () -> {
-			webDavClient.read(CloudPath.of("/Documents/About.txt"), ProgressListener.NO_PROGRESS_AWARE);
+			webDavClient.read(CloudPath.of("/Documents/About.txt"), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
 		});
 		Mockito.verify(response).close();
 	}
@@ -213,9 +344,9 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("read /Documents/About.txt (complete)")
 	public void testRead() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "item-read-response.txt"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-read-response.txt")));
 
-		final var inputStream = webDavClient.read(CloudPath.of("/Documents/About.txt"), ProgressListener.NO_PROGRESS_AWARE);
+		final var inputStream = webDavClient.read(CloudPath.of("/Documents/About.txt"), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
 		final var content = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)).lines().collect(Collectors.joining("\n"));
 
 		Assertions.assertEquals(load("item-read-response.txt"), content);
@@ -224,9 +355,9 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("read /Documents/About.txt (bytes 4-6)")
 	public void testRandomAccessRead() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any())).thenReturn(getInterceptedResponse(baseUrl, "item-partial-read-response.txt"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any())).thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-partial-read-response.txt")));
 
-		final var inputStream = webDavClient.read(CloudPath.of("/Documents/About.txt"), 4, 2, ProgressListener.NO_PROGRESS_AWARE);
+		final var inputStream = webDavClient.read(CloudPath.of("/Documents/About.txt"), 4, 2, ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
 		final var content = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)).lines().collect(Collectors.joining("\n"));
 
 		Assertions.assertEquals(load("item-partial-read-response.txt"), content);
@@ -235,58 +366,80 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("write to /foo.txt (non-existing, replace)")
 	public void testWriteToAndReplaceNewFile() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl))
-				.thenReturn(getInterceptedResponse(baseUrl, "item-write-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-write-response.xml")));
 
 		final var writtenItemMetadata = new CloudItemMetadata("foo.txt", CloudPath.of("/foo.txt"), CloudItemType.FILE, Optional.of(TestUtil.toInstant("Thu, 07 Jul 2020 16:55:50 GMT")), Optional.of(8193L));
 
 		InputStream inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
-		webDavClient.write(CloudPath.of("/foo.txt"), true, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+		webDavClient.write(CloudPath.of("/foo.txt"), true, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
 	}
 
 	@Test
 	@DisplayName("write to /foo.txt (non-existing)")
 	public void testWriteToNewFile() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, 404, ""))
-				.thenReturn(getInterceptedResponse(baseUrl, "item-write-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)));
 
 		InputStream inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
-		webDavClient.write(CloudPath.of("/foo.txt"), false, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+		webDavClient.write(CloudPath.of("/foo.txt"), false, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
+
+		Mockito.verify(webDavCompatibleHttpClient).executeAsync(ArgumentMatchers.argThat(request -> "*".equals(request.build().header("If-None-Match"))));
 	}
 
 	@Test
 	@DisplayName("write to /file (already existing)")
 	public void testWriteToExistingFile() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, "item-write-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, HttpURLConnection.HTTP_PRECON_FAILED, "")));
 
 		InputStream inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
 
 		Assertions.assertThrows(AlreadyExistsException.class, () -> {
-			webDavClient.write(CloudPath.of("/foo.txt"), false, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+			webDavClient.write(CloudPath.of("/foo.txt"), false, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
 		});
 	}
 
 	@Test
 	@DisplayName("write to /foo.txt (replace existing)")
 	public void testWriteToAndReplaceExistingFile() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, "item-write-response.xml"))
-				.thenReturn(getInterceptedResponse(baseUrl, "item-write-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-write-response.xml")))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "item-write-response.xml")));
 
 		InputStream inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
-		webDavClient.write(CloudPath.of("/foo.txt"), true, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE);
+		webDavClient.write(CloudPath.of("/foo.txt"), true, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
+	}
+
+	@Test
+	@DisplayName("write to /foo.txt (replace existing, changed remotely)")
+	public void testConditionalReplaceOfChangedFile() throws IOException {
+		System.setProperty("org.cryptomator.cloudaccess.webdav.conditionalReplace", "true");
+		try {
+			webDavClient = new WebDavClient(webDavCompatibleHttpClient, webDavCredential, Optional.of(cachedPropfindEntryProvider));
+		} finally {
+			System.clearProperty("org.cryptomator.cloudaccess.webdav.conditionalReplace");
+		}
+		Mockito.when(cachedPropfindEntryProvider.cachedETag(CloudPath.of("/foo.txt"))).thenReturn(Optional.of("\"abc\""));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, HttpURLConnection.HTTP_PRECON_FAILED, "")));
+
+		InputStream inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
+
+		Assertions.assertThrows(VersionMismatchException.class, () -> {
+			webDavClient.write(CloudPath.of("/foo.txt"), true, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join();
+		});
+		Mockito.verify(webDavCompatibleHttpClient).executeAsync(ArgumentMatchers.argThat(request -> "\"abc\"".equals(request.build().header("If-Match"))));
 	}
 
 	@Test
 	@DisplayName("create /foo")
 	public void testCreateFolder() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)));
 
-		final var path = webDavClient.createFolder(CloudPath.of("/foo"));
+		final var path = webDavClient.createFolder(CloudPath.of("/foo")).toCompletableFuture().join();
 
 		Assertions.assertEquals(CloudPath.of("/foo"), path);
 	}
@@ -294,28 +447,28 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("delete /foo.txt")
 	public void testDeleteFile() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)));
 
-		webDavClient.delete(CloudPath.of("/foo.txt"));
+		webDavClient.delete(CloudPath.of("/foo.txt")).toCompletableFuture().join();
 	}
 
 	@Test
 	@DisplayName("delete /foo (recursively)")
 	public void testDeleteFolder() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)));
 
-		webDavClient.delete(CloudPath.of("/foo"));
+		webDavClient.delete(CloudPath.of("/foo")).toCompletableFuture().join();
 	}
 
 	@Test
 	@DisplayName("move /foo -> /bar (non-existing)")
 	public void testMoveToNonExisting() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)));
 
-		final var targetPath = webDavClient.move(CloudPath.of("/foo"), CloudPath.of("/bar"), false);
+		final var targetPath = webDavClient.move(CloudPath.of("/foo"), CloudPath.of("/bar"), false).toCompletableFuture().join();
 
 		Assertions.assertEquals(CloudPath.of("/bar"), targetPath);
 	}
@@ -323,11 +476,11 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("move /foo -> /bar (already exists)")
 	public void testMoveToExisting() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, 412, "item-move-exists-no-replace.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, 412, "item-move-exists-no-replace.xml")));
 
 		Assertions.assertThrows(AlreadyExistsException.class, () -> {
-			final var targetPath = webDavClient.move(CloudPath.of("/foo"), CloudPath.of("/bar"), false);
+			final var targetPath = webDavClient.move(CloudPath.of("/foo"), CloudPath.of("/bar"), false).toCompletableFuture().join();
 			Assertions.assertNull(targetPath);
 		});
 	}
@@ -335,12 +488,39 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("move /foo -> /bar (replace existing)")
 	public void testMoveToAndReplaceExisting() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, 204, ""));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, 204, "")));
+
+		final var targetPath = webDavClient.move(CloudPath.of("/foo"), CloudPath.of("/bar"), true).toCompletableFuture().join();
+
+		Assertions.assertEquals(CloudPath.of("/bar"), targetPath);
+	}
+
+	@Test
+	@DisplayName("copy /foo -> /bar (non-existing)")
+	public void testCopyToNonExisting() throws IOException {
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, 201, "")));
 
-		final var targetPath = webDavClient.move(CloudPath.of("/foo"), CloudPath.of("/bar"), true);
+		final var targetPath = webDavClient.copy(CloudPath.of("/foo"), CloudPath.of("/bar"), false).toCompletableFuture().join();
 
 		Assertions.assertEquals(CloudPath.of("/bar"), targetPath);
+		Mockito.verify(webDavCompatibleHttpClient).executeAsync(ArgumentMatchers.argThat(request -> {
+			final var copyRequest = request.build();
+			return "COPY".equals(copyRequest.method()) //
+					&& copyRequest.url().toString().endsWith("/foo") //
+					&& copyRequest.header("Destination").endsWith("/bar") //
+					&& "F".equals(copyRequest.header("Overwrite"));
+		}));
+	}
+
+	@Test
+	@DisplayName("copy /foo -> /bar (already exists)")
+	public void testCopyToExisting() throws IOException {
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, 412, "item-move-exists-no-replace.xml")));
+
+		Assertions.assertThrows(AlreadyExistsException.class, () -> webDavClient.copy(CloudPath.of("/foo"), CloudPath.of("/bar"), false).toCompletableFuture().join());
 	}
 
 	@Test
@@ -357,9 +537,9 @@ public class WebDavClientTest {
 				.message("")
 				.build();
 
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(davResponse)
-				.thenReturn(getInterceptedResponse(baseUrl));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(davResponse))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl)));
 
 		webDavClient.checkServerCompatibility();
 
@@ -369,8 +549,8 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("check if client can authenticate against server (auth succeeded)")
 	public void testTryAuthenticatedRequestSuccess() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, "authentication-response.xml"));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, "authentication-response.xml")));
 
 		webDavClient.checkAuthenticationUsingLoadPropfindItem();
 	}
@@ -378,8 +558,8 @@ public class WebDavClientTest {
 	@Test
 	@DisplayName("check if client can authenticate against server (auth failed)")
 	public void testTryAuthenticatedRequestUnauthorized() throws IOException {
-		Mockito.when(webDavCompatibleHttpClient.execute(ArgumentMatchers.any()))
-				.thenReturn(getInterceptedResponse(baseUrl, 401, ""));
+		Mockito.when(webDavCompatibleHttpClient.executeAsync(ArgumentMatchers.any()))
+				.thenReturn(CompletableFuture.completedFuture(getInterceptedResponse(baseUrl, 401, "")));
 
 		Assertions.assertThrows(UnauthorizedException.class, () -> webDavClient.checkAuthenticationUsingLoadPropfindItem());
 	}
@@ -388,6 +568,18 @@ public class WebDavClientTest {
 		return getInterceptedResponse(url, 200, load(testResource));
 	}
 
+	private Response getInterceptedResponse(final URL url, final InputStream body) {
+		return new Response.Builder()
+				.request(new Request.Builder()
+						.url(url)
+						.build())
+				.protocol(Protocol.HTTP_1_1)
+				.code(200)
+				.body(ResponseBody.create(Okio.buffer(Okio.source(body)), MediaType.parse("application/xml; charset=utf-8"), -1))
+				.message("")
+				.build();
+	}
+
 	private Response getInterceptedResponse(final URL url) {
 		return getInterceptedResponse(url, 201, "");
 	}
@@ -2,21 +2,26 @@ package org.cryptomator.cloudaccess.webdav;
 
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.cryptomator.cloudaccess.api.CloudItemMetadata;
 import org.cryptomator.cloudaccess.api.CloudItemType;
 import org.cryptomator.cloudaccess.api.CloudPath;
 import org.cryptomator.cloudaccess.api.CloudProvider;
 import org.cryptomator.cloudaccess.api.ProgressListener;
 import org.cryptomator.cloudaccess.api.exceptions.AlreadyExistsException;
+import org.cryptomator.cloudaccess.api.exceptions.CloudProviderException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -123,23 +128,16 @@ public class WebDavCloudProviderTestIT {
 	@Test
 	@DisplayName("write to /foo.txt (non-existing)")
 	public void testWriteToNewFile() throws InterruptedException, IOException {
-		server.enqueue(getInterceptedResponse(404, ""));
 		server.enqueue(getInterceptedResponse(201, ""));
-		server.enqueue(getInterceptedResponse("item-write-response.xml"));
 
 		final var inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
 
 		Assertions.assertTimeoutPreemptively(timeout, () -> provider.write(CloudPath.of("/foo.txt"), false, inputStream, inputStream.available(), Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
 
 		var rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
-		Assertions.assertEquals("PROPFIND", rq.getMethod());
-		Assertions.assertEquals("1", rq.getHeader("DEPTH"));
-		Assertions.assertEquals("/cloud/remote.php/webdav", rq.getPath());
-		Assertions.assertEquals(webDavRequestBody, rq.getBody().readUtf8());
-
-		rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
 		Assertions.assertEquals("PUT", rq.getMethod());
 		Assertions.assertEquals("/cloud/remote.php/webdav/foo.txt", rq.getPath());
+		Assertions.assertEquals("*", rq.getHeader("If-None-Match"));
 		Assertions.assertNull(rq.getHeader("X-OC-Mtime"));
 	}
 
@@ -162,7 +160,7 @@ public class WebDavCloudProviderTestIT {
 	@Test
 	@DisplayName("write to /file (already existing)")
 	public void testWriteToExistingFile() throws InterruptedException {
-		server.enqueue(getInterceptedResponse("item-write-response.xml"));
+		server.enqueue(getInterceptedResponse(412, ""));
 
 		final var inputStream = getClass().getResourceAsStream("/progress-request-text.txt");
 
@@ -172,10 +170,9 @@ public class WebDavCloudProviderTestIT {
 						.join()));
 
 		var rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
-		Assertions.assertEquals("PROPFIND", rq.getMethod());
-		Assertions.assertEquals("1", rq.getHeader("DEPTH"));
-		Assertions.assertEquals("/cloud/remote.php/webdav", rq.getPath());
-		Assertions.assertEquals(webDavRequestBody, rq.getBody().readUtf8());
+		Assertions.assertEquals("PUT", rq.getMethod());
+		Assertions.assertEquals("/cloud/remote.php/webdav/foo.txt", rq.getPath());
+		Assertions.assertEquals("*", rq.getHeader("If-None-Match"));
 	}
 
 	@Test
@@ -194,12 +191,56 @@ public class WebDavCloudProviderTestIT {
 		Assertions.assertNull(rq.getHeader("X-OC-Mtime"));
 	}
 
+	@Test
+	@DisplayName("read /foo.txt to local file")
+	public void testReadToPath(@TempDir Path tempDir) throws InterruptedException, IOException {
+		server.enqueue(getInterceptedResponse(200, "hallo welt"));
+		final var target = tempDir.resolve("target.txt");
+
+		Assertions.assertTimeoutPreemptively(timeout, () -> provider.readTo(CloudPath.of("/foo.txt"), target, ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		var rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
+		Assertions.assertEquals("GET", rq.getMethod());
+		Assertions.assertEquals("/cloud/remote.php/webdav/foo.txt", rq.getPath());
+		Assertions.assertEquals("hallo welt", Files.readString(target));
+	}
+
+	@Test
+	@DisplayName("write local file to /foo.txt (sent again after 503)")
+	public void testWriteFromPath(@TempDir Path tempDir) throws InterruptedException, IOException {
+		server.enqueue(getInterceptedResponse(503, ""));
+		server.enqueue(getInterceptedResponse(201, ""));
+		final var source = Files.writeString(tempDir.resolve("source.txt"), "hallo welt");
+
+		Assertions.assertTimeoutPreemptively(timeout, () -> provider.write(CloudPath.of("/foo.txt"), false, source, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		for (int i = 0; i < 2; i++) {
+			var rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
+			Assertions.assertEquals("PUT", rq.getMethod());
+			Assertions.assertEquals("/cloud/remote.php/webdav/foo.txt", rq.getPath());
+			Assertions.assertEquals("*", rq.getHeader("If-None-Match"));
+			Assertions.assertEquals("hallo welt", rq.getBody().readUtf8());
+		}
+	}
+
+	@Test
+	@DisplayName("write local file to /foo.txt (not sent again after the response got lost)")
+	public void testWriteFromPathWithLostResponse(@TempDir Path tempDir) throws IOException {
+		server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+		server.enqueue(getInterceptedResponse(412, ""));
+		final var source = Files.writeString(tempDir.resolve("source.txt"), "hallo welt");
+
+		var e = Assertions.assertThrows(CloudProviderException.class, () -> Assertions.assertTimeoutPreemptively(timeout, () -> provider.write(CloudPath.of("/foo.txt"), false, source, Optional.empty(), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join()));
+
+		Assertions.assertFalse(e instanceof AlreadyExistsException);
+		Assertions.assertInstanceOf(IOException.class, e.getCause());
+		Assertions.assertEquals(3, server.getRequestCount());
+	}
+
 	@Test
 	@DisplayName("write to /foo.txt (try to set mod date)")
 	public void testWriteAndTrySetModDate() throws InterruptedException, IOException {
-		server.enqueue(getInterceptedResponse(404, ""));
 		server.enqueue(getInterceptedResponse(201, ""));
-		server.enqueue(getInterceptedResponse("item-write-response.xml"));
 
 		final var modDate = Instant.now().minus(Duration.ofDays(365));
 
@@ -207,12 +248,6 @@ public class WebDavCloudProviderTestIT {
 		Assertions.assertTimeoutPreemptively(timeout, () -> provider.write(CloudPath.of("/foo.txt"), false, inputStream, inputStream.available(), Optional.of(modDate), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
 
 		var rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
-		Assertions.assertEquals("PROPFIND", rq.getMethod());
-		Assertions.assertEquals("1", rq.getHeader("DEPTH"));
-		Assertions.assertEquals("/cloud/remote.php/webdav", rq.getPath());
-		Assertions.assertEquals(webDavRequestBody, rq.getBody().readUtf8());
-
-		rq = Assertions.assertTimeoutPreemptively(timeout, () -> server.takeRequest());
 		Assertions.assertEquals("PUT", rq.getMethod());
 		Assertions.assertEquals("/cloud/remote.php/webdav/foo.txt", rq.getPath());
 		Assertions.assertEquals(String.valueOf(modDate.getEpochSecond()), rq.getHeader("X-OC-Mtime"));
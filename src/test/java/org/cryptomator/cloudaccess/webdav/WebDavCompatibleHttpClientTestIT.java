@@ -0,0 +1,141 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class WebDavCompatibleHttpClientTestIT {
+
+	private static final String MAX_REQUESTS_PER_HOST_PROPERTY = "org.cryptomator.cloudaccess.webdav.maxRequestsPerHost";
+	private static final String MAX_RETRIES_PROPERTY = "org.cryptomator.cloudaccess.webdav.maxRetries";
+	private static final int REQUEST_COUNT = 24;
+	private static final long RESPONSE_DELAY_MILLIS = 100;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final Duration timeout = Duration.ofSeconds(10);
+
+	private MockWebServer server;
+	private URL baseUrl;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(RESPONSE_DELAY_MILLIS);
+				} finally {
+					inFlight.decrementAndGet();
+				}
+				return new MockResponse().setResponseCode(200);
+			}
+		});
+		server.start();
+		baseUrl = new URL("http", server.getHostName(), server.getPort(), "/cloud/remote.php/webdav");
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		System.clearProperty(MAX_REQUESTS_PER_HOST_PROPERTY);
+		System.clearProperty(MAX_RETRIES_PROPERTY);
+		server.shutdown();
+	}
+
+	@ParameterizedTest(name = "maxRequestsPerHost = {0}")
+	@DisplayName("concurrent requests are limited by configured maxRequestsPerHost")
+	@ValueSource(ints = {1, 4, 12})
+	public void testMaxRequestsPerHostLimitsConcurrency(int maxRequestsPerHost) {
+		System.setProperty(MAX_REQUESTS_PER_HOST_PROPERTY, String.valueOf(maxRequestsPerHost));
+		final var httpClient = new WebDavCompatibleHttpClient(WebDavCredential.from(baseUrl, "foo", "bar"), WebDavTransport.create());
+
+		final var responses = IntStream.range(0, REQUEST_COUNT) //
+				.mapToObj(i -> httpClient.executeAsync(new Request.Builder().get().url(baseUrl))) //
+				.collect(Collectors.toList());
+		Assertions.assertTimeoutPreemptively(timeout, () -> CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).join());
+		responses.forEach(response -> response.join().close());
+
+		Assertions.assertTrue(maxInFlight.get() <= maxRequestsPerHost, "max. " + maxInFlight.get() + " requests in flight");
+		Assertions.assertEquals(REQUEST_COUNT, responses.stream().map(CompletableFuture::join).mapToInt(Response::code).filter(code -> code == 200).count());
+	}
+
+	@Test
+	@DisplayName("clients sharing a transport reuse pooled connections")
+	public void testSharedTransportReusesConnections() throws InterruptedException {
+		final var transport = WebDavTransport.create();
+		final var httpClient1 = new WebDavCompatibleHttpClient(WebDavCredential.from(baseUrl, "foo", "bar"), transport);
+		final var httpClient2 = new WebDavCompatibleHttpClient(WebDavCredential.from(baseUrl, "baz", "qux"), transport);
+
+		Assertions.assertTimeoutPreemptively(timeout, () -> httpClient1.executeAsync(new Request.Builder().get().url(baseUrl)).join().close());
+		Assertions.assertTimeoutPreemptively(timeout, () -> httpClient2.executeAsync(new Request.Builder().get().url(baseUrl)).join().close());
+
+		Assertions.assertEquals(0, server.takeRequest().getSequenceNumber());
+		Assertions.assertEquals(1, server.takeRequest().getSequenceNumber());
+	}
+
+	@Test
+	@DisplayName("network timings are recorded per method")
+	public void testNetworkTimings() {
+		final var transport = WebDavTransport.create();
+		final var httpClient = new WebDavCompatibleHttpClient(WebDavCredential.from(baseUrl, "foo", "bar"), transport);
+
+		Assertions.assertTimeoutPreemptively(timeout, () -> httpClient.executeAsync(new Request.Builder().get().url(baseUrl)).join().close());
+		Assertions.assertTimeoutPreemptively(timeout, () -> httpClient.executeAsync(new Request.Builder().get().url(baseUrl)).join().close());
+		Assertions.assertTimeoutPreemptively(timeout, () -> httpClient.executeAsync(new Request.Builder().delete().url(baseUrl)).join().close());
+
+		final var timings = transport.getNetworkTimings().snapshot();
+		Assertions.assertEquals(Set.of("GET", "DELETE"), timings.keySet());
+		final var get = timings.get("GET");
+		Assertions.assertEquals(2, get.calls());
+		Assertions.assertEquals(0, get.failedCalls());
+		Assertions.assertEquals(1, get.reusedConnections());
+		Assertions.assertEquals(1, get.connect().count());
+		Assertions.assertEquals(0, get.tls().count());
+		Assertions.assertEquals(2, get.timeToFirstByte().count());
+		Assertions.assertTrue(get.total().max().compareTo(get.timeToFirstByte().max()) >= 0);
+		Assertions.assertEquals(1, timings.get("DELETE").calls());
+		Assertions.assertEquals(1, timings.get("DELETE").reusedConnections());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> timings.remove("GET"));
+	}
+
+	@Test
+	@DisplayName("calls failing before acquiring a connection are not recorded as reusing a connection")
+	public void testNetworkTimingsOfCallsWithoutConnection() throws MalformedURLException {
+		System.setProperty(MAX_RETRIES_PROPERTY, "0");
+		final var transport = WebDavTransport.create();
+		final var unknownHost = new URL("http", "unknown-host.invalid", server.getPort(), "/cloud/remote.php/webdav");
+		final var httpClient = new WebDavCompatibleHttpClient(WebDavCredential.from(unknownHost, "foo", "bar"), transport);
+
+		Assertions.assertThrows(CompletionException.class, () -> Assertions.assertTimeoutPreemptively(timeout, () -> httpClient.executeAsync(new Request.Builder().get().url(unknownHost)).join()));
+
+		final var get = transport.getNetworkTimings().snapshot().get("GET");
+		Assertions.assertEquals(1, get.calls());
+		Assertions.assertEquals(1, get.failedCalls());
+		Assertions.assertEquals(0, get.reusedConnections());
+		Assertions.assertEquals(0, get.connect().count());
+	}
+
+}
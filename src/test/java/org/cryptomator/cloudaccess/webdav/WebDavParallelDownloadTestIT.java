@@ -0,0 +1,200 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.ProgressListener;
+import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+public class WebDavParallelDownloadTestIT {
+
+	private static final String PARTS_PROPERTY = "org.cryptomator.cloudaccess.webdav.parallelDownloadParts";
+	private static final String PART_SIZE_PROPERTY = "org.cryptomator.cloudaccess.webdav.parallelDownloadPartSize";
+	private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+	private final byte[] content = new byte[100_000];
+	private final List<String> requestedRanges = new CopyOnWriteArrayList<>();
+	private volatile boolean ignoreRanges;
+	private volatile String missingRange;
+	private MockWebServer server;
+	private WebDavClient webDavClient;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		new Random(42l).nextBytes(content);
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				if ("PROPFIND".equals(request.getMethod())) {
+					return new MockResponse().setResponseCode(207).setBody(propfindResponse(request.getPath()));
+				}
+				var range = request.getHeader("Range");
+				requestedRanges.add(range);
+				var matcher = RANGE_PATTERN.matcher(range);
+				if (ignoreRanges || !matcher.matches()) {
+					return new MockResponse().setResponseCode(200).setBody(new Buffer().write(content));
+				}
+				if (missingRange != null) {
+					// the other parts are still being downloaded when the missing part fails
+					return range.equals(missingRange) ? new MockResponse().setResponseCode(404) : new MockResponse().setResponseCode(206).setBodyDelay(200, TimeUnit.MILLISECONDS).setBody(new Buffer().write(new byte[16384]));
+				}
+				var first = Integer.parseInt(matcher.group(1));
+				var last = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+				return new MockResponse().setResponseCode(206) //
+						.setHeader("Content-Range", String.format("bytes %d-%d/%d", first, last, content.length)) //
+						.setBody(new Buffer().write(Arrays.copyOfRange(content, first, last + 1)));
+			}
+		});
+		server.start();
+		System.setProperty(PARTS_PROPERTY, "3");
+		System.setProperty(PART_SIZE_PROPERTY, "16384");
+		var credential = WebDavCredential.from(new URL("http", server.getHostName(), server.getPort(), "/cloud/remote.php/webdav"), "foo", "bar");
+		webDavClient = new WebDavClient(new WebDavCompatibleHttpClient(credential, WebDavTransport.create()), credential, Optional.empty());
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		System.clearProperty(PARTS_PROPERTY);
+		System.clearProperty(PART_SIZE_PROPERTY);
+		server.shutdown();
+	}
+
+	private String propfindResponse(String href) {
+		return "<?xml version=\"1.0\"?>\n" //
+				+ "<d:multistatus xmlns:d=\"DAV:\">\n" //
+				+ "<d:response>\n" //
+				+ "<d:href>" + href + "</d:href>\n" //
+				+ "<d:propstat>\n" //
+				+ "<d:prop>\n" //
+				+ "<d:resourcetype/>\n" //
+				+ "<d:getcontentlength>" + content.length + "</d:getcontentlength>\n" //
+				+ "<d:getlastmodified>Wed, 19 Feb 2020 10:24:12 GMT</d:getlastmodified>\n" //
+				+ "</d:prop>\n" //
+				+ "<d:status>HTTP/1.1 200 OK</d:status>\n" //
+				+ "</d:propstat>\n" //
+				+ "</d:response>\n" //
+				+ "</d:multistatus>";
+	}
+
+	@Test
+	@DisplayName("read /foo.bin in parts")
+	public void testRead() throws IOException {
+		var progress = new AtomicLong();
+
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), value -> progress.accumulateAndGet(value, Math::max)).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, in.readAllBytes());
+		Assertions.assertEquals(7, requestedRanges.size());
+		Assertions.assertTrue(requestedRanges.contains("bytes=0-16383"));
+		Assertions.assertTrue(requestedRanges.contains("bytes=98304-99999"));
+		Assertions.assertEquals(content.length, progress.get());
+	}
+
+	@Test
+	@DisplayName("read /foo.bin (bytes 1000-49999) in parts")
+	public void testRandomAccessRead() throws IOException {
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), 1000, 49000, ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(Arrays.copyOfRange(content, 1000, 50000), in.readAllBytes());
+		Assertions.assertEquals(List.of("bytes=1000-17383", "bytes=17384-33767", "bytes=33768-49999"), requestedRanges.stream().sorted().toList());
+	}
+
+	@Test
+	@DisplayName("read small range of /foo.bin in a single request")
+	public void testSmallRangeRead() throws IOException {
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), 1000, 100, ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(Arrays.copyOfRange(content, 1000, 1100), in.readAllBytes());
+		Assertions.assertEquals(List.of("bytes=1000-1099"), requestedRanges);
+	}
+
+	@Test
+	@DisplayName("read /foo.bin in parts from server ignoring range requests")
+	public void testReadIgnoringRanges() throws IOException {
+		ignoreRanges = true;
+
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, in.readAllBytes());
+	}
+
+	@Test
+	@DisplayName("read /foo.bin to local file in parts")
+	public void testReadTo(@TempDir Path tempDir) throws IOException {
+		var target = tempDir.resolve("foo.bin");
+		var progress = new AtomicLong();
+
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.readTo(CloudPath.of("/foo.bin"), target, value -> progress.accumulateAndGet(value, Math::max)).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, Files.readAllBytes(target));
+		Assertions.assertEquals(7, requestedRanges.size());
+		Assertions.assertEquals(content.length, progress.get());
+	}
+
+	@Test
+	@DisplayName("read /foo.bin to local file in parts stops downloading the remaining parts once a part failed")
+	public void testReadToWithFailedPart(@TempDir Path tempDir) {
+		missingRange = "bytes=16384-32767";
+		var target = tempDir.resolve("foo.bin");
+
+		var e = Assertions.assertThrows(CompletionException.class, () -> Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.readTo(CloudPath.of("/foo.bin"), target, ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join()));
+
+		Assertions.assertInstanceOf(NotFoundException.class, e);
+		Assertions.assertEquals(List.of("bytes=0-16383", "bytes=16384-32767", "bytes=32768-49151"), requestedRanges.stream().sorted().toList());
+	}
+
+	@Test
+	@DisplayName("PROPFIND completes while throttled transfers occupy all slots of the host")
+	public void testItemMetadataWhileTransfersAreThrottled(@TempDir Path tempDir) throws MalformedURLException {
+		var executor = Executors.newCachedThreadPool();
+		try {
+			var credential = WebDavCredential.from(new URL("http", server.getHostName(), server.getPort(), "/cloud/remote.php/webdav"), "foo", "bar");
+			var throttledClient = new WebDavClient(new WebDavCompatibleHttpClient(credential, WebDavTransport.create(executor)), credential, Optional.empty());
+			throttledClient.getDownloadLimiter().setBytesPerSecond(1024);
+			for (int i = 0; i < 5; i++) {
+				throttledClient.readTo(CloudPath.of("/foo" + i + ".bin"), tempDir.resolve("foo" + i + ".bin"), ProgressListener.NO_PROGRESS_AWARE);
+			}
+			Assertions.assertTimeoutPreemptively(TIMEOUT, () -> {
+				while (requestedRanges.size() < 5) {
+					Thread.sleep(10);
+				}
+			});
+
+			var metadata = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> throttledClient.itemMetadata(CloudPath.of("/bar.bin")).toCompletableFuture().join());
+
+			Assertions.assertEquals(Optional.of((long) content.length), metadata.getSize());
+		} finally {
+			// interrupts the transfers waiting for bandwidth
+			executor.shutdownNow();
+		}
+	}
+
+}
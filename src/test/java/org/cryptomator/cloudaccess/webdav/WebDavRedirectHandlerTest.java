@@ -1,6 +1,7 @@
 package org.cryptomator.cloudaccess.webdav;
 
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Protocol;
@@ -10,6 +11,7 @@ import okhttp3.ResponseBody;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
@@ -17,6 +19,9 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 public class WebDavRedirectHandlerTest {
 
@@ -30,6 +35,7 @@ public class WebDavRedirectHandlerTest {
 
 	@BeforeEach
 	public void setUp() throws MalformedURLException {
+		Mockito.when(mockedOkHttpClient.newCall(ArgumentMatchers.any())).thenReturn(remoteCall);
 		webDavRedirectHandler = new WebDavRedirectHandler(mockedOkHttpClient);
 		baseUrl = new URL("https://www.nextcloud.com/cloud/remote.php/webdav");
 		redirectUrl = new URL("https://www.nextcloud.com/cloud/remote.php/webdav/redirected");
@@ -37,74 +43,192 @@ public class WebDavRedirectHandlerTest {
 	}
 
 	@Test
-	public void testRedirect() throws IOException {
+	public void testRedirect() {
 		final var request = new Request.Builder()
 				.url(baseUrl)
 				.build();
 
-		Mockito.when(remoteCall.execute())
-				.thenReturn(mockedRedirectResponse(baseUrl, 302))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 302))
-				.thenReturn(mockedRedirectResponse(targetUrl, 200));
-
-		Mockito.when(mockedOkHttpClient.newCall(ArgumentMatchers.any())).thenReturn(remoteCall);
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 302),
+				mockedRedirectResponse(redirectUrl, 302),
+				mockedRedirectResponse(targetUrl, 200));
 
-		final var response = webDavRedirectHandler.executeFollowingRedirects(request);
+		final var response = webDavRedirectHandler.executeFollowingRedirects(request).join();
 
 		Assertions.assertEquals(mockedRedirectResponse(targetUrl, 200).toString(), response.toString());
 	}
 
 	@Test
-	public void testRedirectWithoutLocationInHeaderLeadsToNoRedirect() throws IOException {
+	public void testRedirectWithoutLocationInHeaderLeadsToNoRedirect() {
 		final var request = new Request.Builder()
 				.url(baseUrl)
 				.build();
 
-		Mockito.when(remoteCall.execute())
-				.thenReturn(mockedRedirectResponse(baseUrl, 302, false))
-				.thenReturn(mockedRedirectResponse(targetUrl, 200));
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 302, false),
+				mockedRedirectResponse(targetUrl, 200));
 
-		Mockito.when(mockedOkHttpClient.newCall(ArgumentMatchers.any())).thenReturn(remoteCall);
-
-		final var response = webDavRedirectHandler.executeFollowingRedirects(request);
+		final var response = webDavRedirectHandler.executeFollowingRedirects(request).join();
 
 		Assertions.assertEquals(mockedRedirectResponse(baseUrl, 302).toString(), response.toString());
 	}
 
 	@Test
-	public void testTooManyRedirectsThrowsProtocolException() throws IOException {
+	public void testTooManyRedirectsThrowsProtocolException() {
 		final var request = new Request.Builder()
 				.url(baseUrl)
 				.build();
 
-		Mockito.when(remoteCall.execute())
-				.thenReturn(mockedRedirectResponse(baseUrl, 300))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 301))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 302))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 307))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 308))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 300))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 301))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 302))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 307))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 308))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 300))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 301))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 302))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 307))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 308))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 300))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 301))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 302))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 307))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 308))
-				.thenReturn(mockedRedirectResponse(redirectUrl, 300))
-				.thenReturn(mockedRedirectResponse(targetUrl, 200));
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 300),
+				mockedRedirectResponse(redirectUrl, 301),
+				mockedRedirectResponse(redirectUrl, 302),
+				mockedRedirectResponse(redirectUrl, 307),
+				mockedRedirectResponse(redirectUrl, 308),
+				mockedRedirectResponse(redirectUrl, 300),
+				mockedRedirectResponse(redirectUrl, 301),
+				mockedRedirectResponse(redirectUrl, 302),
+				mockedRedirectResponse(redirectUrl, 307),
+				mockedRedirectResponse(redirectUrl, 308),
+				mockedRedirectResponse(redirectUrl, 300),
+				mockedRedirectResponse(redirectUrl, 301),
+				mockedRedirectResponse(redirectUrl, 302),
+				mockedRedirectResponse(redirectUrl, 307),
+				mockedRedirectResponse(redirectUrl, 308),
+				mockedRedirectResponse(redirectUrl, 300),
+				mockedRedirectResponse(redirectUrl, 301),
+				mockedRedirectResponse(redirectUrl, 302),
+				mockedRedirectResponse(redirectUrl, 307),
+				mockedRedirectResponse(redirectUrl, 308),
+				mockedRedirectResponse(redirectUrl, 300),
+				mockedRedirectResponse(targetUrl, 200));
+
+		final var exception = Assertions.assertThrows(CompletionException.class, () -> webDavRedirectHandler.executeFollowingRedirects(request).join());
+		Assertions.assertInstanceOf(ProtocolException.class, exception.getCause());
+		Assertions.assertTrue(exception.getCause().getMessage().contains("Too many redirects: 21"));
+	}
+
+	@Test
+	public void testPermanentRedirectIsCached() {
+		final var statistics = new RedirectStatistics();
+		webDavRedirectHandler = new WebDavRedirectHandler(mockedOkHttpClient, statistics, new PermanentRedirectCache());
+		final var request = new Request.Builder()
+				.url(baseUrl)
+				.build();
 
-		Mockito.when(mockedOkHttpClient.newCall(ArgumentMatchers.any())).thenReturn(remoteCall);
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 301),
+				mockedRedirectResponse(redirectUrl, 200),
+				mockedRedirectResponse(redirectUrl, 200));
+
+		webDavRedirectHandler.executeFollowingRedirects(request).join();
+		final var response = webDavRedirectHandler.executeFollowingRedirects(request).join();
+
+		Assertions.assertEquals(200, response.code());
+		final var requests = ArgumentCaptor.forClass(Request.class);
+		Mockito.verify(mockedOkHttpClient, Mockito.times(3)).newCall(requests.capture());
+		Assertions.assertEquals(List.of(baseUrl.toString(), redirectUrl.toString(), redirectUrl.toString()), requests.getAllValues().stream().map(r -> r.url().toString()).toList());
+		Assertions.assertEquals(1, statistics.getRedirectsFollowed());
+		Assertions.assertEquals(1, statistics.getRedirectsAvoided());
+	}
+
+	@Test
+	public void testPermanentRedirectIsSharedWithOtherHandlers() {
+		final var otherOkHttpClient = Mockito.mock(OkHttpClient.class);
+		final var otherCall = Mockito.mock(Call.class);
+		Mockito.when(otherOkHttpClient.newCall(ArgumentMatchers.any())).thenReturn(otherCall);
+		final var permanentRedirects = new PermanentRedirectCache();
+		webDavRedirectHandler = new WebDavRedirectHandler(mockedOkHttpClient, new RedirectStatistics(), permanentRedirects);
+		final var otherRedirectHandler = new WebDavRedirectHandler(otherOkHttpClient, new RedirectStatistics(), permanentRedirects);
+		final var request = new Request.Builder()
+				.url(baseUrl)
+				.build();
+
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 301),
+				mockedRedirectResponse(redirectUrl, 200));
+		Mockito.doAnswer(invocation -> {
+			Callback callback = invocation.getArgument(0);
+			callback.onResponse(otherCall, mockedRedirectResponse(redirectUrl, 200));
+			return null;
+		}).when(otherCall).enqueue(ArgumentMatchers.any());
+
+		webDavRedirectHandler.executeFollowingRedirects(request).join();
+		otherRedirectHandler.executeFollowingRedirects(request).join();
+
+		final var requests = ArgumentCaptor.forClass(Request.class);
+		Mockito.verify(otherOkHttpClient).newCall(requests.capture());
+		Assertions.assertEquals(redirectUrl.toString(), requests.getValue().url().toString());
+	}
+
+	@Test
+	public void testTemporaryRedirectIsNotCached() {
+		final var request = new Request.Builder()
+				.url(baseUrl)
+				.build();
+
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 307),
+				mockedRedirectResponse(redirectUrl, 200),
+				mockedRedirectResponse(baseUrl, 200));
+
+		webDavRedirectHandler.executeFollowingRedirects(request).join();
+		webDavRedirectHandler.executeFollowingRedirects(request).join();
+
+		final var requests = ArgumentCaptor.forClass(Request.class);
+		Mockito.verify(mockedOkHttpClient, Mockito.times(3)).newCall(requests.capture());
+		Assertions.assertEquals(List.of(baseUrl.toString(), redirectUrl.toString(), baseUrl.toString()), requests.getAllValues().stream().map(r -> r.url().toString()).toList());
+	}
+
+	@Test
+	public void testCachedRedirectIsInvalidatedOnNotFound() {
+		final var statistics = new RedirectStatistics();
+		webDavRedirectHandler = new WebDavRedirectHandler(mockedOkHttpClient, statistics, new PermanentRedirectCache());
+		final var request = new Request.Builder()
+				.url(baseUrl)
+				.build();
+
+		enqueueResponses(
+				mockedRedirectResponse(baseUrl, 301),
+				mockedRedirectResponse(redirectUrl, 200),
+				mockedRedirectResponse(redirectUrl, 404),
+				mockedRedirectResponse(baseUrl, 200),
+				mockedRedirectResponse(baseUrl, 200));
+
+		webDavRedirectHandler.executeFollowingRedirects(request).join();
+		final var response = webDavRedirectHandler.executeFollowingRedirects(request).join();
+		webDavRedirectHandler.executeFollowingRedirects(request).join();
+
+		Assertions.assertEquals(200, response.code());
+		final var requests = ArgumentCaptor.forClass(Request.class);
+		Mockito.verify(mockedOkHttpClient, Mockito.times(5)).newCall(requests.capture());
+		Assertions.assertEquals(List.of(baseUrl.toString(), redirectUrl.toString(), redirectUrl.toString(), baseUrl.toString(), baseUrl.toString()), requests.getAllValues().stream().map(r -> r.url().toString()).toList());
+		Assertions.assertEquals(1, statistics.getInvalidations());
+	}
+
+	@Test
+	public void testFailedCallCompletesExceptionally() {
+		final var request = new Request.Builder()
+				.url(baseUrl)
+				.build();
+
+		Mockito.doAnswer(invocation -> {
+			Callback callback = invocation.getArgument(0);
+			callback.onFailure(remoteCall, new IOException("connection reset"));
+			return null;
+		}).when(remoteCall).enqueue(ArgumentMatchers.any());
+
+		final var exception = Assertions.assertThrows(CompletionException.class, () -> webDavRedirectHandler.executeFollowingRedirects(request).join());
+		Assertions.assertInstanceOf(IOException.class, exception.getCause());
+	}
 
-		final var exception = Assertions.assertThrows(ProtocolException.class, () -> webDavRedirectHandler.executeFollowingRedirects(request));
-		Assertions.assertTrue(exception.getMessage().contains("Too many redirects: 21"));
+	private void enqueueResponses(final Response... responses) {
+		final var queue = new ArrayDeque<>(List.of(responses));
+		Mockito.doAnswer(invocation -> {
+			Callback callback = invocation.getArgument(0);
+			callback.onResponse(remoteCall, queue.poll());
+			return null;
+		}).when(remoteCall).enqueue(ArgumentMatchers.any());
 	}
 
 	private Response mockedRedirectResponse(final URL url, int httpStatusCode) {
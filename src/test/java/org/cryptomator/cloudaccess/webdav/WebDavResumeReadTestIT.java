@@ -0,0 +1,148 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.ProgressListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+public class WebDavResumeReadTestIT {
+
+	private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d*)");
+	private static final String MAX_REQUESTS_PER_HOST_PROPERTY = "org.cryptomator.cloudaccess.webdav.maxRequestsPerHost";
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+	private final byte[] content = new byte[100_000];
+	private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+	private volatile String eTag = "\"v1\"";
+	private volatile int disconnects = 1;
+	private MockWebServer server;
+	private WebDavClient webDavClient;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		new Random(42l).nextBytes(content);
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				requests.add(request);
+				var range = RANGE_PATTERN.matcher(String.valueOf(request.getHeader("Range")));
+				MockResponse response;
+				var ifRange = request.getHeader("If-Range");
+				if (range.matches() && (ifRange == null || eTag.equals(ifRange))) {
+					var first = Integer.parseInt(range.group(1));
+					var last = range.group(2).isEmpty() ? content.length - 1 : Integer.parseInt(range.group(2));
+					response = new MockResponse().setResponseCode(206) //
+							.setHeader("Content-Range", String.format("bytes %d-%d/%d", first, last, content.length)) //
+							.setBody(new Buffer().write(Arrays.copyOfRange(content, first, last + 1)));
+				} else {
+					response = new MockResponse().setResponseCode(200).setBody(new Buffer().write(content));
+				}
+				if (disconnects > 0) {
+					disconnects--;
+					response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+				}
+				return response.setHeader("ETag", eTag);
+			}
+		});
+		server.start();
+		var credential = WebDavCredential.from(new URL("http", server.getHostName(), server.getPort(), "/cloud/remote.php/webdav"), "foo", "bar");
+		webDavClient = new WebDavClient(new WebDavCompatibleHttpClient(credential, WebDavTransport.create()), credential, Optional.empty());
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		server.shutdown();
+	}
+
+	@Test
+	@DisplayName("read /foo.bin resumes after the connection dropped")
+	public void testResume() throws IOException {
+		disconnects = 2;
+
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, in.readAllBytes());
+		Assertions.assertEquals(3, requests.size());
+		Assertions.assertNull(requests.get(0).getHeader("Range"));
+		Assertions.assertTrue(requests.get(1).getHeader("Range").matches("bytes=\\d+-"));
+		Assertions.assertEquals("\"v1\"", requests.get(1).getHeader("If-Range"));
+	}
+
+	@Test
+	@DisplayName("read /foo.bin (bytes 1000-49999) resumes within the requested range")
+	public void testResumeRange() throws IOException {
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), 1000, 49000, ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(Arrays.copyOfRange(content, 1000, 50000), in.readAllBytes());
+		Assertions.assertEquals(2, requests.size());
+		Assertions.assertTrue(requests.get(1).getHeader("Range").matches("bytes=\\d+-49999"));
+	}
+
+	@Test
+	@DisplayName("read /foo.bin resumes while consumed by a dependent stage, even if only one request per host is allowed")
+	public void testResumeInDependentStage() throws IOException {
+		System.setProperty(MAX_REQUESTS_PER_HOST_PROPERTY, "1");
+		try {
+			var credential = WebDavCredential.from(new URL("http", server.getHostName(), server.getPort(), "/cloud/remote.php/webdav"), "foo", "bar");
+			webDavClient = new WebDavClient(new WebDavCompatibleHttpClient(credential, WebDavTransport.create()), credential, Optional.empty());
+		} finally {
+			System.clearProperty(MAX_REQUESTS_PER_HOST_PROPERTY);
+		}
+
+		var read = webDavClient.read(CloudPath.of("/foo.bin"), ProgressListener.NO_PROGRESS_AWARE).thenApply(in -> {
+			try (in) {
+				return in.readAllBytes();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		var bytes = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> read.toCompletableFuture().join());
+
+		Assertions.assertArrayEquals(content, bytes);
+		Assertions.assertEquals(2, requests.size());
+	}
+
+	@Test
+	@DisplayName("read /foo.bin fails if the file changed before resuming")
+	public void testResumeChangedFile() {
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+		eTag = "\"v2\"";
+
+		var e = Assertions.assertThrows(IOException.class, in::readAllBytes);
+		Assertions.assertTrue(e.getMessage().contains("changed"));
+		Assertions.assertEquals(2, requests.size());
+	}
+
+	@Test
+	@DisplayName("read /foo.bin fails after too many dropped connections")
+	public void testMaxResumes() {
+		disconnects = 5;
+
+		var in = Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.read(CloudPath.of("/foo.bin"), ProgressListener.NO_PROGRESS_AWARE).toCompletableFuture().join());
+
+		Assertions.assertThrows(IOException.class, in::readAllBytes);
+		Assertions.assertEquals(4, requests.size());
+	}
+
+}
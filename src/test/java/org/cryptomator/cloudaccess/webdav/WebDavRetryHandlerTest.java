@@ -0,0 +1,252 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class WebDavRetryHandlerTest {
+
+	private final Queue<Object> outcomes = new ArrayDeque<>();
+	private final List<Request> executedRequests = new ArrayList<>();
+	private RetryStatistics statistics;
+	private WebDavRetryHandler retryHandler;
+
+	@BeforeEach
+	public void setUp() {
+		statistics = new RetryStatistics();
+		retryHandler = new WebDavRetryHandler(this::executeNextOutcome, 3, 1, 10, Duration.ofSeconds(10), statistics);
+	}
+
+	@Test
+	@DisplayName("GET is retried after 503 until it succeeds")
+	public void testRetryAfterServiceUnavailable() {
+		enqueueOutcomes(response(503), response(503), response(200));
+
+		final var response = retryHandler.execute(request("GET")).join();
+
+		Assertions.assertEquals(200, response.code());
+		Assertions.assertEquals(3, executedRequests.size());
+		Assertions.assertEquals(2, statistics.getRetries());
+		Assertions.assertEquals(1, statistics.getRecoveredRequests());
+	}
+
+	@Test
+	@DisplayName("GET is retried after I/O error")
+	public void testRetryAfterIOException() {
+		enqueueOutcomes(new SocketTimeoutException("timeout"), response(200));
+
+		final var response = retryHandler.execute(request("GET")).join();
+
+		Assertions.assertEquals(200, response.code());
+		Assertions.assertEquals(2, executedRequests.size());
+	}
+
+	@Test
+	@DisplayName("last response is returned after max retries")
+	public void testExhaustedRetriesReturnLastResponse() {
+		enqueueOutcomes(response(502), response(502), response(502), response(504));
+
+		final var response = retryHandler.execute(request("PROPFIND")).join();
+
+		Assertions.assertEquals(504, response.code());
+		Assertions.assertEquals(4, executedRequests.size());
+		Assertions.assertEquals(3, statistics.getRetries());
+		Assertions.assertEquals(1, statistics.getExhaustedRequests());
+		Assertions.assertEquals(0, statistics.getRecoveredRequests());
+	}
+
+	@Test
+	@DisplayName("last exception is passed on after max retries")
+	public void testExhaustedRetriesPassOnLastException() {
+		final var lastException = new IOException("connection reset");
+		enqueueOutcomes(new IOException("connection reset"), new IOException("connection reset"), new IOException("connection reset"), lastException);
+
+		final var thrown = Assertions.assertThrows(CompletionException.class, () -> retryHandler.execute(request("DELETE")).join());
+
+		Assertions.assertSame(lastException, thrown.getCause());
+		Assertions.assertEquals(4, executedRequests.size());
+	}
+
+	@ParameterizedTest
+	@DisplayName("non-idempotent methods are not retried after 502 or I/O errors")
+	@ValueSource(strings = {"MKCOL", "MOVE", "COPY"})
+	public void testNoRetryOfNonIdempotentMethods(String method) {
+		enqueueOutcomes(response(502));
+
+		final var response = retryHandler.execute(request(method)).join();
+
+		Assertions.assertEquals(502, response.code());
+
+		enqueueOutcomes(new SocketTimeoutException("timeout"));
+
+		Assertions.assertThrows(CompletionException.class, () -> retryHandler.execute(request(method)).join());
+		Assertions.assertEquals(2, executedRequests.size());
+		Assertions.assertEquals(0, statistics.getRetries());
+	}
+
+	@ParameterizedTest
+	@DisplayName("conditional writes are not retried after 502 or I/O errors")
+	@ValueSource(strings = {"If-Match", "If-None-Match"})
+	public void testNoRetryOfConditionalWrites(String header) {
+		enqueueOutcomes(response(502));
+
+		final var response = retryHandler.execute(conditionalPut(header)).join();
+
+		Assertions.assertEquals(502, response.code());
+
+		enqueueOutcomes(new SocketTimeoutException("timeout"));
+
+		Assertions.assertThrows(CompletionException.class, () -> retryHandler.execute(request("DELETE").newBuilder().header(header, "*").build()).join());
+		Assertions.assertEquals(2, executedRequests.size());
+		Assertions.assertEquals(0, statistics.getRetries());
+	}
+
+	@Test
+	@DisplayName("conditional writes are retried if the server did not process them")
+	public void testRetryOfConditionalWritesIfNotProcessed() {
+		enqueueOutcomes(new ConnectException("connection refused"), response(503), response(201));
+
+		final var response = retryHandler.execute(conditionalPut("If-None-Match")).join();
+
+		Assertions.assertEquals(201, response.code());
+		Assertions.assertEquals(3, executedRequests.size());
+	}
+
+	@ParameterizedTest
+	@DisplayName("non-idempotent methods are retried if the server did not process them")
+	@ValueSource(strings = {"MKCOL", "MOVE", "COPY"})
+	public void testRetryOfNonIdempotentMethodsIfNotProcessed(String method) {
+		enqueueOutcomes(new ConnectException("connection refused"), response(429), response(201));
+
+		final var response = retryHandler.execute(request(method)).join();
+
+		Assertions.assertEquals(201, response.code());
+		Assertions.assertEquals(3, executedRequests.size());
+	}
+
+	@Test
+	@DisplayName("requests with one-shot body are not retried")
+	public void testNoRetryOfOneShotBody() {
+		enqueueOutcomes(response(503));
+		final var body = InputStreamRequestBody.from(new ByteArrayInputStream(new byte[10]), 10);
+		final var request = new Request.Builder().url("https://www.nextcloud.com/cloud/remote.php/webdav/foo.txt").put(body).build();
+
+		final var response = retryHandler.execute(request).join();
+
+		Assertions.assertEquals(503, response.code());
+		Assertions.assertEquals(1, executedRequests.size());
+	}
+
+	@Test
+	@DisplayName("requests with replayable body are retried")
+	public void testRetryOfReplayableBody() {
+		enqueueOutcomes(response(503), response(201));
+		final var body = RequestBody.create(new byte[10], MediaType.parse("application/octet-stream"));
+		final var request = new Request.Builder().url("https://www.nextcloud.com/cloud/remote.php/webdav/foo.txt").put(body).build();
+
+		final var response = retryHandler.execute(request).join();
+
+		Assertions.assertEquals(201, response.code());
+		Assertions.assertEquals(2, executedRequests.size());
+	}
+
+	@Test
+	@DisplayName("Retry-After beyond time budget is not waited for")
+	public void testRetryAfterExceedingBudget() {
+		enqueueOutcomes(response(503, "60"));
+		retryHandler = new WebDavRetryHandler(this::executeNextOutcome, 3, 1, 10, Duration.ofSeconds(5), statistics);
+
+		final var response = retryHandler.execute(request("GET")).join();
+
+		Assertions.assertEquals(503, response.code());
+		Assertions.assertEquals(1, executedRequests.size());
+		Assertions.assertEquals(1, statistics.getBudgetExceededRequests());
+	}
+
+	@Test
+	@DisplayName("Retry-After is parsed from seconds and HTTP dates")
+	public void testRetryAfterMillis() {
+		Assertions.assertEquals(0, WebDavRetryHandler.retryAfterMillis(response(503)));
+		Assertions.assertEquals(120_000, WebDavRetryHandler.retryAfterMillis(response(503, "120")));
+		Assertions.assertEquals(0, WebDavRetryHandler.retryAfterMillis(response(503, "Wed, 19 Feb 2020 10:24:12 GMT")));
+		Assertions.assertEquals(0, WebDavRetryHandler.retryAfterMillis(response(503, "soon")));
+		Assertions.assertTrue(WebDavRetryHandler.retryAfterMillis(response(503, "Fri, 01 Jan 2100 00:00:00 GMT")) > 0);
+	}
+
+	@Test
+	@DisplayName("other status codes are not retried")
+	public void testNoRetryOfOtherStatusCodes() {
+		enqueueOutcomes(response(500));
+
+		final var response = retryHandler.execute(request("GET")).join();
+
+		Assertions.assertEquals(500, response.code());
+		Assertions.assertEquals(1, executedRequests.size());
+		Assertions.assertEquals(0, statistics.getRecoveredRequests());
+	}
+
+	private void enqueueOutcomes(Object... outcomes) {
+		this.outcomes.addAll(List.of(outcomes));
+	}
+
+	private CompletableFuture<Response> executeNextOutcome(Request request) {
+		executedRequests.add(request);
+		final var outcome = outcomes.remove();
+		if (outcome instanceof Throwable) {
+			return CompletableFuture.failedFuture((Throwable) outcome);
+		} else {
+			return CompletableFuture.completedFuture((Response) outcome);
+		}
+	}
+
+	private Request conditionalPut(String header) {
+		final var body = RequestBody.create(new byte[10], MediaType.parse("application/octet-stream"));
+		return new Request.Builder().url("https://www.nextcloud.com/cloud/remote.php/webdav/foo.txt").put(body).header(header, "*").build();
+	}
+
+	private Request request(String method) {
+		return new Request.Builder() //
+				.url("https://www.nextcloud.com/cloud/remote.php/webdav/foo") //
+				.method(method, null) //
+				.build();
+	}
+
+	private Response response(int code) {
+		return responseBuilder(code).build();
+	}
+
+	private Response response(int code, String retryAfter) {
+		return responseBuilder(code).header("Retry-After", retryAfter).build();
+	}
+
+	private Response.Builder responseBuilder(int code) {
+		return new Response.Builder() //
+				.request(request("GET")) //
+				.protocol(Protocol.HTTP_1_1) //
+				.code(code) //
+				.message("") //
+				.body(ResponseBody.create("", MediaType.parse("text/plain")));
+	}
+
+}
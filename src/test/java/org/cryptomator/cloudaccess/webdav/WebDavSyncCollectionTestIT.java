@@ -0,0 +1,223 @@
+package org.cryptomator.cloudaccess.webdav;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.cryptomator.cloudaccess.api.CloudPath;
+import org.cryptomator.cloudaccess.api.exceptions.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class WebDavSyncCollectionTestIT {
+
+	private static final String SYNC_COLLECTION_PROPERTY = "org.cryptomator.cloudaccess.webdav.syncCollection";
+	private static final String FILES_PATH = "/remote.php/dav/files/user";
+	private static final String SYNC_TOKEN_PREFIX = "http://sabre.io/ns/sync/";
+	private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+	// emulated remote tree: file name -> size, as well as the name of the file changed after each sync-token
+	private final Map<String, Long> files = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListMap<Integer, String> changes = new ConcurrentSkipListMap<>();
+	private final List<String> requests = new CopyOnWriteArrayList<>();
+	private volatile int syncToken = 42;
+	private volatile int oldestValidSyncToken = 0;
+	private volatile boolean syncCollectionSupported = true;
+	private volatile String rootETag = "\"root-1\"";
+	private MockWebServer server;
+	private WebDavClient webDavClient;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		files.put("foo.txt", 100L);
+		files.put("baz.txt", 300L);
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return handle(request);
+			}
+		});
+		server.start();
+		System.setProperty(SYNC_COLLECTION_PROPERTY, "true");
+		var credential = WebDavCredential.from(new URL("http", server.getHostName(), server.getPort(), FILES_PATH), "foo", "bar");
+		webDavClient = new WebDavClient(WebDavTransport.create(), credential);
+		requests.clear();
+	}
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		System.clearProperty(SYNC_COLLECTION_PROPERTY);
+		server.shutdown();
+	}
+
+	// emulates the sync-collection support of Nextcloud
+	private MockResponse handle(RecordedRequest request) {
+		var body = request.getBody().readUtf8();
+		switch (request.getMethod()) {
+			case "OPTIONS":
+				return new MockResponse().setResponseCode(200).setHeader("DAV", "1, 3");
+			case "PROPFIND":
+				if (body.contains("sync-token")) {
+					requests.add("PROPFIND sync-token");
+					var status = syncCollectionSupported ? "200 OK" : "404 Not Found";
+					var token = syncCollectionSupported ? SYNC_TOKEN_PREFIX + syncToken : "";
+					return multistatus("<d:response><d:href>" + FILES_PATH + "/</d:href><d:propstat><d:prop><d:sync-token>" + token + "</d:sync-token></d:prop><d:status>HTTP/1.1 " + status + "</d:status></d:propstat></d:response>");
+				}
+				requests.add("PROPFIND " + request.getHeader("Depth"));
+				var listing = new StringBuilder(entry("/", "<d:collection/>", rootETag));
+				if ("1".equals(request.getHeader("Depth"))) {
+					new TreeMap<>(files).forEach((name, size) -> listing.append(entry("/" + name, "", "\"" + name + "-" + size + "\"", size)));
+				}
+				return multistatus(listing.toString());
+			case "REPORT":
+				var token = Integer.parseInt(body.substring(body.indexOf(SYNC_TOKEN_PREFIX) + SYNC_TOKEN_PREFIX.length(), body.indexOf("</d:sync-token>")));
+				requests.add("REPORT " + token);
+				if (!syncCollectionSupported) {
+					return new MockResponse().setResponseCode(501);
+				} else if (token < oldestValidSyncToken) {
+					return new MockResponse().setResponseCode(403).setBody("<?xml version=\"1.0\"?>\n<d:error xmlns:d=\"DAV:\"><d:valid-sync-token/></d:error>");
+				}
+				var delta = new StringBuilder();
+				for (var name : new LinkedHashSet<>(changes.tailMap(token).values())) {
+					var size = files.get(name);
+					if (size != null) {
+						delta.append(entry("/" + name, "", "\"" + name + "-" + size + "\"", size));
+					} else {
+						delta.append("<d:response><d:href>").append(FILES_PATH).append('/').append(name).append("</d:href><d:status>HTTP/1.1 404 Not Found</d:status></d:response>");
+					}
+				}
+				return multistatus(delta.append("<d:sync-token>").append(SYNC_TOKEN_PREFIX).append(syncToken).append("</d:sync-token>").toString());
+			default:
+				return new MockResponse().setResponseCode(405);
+		}
+	}
+
+	private String entry(String path, String resourceType, String eTag, long size) {
+		return "<d:response><d:href>" + FILES_PATH + path + "</d:href><d:propstat><d:prop><d:resourcetype>" + resourceType + "</d:resourcetype>" //
+				+ "<d:getcontentlength>" + size + "</d:getcontentlength><d:getetag>" + eTag + "</d:getetag></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>";
+	}
+
+	private String entry(String path, String resourceType, String eTag) {
+		return "<d:response><d:href>" + FILES_PATH + path + "</d:href><d:propstat><d:prop><d:resourcetype>" + resourceType + "</d:resourcetype>" //
+				+ "<d:getetag>" + eTag + "</d:getetag></d:prop><d:status>HTTP/1.1 200 OK</d:status></d:propstat></d:response>";
+	}
+
+	private MockResponse multistatus(String responses) {
+		return new MockResponse().setResponseCode(207).setBody("<?xml version=\"1.0\"?>\n<d:multistatus xmlns:d=\"DAV:\">" + responses + "</d:multistatus>");
+	}
+
+	// emulates a remote change, which is reported by the REPORT using the previous token
+	private void changeRemotely(String name, Long size) {
+		if (size == null) {
+			files.remove(name);
+		} else {
+			files.put(name, size);
+		}
+		changes.put(syncToken, name);
+		rootETag = "\"root-" + (syncToken + 1) + "\"";
+		syncToken++;
+	}
+
+	private void pollRemoteChanges() {
+		Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.pollRemoteChanges().toCompletableFuture().join());
+	}
+
+	private Optional<Long> cachedSize(String name) {
+		return Assertions.assertTimeoutPreemptively(TIMEOUT, () -> webDavClient.itemMetadata(CloudPath.of("/" + name)).toCompletableFuture().join().getSize());
+	}
+
+	@Test
+	@DisplayName("first poll obtains a sync-token, later polls apply the changes reported by a single REPORT")
+	public void testPollUsingSyncCollection() {
+		Assertions.assertEquals(Optional.of(100L), cachedSize("foo.txt"));
+		pollRemoteChanges();
+		Assertions.assertEquals(List.of("PROPFIND 1", "PROPFIND sync-token", "PROPFIND 0"), requests);
+		requests.clear();
+
+		changeRemotely("foo.txt", 200L);
+		changeRemotely("bar.txt", 400L);
+		changeRemotely("baz.txt", null);
+		pollRemoteChanges();
+
+		Assertions.assertEquals(List.of("REPORT 42", "PROPFIND 0"), requests);
+		Assertions.assertEquals(Optional.of(200L), cachedSize("foo.txt"));
+		Assertions.assertEquals(Optional.of(400L), cachedSize("bar.txt"));
+		var e = Assertions.assertThrows(CompletionException.class, () -> webDavClient.itemMetadata(CloudPath.of("/baz.txt")).toCompletableFuture().join());
+		Assertions.assertInstanceOf(NotFoundException.class, e);
+		Assertions.assertEquals(List.of("REPORT 42", "PROPFIND 0"), requests, "metadata must be served from the cache");
+
+		pollRemoteChanges();
+		Assertions.assertEquals(List.of("REPORT 42", "PROPFIND 0", "REPORT 45"), requests);
+	}
+
+	@Test
+	@DisplayName("rejected sync-token after applying changes doesn't walk the unchanged tree")
+	public void testPollWithRejectedSyncTokenAfterChanges() {
+		Assertions.assertEquals(Optional.of(100L), cachedSize("foo.txt"));
+		pollRemoteChanges();
+		changeRemotely("foo.txt", 200L);
+		pollRemoteChanges();
+		requests.clear();
+
+		oldestValidSyncToken = syncToken + 1;
+		pollRemoteChanges();
+
+		Assertions.assertEquals(List.of("REPORT 43", "PROPFIND sync-token", "PROPFIND 0"), requests);
+		Assertions.assertEquals(Optional.of(200L), cachedSize("foo.txt"));
+	}
+
+	@Test
+	@DisplayName("rejected sync-token falls back to comparing ETags and obtains a new token")
+	public void testPollWithRejectedSyncToken() {
+		Assertions.assertEquals(Optional.of(100L), cachedSize("foo.txt"));
+		pollRemoteChanges();
+		requests.clear();
+
+		changeRemotely("foo.txt", 200L);
+		oldestValidSyncToken = syncToken;
+		pollRemoteChanges();
+
+		Assertions.assertEquals(List.of("REPORT 42", "PROPFIND sync-token", "PROPFIND 0", "PROPFIND 1"), requests);
+		Assertions.assertEquals(Optional.of(200L), cachedSize("foo.txt"));
+		requests.clear();
+
+		changeRemotely("foo.txt", 300L);
+		pollRemoteChanges();
+
+		Assertions.assertEquals(List.of("REPORT 43", "PROPFIND 0"), requests);
+		Assertions.assertEquals(Optional.of(300L), cachedSize("foo.txt"));
+	}
+
+	@Test
+	@DisplayName("servers without sync-token are polled by comparing ETags only")
+	public void testPollWithoutSyncCollectionSupport() {
+		syncCollectionSupported = false;
+		Assertions.assertEquals(Optional.of(100L), cachedSize("foo.txt"));
+		pollRemoteChanges();
+		requests.clear();
+
+		changeRemotely("foo.txt", 200L);
+		pollRemoteChanges();
+
+		Assertions.assertEquals(List.of("PROPFIND 0", "PROPFIND 1"), requests);
+		Assertions.assertEquals(Optional.of(200L), cachedSize("foo.txt"));
+	}
+
+}